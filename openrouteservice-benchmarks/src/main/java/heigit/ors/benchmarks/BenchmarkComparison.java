@@ -0,0 +1,101 @@
+/*  This file is part of Openrouteservice.
+ *
+ *  Openrouteservice is free software; you can redistribute it and/or modify it under the terms of the
+ *  GNU Lesser General Public License as published by the Free Software Foundation; either version 2.1
+ *  of the License, or (at your option) any later version.
+
+ *  This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ *  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *  See the GNU Lesser General Public License for more details.
+
+ *  You should have received a copy of the GNU Lesser General Public License along with this library;
+ *  if not, see <https://www.gnu.org/licenses/>.
+ */
+package heigit.ors.benchmarks;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+/**
+ * Compares two JMH result files written with <code>-rf json</code> and lists the change of every benchmark which
+ * is part of both. Exits with status 1 if a benchmark got slower by more than the threshold, so it can be used to
+ * fail a build.
+ *
+ * Usage: <code>BenchmarkComparison baseline.json current.json [threshold in percent, default 10]</code>
+ */
+public class BenchmarkComparison {
+	public static void main(String[] args) throws IOException {
+		if (args.length < 2) {
+			System.err.println("Usage: BenchmarkComparison <baseline.json> <current.json> [threshold in percent]");
+			System.exit(2);
+		}
+
+		double threshold = args.length > 2 ? Double.parseDouble(args[2]) : 10.0;
+		Map<String, JSONObject> baseline = readResults(args[0]);
+		Map<String, JSONObject> current = readResults(args[1]);
+
+		int regressions = 0;
+		for (Map.Entry<String, JSONObject> entry : current.entrySet()) {
+			JSONObject before = baseline.get(entry.getKey());
+			if (before == null) {
+				System.out.println(String.format("  NEW  %s", entry.getKey()));
+				continue;
+			}
+
+			double oldScore = before.getJSONObject("primaryMetric").getDouble("score");
+			double newScore = entry.getValue().getJSONObject("primaryMetric").getDouble("score");
+			String unit = entry.getValue().getJSONObject("primaryMetric").getString("scoreUnit");
+
+			// The throughput is better if higher, all other modes measure a time.
+			double change = 100.0 * (newScore - oldScore) / oldScore;
+			double slowdown = "thrpt".equals(entry.getValue().getString("mode")) ? -change : change;
+			boolean regression = slowdown > threshold;
+			if (regression)
+				regressions++;
+
+			System.out.println(String.format("%s %s: %.3f -> %.3f %s (%+.1f%%)", regression ? "SLOWER" : "    OK", entry.getKey(), oldScore, newScore, unit, change));
+		}
+
+		System.out.println(String.format("%d of %d benchmarks are more than %.1f%% slower than the baseline.", regressions, current.size(), threshold));
+		if (regressions > 0)
+			System.exit(1);
+	}
+
+	/**
+	 * @return	The results keyed by the benchmark name and its parameters
+	 */
+	private static Map<String, JSONObject> readResults(String file) throws IOException {
+		JSONArray results = new JSONArray(new String(Files.readAllBytes(Paths.get(file)), StandardCharsets.UTF_8));
+		Map<String, JSONObject> map = new LinkedHashMap<String, JSONObject>();
+
+		for (int i = 0; i < results.length(); i++) {
+			JSONObject result = results.getJSONObject(i);
+			StringBuilder key = new StringBuilder(result.getString("benchmark"));
+
+			JSONObject params = result.optJSONObject("params");
+			if (params != null) {
+				// sorted, so that the key does not depend on the order in the file
+				Map<String, String> sortedParams = new TreeMap<String, String>();
+				Iterator<String> names = params.keys();
+				while (names.hasNext()) {
+					String name = names.next();
+					sortedParams.put(name, params.getString(name));
+				}
+				key.append(sortedParams);
+			}
+
+			map.put(key.toString(), result);
+		}
+
+		return map;
+	}
+}
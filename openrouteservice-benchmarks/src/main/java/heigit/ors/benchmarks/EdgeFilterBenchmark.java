@@ -0,0 +1,101 @@
+/*  This file is part of Openrouteservice.
+ *
+ *  Openrouteservice is free software; you can redistribute it and/or modify it under the terms of the
+ *  GNU Lesser General Public License as published by the Free Software Foundation; either version 2.1
+ *  of the License, or (at your option) any later version.
+
+ *  This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ *  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *  See the GNU Lesser General Public License for more details.
+
+ *  You should have received a copy of the GNU Lesser General Public License along with this library;
+ *  if not, see <https://www.gnu.org/licenses/>.
+ */
+package heigit.ors.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.graphhopper.routing.util.AllEdgesIterator;
+import com.graphhopper.routing.util.EdgeFilter;
+import com.graphhopper.storage.GraphHopperStorage;
+
+import heigit.ors.routing.AvoidFeatureFlags;
+import heigit.ors.routing.RouteSearchParameters;
+import heigit.ors.routing.RoutingProfileType;
+import heigit.ors.routing.graphhopper.extensions.ORSGraphHopper;
+import heigit.ors.routing.graphhopper.extensions.edgefilters.AvoidAreasEdgeFilter;
+import heigit.ors.routing.graphhopper.extensions.edgefilters.AvoidBordersEdgeFilter;
+import heigit.ors.routing.graphhopper.extensions.edgefilters.AvoidFeaturesEdgeFilter;
+import heigit.ors.routing.pathprocessors.BordersExtractor;
+
+/**
+ * Measures the edge filters of the avoid options in isolation. <code>createFilter</code> is the work done once per
+ * request, e.g. the pre-pass of {@link AvoidAreasEdgeFilter}, and <code>acceptAllEdges</code> runs the filter over
+ * every edge of the graph, which is an upper bound of what a search explores.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 10, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class EdgeFilterBenchmark {
+	@Param({ "avoid_areas_1", "avoid_areas_10", "avoid_areas_100", "avoid_features", "avoid_borders" })
+	public String filter;
+
+	private ORSGraphHopper _gh;
+	private EdgeFilter _edgeFilter;
+
+	@Setup(Level.Trial)
+	public void prepare(HeidelbergGraph graph) throws Exception {
+		_gh = graph.getCarProfile().getGraphhopper();
+		_edgeFilter = createFilter();
+	}
+
+	@Benchmark
+	public EdgeFilter createFilter() throws Exception {
+		GraphHopperStorage graphStorage = _gh.getGraphHopperStorage();
+		RouteSearchParameters searchParams = HeidelbergGraph.createCarSearchParameters();
+
+		switch (filter) {
+		case "avoid_areas_1":
+			return new AvoidAreasEdgeFilter(RoutingBenchmark.createAvoidAreas(1, 0.002, 7), graphStorage, _gh.getLocationIndex());
+		case "avoid_areas_10":
+			return new AvoidAreasEdgeFilter(RoutingBenchmark.createAvoidAreas(10, 0.002, 7), graphStorage, _gh.getLocationIndex());
+		case "avoid_areas_100":
+			return new AvoidAreasEdgeFilter(RoutingBenchmark.createAvoidAreas(100, 0.002, 7), graphStorage, _gh.getLocationIndex());
+		case "avoid_features":
+			searchParams.setAvoidFeatureTypes(AvoidFeatureFlags.Highways | AvoidFeatureFlags.Tollways);
+			return new AvoidFeaturesEdgeFilter(RoutingProfileType.DRIVING_CAR, searchParams, _gh.getExtendedStorages());
+		case "avoid_borders":
+			searchParams.setAvoidBorders(BordersExtractor.Avoid.ALL);
+			return new AvoidBordersEdgeFilter(searchParams, graphStorage);
+		default:
+			throw new IllegalArgumentException("Unknown filter '" + filter + "'.");
+		}
+	}
+
+	@Benchmark
+	public int acceptAllEdges() {
+		int accepted = 0;
+		AllEdgesIterator iter = _gh.getGraphHopperStorage().getAllEdges();
+		while (iter.next()) {
+			if (_edgeFilter.accept(iter))
+				accepted++;
+		}
+		return accepted;
+	}
+}
@@ -0,0 +1,164 @@
+/*  This file is part of Openrouteservice.
+ *
+ *  Openrouteservice is free software; you can redistribute it and/or modify it under the terms of the
+ *  GNU Lesser General Public License as published by the Free Software Foundation; either version 2.1
+ *  of the License, or (at your option) any later version.
+
+ *  This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ *  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *  See the GNU Lesser General Public License for more details.
+
+ *  You should have received a copy of the GNU Lesser General Public License along with this library;
+ *  if not, see <https://www.gnu.org/licenses/>.
+ */
+package heigit.ors.benchmarks;
+
+import java.util.Arrays;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import heigit.ors.routing.algorithms.IndexedMinHeap;
+
+/**
+ * Compares {@link IndexedMinHeap} with the {@link PriorityQueue} it replaced in the RPHAST and Dijkstra searches.
+ * Both run the same Dijkstra search on a random graph, the queue changes a key by removing and re-adding the entry.
+ * The searches on the real graph are covered by {@link MatrixBenchmark}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class HeapBenchmark {
+	private static final int DEGREE = 3;
+
+	@Param({ "1000", "10000" })
+	public int nodes;
+
+	private int[] _adjNodes;
+	private double[] _weights;
+	private double[] _distances;
+	private boolean[] _settled;
+	private IndexedMinHeap _heap;
+	private Entry[] _entries;
+	private PriorityQueue<Entry> _queue;
+
+	@Setup(Level.Trial)
+	public void createGraph() {
+		Random random = new Random(42);
+		_adjNodes = new int[nodes * DEGREE];
+		_weights = new double[nodes * DEGREE];
+		for (int i = 0; i < _adjNodes.length; i++) {
+			_adjNodes[i] = random.nextInt(nodes);
+			_weights[i] = 1 + random.nextDouble() * 100;
+		}
+
+		_distances = new double[nodes];
+		_settled = new boolean[nodes];
+		_heap = new IndexedMinHeap(nodes);
+		_entries = new Entry[nodes];
+		_queue = new PriorityQueue<Entry>(nodes);
+	}
+
+	private void reset() {
+		Arrays.fill(_distances, Double.MAX_VALUE);
+		Arrays.fill(_settled, false);
+		_distances[0] = 0;
+	}
+
+	@Benchmark
+	public double indexedMinHeap() {
+		reset();
+		_heap.clear();
+		_heap.update(0, 0);
+
+		while (!_heap.isEmpty()) {
+			double distance = _heap.peekKey();
+			int node = _heap.poll();
+			_settled[node] = true;
+
+			for (int i = node * DEGREE; i < (node + 1) * DEGREE; i++) {
+				int adjNode = _adjNodes[i];
+				double adjDistance = distance + _weights[i];
+				if (!_settled[adjNode] && adjDistance < _distances[adjNode]) {
+					_distances[adjNode] = adjDistance;
+					_heap.update(adjNode, adjDistance);
+				}
+			}
+		}
+
+		return checksum();
+	}
+
+	@Benchmark
+	public double priorityQueue() {
+		reset();
+		Arrays.fill(_entries, null);
+		_queue.clear();
+		_entries[0] = new Entry(0, 0);
+		_queue.add(_entries[0]);
+
+		while (!_queue.isEmpty()) {
+			Entry entry = _queue.poll();
+			_settled[entry.node] = true;
+
+			for (int i = entry.node * DEGREE; i < (entry.node + 1) * DEGREE; i++) {
+				int adjNode = _adjNodes[i];
+				double adjDistance = entry.distance + _weights[i];
+				if (!_settled[adjNode] && adjDistance < _distances[adjNode]) {
+					_distances[adjNode] = adjDistance;
+					Entry adjEntry = _entries[adjNode];
+					if (adjEntry == null) {
+						adjEntry = new Entry(adjNode, adjDistance);
+						_entries[adjNode] = adjEntry;
+					} else {
+						_queue.remove(adjEntry);
+						adjEntry.distance = adjDistance;
+					}
+					_queue.add(adjEntry);
+				}
+			}
+		}
+
+		return checksum();
+	}
+
+	private double checksum() {
+		double sum = 0;
+		for (int i = 0; i < nodes; i++) {
+			if (_settled[i])
+				sum += _distances[i];
+		}
+		return sum;
+	}
+
+	private static class Entry implements Comparable<Entry> {
+		final int node;
+		double distance;
+
+		Entry(int node, double distance) {
+			this.node = node;
+			this.distance = distance;
+		}
+
+		@Override
+		public int compareTo(Entry other) {
+			return Double.compare(distance, other.distance);
+		}
+	}
+}
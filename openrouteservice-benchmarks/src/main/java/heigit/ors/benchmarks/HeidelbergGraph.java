@@ -0,0 +1,116 @@
+/*  This file is part of Openrouteservice.
+ *
+ *  Openrouteservice is free software; you can redistribute it and/or modify it under the terms of the
+ *  GNU Lesser General Public License as published by the Free Software Foundation; either version 2.1
+ *  of the License, or (at your option) any later version.
+
+ *  This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ *  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *  See the GNU Lesser General Public License for more details.
+
+ *  You should have received a copy of the GNU Lesser General Public License along with this library;
+ *  if not, see <https://www.gnu.org/licenses/>.
+ */
+package heigit.ors.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.vividsolutions.jts.geom.Coordinate;
+
+import heigit.ors.routing.RouteSearchParameters;
+import heigit.ors.routing.RoutingProfile;
+import heigit.ors.routing.RoutingProfileManager;
+import heigit.ors.routing.RoutingProfileType;
+import heigit.ors.routing.RoutingRequest;
+import heigit.ors.routing.WeightingMethod;
+
+/**
+ * The car graph of Heidelberg shared by all benchmarks of a fork. The first run imports the OSM file and stores the
+ * graph in the graphs directory of the configuration, every further run loads it from there. The config file is
+ * taken from the <code>ors.app.config</code> system property and defaults to the one of this module.
+ *
+ * All locations are drawn from a fixed seed, so that two runs measure the same requests.
+ */
+@State(Scope.Benchmark)
+public class HeidelbergGraph {
+	public static final String CONFIG_PROPERTY = "ors.app.config";
+	public static final String DEFAULT_CONFIG = "openrouteservice-benchmarks/conf/app.config.benchmark";
+
+	private static final double MIN_LON = 8.64;
+	private static final double MAX_LON = 8.72;
+	private static final double MIN_LAT = 49.38;
+	private static final double MAX_LAT = 49.43;
+
+	private RoutingProfileManager _profileManager;
+	private RoutingProfile _carProfile;
+
+	@Setup(Level.Trial)
+	public void load() throws Exception {
+		if (System.getProperty(CONFIG_PROPERTY) == null)
+			System.setProperty(CONFIG_PROPERTY, DEFAULT_CONFIG);
+
+		_profileManager = RoutingProfileManager.getInstance();
+		_carProfile = _profileManager.getProfiles().getRouteProfile(RoutingProfileType.DRIVING_CAR, true);
+		if (_carProfile == null)
+			throw new IllegalStateException("The driving-car profile could not be loaded from '" + System.getProperty(CONFIG_PROPERTY) + "'.");
+	}
+
+	public RoutingProfileManager getProfileManager() {
+		return _profileManager;
+	}
+
+	public RoutingProfile getCarProfile() {
+		return _carProfile;
+	}
+
+	public static Coordinate[] randomCoordinates(int count, long seed) {
+		Random random = new Random(seed);
+		Coordinate[] coords = new Coordinate[count];
+		for (int i = 0; i < count; i++)
+			coords[i] = new Coordinate(MIN_LON + random.nextDouble() * (MAX_LON - MIN_LON), MIN_LAT + random.nextDouble() * (MAX_LAT - MIN_LAT));
+		return coords;
+	}
+
+	public static RouteSearchParameters createCarSearchParameters() throws Exception {
+		RouteSearchParameters searchParams = new RouteSearchParameters();
+		searchParams.setProfileType(RoutingProfileType.DRIVING_CAR);
+		searchParams.setWeightingMethod(WeightingMethod.FASTEST);
+		return searchParams;
+	}
+
+	/**
+	 * Creates car routing requests between random locations. Pairs for which no route is found, e.g. because a
+	 * location is too far away from the next road, are skipped, so the benchmarks never measure a failing request.
+	 */
+	public List<RoutingRequest> createRoutingRequests(int count, long seed) throws Exception {
+		List<RoutingRequest> requests = new ArrayList<RoutingRequest>(count);
+		Random random = new Random(seed);
+
+		for (int attempts = 0; requests.size() < count && attempts < 10 * count; attempts++) {
+			Coordinate[] coords = randomCoordinates(2, random.nextLong());
+
+			RoutingRequest req = new RoutingRequest();
+			req.setCoordinates(coords);
+			req.setSearchParameters(createCarSearchParameters());
+
+			try {
+				if (_profileManager.computeRoute(req) != null)
+					requests.add(req);
+			} catch (Exception ex) {
+				// not routable, try the next pair
+			}
+		}
+
+		if (requests.isEmpty())
+			throw new IllegalStateException("No routable locations were found in the graph.");
+
+		return requests;
+	}
+}
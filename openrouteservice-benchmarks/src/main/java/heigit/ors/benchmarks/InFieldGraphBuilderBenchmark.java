@@ -0,0 +1,163 @@
+/*  This file is part of Openrouteservice.
+ *
+ *  Openrouteservice is free software; you can redistribute it and/or modify it under the terms of the
+ *  GNU Lesser General Public License as published by the Free Software Foundation; either version 2.1
+ *  of the License, or (at your option) any later version.
+
+ *  This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ *  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *  See the GNU Lesser General Public License for more details.
+
+ *  You should have received a copy of the GNU Lesser General Public License along with this library;
+ *  if not, see <https://www.gnu.org/licenses/>.
+ */
+package heigit.ors.benchmarks;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.carrotsearch.hppc.LongArrayList;
+import com.carrotsearch.hppc.LongIndexedContainer;
+import com.graphhopper.coll.GHLongIntBTree;
+import com.graphhopper.coll.LongIntMap;
+import com.graphhopper.reader.ReaderWay;
+import com.graphhopper.util.EdgeIteratorState;
+import com.vividsolutions.jts.geom.Coordinate;
+import com.vividsolutions.jts.geom.GeometryFactory;
+import com.vividsolutions.jts.geom.LineString;
+import com.vividsolutions.jts.geom.Polygon;
+
+import heigit.ors.routing.graphhopper.extensions.DataReaderContext;
+import heigit.ors.routing.graphhopper.extensions.graphbuilders.InFieldGraphBuilder;
+
+/**
+ * Compares the {@link InFieldGraphBuilder} on a star shaped plaza with testing the visibility of all pairs of its
+ * nodes against the unprepared polygon, which is what the builder did before.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 10, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class InFieldGraphBuilderBenchmark {
+	private static final int TOWER_NODE_STEP = 5;
+
+	@Param({ "100", "500" })
+	public int vertices;
+
+	private PlazaContext _context;
+	private LongArrayList _osmNodeIds;
+	private ReaderWay _way;
+	private InFieldGraphBuilder _builder;
+
+	@Setup(Level.Trial)
+	public void createPlaza() throws Exception {
+		_context = new PlazaContext(vertices);
+
+		_osmNodeIds = new LongArrayList();
+		for (int i = 0; i < vertices; i++)
+			_osmNodeIds.add(i + 1);
+		_osmNodeIds.add(1);
+
+		_way = new ReaderWay(1);
+		_way.setTag("area", "yes");
+
+		_builder = new InFieldGraphBuilder();
+		_builder.init(null);
+	}
+
+	@Benchmark
+	public int inFieldGraphBuilder() throws Exception {
+		_context.edges = 0;
+		_builder.createEdges(_context, _way, _osmNodeIds, 0, new ArrayList<EdgeIteratorState>());
+		return _context.edges;
+	}
+
+	@Benchmark
+	public int polygonVisibility() {
+		Coordinate[] coordinates = _context.coordinates;
+		Polygon plaza = _context.polygon;
+		GeometryFactory gf = new GeometryFactory();
+		int edges = 0;
+
+		for (int i = 0; i < vertices; i++) {
+			for (int j = i + 2; j < vertices; j++) {
+				LineString ls = gf.createLineString(new Coordinate[] { coordinates[i], coordinates[j] });
+				if (ls.within(plaza))
+					edges++;
+			}
+		}
+
+		return edges;
+	}
+
+	/**
+	 * A plaza whose nodes have the OSM ids 1 to <code>vertices</code>. Every fifth node is a tower node. Edges are
+	 * only counted.
+	 */
+	private static class PlazaContext implements DataReaderContext {
+		private final LongIntMap _nodeMap = new GHLongIntBTree(200);
+		private final Map<Integer, Coordinate> _nodes = new HashMap<Integer, Coordinate>();
+		private final Coordinate[] coordinates;
+		private final Polygon polygon;
+		private int edges;
+
+		PlazaContext(int vertices) {
+			coordinates = new Coordinate[vertices];
+
+			for (int i = 0; i < vertices; i++) {
+				double angle = 2 * Math.PI * i / vertices;
+				double radius = i % 2 == 0 ? 0.001 : 0.0006;
+				coordinates[i] = new Coordinate(8.68 + radius * Math.cos(angle), 49.41 + radius * Math.sin(angle));
+
+				int internalId = i % TOWER_NODE_STEP == 0 ? -3 - i : i + 1;
+				_nodeMap.put(i + 1, internalId);
+				_nodes.put(internalId, coordinates[i]);
+			}
+
+			Coordinate[] ring = Arrays.copyOf(coordinates, vertices + 1);
+			ring[vertices] = coordinates[0];
+			polygon = new GeometryFactory().createPolygon(ring);
+		}
+
+		@Override
+		public LongIntMap getNodeMap() {
+			return _nodeMap;
+		}
+
+		@Override
+		public double getNodeLongitude(int nodeId) {
+			return _nodes.get(nodeId).x;
+		}
+
+		@Override
+		public double getNodeLatitude(int nodeId) {
+			return _nodes.get(nodeId).y;
+		}
+
+		@Override
+		public Collection<EdgeIteratorState> addWay(LongIndexedContainer subgraphNodes, long wayFlags, long wayId) {
+			edges++;
+			return Collections.emptyList();
+		}
+	}
+}
@@ -0,0 +1,77 @@
+/*  This file is part of Openrouteservice.
+ *
+ *  Openrouteservice is free software; you can redistribute it and/or modify it under the terms of the
+ *  GNU Lesser General Public License as published by the Free Software Foundation; either version 2.1
+ *  of the License, or (at your option) any later version.
+
+ *  This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ *  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *  See the GNU Lesser General Public License for more details.
+
+ *  You should have received a copy of the GNU Lesser General Public License along with this library;
+ *  if not, see <https://www.gnu.org/licenses/>.
+ */
+package heigit.ors.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.vividsolutions.jts.geom.Coordinate;
+
+import heigit.ors.common.TravelRangeType;
+import heigit.ors.isochrones.IsochroneMap;
+import heigit.ors.isochrones.IsochroneSearchParameters;
+
+/**
+ * Measures concave-balls isochrones with three time ranges around locations in the city centre.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 10, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class IsochroneBenchmark {
+	private static final String[] NO_ATTRIBUTES = new String[0];
+
+	private static final Coordinate[] LOCATIONS = new Coordinate[] { new Coordinate(8.6901, 49.4118), new Coordinate(8.6759, 49.4183),
+			new Coordinate(8.6672, 49.4004), new Coordinate(8.7008, 49.3988) };
+
+	@Param({ "300", "900" })
+	public int range;
+
+	private IsochroneSearchParameters[] _parameters;
+	private int _next;
+
+	@Setup(Level.Trial)
+	public void createParameters() throws Exception {
+		_parameters = new IsochroneSearchParameters[LOCATIONS.length];
+
+		for (int i = 0; i < LOCATIONS.length; i++) {
+			IsochroneSearchParameters parameters = new IsochroneSearchParameters(0, LOCATIONS[i], new double[] { range / 3, 2 * range / 3, range });
+			parameters.setRangeType(TravelRangeType.Time);
+			parameters.setCalcMethod("ConcaveBalls");
+			parameters.setRouteParameters(HeidelbergGraph.createCarSearchParameters());
+			_parameters[i] = parameters;
+		}
+	}
+
+	@Benchmark
+	public IsochroneMap buildIsochrone(HeidelbergGraph graph) throws Exception {
+		IsochroneSearchParameters parameters = _parameters[_next];
+		_next = (_next + 1) % _parameters.length;
+		return graph.getProfileManager().buildIsochrone(parameters, NO_ATTRIBUTES);
+	}
+}
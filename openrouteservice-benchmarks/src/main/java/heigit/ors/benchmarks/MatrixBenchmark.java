@@ -0,0 +1,74 @@
+/*  This file is part of Openrouteservice.
+ *
+ *  Openrouteservice is free software; you can redistribute it and/or modify it under the terms of the
+ *  GNU Lesser General Public License as published by the Free Software Foundation; either version 2.1
+ *  of the License, or (at your option) any later version.
+
+ *  This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ *  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *  See the GNU Lesser General Public License for more details.
+
+ *  You should have received a copy of the GNU Lesser General Public License along with this library;
+ *  if not, see <https://www.gnu.org/licenses/>.
+ */
+package heigit.ors.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.vividsolutions.jts.geom.Coordinate;
+
+import heigit.ors.matrix.MatrixMetricsType;
+import heigit.ors.matrix.MatrixRequest;
+import heigit.ors.matrix.MatrixResult;
+import heigit.ors.routing.RoutingProfileType;
+
+/**
+ * Measures square duration/distance matrices between random locations. <code>rphast</code> computes them on the
+ * contraction hierarchies, <code>dijkstra</code> runs one search per source on the base graph, as it is done in
+ * flexible mode.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 10, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class MatrixBenchmark {
+	@Param({ "rphast", "dijkstra" })
+	public String algorithm;
+
+	@Param({ "10", "50" })
+	public int size;
+
+	private MatrixRequest _request;
+
+	@Setup(Level.Trial)
+	public void createRequest() throws Exception {
+		Coordinate[] locations = HeidelbergGraph.randomCoordinates(size, 42);
+
+		_request = new MatrixRequest();
+		_request.setProfileType(RoutingProfileType.DRIVING_CAR);
+		_request.setSources(locations);
+		_request.setDestinations(locations);
+		_request.setMetrics(MatrixMetricsType.Duration | MatrixMetricsType.Distance);
+		_request.setFlexibleMode("dijkstra".equals(algorithm));
+	}
+
+	@Benchmark
+	public MatrixResult computeMatrix(HeidelbergGraph graph) throws Exception {
+		return graph.getProfileManager().computeMatrix(_request);
+	}
+}
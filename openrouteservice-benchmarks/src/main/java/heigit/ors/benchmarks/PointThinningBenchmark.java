@@ -0,0 +1,118 @@
+/*  This file is part of Openrouteservice.
+ *
+ *  Openrouteservice is free software; you can redistribute it and/or modify it under the terms of the
+ *  GNU Lesser General Public License as published by the Free Software Foundation; either version 2.1
+ *  of the License, or (at your option) any later version.
+
+ *  This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ *  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *  See the GNU Lesser General Public License for more details.
+
+ *  You should have received a copy of the GNU Lesser General Public License along with this library;
+ *  if not, see <https://www.gnu.org/licenses/>.
+ */
+package heigit.ors.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.vividsolutions.jts.geom.Coordinate;
+import com.vividsolutions.jts.geom.Envelope;
+import com.vividsolutions.jts.index.quadtree.Quadtree;
+
+import heigit.ors.isochrones.builders.concaveballs.PointGrid;
+
+/**
+ * Compares the {@link PointGrid} which thins the points of concave-balls isochrones with the quadtree and tree set
+ * it replaced. The quadtree variant uses the search and point widths the isochrone builder used before.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PointThinningBenchmark {
+	private static final double THRESHOLD = 0.0035;
+	private static final double SEARCH_WIDTH = 0.0008;
+	private static final double POINT_WIDTH = 0.005;
+
+	@Param({ "10000", "100000" })
+	public int points;
+
+	private double[] _lons;
+	private double[] _lats;
+
+	@Setup(Level.Trial)
+	public void createPoints() {
+		Coordinate[] coords = HeidelbergGraph.randomCoordinates(points, 42);
+		_lons = new double[points];
+		_lats = new double[points];
+		for (int i = 0; i < points; i++) {
+			_lons[i] = coords[i].x;
+			_lats[i] = coords[i].y;
+		}
+	}
+
+	@Benchmark
+	public int pointGrid() {
+		PointGrid grid = new PointGrid(THRESHOLD, points);
+		List<Coordinate> accepted = new ArrayList<Coordinate>();
+
+		for (int i = 0; i < points; i++) {
+			if (grid.add(_lons[i], _lats[i], THRESHOLD))
+				accepted.add(new Coordinate(_lons[i], _lats[i]));
+		}
+
+		return accepted.size();
+	}
+
+	@Benchmark
+	public int quadtree() {
+		Quadtree tree = new Quadtree();
+		TreeSet<Coordinate> treeSet = new TreeSet<Coordinate>();
+		List<Coordinate> accepted = new ArrayList<Coordinate>();
+		Envelope searchEnv = new Envelope();
+
+		for (int i = 0; i < points; i++) {
+			double lon = _lons[i];
+			double lat = _lats[i];
+			boolean[] found = new boolean[1];
+
+			searchEnv.init(lon - SEARCH_WIDTH, lon + SEARCH_WIDTH, lat - SEARCH_WIDTH, lat + SEARCH_WIDTH);
+			tree.query(searchEnv, item -> {
+				Coordinate p = (Coordinate) item;
+				double dx = p.x - lon;
+				double dy = p.y - lat;
+				if (Math.sqrt(dx * dx + dy * dy) < THRESHOLD)
+					found[0] = true;
+			});
+
+			if (!found[0]) {
+				Coordinate p = new Coordinate(lon, lat);
+				if (!treeSet.contains(p)) {
+					tree.insert(new Envelope(lon - POINT_WIDTH, lon + POINT_WIDTH, lat - POINT_WIDTH, lat + POINT_WIDTH), p);
+					accepted.add(p);
+					treeSet.add(p);
+				}
+			}
+		}
+
+		return accepted.size();
+	}
+}
@@ -0,0 +1,97 @@
+/*  This file is part of Openrouteservice.
+ *
+ *  Openrouteservice is free software; you can redistribute it and/or modify it under the terms of the
+ *  GNU Lesser General Public License as published by the Free Software Foundation; either version 2.1
+ *  of the License, or (at your option) any later version.
+
+ *  This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ *  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *  See the GNU Lesser General Public License for more details.
+
+ *  You should have received a copy of the GNU Lesser General Public License along with this library;
+ *  if not, see <https://www.gnu.org/licenses/>.
+ */
+package heigit.ors.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import heigit.ors.globalResponseProcessor.gpx.GpxResponseWriter;
+import heigit.ors.routing.RouteExtraInfoFlag;
+import heigit.ors.routing.RouteResult;
+import heigit.ors.routing.RoutingRequest;
+import heigit.ors.services.routing.requestprocessors.json.JsonRoutingResponseWriter;
+import heigit.ors.util.PolylineEncoder;
+
+/**
+ * Measures the work done on a route after the search: collecting the extra info along the path and writing the
+ * response as JSON, GPX or an encoded polyline. The writers get routes which have been computed beforehand.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 10, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class ResponseWriterBenchmark {
+	private static final int ROUTES = 50;
+	private static final int EXTRA_INFO = RouteExtraInfoFlag.Surface | RouteExtraInfoFlag.WayType | RouteExtraInfoFlag.WayCategory | RouteExtraInfoFlag.Tollways;
+
+	private RoutingRequest[] _requests;
+	private RouteResult[][] _results;
+	private int _next;
+
+	@Setup(Level.Trial)
+	public void computeRoutes(HeidelbergGraph graph) throws Exception {
+		List<RoutingRequest> requests = graph.createRoutingRequests(ROUTES, 42);
+
+		_requests = new RoutingRequest[requests.size()];
+		_results = new RouteResult[requests.size()][];
+		for (int i = 0; i < _requests.length; i++) {
+			_requests[i] = requests.get(i);
+			_requests[i].setExtraInfo(EXTRA_INFO);
+			_results[i] = new RouteResult[] { graph.getProfileManager().computeRoute(_requests[i]) };
+		}
+	}
+
+	private int nextRoute() {
+		int index = _next;
+		_next = (_next + 1) % _requests.length;
+		return index;
+	}
+
+	@Benchmark
+	public RouteResult computeRouteWithExtraInfo(HeidelbergGraph graph) throws Exception {
+		return graph.getProfileManager().computeRoute(_requests[nextRoute()]);
+	}
+
+	@Benchmark
+	public JSONObject writeJson() throws Exception {
+		int index = nextRoute();
+		return JsonRoutingResponseWriter.toJson(_requests[index], _results[index]);
+	}
+
+	@Benchmark
+	public String writeGpx() throws Exception {
+		int index = nextRoute();
+		return GpxResponseWriter.toGPX(_requests[index], _results[index]);
+	}
+
+	@Benchmark
+	public String encodePolyline() {
+		return PolylineEncoder.encode(_results[nextRoute()][0].getGeometry(), false, new StringBuffer());
+	}
+}
@@ -0,0 +1,129 @@
+/*  This file is part of Openrouteservice.
+ *
+ *  Openrouteservice is free software; you can redistribute it and/or modify it under the terms of the
+ *  GNU Lesser General Public License as published by the Free Software Foundation; either version 2.1
+ *  of the License, or (at your option) any later version.
+
+ *  This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ *  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *  See the GNU Lesser General Public License for more details.
+
+ *  You should have received a copy of the GNU Lesser General Public License along with this library;
+ *  if not, see <https://www.gnu.org/licenses/>.
+ */
+package heigit.ors.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.vividsolutions.jts.geom.Coordinate;
+import com.vividsolutions.jts.geom.GeometryFactory;
+import com.vividsolutions.jts.geom.Polygon;
+
+import heigit.ors.routing.AvoidFeatureFlags;
+import heigit.ors.routing.RouteResult;
+import heigit.ors.routing.RouteSearchParameters;
+import heigit.ors.routing.RoutingRequest;
+
+/**
+ * Measures car routes through the routing manager, i.e. including the edge filters and path processing of a
+ * request. The modes are:
+ * <ul>
+ * <li><code>ch</code>: fastest route on the contraction hierarchies</li>
+ * <li><code>lm</code>: fastest route in flexible mode, i.e. A* with landmarks</li>
+ * <li><code>avoid_features</code>: as <code>lm</code>, avoiding highways and tollways</li>
+ * <li><code>avoid_areas</code>: as <code>lm</code>, avoiding ten small polygons spread over the city</li>
+ * </ul>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 10, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class RoutingBenchmark {
+	private static final int ROUTES = 100;
+
+	@Param({ "ch", "lm", "avoid_features", "avoid_areas" })
+	public String mode;
+
+	private RoutingRequest[] _requests;
+	private int _next;
+
+	@Setup(Level.Trial)
+	public void createRequests(HeidelbergGraph graph) throws Exception {
+		List<RoutingRequest> requests = graph.createRoutingRequests(ROUTES, 42);
+		Polygon[] avoidAreas = createAvoidAreas(10, 0.002, 7);
+
+		for (RoutingRequest req : requests) {
+			RouteSearchParameters searchParams = req.getSearchParameters();
+			switch (mode) {
+			case "ch":
+				break;
+			case "lm":
+				searchParams.setFlexibleMode(true);
+				break;
+			case "avoid_features":
+				searchParams.setFlexibleMode(true);
+				searchParams.setAvoidFeatureTypes(AvoidFeatureFlags.Highways | AvoidFeatureFlags.Tollways);
+				break;
+			case "avoid_areas":
+				searchParams.setFlexibleMode(true);
+				searchParams.setAvoidAreas(avoidAreas);
+				break;
+			default:
+				throw new IllegalArgumentException("Unknown mode '" + mode + "'.");
+			}
+		}
+
+		// A location may lie in one of the areas to avoid
+		requests.removeIf(req -> {
+			try {
+				graph.getProfileManager().computeRoute(req);
+				return false;
+			} catch (Exception ex) {
+				return true;
+			}
+		});
+
+		_requests = requests.toArray(new RoutingRequest[requests.size()]);
+	}
+
+	@Benchmark
+	public RouteResult computeRoute(HeidelbergGraph graph) throws Exception {
+		RoutingRequest req = _requests[_next];
+		_next = (_next + 1) % _requests.length;
+		return graph.getProfileManager().computeRoute(req);
+	}
+
+	/**
+	 * Creates squares with the given half width (in degrees) around random locations.
+	 */
+	static Polygon[] createAvoidAreas(int count, double halfWidth, long seed) {
+		GeometryFactory geomFactory = new GeometryFactory();
+		Coordinate[] centers = HeidelbergGraph.randomCoordinates(count, seed);
+		Polygon[] polys = new Polygon[count];
+
+		for (int i = 0; i < count; i++) {
+			double x = centers[i].x;
+			double y = centers[i].y;
+			polys[i] = geomFactory.createPolygon(new Coordinate[] { new Coordinate(x - halfWidth, y - halfWidth), new Coordinate(x + halfWidth, y - halfWidth),
+					new Coordinate(x + halfWidth, y + halfWidth), new Coordinate(x - halfWidth, y + halfWidth), new Coordinate(x - halfWidth, y - halfWidth) });
+		}
+
+		return polys;
+	}
+}
@@ -0,0 +1,83 @@
+/*  This file is part of Openrouteservice.
+ *
+ *  Openrouteservice is free software; you can redistribute it and/or modify it under the terms of the
+ *  GNU Lesser General Public License as published by the Free Software Foundation; either version 2.1
+ *  of the License, or (at your option) any later version.
+
+ *  This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ *  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *  See the GNU Lesser General Public License for more details.
+
+ *  You should have received a copy of the GNU Lesser General Public License along with this library;
+ *  if not, see <https://www.gnu.org/licenses/>.
+ */
+package heigit.ors.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.graphhopper.routing.util.AllEdgesIterator;
+import com.graphhopper.routing.util.FlagEncoder;
+import com.graphhopper.routing.util.HintsMap;
+import com.graphhopper.routing.weighting.Weighting;
+import com.graphhopper.storage.GraphHopperStorage;
+import com.graphhopper.util.EdgeIterator;
+
+import heigit.ors.routing.RoutingProfileType;
+import heigit.ors.routing.graphhopper.extensions.ORSGraphHopper;
+import heigit.ors.routing.graphhopper.extensions.ORSWeightingFactory;
+import heigit.ors.routing.traffic.RealTrafficDataProvider;
+
+/**
+ * Measures the weight of every edge of the car graph with the weightings a request can choose.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 10, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class WeightingBenchmark {
+	@Param({ "fastest", "shortest", "recommended" })
+	public String weighting;
+
+	private GraphHopperStorage _graphStorage;
+	private Weighting _weighting;
+
+	@Setup(Level.Trial)
+	public void createWeighting(HeidelbergGraph graph) {
+		ORSGraphHopper gh = graph.getCarProfile().getGraphhopper();
+		FlagEncoder encoder = gh.getEncodingManager().getEncoder(RoutingProfileType.getEncoderName(RoutingProfileType.DRIVING_CAR));
+
+		HintsMap hintsMap = new HintsMap();
+		hintsMap.setWeighting("recommended".equals(weighting) ? "fastest" : weighting);
+		hintsMap.put("weighting_method", weighting);
+
+		_graphStorage = gh.getGraphHopperStorage();
+		_weighting = new ORSWeightingFactory(RealTrafficDataProvider.getInstance(), gh).createWeighting(hintsMap, gh.getTraversalMode(), encoder, _graphStorage, gh.getLocationIndex(), _graphStorage);
+	}
+
+	@Benchmark
+	public double weighAllEdges() {
+		double sum = 0;
+		AllEdgesIterator iter = _graphStorage.getAllEdges();
+		while (iter.next()) {
+			double weight = _weighting.calcWeight(iter, false, EdgeIterator.NO_EDGE);
+			if (!Double.isInfinite(weight))
+				sum += weight;
+		}
+		return sum;
+	}
+}
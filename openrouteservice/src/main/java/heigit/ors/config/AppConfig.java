@@ -51,7 +51,8 @@ public class AppConfig {
 		if(System.getenv("ORS_APP_CONFIG") != null)
 			url = RoutingProfileManager.class.getClassLoader().getResource("../" + System.getenv("ORS_APP_CONFIG"));
     	
-    	File file = new File(url.getPath());
+		// Outside of a servlet container (e.g. in the benchmarks) the file can be given as a system property
+		File file = System.getProperty("ors.app.config") != null ? new File(System.getProperty("ors.app.config")) : new File(url.getPath());
 		_config = ConfigFactory.parseFile(file);
 
 		//Modification by H Leuschner: Save md5 hash of map file in static String for access with every request
@@ -11,21 +11,28 @@
  *  You should have received a copy of the GNU Lesser General Public License along with this library; 
  *  if not, see <https://www.gnu.org/licenses/>.  
  */
-package heigit.ors.routing.graphhopper.extensions.storages;
+package heigit.ors.exceptions;
 
-import com.graphhopper.util.EdgeIterator;
+import heigit.ors.common.StatusCode;
 
-public class MultiTreeSPEntryItem {
-	public int edge = EdgeIterator.NO_EDGE;
-	public double weight = Double.POSITIVE_INFINITY;
-	public boolean update =  false;
-	public MultiTreeSPEntry parent = null;
-	
-	public void assignFrom(MultiTreeSPEntryItem item)
+public class ServiceUnavailableException extends StatusCodeException 
+{
+	private static final long serialVersionUID = 2958321726441508137L;
+
+	private int _retryAfter;
+
+	/**
+	 * @param retryAfter	The number of seconds after which the client may try again
+	 */
+	public ServiceUnavailableException(int retryAfter, String message)
+	{
+		super(StatusCode.SERVICE_UNAVAILABLE, message);
+
+		_retryAfter = retryAfter;
+	}
+
+	public int getRetryAfter()
 	{
-		edge = item.edge;
-		weight = item.weight;
-		update = item.update;
-		parent = item.parent;
+		return _retryAfter;
 	}
 }
@@ -0,0 +1,464 @@
+/*  This file is part of Openrouteservice.
+ *
+ *  Openrouteservice is free software; you can redistribute it and/or modify it under the terms of the
+ *  GNU Lesser General Public License as published by the Free Software Foundation; either version 2.1
+ *  of the License, or (at your option) any later version.
+
+ *  This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ *  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *  See the GNU Lesser General Public License for more details.
+
+ *  You should have received a copy of the GNU Lesser General Public License along with this library;
+ *  if not, see <https://www.gnu.org/licenses/>.
+ */
+package heigit.ors.io;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/**
+ * Reads a JSON object directly from a UTF-8 encoded stream without materialising the document as a string first.
+ * The array values of the given coordinate keys are read into primitive <code>double[]</code> buffers of interleaved
+ * x/y values, which take the place of the {@link JSONArray} in the object the key belongs to, at any nesting level.
+ * Coordinate keys hold lists of <code>[x, y, ...]</code> arrays, point keys a single <code>[x, y, ...]</code> array.
+ * All other members are parsed into the usual <code>org.json</code> values.
+ */
+public class JsonStreamReader {
+	private static final int BUFFER_SIZE = 8192;
+	private static final int MAX_FAST_DIGITS = 15;
+	private static final double[] POWERS_OF_TEN = { 1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12,
+			1e13, 1e14, 1e15 };
+
+	private static final boolean[] TOKEN_DELIMITERS = new boolean[128];
+
+	static {
+		for (char c : ",:]}/\\\"[{;=#".toCharArray())
+			TOKEN_DELIMITERS[c] = true;
+	}
+
+	private final Reader _reader;
+	private final char[] _buffer = new char[BUFFER_SIZE];
+	private int _position;
+	private int _limit;
+	private long _offset;
+	private char[] _token = new char[32];
+	private String[] _coordinateKeys;
+	private String[] _pointKeys;
+	private final Set<String> _invalidCoordinates = new HashSet<String>();
+
+	public JsonStreamReader(InputStream stream) {
+		this(new InputStreamReader(stream, StandardCharsets.UTF_8));
+	}
+
+	public JsonStreamReader(Reader reader) {
+		_reader = reader;
+	}
+
+	/**
+	 * Reads the top-level JSON object of the stream.
+	 *
+	 * @param coordinateKeys	Keys whose array values are read as lists of coordinates, see {@link #getCoordinates(JSONObject, String)}
+	 */
+	public JSONObject readObject(String... coordinateKeys) throws IOException {
+		return readObject(coordinateKeys, null);
+	}
+
+	/**
+	 * Reads the top-level JSON object of the stream.
+	 *
+	 * @param coordinateKeys	Keys whose array values are read as lists of coordinates
+	 * @param pointKeys	Keys whose array values are read as a single coordinate
+	 */
+	public JSONObject readObject(String[] coordinateKeys, String[] pointKeys) throws IOException {
+		_coordinateKeys = coordinateKeys;
+		_pointKeys = pointKeys;
+
+		if (nextClean() != '{')
+			throw syntaxError("A JSONObject text must begin with '{'");
+
+		return readObjectBody();
+	}
+
+	/**
+	 * Returns the x/y values read for the key of the given object, or <code>null</code> if the key was not present or
+	 * its value was not an array. Components missing from a coordinate are returned as <code>NaN</code>.
+	 */
+	public static double[] getCoordinates(JSONObject json, String key) {
+		Object value = json.opt(key);
+		return value instanceof double[] ? (double[]) value : null;
+	}
+
+	/**
+	 * Returns whether any value of the key contained elements that are neither numbers nor numeric strings, or
+	 * arrays where a number was expected and vice versa.
+	 */
+	public boolean hasInvalidCoordinates(String key) {
+		return _invalidCoordinates.contains(key);
+	}
+
+	private JSONObject readObjectBody() throws IOException {
+		JSONObject json = new JSONObject();
+
+		int c = nextClean();
+		if (c == '}')
+			return json;
+
+		while (true) {
+			if (c != '"')
+				throw syntaxError("Expected a quoted key");
+
+			String key = readString();
+			if (nextClean() != ':')
+				throw syntaxError("Expected a ':' after a key");
+
+			Object value;
+			if (containsKey(_coordinateKeys, key) && peekClean() == '[') {
+				next();
+				value = readCoordinates(key, false);
+			} else if (containsKey(_pointKeys, key) && peekClean() == '[') {
+				next();
+				value = readCoordinates(key, true);
+			} else {
+				value = readValue(nextClean());
+			}
+
+			if (json.has(key))
+				throw syntaxError("Duplicate key \"" + key + "\"");
+			json.put(key, value);
+
+			c = nextClean();
+			if (c == '}')
+				return json;
+			if (c != ',')
+				throw syntaxError("Expected a ',' or '}'");
+			c = nextClean();
+		}
+	}
+
+	private JSONArray readArray() throws IOException {
+		JSONArray array = new JSONArray();
+
+		int c = nextClean();
+		if (c == ']')
+			return array;
+
+		while (true) {
+			array.put(readValue(c));
+
+			c = nextClean();
+			if (c == ']')
+				return array;
+			if (c != ',')
+				throw syntaxError("Expected a ',' or ']'");
+			c = nextClean();
+		}
+	}
+
+	private Object readValue(int c) throws IOException {
+		switch (c) {
+		case '{':
+			return readObjectBody();
+		case '[':
+			return readArray();
+		case '"':
+			return readString();
+		case -1:
+			throw syntaxError("Unexpected end of stream");
+		default:
+			// Unquoted values are handed to org.json so that literals and numbers get the same types as with JSONObject(String).
+			int length = readToken(c);
+			if (length == 0)
+				throw syntaxError("Missing value");
+			return JSONObject.stringToValue(new String(_token, 0, length));
+		}
+	}
+
+	private double[] readCoordinates(String key, boolean point) throws IOException {
+		double[] values = new double[point ? 2 : 64];
+		int size = 0;
+		boolean valid = true;
+
+		if (point) {
+			valid = readCoordinate(values, 0);
+			size = 2;
+		} else {
+			int c = nextClean();
+			if (c != ']') {
+				while (true) {
+					if (c == '[') {
+						if (size + 2 > values.length)
+							values = Arrays.copyOf(values, values.length * 2);
+
+						valid &= readCoordinate(values, size);
+						size += 2;
+					} else {
+						readValue(c);
+						valid = false;
+					}
+
+					c = nextClean();
+					if (c == ']')
+						break;
+					if (c != ',')
+						throw syntaxError("Expected a ',' or ']'");
+					c = nextClean();
+				}
+			}
+		}
+
+		if (!valid)
+			_invalidCoordinates.add(key);
+
+		return size == values.length ? values : Arrays.copyOf(values, size);
+	}
+
+	/**
+	 * Reads the elements of a coordinate array, whose opening bracket has already been consumed, and stores its first
+	 * two components at <code>offset</code>. Numeric strings are accepted as they are by {@link JSONArray#getDouble(int)}.
+	 *
+	 * @return <code>false</code> if the array contained values other than numbers
+	 */
+	private boolean readCoordinate(double[] values, int offset) throws IOException {
+		boolean valid = true;
+		int n = 0;
+
+		int c = nextClean();
+		if (c != ']') {
+			while (true) {
+				double value;
+				if (c == '-' || (c >= '0' && c <= '9')) {
+					value = parseNumber(readToken(c));
+				} else if (c == '"') {
+					String text = readString();
+					try {
+						value = Double.parseDouble(text);
+					} catch (NumberFormatException ex) {
+						value = Double.NaN;
+						valid = false;
+					}
+				} else {
+					readValue(c);
+					value = Double.NaN;
+					valid = false;
+				}
+
+				if (n < 2)
+					values[offset + n] = value;
+				n++;
+
+				c = nextClean();
+				if (c == ']')
+					break;
+				if (c != ',')
+					throw syntaxError("Expected a ',' or ']'");
+				c = nextClean();
+			}
+		}
+
+		for (; n < 2; n++)
+			values[offset + n] = Double.NaN;
+
+		return valid;
+	}
+
+	private static boolean containsKey(String[] keys, String key) {
+		if (keys != null) {
+			for (String k : keys) {
+				if (k.equals(key))
+					return true;
+			}
+		}
+
+		return false;
+	}
+
+	private String readString() throws IOException {
+		StringBuilder sb = new StringBuilder();
+
+		while (true) {
+			int c = next();
+			switch (c) {
+			case -1:
+			case '\n':
+			case '\r':
+				throw syntaxError("Unterminated string");
+			case '"':
+				return sb.toString();
+			case '\\':
+				c = next();
+				switch (c) {
+				case 'b':
+					sb.append('\b');
+					break;
+				case 't':
+					sb.append('\t');
+					break;
+				case 'n':
+					sb.append('\n');
+					break;
+				case 'f':
+					sb.append('\f');
+					break;
+				case 'r':
+					sb.append('\r');
+					break;
+				case 'u':
+					int code = 0;
+					for (int i = 0; i < 4; i++) {
+						int digit = Character.digit(next(), 16);
+						if (digit < 0)
+							throw syntaxError("Illegal escape.");
+						code = (code << 4) | digit;
+					}
+					sb.append((char) code);
+					break;
+				case '"':
+				case '\'':
+				case '\\':
+				case '/':
+					sb.append((char) c);
+					break;
+				default:
+					throw syntaxError("Illegal escape.");
+				}
+				break;
+			default:
+				sb.append((char) c);
+			}
+		}
+	}
+
+	/**
+	 * Collects an unquoted token starting with <code>c</code> into <code>_token</code> and returns its length.
+	 */
+	private int readToken(int c) throws IOException {
+		if (!isTokenChar(c))
+			return 0;
+
+		char[] token = _token;
+		int length = 0;
+
+		while (true) {
+			if (length == token.length)
+				token = _token = Arrays.copyOf(token, length * 2);
+			token[length++] = (char) c;
+
+			if (_position == _limit && !fill())
+				break;
+			c = _buffer[_position];
+			if (!isTokenChar(c))
+				break;
+			_position++;
+		}
+
+		// Trailing whitespace is part of the loop condition in org.json as well; strip it here.
+		while (length > 0 && _token[length - 1] <= ' ')
+			length--;
+
+		return length;
+	}
+
+	private static boolean isTokenChar(int c) {
+		return c >= ' ' && (c >= TOKEN_DELIMITERS.length || !TOKEN_DELIMITERS[c]);
+	}
+
+	/**
+	 * Parses the number in <code>_token</code>. Plain decimals with up to 15 significant digits are exactly
+	 * representable as a long mantissa and a power of ten, so a single division gives the correctly rounded value.
+	 * Everything else is left to {@link Double#parseDouble(String)}.
+	 */
+	private double parseNumber(int length) {
+		int i = 0;
+		boolean negative = false;
+		if (length > 0 && _token[0] == '-') {
+			negative = true;
+			i++;
+		}
+
+		long mantissa = 0;
+		int digits = 0;
+		int scale = 0;
+		boolean fraction = false;
+		boolean fast = i < length;
+
+		for (; i < length && fast; i++) {
+			char c = _token[i];
+			if (c >= '0' && c <= '9') {
+				mantissa = mantissa * 10 + (c - '0');
+				digits++;
+				if (fraction)
+					scale++;
+			} else if (c == '.' && !fraction && digits > 0) {
+				fraction = true;
+			} else {
+				fast = false;
+			}
+		}
+
+		if (fast && digits > 0 && digits <= MAX_FAST_DIGITS && !(fraction && scale == 0)) {
+			double value = mantissa / POWERS_OF_TEN[scale];
+			return negative ? -value : value;
+		}
+
+		String text = new String(_token, 0, length);
+		try {
+			return Double.parseDouble(text);
+		} catch (NumberFormatException ex) {
+			throw syntaxError("Invalid number '" + text + "'");
+		}
+	}
+
+	private int nextClean() throws IOException {
+		int c;
+		do {
+			c = next();
+		} while (c != -1 && c <= ' ');
+		return c;
+	}
+
+	private int peekClean() throws IOException {
+		int c;
+		while ((c = peek()) != -1 && c <= ' ')
+			next();
+		return c;
+	}
+
+	private int next() throws IOException {
+		if (_position == _limit && !fill())
+			return -1;
+		return _buffer[_position++];
+	}
+
+	private int peek() throws IOException {
+		if (_position == _limit && !fill())
+			return -1;
+		return _buffer[_position];
+	}
+
+	private boolean fill() throws IOException {
+		_offset += _limit;
+		_position = 0;
+		_limit = 0;
+
+		int read = _reader.read(_buffer, 0, _buffer.length);
+		if (read <= 0)
+			return false;
+
+		_limit = read;
+		return true;
+	}
+
+	private JSONException syntaxError(String message) {
+		return new JSONException(message + " at " + (_offset + _position));
+	}
+}
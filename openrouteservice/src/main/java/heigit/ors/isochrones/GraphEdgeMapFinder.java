@@ -40,7 +40,7 @@ public class GraphEdgeMapFinder {
 		GraphHopperStorage graph = gh.getGraphHopperStorage();
 
 		Coordinate loc = parameters.getLocation();
-		QueryResult res = gh.getLocationIndex().findClosest(loc.y, loc.x, searchCntx.getEdgeFilter());
+		QueryResult res = searchCntx.findClosest(loc);
 		int fromId = res.getClosestNode();
 
 		if (fromId == -1)
@@ -0,0 +1,92 @@
+/*  This file is part of Openrouteservice.
+ *
+ *  Openrouteservice is free software; you can redistribute it and/or modify it under the terms of the
+ *  GNU Lesser General Public License as published by the Free Software Foundation; either version 2.1
+ *  of the License, or (at your option) any later version.
+
+ *  This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ *  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *  See the GNU Lesser General Public License for more details.
+
+ *  You should have received a copy of the GNU Lesser General Public License along with this library;
+ *  if not, see <https://www.gnu.org/licenses/>.
+ */
+package heigit.ors.isochrones;
+
+import java.util.Arrays;
+
+import com.graphhopper.util.Helper;
+import com.vividsolutions.jts.geom.Coordinate;
+
+import heigit.ors.util.ResultCache;
+
+/**
+ * Caches isochrone maps by the closest graph node of the location and the search parameters. The cached maps do
+ * not carry any statistics attributes; every lookup returns a copy that belongs to the requesting traveller.
+ */
+public class IsochroneCache {
+	private final ResultCache<String, IsochroneMap> _cache;
+
+	public IsochroneCache(int maximumSize, long timeToLive) {
+		_cache = new ResultCache<String, IsochroneMap>(maximumSize, timeToLive);
+	}
+
+	/**
+	 * Returns whether maps built with the given parameters may be cached. Only the concave balls method is
+	 * independent of the exact location once the closest node is known.
+	 */
+	public static boolean isCacheable(IsochroneSearchParameters parameters) {
+		String method = parameters.getCalcMethod();
+		return Helper.isEmpty(method) || "Default".equalsIgnoreCase(method) || "ConcaveBalls".equalsIgnoreCase(method);
+	}
+
+	public static String createKey(IsochroneSearchParameters parameters, int closestNode) {
+		StringBuilder sb = new StringBuilder(128);
+		sb.append(closestNode).append('|').append(parameters.getRangeType()).append('|')
+				.append(Arrays.toString(parameters.getRanges())).append('|').append(parameters.getSmoothingFactor())
+				.append('|').append(parameters.getReverseDirection()).append('|');
+
+		if (parameters.getRouteParameters() != null)
+			sb.append(parameters.getRouteParameters().getCacheKey());
+
+		return sb.toString();
+	}
+
+	public IsochroneMap get(String key, IsochroneSearchParameters parameters) {
+		IsochroneMap map = _cache.get(key);
+		return map == null ? null : copy(map, parameters.getTravellerId(), parameters.getLocation());
+	}
+
+	public void put(String key, IsochroneMap map) {
+		_cache.put(key, copy(map, map.getTravellerId(), map.getCenter()));
+	}
+
+	public void clear() {
+		_cache.clear();
+	}
+
+	public int size() {
+		return _cache.size();
+	}
+
+	public long getHits() {
+		return _cache.getHits();
+	}
+
+	public long getMisses() {
+		return _cache.getMisses();
+	}
+
+	public double getHitRatio() {
+		return _cache.getHitRatio();
+	}
+
+	private static IsochroneMap copy(IsochroneMap map, int travellerId, Coordinate center) {
+		IsochroneMap result = new IsochroneMap(travellerId, center);
+
+		for (Isochrone isochrone : map.getIsochrones())
+			result.addIsochrone(new Isochrone(isochrone.getGeometry(), isochrone.getValue(), isochrone.getMaxRadius(null)));
+
+		return result;
+	}
+}
@@ -13,15 +13,10 @@
  */
 package heigit.ors.isochrones.builders.concaveballs;
 
-import com.carrotsearch.hppc.IntObjectMap;
-import com.carrotsearch.hppc.cursors.IntObjectCursor;
-import com.graphhopper.coll.GHIntObjectHashMap;
 import com.graphhopper.storage.GraphHopperStorage;
 import com.graphhopper.storage.NodeAccess;
-import com.graphhopper.storage.SPTEntry;
 import com.graphhopper.util.*;
 import com.vividsolutions.jts.geom.*;
-import com.vividsolutions.jts.index.quadtree.Quadtree;
 import heigit.ors.common.TravelRangeType;
 import heigit.ors.isochrones.GraphEdgeMapFinder;
 import heigit.ors.isochrones.Isochrone;
@@ -30,26 +25,28 @@ import heigit.ors.isochrones.IsochroneSearchParameters;
 import heigit.ors.isochrones.builders.AbstractIsochroneMapBuilder;
 import heigit.ors.routing.RouteSearchContext;
 import heigit.ors.routing.graphhopper.extensions.AccessibilityMap;
+import heigit.ors.services.isochrones.IsochronesServiceSettings;
 import heigit.ors.util.GeomUtility;
 import org.apache.log4j.Logger;
 import org.opensphere.geometry.algorithm.ConcaveHull;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class ConcaveBallsIsochroneMapBuilder extends AbstractIsochroneMapBuilder 
 {
+	private static ExecutorService _executor;
+
 	private final Logger LOGGER = Logger.getLogger(ConcaveBallsIsochroneMapBuilder.class.getName());
 
-	private double searchWidth = 0.0007; 
-	private double pointWidth = 0.0005;
-	private double visitorThreshold = 0.0013;
-	private Envelope searchEnv = new Envelope();
 	private GeometryFactory _geomFactory;
-	private PointItemVisitor visitor = null;
 	private List<Coordinate> prevIsoPoints = null;
-    private TreeSet<Coordinate>_treeSet;
 	private RouteSearchContext _searchContext;
 
 	private boolean BUFFERED_OUTPUT = true;
@@ -87,71 +84,129 @@ public class ConcaveBallsIsochroneMapBuilder extends AbstractIsochroneMapBuilder
 		if (edgeMap.isEmpty())
 			return isochroneMap;
 
-		_treeSet = new TreeSet<Coordinate>();
-
-		List<Coordinate> isoPoints = new ArrayList<Coordinate>((int)(1.2*edgeMap.getMap().size()));
-
 		if (LOGGER.isDebugEnabled())
 		{
 			sw = new StopWatch();
 			sw.start();
 		}
 
-		markDeadEndEdges(edgeMap);
+		SortedSPTEntries entries = new SortedSPTEntries(edgeMap.getMap());
 
 		if (LOGGER.isDebugEnabled())
 		{
 			sw.stop();
-			LOGGER.debug("Mark dead ends: " + sw.getSeconds());
+			LOGGER.debug("Sort edges and mark dead ends: " + sw.getSeconds());
 		}
 
-		int nRanges = parameters.getRanges().length;
-		double metersPerSecond = maxSpeed / 3.6;
+		boolean parallel = parameters.getRanges().length > 1 && IsochronesServiceSettings.getParallelThreads() > 1;
+		computeIntervals(isochroneMap, entries, edgeMap.getMap().size(), parameters, maxSpeed, parallel ? getExecutor() : null);
+
+		if (LOGGER.isDebugEnabled())
+			LOGGER.debug("Total time: " + swTotal.stop().getSeconds());
 
-		double prevCost = 0;
-		for (int i = 0; i < nRanges; i++) {
-			double isoValue = parameters.getRanges()[i];
-			float smoothingFactor = parameters.getSmoothingFactor();
-			TravelRangeType isochroneType = parameters.getRangeType();
+		return isochroneMap;
+	}
 
-			if (LOGGER.isDebugEnabled())
-			{
-				sw = new StopWatch();
-				sw.start();
+	/**
+	 * Builds the concave hulls of all range intervals. Each interval is seeded with the hull of the previous one and
+	 * adds the points of the edges entered between the previous range and its own, so the points of an interval do not
+	 * depend on the other intervals. With an executor they are collected concurrently, the hulls are still built one
+	 * after another in the order of the ranges and are the same as without.
+	 *
+	 * @param executor	The executor collecting the points of the intervals or <code>null</code> to collect them here
+	 */
+	void computeIntervals(IsochroneMap isochroneMap, SortedSPTEntries entries, int mapSize, IsochroneSearchParameters parameters,
+			double maxSpeed, ExecutorService executor) throws Exception
+	{
+		double[] ranges = parameters.getRanges();
+		double metersPerSecond = maxSpeed / 3.6;
+		List<Future<List<Coordinate>>> futures = null;
+
+		if (executor != null)
+		{
+			futures = new ArrayList<Future<List<Coordinate>>>(ranges.length);
+			for (int i = 0; i < ranges.length; i++) {
+				double isoValue = ranges[i];
+				double prevCost = i == 0 ? 0 : ranges[i - 1];
+				futures.add(executor.submit(() -> collectPoints(entries, mapSize, isoValue, prevCost, 0.85)));
 			}
+		}
 
-			GeometryCollection points = buildIsochrone(edgeMap, isoPoints, loc.x, loc.y, isoValue, prevCost,maxSpeed, 0.85);
+		try {
+			for (int i = 0; i < ranges.length; i++) {
+				double isoValue = ranges[i];
+				StopWatch sw = null;
+
+				if (LOGGER.isDebugEnabled())
+				{
+					sw = new StopWatch();
+					sw.start();
+				}
 
-			if (LOGGER.isDebugEnabled())
-			{
-				//	 savePoints(points, "D:\\isochrones3.shp");
-				sw.stop();
-				LOGGER.debug(i + " Find points: " + sw.getSeconds() + " " + points.getNumGeometries());
+				List<Coordinate> edgePoints = futures == null ? collectPoints(entries, mapSize, isoValue, i == 0 ? 0 : ranges[i - 1], 0.85) : getPoints(futures.get(i));
+				GeometryCollection points = createPoints(edgePoints);
 
-				sw = new StopWatch();
-				sw.start();
-			}
+				if (LOGGER.isDebugEnabled())
+				{
+					sw.stop();
+					LOGGER.debug(i + " Find points: " + sw.getSeconds() + " " + points.getNumGeometries());
 
-			switch(isochroneType) {
-				case Distance:
-					addIsochrone(isochroneMap, points, isoValue, isoValue, smoothingFactor);
-					break;
-				case Time:
-					addIsochrone(isochroneMap, points, isoValue, metersPerSecond * isoValue, smoothingFactor);
-					break;
-			}
+					sw = new StopWatch();
+					sw.start();
+				}
 
+				double maxRadius = (parameters.getRangeType() == TravelRangeType.Time) ? metersPerSecond * isoValue : isoValue;
+				Isochrone isochrone = createIsochrone(points, isoValue, maxRadius, parameters.getSmoothingFactor());
+				if (isochrone != null)
+					isochroneMap.addIsochrone(isochrone);
 
-			if (LOGGER.isDebugEnabled())
-				LOGGER.debug("Build concave hull: " + sw.stop().getSeconds());
+				if (LOGGER.isDebugEnabled())
+					LOGGER.debug("Build concave hull: " + sw.stop().getSeconds());
+			}
+		} finally {
+			// only does something if an interval failed
+			if (futures != null) {
+				for (Future<List<Coordinate>> future : futures)
+					future.cancel(true);
+			}
+		}
+	}
 
-			prevCost = isoValue;
+	private static List<Coordinate> getPoints(Future<List<Coordinate>> future) throws Exception
+	{
+		try {
+			return future.get();
+		} catch (ExecutionException ex) {
+			if (ex.getCause() instanceof Exception)
+				throw (Exception) ex.getCause();
+			throw ex;
 		}
+	}
 
-		if (LOGGER.isDebugEnabled())
-			LOGGER.debug("Total time: " + swTotal.stop().getSeconds());
+	private static synchronized ExecutorService getExecutor() {
+		if (_executor == null) {
+			AtomicInteger threadCounter = new AtomicInteger();
+			ThreadFactory threadFactory = runnable -> {
+				Thread thread = new Thread(runnable);
+				thread.setName("ORS-Isochrone-Intervals-" + threadCounter.incrementAndGet());
+				thread.setDaemon(true);
+				return thread;
+			};
+
+			_executor = Executors.newFixedThreadPool(IsochronesServiceSettings.getParallelThreads(), threadFactory);
+		}
 
-		return isochroneMap;
+		return _executor;
+	}
+
+	/**
+	 * Stops the threads which collect the points of the intervals. They are started again by the next isochrone.
+	 */
+	public static synchronized void shutdown() {
+		if (_executor != null) {
+			_executor.shutdownNow();
+			_executor = null;
+		}
 	}
 
 	/**
@@ -180,10 +235,10 @@ public class ConcaveBallsIsochroneMapBuilder extends AbstractIsochroneMapBuilder
 		return maxLength;
 	}
 
-	private void addIsochrone(IsochroneMap isochroneMap, GeometryCollection points, double isoValue, double maxRadius, float smoothingFactor)
+	private Isochrone createIsochrone(GeometryCollection points, double isoValue, double maxRadius, float smoothingFactor)
 	{
 		if (points.isEmpty())
-			return;
+			return null;
 
 		ConcaveHull ch = new ConcaveHull(points, convertSmoothingFactorToDistance(smoothingFactor, maxRadius), false);
 		Geometry geom = ch.getConcaveHull();
@@ -192,79 +247,29 @@ public class ConcaveBallsIsochroneMapBuilder extends AbstractIsochroneMapBuilder
 		{
 			GeometryCollection geomColl = (GeometryCollection)geom;
 			if (geomColl.isEmpty())
-				return;
+				return null;
 		}
 
 		Polygon poly = (Polygon)geom;
 
 		copyConvexHullPoints(poly);
 
-		isochroneMap.addIsochrone(new Isochrone(poly, isoValue, maxRadius));
+		return new Isochrone(poly, isoValue, maxRadius);
 	}
 
-	private void markDeadEndEdges(AccessibilityMap edgeMap)
-	{
-		IntObjectMap<SPTEntry> map = edgeMap.getMap();
-		IntObjectMap<Integer> result = new GHIntObjectHashMap<Integer>(map.size()/20);
-
-		for (IntObjectCursor<SPTEntry> entry : map) {
-			SPTEntry  edge = entry.value;
-			if (edge.originalEdge == -1)
-				continue;
-
-			result.put(edge.parent.originalEdge, 1);
-		}
-
-		for (IntObjectCursor<SPTEntry> entry : map) {
-			SPTEntry  edge = entry.value;
-			if (edge.originalEdge == -1)
-				continue;
-
-			if (!result.containsKey(edge.originalEdge))
-				edge.edge =-2;
-		}
-	}
-
-	public Boolean addPoint(List<Coordinate> points, Quadtree tree, double lon, double lat, boolean checkNeighbours) {
-		if (checkNeighbours)
+	public Boolean addPoint(List<Coordinate> points, PointGrid grid, double lon, double lat, boolean checkNeighbours, double visitorThreshold) {
+		// A duplicate point is always closer than the threshold, so the neighbour check covers the duplicate check.
+		if (grid.add(lon, lat, checkNeighbours ? visitorThreshold : 0))
 		{
-			visitor.setPoint(lon, lat);
-			searchEnv.init(lon - searchWidth, lon + searchWidth, lat - searchWidth, lat + searchWidth);
-			tree.query(searchEnv, visitor);
-			if (!visitor.isNeighbourFound()) 
-			{
-				Coordinate p = new Coordinate(lon, lat);
-
-				if (!_treeSet.contains(p))
-				{
-					Envelope env = new Envelope(lon - pointWidth, lon + pointWidth, lat - pointWidth, lat + pointWidth);
-					tree.insert(env, p);
-					points.add(p);
-					_treeSet.add(p);
-					
-					return true;
-				}
-			}
+			points.add(new Coordinate(lon, lat));
+			return true;
 		}
-		else
-		{
-			Coordinate p = new Coordinate(lon, lat);
-			if (!_treeSet.contains(p))
-			{
-				Envelope env = new Envelope(lon - pointWidth, lon + pointWidth, lat - pointWidth, lat + pointWidth);
-				tree.insert(env, p);
-				points.add(p);
-				_treeSet.add(p);
-				
-				return true;
-			}
-		} 
 		
 		return false;
 	}
 
-	private void addBufferPoints(List<Coordinate> points, Quadtree tree, double lon0, double lat0, double lon1,
-			double lat1, boolean addLast, boolean checkNeighbours, double bufferSize) {
+	private void addBufferPoints(List<Coordinate> points, PointGrid grid, double lon0, double lat0, double lon1,
+			double lat1, boolean addLast, boolean checkNeighbours, double bufferSize, double visitorThreshold) {
 		double dx = (lon0 - lon1);
 		double dy = (lat0 - lat1);
 		double norm_length = Math.sqrt((dx * dx) + (dy * dy));
@@ -273,92 +278,72 @@ public class ConcaveBallsIsochroneMapBuilder extends AbstractIsochroneMapBuilder
 		double dx2 = -dy*scale;
 		double dy2 = dx*scale;
 
-		addPoint(points, tree, lon0 + dx2, lat0 + dy2, checkNeighbours);
-		addPoint(points, tree, lon0 - dx2, lat0 - dy2, checkNeighbours);
+		addPoint(points, grid, lon0 + dx2, lat0 + dy2, checkNeighbours, visitorThreshold);
+		addPoint(points, grid, lon0 - dx2, lat0 - dy2, checkNeighbours, visitorThreshold);
 			
 		// add a middle point if two points are too far from each other
 		if (norm_length > 2*bufferSize)
 		{
-			addPoint(points, tree, (lon0 + lon1)/2.0 + dx2, (lat0 + lat1)/2.0 + dy2, checkNeighbours);	
-			addPoint(points, tree, (lon0 + lon1)/2.0 - dx2, (lat0 + lat1)/2.0 - dy2, checkNeighbours);
+			addPoint(points, grid, (lon0 + lon1)/2.0 + dx2, (lat0 + lat1)/2.0 + dy2, checkNeighbours, visitorThreshold);	
+			addPoint(points, grid, (lon0 + lon1)/2.0 - dx2, (lat0 + lat1)/2.0 - dy2, checkNeighbours, visitorThreshold);
 		}
  
 		if (addLast) {
-			 addPoint(points, tree, lon1 + dx2, lat1 + dy2, checkNeighbours);
-			 addPoint(points, tree, lon1 - dx2, lat1 - dy2, checkNeighbours);
+			 addPoint(points, grid, lon1 + dx2, lat1 + dy2, checkNeighbours, visitorThreshold);
+			 addPoint(points, grid, lon1 - dx2, lat1 - dy2, checkNeighbours, visitorThreshold);
 		} 
 	}
 
-	private GeometryCollection buildIsochrone(AccessibilityMap edgeMap, List<Coordinate> points, double lon, double lat,
-			double isolineCost, double prevCost,  double maxSpeed, double detailedGeomFactor) {
-		IntObjectMap<SPTEntry> map = edgeMap.getMap();
-
-		points.clear();
-		_treeSet.clear();
-
-		if (prevIsoPoints != null)
-			points.addAll(prevIsoPoints);
+	/**
+	 * Collects the points of the edges entered between <code>prevCost</code> and <code>isolineCost</code>. Only reads
+	 * the graph, so the points of several intervals can be collected concurrently.
+	 */
+	private List<Coordinate> collectPoints(SortedSPTEntries entries, int mapSize, double isolineCost, double prevCost, double detailedGeomFactor) {
+		List<Coordinate> points = new ArrayList<Coordinate>();
 
 		GraphHopperStorage graph = _searchContext.getGraphHopper().getGraphHopperStorage();
 		NodeAccess nodeAccess = graph.getNodeAccess();
 		int maxNodeId = graph.getNodes();
 
-		SPTEntry edgeEntry = edgeMap.getEdgeEntry();
-		SPTEntry goalEdge = edgeEntry;
-
 		DistanceCalc dcFast = new DistancePlaneProjection();
 		double bufferSize = 0.0018;
-		Quadtree qtree = new Quadtree();
-		visitor = new PointItemVisitor(lon, lat, visitorThreshold);
 		double detailedZone = isolineCost * detailedGeomFactor;
 
-		double defaultSearchWidth = 0.0008;
-		double defaulPointWidth =  0.005;
-		double defaultVisitorThreshold = 0.0035;
+		double visitorThreshold = 0.0035;
 		
 		// make results a bit more precise for regions with low data density
-		if (map.size() < 10000)
+		if (mapSize < 10000)
 		{
-			defaultSearchWidth = 0.0008;
-			defaulPointWidth = 0.005;
-			defaultVisitorThreshold = 0.0025;  
+			visitorThreshold = 0.0025;  
 		}
+
+		PointGrid grid = new PointGrid(visitorThreshold, mapSize);
 		
 		int nodeId, edgeId;
 
-		for (IntObjectCursor<SPTEntry> entry : map) {
-			goalEdge = entry.value;
-			edgeId = goalEdge.originalEdge;
-
-			if (edgeId == -1)
-				continue;
+		// Edges entered below prevCost have been considered in the previous step, edges entered beyond isolineCost
+		// cannot contribute to this one.
+		int toIndex = entries.getToIndex(isolineCost);
 
-			nodeId = goalEdge.adjNode;
+		for (int index = entries.getFromIndex(prevCost); index < toIndex; index++) {
+			edgeId = entries.getEdge(index);
+			nodeId = entries.getAdjNode(index);
 
 			if (nodeId == -1 || nodeId > maxNodeId)
 				continue;
 			
 			EdgeIteratorState iter = graph.getEdgeIteratorState(edgeId, nodeId);
 
-			float maxCost = (float) (goalEdge.weight);
-			float minCost = (float) (goalEdge.parent.weight);
-
-			// ignore all edges that have been considered in the previous step
-			if (minCost < prevCost)
-				continue;
-
-			searchWidth = defaultSearchWidth; 
-			visitorThreshold = defaultVisitorThreshold; 
-			pointWidth = defaulPointWidth;
-
-			visitor.setThreshold(visitorThreshold);
+			float maxCost = entries.getWeight(index);
+			float minCost = entries.getParentWeight(index);
+			boolean deadEnd = entries.isDeadEnd(index);
 
 			// edges that are fully inside of the isochrone
 			if (isolineCost >= maxCost) {
 
-				if (goalEdge.edge == -2)
+				if (deadEnd)
 				{
-					//addPoint(points, qtree, nodeAccess.getLon(nodeId), nodeAccess.getLat(nodeId), true);
+					//addPoint(points, grid, nodeAccess.getLon(nodeId), nodeAccess.getLat(nodeId), true, visitorThreshold);
 				}
 				else
 				{
@@ -380,7 +365,7 @@ public class ConcaveBallsIsochroneMapBuilder extends AbstractIsochroneMapBuilder
 									lat1 = pl.getLat(i);
 									lon1 = pl.getLon(i);
 
-									addBufferPoints(points, qtree, lon0, lat0, lon1, lat1, goalEdge.edge < 0 && i == size - 1, true, bufferSize);
+									addBufferPoints(points, grid, lon0, lat0, lon1, lat1, deadEnd && i == size - 1, true, bufferSize, visitorThreshold);
 
 									lon0 = lon1;
 									lat0 = lat1;
@@ -392,9 +377,9 @@ public class ConcaveBallsIsochroneMapBuilder extends AbstractIsochroneMapBuilder
 									lat1 = pl.getLat(i);
 									lon1 = pl.getLon(i);
 
-									addPoint(points, qtree, lon0, lat0, true);
+									addPoint(points, grid, lon0, lat0, true, visitorThreshold);
 									if (i == size -1)
-										addPoint(points, qtree, lon1, lat1, true);
+										addPoint(points, grid, lon1, lat1, true, visitorThreshold);
 
 									lon0 = lon1;
 									lat0 = lat1;
@@ -402,7 +387,7 @@ public class ConcaveBallsIsochroneMapBuilder extends AbstractIsochroneMapBuilder
 							}
 						}
 					} else {
-						addPoint(points, qtree, nodeAccess.getLon(nodeId), nodeAccess.getLat(nodeId), true);
+						addPoint(points, grid, nodeAccess.getLon(nodeId), nodeAccess.getLat(nodeId), true, visitorThreshold);
 					}
 				}
 			} else {
@@ -436,16 +421,16 @@ public class ConcaveBallsIsochroneMapBuilder extends AbstractIsochroneMapBuilder
 									double lon2 = lon0 + segLength * (lon1 - lon0);
 									double lat2 = lat0 + segLength * (lat1 - lat0);
 
-									addBufferPoints(points, qtree, lon0, lat0, lon2, lat2, true, false, bufferSize);
+									addBufferPoints(points, grid, lon0, lat0, lon2, lat2, true, false, bufferSize, visitorThreshold);
 
 									break;
 								} else {
-									addBufferPoints(points, qtree, lon0, lat0, lon1, lat1, false, true, bufferSize);
+									addBufferPoints(points, grid, lon0, lat0, lon1, lat1, false, true, bufferSize, visitorThreshold);
 								}
 							}
 							else
 							{
-								addPoint(points, qtree, lon0, lat0, true);
+								addPoint(points, grid, lon0, lat0, true, visitorThreshold);
 							}
 
 							lat0 = lat1;
@@ -456,14 +441,20 @@ public class ConcaveBallsIsochroneMapBuilder extends AbstractIsochroneMapBuilder
 			}
 		}
 
-		
-		Geometry[] geometries = new Geometry[points.size()];
+		return points;
+	}
 
-		for (int i = 0;i < points.size();++i)
-		{
-			Coordinate c = points.get(i);
-			geometries[i] = _geomFactory.createPoint(c);
-		}
+	/**
+	 * Creates the points of an interval from the hull of the previous interval and the points of its edges.
+	 */
+	private GeometryCollection createPoints(List<Coordinate> edgePoints) {
+		int nPrevPoints = prevIsoPoints == null ? 0 : prevIsoPoints.size();
+		Geometry[] geometries = new Geometry[nPrevPoints + edgePoints.size()];
+
+		for (int i = 0; i < nPrevPoints; ++i)
+			geometries[i] = _geomFactory.createPoint(prevIsoPoints.get(i));
+		for (int i = 0; i < edgePoints.size(); ++i)
+			geometries[nPrevPoints + i] = _geomFactory.createPoint(edgePoints.get(i));
 
 		return new GeometryCollection(geometries, _geomFactory);
 	}
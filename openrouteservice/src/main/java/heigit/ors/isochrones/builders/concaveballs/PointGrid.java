@@ -0,0 +1,111 @@
+/*  This file is part of Openrouteservice.
+ *
+ *  Openrouteservice is free software; you can redistribute it and/or modify it under the terms of the
+ *  GNU Lesser General Public License as published by the Free Software Foundation; either version 2.1
+ *  of the License, or (at your option) any later version.
+
+ *  This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ *  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *  See the GNU Lesser General Public License for more details.
+
+ *  You should have received a copy of the GNU Lesser General Public License along with this library;
+ *  if not, see <https://www.gnu.org/licenses/>.
+ */
+package heigit.ors.isochrones.builders.concaveballs;
+
+import java.util.Arrays;
+
+import com.carrotsearch.hppc.LongIntHashMap;
+
+/**
+ * A uniform grid over lon/lat used to thin out isochrone points. Each cell is keyed by its quantised coordinates
+ * packed into a <code>long</code> and refers to the last point inserted into it; the points of a cell are chained
+ * through the <code>_next</code> array. Lookups do not allocate any objects.
+ */
+public class PointGrid {
+	private static final int NO_POINT = -1;
+
+	private final double _cellSize;
+	private final LongIntHashMap _cells;
+	private double[] _lons;
+	private double[] _lats;
+	private int[] _next;
+	private int _size;
+
+	public PointGrid(double cellSize, int initialCapacity) {
+		_cellSize = cellSize;
+		_cells = new LongIntHashMap(Math.max(16, initialCapacity / 4));
+		initialCapacity = Math.max(16, initialCapacity);
+		_lons = new double[initialCapacity];
+		_lats = new double[initialCapacity];
+		_next = new int[initialCapacity];
+	}
+
+	/**
+	 * Adds a point unless the grid already contains the same point or, if <code>threshold</code> is positive, a
+	 * point closer to it than <code>threshold</code>. Both checks are done in a single pass over the neighbouring
+	 * cells.
+	 *
+	 * @return <code>true</code> if the point has been added.
+	 */
+	public boolean add(double lon, double lat, double threshold) {
+		int cellX = getCell(lon);
+		int cellY = getCell(lat);
+
+		if (threshold > 0) {
+			int radius = (int) Math.ceil(threshold / _cellSize);
+
+			for (int x = cellX - radius; x <= cellX + radius; x++) {
+				for (int y = cellY - radius; y <= cellY + radius; y++) {
+					for (int p = _cells.getOrDefault(getKey(x, y), NO_POINT); p != NO_POINT; p = _next[p]) {
+						double dx = _lons[p] - lon;
+						double dy = _lats[p] - lat;
+						if (Math.sqrt(dx * dx + dy * dy) < threshold)
+							return false;
+					}
+				}
+			}
+		} else {
+			for (int p = _cells.getOrDefault(getKey(cellX, cellY), NO_POINT); p != NO_POINT; p = _next[p]) {
+				if (_lons[p] == lon && _lats[p] == lat)
+					return false;
+			}
+		}
+
+		insert(lon, lat, getKey(cellX, cellY));
+
+		return true;
+	}
+
+	public int size() {
+		return _size;
+	}
+
+	public void clear() {
+		_cells.clear();
+		_size = 0;
+	}
+
+	private void insert(double lon, double lat, long key) {
+		if (_size == _lons.length) {
+			int capacity = _size + (_size >> 1);
+			_lons = Arrays.copyOf(_lons, capacity);
+			_lats = Arrays.copyOf(_lats, capacity);
+			_next = Arrays.copyOf(_next, capacity);
+		}
+
+		_lons[_size] = lon;
+		_lats[_size] = lat;
+		_next[_size] = _cells.getOrDefault(key, NO_POINT);
+		_cells.put(key, _size);
+		_size++;
+	}
+
+	private int getCell(double value) {
+		return (int) Math.floor(value / _cellSize);
+	}
+
+	private static long getKey(int cellX, int cellY) {
+		return ((long) cellX << 32) | (cellY & 0xFFFFFFFFL);
+	}
+}
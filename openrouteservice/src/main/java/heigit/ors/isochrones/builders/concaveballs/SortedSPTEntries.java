@@ -0,0 +1,132 @@
+/*  This file is part of Openrouteservice.
+ *
+ *  Openrouteservice is free software; you can redistribute it and/or modify it under the terms of the
+ *  GNU Lesser General Public License as published by the Free Software Foundation; either version 2.1
+ *  of the License, or (at your option) any later version.
+
+ *  This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ *  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *  See the GNU Lesser General Public License for more details.
+
+ *  You should have received a copy of the GNU Lesser General Public License along with this library;
+ *  if not, see <https://www.gnu.org/licenses/>.
+ */
+package heigit.ors.isochrones.builders.concaveballs;
+
+import java.util.Arrays;
+
+import com.carrotsearch.hppc.IntObjectMap;
+import com.carrotsearch.hppc.cursors.ObjectCursor;
+import com.graphhopper.storage.SPTEntry;
+
+/**
+ * The settled edges of a shortest path tree in primitive arrays, sorted by the weight at which an edge is entered
+ * (the weight of its parent). All edges which start within a range of weights form a contiguous slice, so an
+ * isochrone interval only needs to look at the edges between two range values.
+ */
+public class SortedSPTEntries {
+	private final int[] _edges;
+	private final int[] _adjNodes;
+	private final float[] _parentWeights;
+	private final float[] _weights;
+	private final boolean[] _deadEnds;
+	private final int _size;
+
+	public SortedSPTEntries(IntObjectMap<SPTEntry> map) {
+		SPTEntry[] entries = new SPTEntry[map.size()];
+		int size = 0;
+
+		for (ObjectCursor<SPTEntry> cursor : map.values()) {
+			if (cursor.value.originalEdge != -1)
+				entries[size++] = cursor.value;
+		}
+
+		// Ties are ordered by edge id, which makes the order independent of the iteration order of the map.
+		Arrays.sort(entries, 0, size, (a, b) -> {
+			int res = Float.compare((float) a.parent.weight, (float) b.parent.weight);
+			return res != 0 ? res : Integer.compare(a.originalEdge, b.originalEdge);
+		});
+
+		// An edge is a dead end if no other edge of the tree continues from it.
+		int[] parentEdges = new int[size];
+		for (int i = 0; i < size; i++)
+			parentEdges[i] = entries[i].parent.originalEdge;
+		Arrays.sort(parentEdges);
+
+		_size = size;
+		_edges = new int[size];
+		_adjNodes = new int[size];
+		_parentWeights = new float[size];
+		_weights = new float[size];
+		_deadEnds = new boolean[size];
+
+		for (int i = 0; i < size; i++) {
+			SPTEntry entry = entries[i];
+			_edges[i] = entry.originalEdge;
+			_adjNodes[i] = entry.adjNode;
+			_parentWeights[i] = (float) entry.parent.weight;
+			_weights[i] = (float) entry.weight;
+			_deadEnds[i] = Arrays.binarySearch(parentEdges, entry.originalEdge) < 0;
+		}
+	}
+
+	public int size() {
+		return _size;
+	}
+
+	/**
+	 * Returns the index of the first edge whose parent weight is not less than the given weight.
+	 */
+	public int getFromIndex(double weight) {
+		int low = 0;
+		int high = _size;
+
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (_parentWeights[mid] < weight)
+				low = mid + 1;
+			else
+				high = mid;
+		}
+
+		return low;
+	}
+
+	/**
+	 * Returns the index after the last edge whose parent weight does not exceed the given weight.
+	 */
+	public int getToIndex(double weight) {
+		int low = 0;
+		int high = _size;
+
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (_parentWeights[mid] <= weight)
+				low = mid + 1;
+			else
+				high = mid;
+		}
+
+		return low;
+	}
+
+	public int getEdge(int index) {
+		return _edges[index];
+	}
+
+	public int getAdjNode(int index) {
+		return _adjNodes[index];
+	}
+
+	public float getParentWeight(int index) {
+		return _parentWeights[index];
+	}
+
+	public float getWeight(int index) {
+		return _weights[index];
+	}
+
+	public boolean isDeadEnd(int index) {
+		return _deadEnds[index];
+	}
+}
@@ -57,4 +57,14 @@ public class MatrixLocations {
 	{
 		return _hasValidNodes;
 	}
+
+	public MatrixLocations subset(int fromIndex, int toIndex)
+	{
+		MatrixLocations res = new MatrixLocations(toIndex - fromIndex, false);
+		
+		for (int i = fromIndex; i < toIndex; i++)
+			res.setData(i - fromIndex, _nodeIds[i], _locations[i]);
+		
+		return res;
+	}
 }
@@ -13,7 +13,9 @@
  */
 package heigit.ors.matrix;
 
-import com.graphhopper.coll.GHLongObjectHashMap;
+import java.util.Arrays;
+
+import com.carrotsearch.hppc.LongIntHashMap;
 import com.graphhopper.routing.QueryGraph;
 import com.graphhopper.routing.util.FlagEncoder;
 import com.graphhopper.routing.weighting.FastestWeighting;
@@ -26,16 +28,10 @@ import com.graphhopper.util.EdgeIteratorState;
 
 import heigit.ors.common.DistanceUnit;
 import heigit.ors.routing.graphhopper.extensions.storages.MultiTreeSPEntry;
-import heigit.ors.routing.graphhopper.extensions.storages.MultiTreeSPEntryItem;
+import heigit.ors.routing.graphhopper.extensions.storages.MultiTreeSPEntryArena;
 import heigit.ors.util.DistanceUnitUtil;
 
 public class MultiTreeMetricsExtractor {
-	private class MetricsItem {
-		public double time;
-		public double distance;
-		public double weight;
-	}
-
 	private int _metrics;
 	private Graph _graph;
 	private CHGraph _chGraph;
@@ -47,7 +43,12 @@ public class MultiTreeMetricsExtractor {
 	private DistanceUnit _distUnits;
 	private boolean _reverseOrder = true;
 	private boolean _unpackDistance = true;
-	private GHLongObjectHashMap<MetricsItem> _edgeMetrics;
+	// cache of already unpacked edges: maps an entry hash to an index in the primitive metrics arrays 
+	private LongIntHashMap _edgeMetrics;
+	private double[] _edgeMetricsTime;
+	private double[] _edgeMetricsDistance;
+	private double[] _edgeMetricsWeight;
+	private int _edgeMetricsSize;
 	private long _maxEdgeId = 0;
 
 	public MultiTreeMetricsExtractor(int metrics, Graph graph, FlagEncoder encoder, Weighting weighting,
@@ -57,7 +58,10 @@ public class MultiTreeMetricsExtractor {
 		_weighting = weighting;
 		_timeWeighting = new FastestWeighting(encoder);
 		_distUnits = units;
-		_edgeMetrics = new GHLongObjectHashMap<MetricsItem>();
+		_edgeMetrics = new LongIntHashMap();
+		_edgeMetricsTime = new double[64];
+		_edgeMetricsDistance = new double[64];
+		_edgeMetricsWeight = new double[64];
 
 		if (graph instanceof CHGraph)
 			_chGraph = (CHGraph) graph;
@@ -90,6 +94,15 @@ public class MultiTreeMetricsExtractor {
 
 	public void calcValues(MultiTreeSPEntry[] targets, MatrixLocations srcData, MatrixLocations dstData, float[] times,
 			float[] distances, float[] weights) throws Exception {
+		calcValues(targets, srcData, dstData, times, distances, weights, 0);
+	}
+
+	/**
+	 * Computes the values for the given sources and writes them into the rows starting at sourceOffset. This allows
+	 * several extractors to fill disjoint parts of the same tables when the sources are processed in chunks.
+	 */
+	public void calcValues(MultiTreeSPEntry[] targets, MatrixLocations srcData, MatrixLocations dstData, float[] times,
+			float[] distances, float[] weights, int sourceOffset) throws Exception {
 		if (targets == null)
 			throw new IllegalStateException("Target destinations not set");
 
@@ -100,8 +113,9 @@ public class MultiTreeMetricsExtractor {
 		boolean calcTime = MatrixMetricsType.isSet(_metrics, MatrixMetricsType.Duration);
 		boolean calcDistance = MatrixMetricsType.isSet(_metrics, MatrixMetricsType.Distance);
 		boolean calcWeight = MatrixMetricsType.isSet(_metrics, MatrixMetricsType.Weight);
-		MetricsItem edgeMetricsItem = null;
-		MultiTreeSPEntryItem sptItem = null;
+		int edgeMetricsIndex = -1;
+		MultiTreeSPEntryArena arena = null;
+		int slot, edge, adjNode;
 
 		for (int i = 0; i < targets.length; ++i) {
 			// index = i * dstData.size();
@@ -111,7 +125,7 @@ public class MultiTreeMetricsExtractor {
 				pathDistance = -1;
 				pathWeight = -1;
 
-				index = j * dstData.size() + i;
+				index = (sourceOffset + j) * dstData.size() + i;
 
 				if (srcData.getNodeId(j) != -1) {
 					MultiTreeSPEntry targetEntry = targets[i];
@@ -121,20 +135,22 @@ public class MultiTreeMetricsExtractor {
 						pathDistance = 0.0;
 						pathWeight = 0.0;
 
-						sptItem = targetEntry.getItem(srcNode);
+						arena = targetEntry.getArena();
+						slot = targetEntry.getSlot();
 
-						if (sptItem.parent != null) {
-							while (EdgeIterator.Edge.isValid(sptItem.edge)) {
-								edgeMetricsItem = null;
+						if (arena.getParent(slot, srcNode) != MultiTreeSPEntryArena.NO_SLOT) {
+							while (EdgeIterator.Edge.isValid(edge = arena.getEdge(slot, srcNode))) {
+								adjNode = arena.getAdjNode(slot);
+								edgeMetricsIndex = -1;
 								if (_edgeMetrics != null) {
-									entryHash = getMultiTreeSPEntryHash(targetEntry, srcNode);
-									edgeMetricsItem = _edgeMetrics.get(entryHash);
+									entryHash = getMultiTreeSPEntryHash(adjNode, edge);
+									edgeMetricsIndex = _edgeMetrics.getOrDefault(entryHash, -1);
 								}
 
-								if (edgeMetricsItem == null) {
+								if (edgeMetricsIndex < 0) {
 									if (_chGraph != null) {
 										CHEdgeIteratorState iterState = (CHEdgeIteratorState) _graph
-												.getEdgeIteratorState(sptItem.edge, targetEntry.adjNode);
+												.getEdgeIteratorState(edge, adjNode);
 
 										if (calcWeight || calcTime || _unpackDistance) {
 											if (iterState.isShortcut()) {
@@ -162,8 +178,7 @@ public class MultiTreeMetricsExtractor {
 													: DistanceUnitUtil.convert(iterState.getDistance(),
 															DistanceUnit.Meters, _distUnits);
 									} else {
-										EdgeIteratorState iter = _graph.getEdgeIteratorState(sptItem.edge,
-												targetEntry.adjNode);
+										EdgeIteratorState iter = _graph.getEdgeIteratorState(edge, adjNode);
 
 										if (calcDistance)
 											_edgeDistance = (_distUnits == DistanceUnit.Meters) ? iter.getDistance()
@@ -178,32 +193,25 @@ public class MultiTreeMetricsExtractor {
 											_edgeWeight = _weighting.calcWeight(iter, false, EdgeIterator.NO_EDGE);
 									}
 
-									if (_edgeMetrics != null) {
-										edgeMetricsItem = new MetricsItem();
-										edgeMetricsItem.distance = _edgeDistance;
-										edgeMetricsItem.time = _edgeTime;
-										edgeMetricsItem.weight = _edgeWeight;
-										_edgeMetrics.put(entryHash, edgeMetricsItem);
-									}
+									if (_edgeMetrics != null)
+										addEdgeMetrics(entryHash);
 
 									pathDistance += _edgeDistance;
 									pathTime += _edgeTime;
 									pathWeight += _edgeWeight;
 								} else {
 									if (calcDistance)
-										pathDistance += edgeMetricsItem.distance;
+										pathDistance += _edgeMetricsDistance[edgeMetricsIndex];
 									if (calcTime)
-										pathTime += edgeMetricsItem.time;
+										pathTime += _edgeMetricsTime[edgeMetricsIndex];
 									if (calcWeight)
-										pathWeight += edgeMetricsItem.weight;
+										pathWeight += _edgeMetricsWeight[edgeMetricsIndex];
 								}
 
-								targetEntry = sptItem.parent;
+								slot = arena.getParent(slot, srcNode);
 
-								if (targetEntry == null)
+								if (slot == MultiTreeSPEntryArena.NO_SLOT)
 									break;
-
-								sptItem = targetEntry.getItem(srcNode);
 							}
 						}
 					}
@@ -222,8 +230,23 @@ public class MultiTreeMetricsExtractor {
 		}
 	}
 
-	private long getMultiTreeSPEntryHash(MultiTreeSPEntry entry, int sptEntry) {
-		return entry.adjNode * _maxEdgeId  + entry.getItem(sptEntry).edge;
+	private long getMultiTreeSPEntryHash(int adjNode, int edge) {
+		return adjNode * _maxEdgeId  + edge;
+	}
+
+	private void addEdgeMetrics(long entryHash) {
+		if (_edgeMetricsSize == _edgeMetricsTime.length) {
+			int capacity = _edgeMetricsSize * 2;
+			_edgeMetricsTime = Arrays.copyOf(_edgeMetricsTime, capacity);
+			_edgeMetricsDistance = Arrays.copyOf(_edgeMetricsDistance, capacity);
+			_edgeMetricsWeight = Arrays.copyOf(_edgeMetricsWeight, capacity);
+		}
+
+		_edgeMetricsTime[_edgeMetricsSize] = _edgeTime;
+		_edgeMetricsDistance[_edgeMetricsSize] = _edgeDistance;
+		_edgeMetricsWeight[_edgeMetricsSize] = _edgeWeight;
+		_edgeMetrics.put(entryHash, _edgeMetricsSize);
+		_edgeMetricsSize++;
 	}
 
 	private void extractEdgeValues(CHEdgeIteratorState iterState, boolean reverse) {
@@ -19,12 +19,15 @@ import com.graphhopper.routing.weighting.Weighting;
 import com.graphhopper.storage.Graph;
 
 import heigit.ors.matrix.MatrixRequest;
+import heigit.ors.routing.algorithms.SearchBuffers;
+import heigit.ors.routing.algorithms.SearchBuffersPool;
 
 public abstract class AbstractMatrixAlgorithm implements MatrixAlgorithm {
   protected GraphHopper _graphHopper;
   protected Graph _graph;
   protected FlagEncoder _encoder;
   protected Weighting _weighting;
+  protected SearchBuffersPool _buffersPool;
   
   public void init(MatrixRequest req, GraphHopper gh, Graph graph, FlagEncoder encoder, Weighting weighting)
   {
@@ -33,4 +36,20 @@ public abstract class AbstractMatrixAlgorithm implements MatrixAlgorithm {
 	  _encoder = encoder;
 	  _weighting = weighting;
   }
+
+  public void setSearchBuffersPool(SearchBuffersPool pool)
+  {
+	  _buffersPool = pool;
+  }
+
+  protected SearchBuffers acquireSearchBuffers()
+  {
+	  return _buffersPool == null ? new SearchBuffers() : _buffersPool.acquire();
+  }
+
+  protected void releaseSearchBuffers(SearchBuffers buffers)
+  {
+	  if (_buffersPool != null)
+		  _buffersPool.release(buffers);
+  }
 }
@@ -21,9 +21,12 @@ import com.graphhopper.storage.Graph;
 import heigit.ors.matrix.MatrixLocations;
 import heigit.ors.matrix.MatrixRequest;
 import heigit.ors.matrix.MatrixResult;
+import heigit.ors.routing.algorithms.SearchBuffersPool;
 
 public interface MatrixAlgorithm {
   public void init(MatrixRequest req, GraphHopper gh, Graph graph, FlagEncoder encoder, Weighting weighting);
+
+  public void setSearchBuffersPool(SearchBuffersPool pool);
   
   public MatrixResult compute(MatrixLocations srcData, MatrixLocations dstData, int metrics) throws Exception;
 }
@@ -27,6 +27,7 @@ import heigit.ors.matrix.MatrixLocations;
 import heigit.ors.matrix.PathMetricsExtractor;
 import heigit.ors.matrix.algorithms.AbstractMatrixAlgorithm;
 import heigit.ors.routing.algorithms.DijkstraOneToManyAlgorithm;
+import heigit.ors.routing.algorithms.SearchBuffers;
 import heigit.ors.services.matrix.MatrixServiceSettings;
 
 public class DijkstraMatrixAlgorithm extends AbstractMatrixAlgorithm {
@@ -62,32 +63,38 @@ public class DijkstraMatrixAlgorithm extends AbstractMatrixAlgorithm {
 		}
 		else
 		{
-			DijkstraOneToManyAlgorithm algorithm = new DijkstraOneToManyAlgorithm(_graph, _weighting, TraversalMode.NODE_BASED);
-			algorithm.prepare(srcData.getNodeIds(),  dstData.getNodeIds());
-			algorithm.setMaxVisitedNodes(MatrixServiceSettings.getMaximumVisitedNodes());
+			SearchBuffers buffers = acquireSearchBuffers();
+
+			try {
+				DijkstraOneToManyAlgorithm algorithm = new DijkstraOneToManyAlgorithm(_graph, _weighting, TraversalMode.NODE_BASED, buffers);
+				algorithm.prepare(srcData.getNodeIds(),  dstData.getNodeIds());
+				algorithm.setMaxVisitedNodes(MatrixServiceSettings.getMaximumVisitedNodes());
 			
-			int sourceId = -1;
+				int sourceId = -1;
 
-			for (int srcIndex = 0; srcIndex < srcData.size(); srcIndex++) {
-				sourceId = srcData.getNodeId(srcIndex);
+				for (int srcIndex = 0; srcIndex < srcData.size(); srcIndex++) {
+					sourceId = srcData.getNodeId(srcIndex);
 
-				if (sourceId == -1)
-				{
-					_pathMetricsExtractor.setEmptyValues(srcIndex, srcData, dstData, times, distances, weights);
-				}
-				else
-				{
-					algorithm.reset();
-					SPTEntry[] targets = algorithm.calcPaths(sourceId, dstData.getNodeIds());
+					if (sourceId == -1)
+					{
+						_pathMetricsExtractor.setEmptyValues(srcIndex, srcData, dstData, times, distances, weights);
+					}
+					else
+					{
+						algorithm.reset();
+						SPTEntry[] targets = algorithm.calcPaths(sourceId, dstData.getNodeIds());
 
-					if (algorithm.getFoundTargets() != algorithm.getTargetsCount())
-						throw new Exception("Search exceeds the limit of visited nodes.");
+						if (algorithm.getFoundTargets() != algorithm.getTargetsCount())
+							throw new Exception("Search exceeds the limit of visited nodes.");
 
-					if (targets != null)
-					{
-						_pathMetricsExtractor.calcValues(srcIndex, targets, srcData, dstData, times, distances, weights);
+						if (targets != null)
+						{
+							_pathMetricsExtractor.calcValues(srcIndex, targets, srcData, dstData, times, distances, weights);
+						}
 					}
 				}
+			} finally {
+				releaseSearchBuffers(buffers);
 			}
 		}
 
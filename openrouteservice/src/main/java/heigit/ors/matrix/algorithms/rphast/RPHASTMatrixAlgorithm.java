@@ -15,6 +15,13 @@ package heigit.ors.matrix.algorithms.rphast;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import com.graphhopper.GraphHopper;
 import com.graphhopper.routing.ch.PrepareContractionHierarchies;
@@ -30,18 +37,24 @@ import heigit.ors.matrix.MatrixResult;
 import heigit.ors.matrix.MultiTreeMetricsExtractor;
 import heigit.ors.matrix.algorithms.AbstractMatrixAlgorithm;
 import heigit.ors.routing.algorithms.RPHASTAlgorithm;
+import heigit.ors.routing.algorithms.SearchBuffers;
+import heigit.ors.routing.algorithms.SubGraph;
 import heigit.ors.routing.graphhopper.extensions.storages.MultiTreeSPEntry;
+import heigit.ors.services.matrix.MatrixServiceSettings;
 
 public class RPHASTMatrixAlgorithm extends AbstractMatrixAlgorithm {
+	private static ExecutorService _executor;
+
 	private PrepareContractionHierarchies _prepareCH;
 	private MultiTreeMetricsExtractor _pathMetricsExtractor;
+	private MatrixRequest _request;
 
 	public void init(MatrixRequest req, GraphHopper gh, Graph graph, FlagEncoder encoder, Weighting weighting) {
 		super.init(req, gh, graph, encoder, weighting);
 
+		_request = req;
 		_prepareCH = _graphHopper.getCHFactoryDecorator().getPreparations().get(0);
-		_pathMetricsExtractor = new MultiTreeMetricsExtractor(req.getMetrics(), graph, _encoder, weighting,
-				req.getUnits());
+		_pathMetricsExtractor = createMetricsExtractor();
 	}
 
 	@Override
@@ -67,18 +80,92 @@ public class RPHASTMatrixAlgorithm extends AbstractMatrixAlgorithm {
 		}
 		else
 		{
-			RPHASTAlgorithm algorithm = new RPHASTAlgorithm(_graph, _prepareCH.getPrepareWeighting(),
-					TraversalMode.NODE_BASED);
-			
-			int[] srcIds = getValidNodeIds(srcData.getNodeIds());
 			int[] destIds = getValidNodeIds(dstData.getNodeIds());
-			
-			algorithm.prepare(srcIds, destIds);
+			int nThreads = MatrixServiceSettings.getParallelThreads();
+			int chunkSize = MatrixServiceSettings.getParallelChunkSize();
+
+			if (nThreads > 1 && srcData.size() > chunkSize)
+				computeParallel(srcData, dstData, destIds, chunkSize, times, distances, weights);
+			else
+				computeChunk(srcData, 0, dstData, destIds, null, _pathMetricsExtractor, times, distances, weights);
+		}
+
+		if (MatrixMetricsType.isSet(metrics, MatrixMetricsType.Duration))
+			mtxResult.setTable(MatrixMetricsType.Duration, times);
+		if (MatrixMetricsType.isSet(metrics, MatrixMetricsType.Distance))
+			mtxResult.setTable(MatrixMetricsType.Distance, distances);
+		if (MatrixMetricsType.isSet(metrics, MatrixMetricsType.Weight))
+			mtxResult.setTable(MatrixMetricsType.Weight, weights);
+
+		return mtxResult;
+	}
+
+	/**
+	 * Splits the sources into chunks and runs the upward/downward passes of each chunk on a worker thread. The
+	 * downward sub graph depends only on the targets, so it is built once and shared by all workers. Every chunk
+	 * covers a contiguous block of rows, which allows the workers to write directly into the shared tables.
+	 */
+	private void computeParallel(MatrixLocations srcData, MatrixLocations dstData, int[] destIds, int chunkSize,
+			float[] times, float[] distances, float[] weights) throws Exception {
+		SubGraph targetGraph;
+		SearchBuffers buffers = acquireSearchBuffers();
+		try {
+			RPHASTAlgorithm algorithm = createAlgorithm(buffers);
+			algorithm.prepare(new int[0], destIds);
+			targetGraph = algorithm.getTargetGraph();
+		} finally {
+			releaseSearchBuffers(buffers);
+		}
+
+		List<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+
+		for (int fromIndex = 0; fromIndex < srcData.size(); fromIndex += chunkSize) {
+			int srcOffset = fromIndex;
+			MatrixLocations chunkData = srcData.subset(fromIndex, Math.min(fromIndex + chunkSize, srcData.size()));
+
+			tasks.add(() -> {
+				computeChunk(chunkData, srcOffset, dstData, destIds, targetGraph, createMetricsExtractor(), times, distances, weights);
+				return null;
+			});
+		}
+
+		for (Future<Void> future : getExecutor().invokeAll(tasks)) {
+			try {
+				future.get();
+			} catch (ExecutionException ex) {
+				if (ex.getCause() instanceof Exception)
+					throw (Exception) ex.getCause();
+				throw ex;
+			}
+		}
+	}
+
+	private void computeChunk(MatrixLocations srcData, int srcOffset, MatrixLocations dstData, int[] destIds,
+			SubGraph targetGraph, MultiTreeMetricsExtractor pathMetricsExtractor, float[] times, float[] distances,
+			float[] weights) throws Exception {
+		if (!srcData.hasValidNodes()) {
+			for (int srcIndex = 0; srcIndex < srcData.size(); srcIndex++)
+				pathMetricsExtractor.setEmptyValues(srcOffset + srcIndex, srcData, dstData, times, distances, weights);
+			return;
+		}
+
+		// The returned trees are views into the arena of the buffers, so they are only released once all values
+		// have been extracted.
+		SearchBuffers buffers = acquireSearchBuffers();
+		try {
+			RPHASTAlgorithm algorithm = createAlgorithm(buffers);
+
+			int[] srcIds = getValidNodeIds(srcData.getNodeIds());
+
+			if (targetGraph == null)
+				algorithm.prepare(srcIds, destIds);
+			else
+				algorithm.prepare(srcIds, targetGraph);
 
 			MultiTreeSPEntry[] destTrees = algorithm.calcPaths(srcIds, destIds);
 
 			MultiTreeSPEntry[] originalDestTrees = new MultiTreeSPEntry[dstData.size()];
-			
+
 			int j = 0;
 			for (int i = 0; i < dstData.size(); i++) {
 				if (dstData.getNodeIds()[i] != -1) {
@@ -89,17 +176,44 @@ public class RPHASTMatrixAlgorithm extends AbstractMatrixAlgorithm {
 				}
 			}
 
-			_pathMetricsExtractor.calcValues(originalDestTrees, srcData, dstData, times, distances, weights);
+			pathMetricsExtractor.calcValues(originalDestTrees, srcData, dstData, times, distances, weights, srcOffset);
+		} finally {
+			releaseSearchBuffers(buffers);
 		}
+	}
 
-		if (MatrixMetricsType.isSet(metrics, MatrixMetricsType.Duration))
-			mtxResult.setTable(MatrixMetricsType.Duration, times);
-		if (MatrixMetricsType.isSet(metrics, MatrixMetricsType.Distance))
-			mtxResult.setTable(MatrixMetricsType.Distance, distances);
-		if (MatrixMetricsType.isSet(metrics, MatrixMetricsType.Weight))
-			mtxResult.setTable(MatrixMetricsType.Weight, weights);
+	private RPHASTAlgorithm createAlgorithm(SearchBuffers buffers) {
+		return new RPHASTAlgorithm(_graph, _prepareCH.getPrepareWeighting(), TraversalMode.NODE_BASED, buffers);
+	}
 
-		return mtxResult;
+	private MultiTreeMetricsExtractor createMetricsExtractor() {
+		return new MultiTreeMetricsExtractor(_request.getMetrics(), _graph, _encoder, _weighting, _request.getUnits());
+	}
+
+	private static synchronized ExecutorService getExecutor() {
+		if (_executor == null) {
+			AtomicInteger threadCounter = new AtomicInteger();
+			ThreadFactory threadFactory = runnable -> {
+				Thread thread = new Thread(runnable);
+				thread.setName("ORS-Matrix-" + threadCounter.incrementAndGet());
+				thread.setDaemon(true);
+				return thread;
+			};
+
+			_executor = Executors.newFixedThreadPool(MatrixServiceSettings.getParallelThreads(), threadFactory);
+		}
+
+		return _executor;
+	}
+
+	/**
+	 * Stops the threads which compute the source blocks of matrices. They are started again by the next matrix.
+	 */
+	public static synchronized void shutdown() {
+		if (_executor != null) {
+			_executor.shutdownNow();
+			_executor = null;
+		}
 	}
 	
 	private int[] getValidNodeIds(int[] nodeIds)
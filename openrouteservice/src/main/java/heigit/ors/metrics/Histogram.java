@@ -0,0 +1,91 @@
+/*  This file is part of Openrouteservice.
+ *
+ *  Openrouteservice is free software; you can redistribute it and/or modify it under the terms of the
+ *  GNU Lesser General Public License as published by the Free Software Foundation; either version 2.1
+ *  of the License, or (at your option) any later version.
+
+ *  This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ *  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *  See the GNU Lesser General Public License for more details.
+
+ *  You should have received a copy of the GNU Lesser General Public License along with this library;
+ *  if not, see <https://www.gnu.org/licenses/>.
+ */
+package heigit.ors.metrics;
+
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts observations in buckets with fixed upper bounds. With exponentially growing bounds the relative error of
+ * a bucket is the same across the whole range, as in an HDR histogram. Recording does not take any locks.
+ */
+public class Histogram {
+	private final double[] _bounds;
+	private final LongAdder[] _buckets;
+	private final LongAdder _count = new LongAdder();
+	private final DoubleAdder _sum = new DoubleAdder();
+
+	/**
+	 * @param bounds	The inclusive upper bounds of the buckets in ascending order; larger values are only counted
+	 *                  in the implicit +Inf bucket
+	 */
+	public Histogram(double[] bounds) {
+		_bounds = bounds;
+		_buckets = new LongAdder[bounds.length];
+		for (int i = 0; i < bounds.length; i++)
+			_buckets[i] = new LongAdder();
+	}
+
+	/**
+	 * Creates <code>count</code> bounds starting at <code>start</code>, each one <code>factor</code> times the previous one.
+	 */
+	public static double[] exponentialBounds(double start, double factor, int count) {
+		double[] bounds = new double[count];
+		double value = start;
+		for (int i = 0; i < count; i++) {
+			bounds[i] = value;
+			value *= factor;
+		}
+		return bounds;
+	}
+
+	public void record(double value) {
+		int low = 0;
+		int high = _bounds.length;
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (_bounds[mid] < value)
+				low = mid + 1;
+			else
+				high = mid;
+		}
+
+		if (low < _buckets.length)
+			_buckets[low].increment();
+		_count.increment();
+		_sum.add(value);
+	}
+
+	public double[] getBounds() {
+		return _bounds;
+	}
+
+	/**
+	 * Returns the number of observations per bucket, not cumulated.
+	 */
+	public long[] getBucketCounts() {
+		long[] counts = new long[_buckets.length];
+		for (int i = 0; i < counts.length; i++)
+			counts[i] = _buckets[i].sum();
+		return counts;
+	}
+
+	public long getCount() {
+		return _count.sum();
+	}
+
+	public double getSum() {
+		return _sum.sum();
+	}
+}
@@ -0,0 +1,176 @@
+/*  This file is part of Openrouteservice.
+ *
+ *  Openrouteservice is free software; you can redistribute it and/or modify it under the terms of the
+ *  GNU Lesser General Public License as published by the Free Software Foundation; either version 2.1
+ *  of the License, or (at your option) any later version.
+
+ *  This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ *  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *  See the GNU Lesser General Public License for more details.
+
+ *  You should have received a copy of the GNU Lesser General Public License along with this library;
+ *  if not, see <https://www.gnu.org/licenses/>.
+ */
+package heigit.ors.metrics;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.LongSupplier;
+
+/**
+ * Holds all counters, gauges and histograms of the running service and writes them in the Prometheus text exposition
+ * format. A metric is identified by its name and a list of label name/value pairs; looking it up after it has
+ * been created does not take any locks.
+ */
+public class MetricsRegistry {
+	private static final MetricsRegistry _instance = new MetricsRegistry();
+
+	private final ConcurrentMap<String, Family> _families = new ConcurrentSkipListMap<String, Family>();
+
+	public static MetricsRegistry getInstance() {
+		return _instance;
+	}
+
+	/**
+	 * @param labels	Label names and values in alternating order
+	 */
+	public Counter counter(String name, String help, String... labels) {
+		return (Counter) getFamily(name, help, "counter", null).getMetric(labels);
+	}
+
+	/**
+	 * @param bounds	The bucket bounds, only used when the first metric of the family is created
+	 * @param labels	Label names and values in alternating order
+	 */
+	public Histogram histogram(String name, String help, double[] bounds, String... labels) {
+		return (Histogram) getFamily(name, help, "histogram", bounds).getMetric(labels);
+	}
+
+	/**
+	 * Registers a gauge whose value is read from the given source. A gauge registered again with the same labels
+	 * replaces the previous one.
+	 *
+	 * @param labels	Label names and values in alternating order
+	 */
+	public Gauge gauge(String name, String help, LongSupplier value, String... labels) {
+		Gauge gauge = new Gauge(value);
+		getFamily(name, help, "gauge", null).setMetric(labels, gauge);
+		return gauge;
+	}
+
+	public void write(Writer writer) throws IOException {
+		for (Family family : _families.values())
+			family.write(writer);
+	}
+
+	private Family getFamily(String name, String help, String type, double[] bounds) {
+		Family family = _families.get(name);
+		if (family == null) {
+			family = new Family(name, help, type, bounds);
+			Family existing = _families.putIfAbsent(name, family);
+			if (existing != null)
+				family = existing;
+		}
+		return family;
+	}
+
+	private static String formatLabels(String[] labels) {
+		if (labels.length == 0)
+			return "";
+
+		StringBuilder sb = new StringBuilder();
+		sb.append('{');
+		for (int i = 0; i + 1 < labels.length; i += 2) {
+			if (i > 0)
+				sb.append(',');
+			sb.append(labels[i]).append("=\"");
+			String value = labels[i + 1] == null ? "" : labels[i + 1];
+			for (int j = 0; j < value.length(); j++) {
+				char c = value.charAt(j);
+				if (c == '\\' || c == '"')
+					sb.append('\\').append(c);
+				else if (c == '\n')
+					sb.append("\\n");
+				else
+					sb.append(c);
+			}
+			sb.append('"');
+		}
+		sb.append('}');
+		return sb.toString();
+	}
+
+	private static String formatValue(double value) {
+		if (value == Double.POSITIVE_INFINITY)
+			return "+Inf";
+		if (value == Math.rint(value) && Math.abs(value) < 1e15)
+			return Long.toString((long) value);
+		return Double.toString(value);
+	}
+
+	private static class Family {
+		private final String _name;
+		private final String _help;
+		private final String _type;
+		private final double[] _bounds;
+		private final ConcurrentMap<String, Object> _metrics = new ConcurrentHashMap<String, Object>();
+
+		Family(String name, String help, String type, double[] bounds) {
+			_name = name;
+			_help = help;
+			_type = type;
+			_bounds = bounds;
+		}
+
+		Object getMetric(String[] labels) {
+			String key = formatLabels(labels);
+			Object metric = _metrics.get(key);
+			if (metric == null) {
+				metric = _bounds == null ? new Counter() : new Histogram(_bounds);
+				Object existing = _metrics.putIfAbsent(key, metric);
+				if (existing != null)
+					metric = existing;
+			}
+			return metric;
+		}
+
+		void setMetric(String[] labels, Object metric) {
+			_metrics.put(formatLabels(labels), metric);
+		}
+
+		void write(Writer writer) throws IOException {
+			writer.write("# HELP " + _name + " " + _help + "\n");
+			writer.write("# TYPE " + _name + " " + _type + "\n");
+
+			for (Map.Entry<String, Object> entry : _metrics.entrySet()) {
+				String labels = entry.getKey();
+				Object metric = entry.getValue();
+
+				if (metric instanceof Counter) {
+					writer.write(_name + labels + " " + ((Counter) metric).get() + "\n");
+				} else if (metric instanceof Gauge) {
+					writer.write(_name + labels + " " + ((Gauge) metric).get() + "\n");
+				} else {
+					Histogram histogram = (Histogram) metric;
+					// Bucket labels are appended to the metric labels.
+					String prefix = labels.isEmpty() ? "{" : labels.substring(0, labels.length() - 1) + ",";
+					long[] counts = histogram.getBucketCounts();
+					double[] bounds = histogram.getBounds();
+					long cumulative = 0;
+					for (int i = 0; i < counts.length; i++) {
+						cumulative += counts[i];
+						writer.write(_name + "_bucket" + prefix + "le=\"" + formatValue(bounds[i]) + "\"} " + cumulative + "\n");
+					}
+					long count = Math.max(cumulative, histogram.getCount());
+					writer.write(_name + "_bucket" + prefix + "le=\"+Inf\"} " + count + "\n");
+					writer.write(_name + "_sum" + labels + " " + formatValue(histogram.getSum()) + "\n");
+					writer.write(_name + "_count" + labels + " " + count + "\n");
+				}
+			}
+		}
+	}
+}
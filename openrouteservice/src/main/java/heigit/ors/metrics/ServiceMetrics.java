@@ -0,0 +1,96 @@
+/*  This file is part of Openrouteservice.
+ *
+ *  Openrouteservice is free software; you can redistribute it and/or modify it under the terms of the
+ *  GNU Lesser General Public License as published by the Free Software Foundation; either version 2.1
+ *  of the License, or (at your option) any later version.
+
+ *  This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ *  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *  See the GNU Lesser General Public License for more details.
+
+ *  You should have received a copy of the GNU Lesser General Public License along with this library;
+ *  if not, see <https://www.gnu.org/licenses/>.
+ */
+package heigit.ors.metrics;
+
+import heigit.ors.routing.RoutingProfileType;
+
+/**
+ * The metrics recorded by the services. All methods are cheap enough to be called on every request.
+ */
+public class ServiceMetrics {
+	/** Latency buckets from 0.25 ms to about 65 s, doubling each time. */
+	private static final double[] LATENCY_BOUNDS = Histogram.exponentialBounds(0.00025, 2, 19);
+	private static final double[] VISITED_NODES_BOUNDS = Histogram.exponentialBounds(100, 4, 10);
+	private static final double[] MATRIX_CELLS_BOUNDS = Histogram.exponentialBounds(1, 4, 13);
+	private static final double[] ISOCHRONE_RANGE_BOUNDS = Histogram.exponentialBounds(60, 2, 12);
+
+	public static final String ROUTING = "routing";
+	public static final String MATRIX = "matrix";
+	public static final String ISOCHRONES = "isochrones";
+
+	public static final String ALGORITHM_CH = "ch";
+	public static final String ALGORITHM_LM = "astarbi_lm";
+	public static final String ALGORITHM_ASTAR = "astarbi";
+	public static final String ALGORITHM_DIJKSTRA = "dijkstrabi";
+	public static final String ALGORITHM_RPHAST = "rphast";
+	public static final String ALGORITHM_DIJKSTRA_MATRIX = "dijkstra";
+
+	/**
+	 * Records an HTTP request to one of the service endpoints.
+	 */
+	public static void recordHttpRequest(String endpoint, int statusCode, long startTime) {
+		MetricsRegistry registry = MetricsRegistry.getInstance();
+		registry.counter("ors_http_requests_total", "Number of HTTP requests by endpoint and status code.", "endpoint", endpoint, "status", Integer.toString(statusCode)).increment();
+		registry.histogram("ors_http_request_duration_seconds", "Time to handle an HTTP request including parsing and writing the response.", LATENCY_BOUNDS, "endpoint", endpoint).record(getSeconds(startTime));
+	}
+
+	/**
+	 * Records a computation of a service on a routing profile.
+	 *
+	 * @param startTime	The value of {@link System#nanoTime()} when the computation started
+	 * @param error		Whether the computation failed
+	 */
+	public static void recordComputation(String service, int profileType, long startTime, boolean error) {
+		MetricsRegistry registry = MetricsRegistry.getInstance();
+		String profile = RoutingProfileType.getName(profileType);
+		registry.histogram("ors_compute_duration_seconds", "Time spent computing results by service and profile.", LATENCY_BOUNDS, "service", service, "profile", profile).record(getSeconds(startTime));
+		if (error)
+			registry.counter("ors_compute_errors_total", "Number of failed computations by service and profile.", "service", service, "profile", profile).increment();
+	}
+
+	/**
+	 * Records a result which was taken from a cache instead of being computed.
+	 */
+	public static void recordCacheHit(String service, int profileType) {
+		MetricsRegistry.getInstance().counter("ors_cache_hits_total", "Number of results taken from a cache by service and profile.", "service", service, "profile", RoutingProfileType.getName(profileType)).increment();
+	}
+
+	/**
+	 * Records which search algorithm answered a request and how many nodes it visited.
+	 *
+	 * @param visitedNodes	The number of visited nodes, or a negative value if it is not known
+	 */
+	public static void recordSearch(String service, int profileType, String algorithm, long visitedNodes) {
+		MetricsRegistry registry = MetricsRegistry.getInstance();
+		String profile = RoutingProfileType.getName(profileType);
+		registry.counter("ors_searches_total", "Number of searches by service, profile and algorithm.", "service", service, "profile", profile, "algorithm", algorithm).increment();
+		if (visitedNodes >= 0)
+			registry.histogram("ors_search_visited_nodes", "Number of nodes visited by a search.", VISITED_NODES_BOUNDS, "service", service, "profile", profile, "algorithm", algorithm).record(visitedNodes);
+	}
+
+	public static void recordMatrixSize(int profileType, int sources, int destinations) {
+		MetricsRegistry.getInstance().histogram("ors_matrix_cells", "Number of cells of requested matrices.", MATRIX_CELLS_BOUNDS, "profile", RoutingProfileType.getName(profileType)).record((double) sources * destinations);
+	}
+
+	/**
+	 * @param rangeType	"time" for ranges in seconds or "distance" for ranges in meters
+	 */
+	public static void recordIsochroneRange(int profileType, String rangeType, double range) {
+		MetricsRegistry.getInstance().histogram("ors_isochrone_range", "Largest range of requested isochrones in seconds or meters.", ISOCHRONE_RANGE_BOUNDS, "profile", RoutingProfileType.getName(profileType), "range_type", rangeType).record(range);
+	}
+
+	private static double getSeconds(long startTime) {
+		return (System.nanoTime() - startTime) / 1e9;
+	}
+}
@@ -0,0 +1,104 @@
+/*  This file is part of Openrouteservice.
+ *
+ *  Openrouteservice is free software; you can redistribute it and/or modify it under the terms of the
+ *  GNU Lesser General Public License as published by the Free Software Foundation; either version 2.1
+ *  of the License, or (at your option) any later version.
+
+ *  This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ *  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *  See the GNU Lesser General Public License for more details.
+
+ *  You should have received a copy of the GNU Lesser General Public License along with this library;
+ *  if not, see <https://www.gnu.org/licenses/>.
+ */
+package heigit.ors.routing;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import heigit.ors.exceptions.ServiceUnavailableException;
+import heigit.ors.metrics.Counter;
+import heigit.ors.metrics.MetricsRegistry;
+
+/**
+ * Limits the number of requests of one service which are computed on a routing profile at the same time, so that
+ * a burst of expensive requests cannot take up all threads of the server. Requests beyond the limit wait in order
+ * of arrival; a request which cannot start within the maximum queue wait is rejected with a 503 status.
+ */
+public class Bulkhead {
+	private final String _service;
+	private final String _profile;
+	private final int _limit;
+	private final long _maximumQueueWait;
+	private final Semaphore _permits;
+	private final AtomicInteger _queued = new AtomicInteger();
+	private final Counter _rejections;
+
+	/**
+	 * @param limit				The number of requests which may run at the same time, 0 for no limit
+	 * @param maximumQueueWait	The time in milliseconds a request waits for a free slot
+	 */
+	public Bulkhead(String service, String profile, int limit, long maximumQueueWait) {
+		_service = service;
+		_profile = profile;
+		_limit = limit;
+		_maximumQueueWait = maximumQueueWait;
+
+		if (limit > 0) {
+			_permits = new Semaphore(limit, true);
+
+			MetricsRegistry registry = MetricsRegistry.getInstance();
+			registry.gauge("ors_bulkhead_active_requests", "Number of requests being computed by service and profile.", () -> _limit - _permits.availablePermits(), "service", service, "profile", profile);
+			registry.gauge("ors_bulkhead_queued_requests", "Number of requests waiting for a free slot by service and profile.", () -> _queued.get(), "service", service, "profile", profile);
+			_rejections = registry.counter("ors_bulkhead_rejected_requests_total", "Number of requests rejected because no slot became free in time.", "service", service, "profile", profile);
+		} else {
+			_permits = null;
+			_rejections = null;
+		}
+	}
+
+	/**
+	 * Waits for a free slot. Every successful call must be followed by a call to {@link #release()}.
+	 *
+	 * @throws ServiceUnavailableException if no slot became free within the maximum queue wait
+	 */
+	public void acquire() throws ServiceUnavailableException, InterruptedException {
+		// A timed attempt also respects the order of requests which are already waiting.
+		if (_permits == null || _permits.tryAcquire(0, TimeUnit.MILLISECONDS))
+			return;
+
+		_queued.incrementAndGet();
+		try {
+			if (_permits.tryAcquire(_maximumQueueWait, TimeUnit.MILLISECONDS))
+				return;
+		} finally {
+			_queued.decrementAndGet();
+		}
+
+		_rejections.increment();
+
+		throw new ServiceUnavailableException(getRetryAfter(), String.format("Too many %s requests for profile '%s' are being processed. Please try again later.", _service, _profile));
+	}
+
+	public void release() {
+		if (_permits != null)
+			_permits.release();
+	}
+
+	public int getLimit() {
+		return _limit;
+	}
+
+	public int getQueueLength() {
+		return _queued.get();
+	}
+
+	public long getRejectedCount() {
+		return _rejections == null ? 0 : _rejections.get();
+	}
+
+	private int getRetryAfter() {
+		return (int) Math.max(1, (_maximumQueueWait + 999) / 1000);
+	}
+}
@@ -0,0 +1,124 @@
+/*  This file is part of Openrouteservice.
+ *
+ *  Openrouteservice is free software; you can redistribute it and/or modify it under the terms of the
+ *  GNU Lesser General Public License as published by the Free Software Foundation; either version 2.1
+ *  of the License, or (at your option) any later version.
+
+ *  This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ *  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *  See the GNU Lesser General Public License for more details.
+
+ *  You should have received a copy of the GNU Lesser General Public License along with this library;
+ *  if not, see <https://www.gnu.org/licenses/>.
+ */
+package heigit.ors.routing;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import heigit.ors.isochrones.IsochroneCache;
+import heigit.ors.mapmatching.MapMatcher;
+import heigit.ors.mapmatching.hmm.HiddenMarkovMapMatcher;
+import heigit.ors.routing.graphhopper.extensions.ORSGraphHopper;
+
+/**
+ * A reference counted handle to the graph of a routing profile. The profile owns one reference for as long as the
+ * handle is its current graph, and every request holds one while it works on the graph. The graph is closed by
+ * whoever drops the last reference, so requests which started before a graph update finish on the old graph without
+ * any locking.
+ *
+ * The caches and the map matcher belong to the handle, as their entries refer to nodes and edges of its graph.
+ */
+public class GraphHopperHandle {
+	private final ORSGraphHopper _graphHopper;
+	private final IsochroneCache _isochroneCache;
+	private final RouteCache _routeCache;
+	private final AtomicInteger _references = new AtomicInteger(1);
+	private final CountDownLatch _closed = new CountDownLatch(1);
+	// a matcher keeps the parameters and points of the match it is working on, so every thread gets its own
+	private final ThreadLocal<MapMatcher> _mapMatchers = ThreadLocal.withInitial(this::createMapMatcher);
+
+	public GraphHopperHandle(ORSGraphHopper graphHopper) {
+		this(graphHopper, null, null);
+	}
+
+	/**
+	 * @param isochroneCache	The cache of the isochrone maps of this graph or <code>null</code>
+	 * @param routeCache		The cache of the routes of this graph or <code>null</code>
+	 */
+	public GraphHopperHandle(ORSGraphHopper graphHopper, IsochroneCache isochroneCache, RouteCache routeCache) {
+		_graphHopper = graphHopper;
+		_isochroneCache = isochroneCache;
+		_routeCache = routeCache;
+	}
+
+	public ORSGraphHopper get() {
+		return _graphHopper;
+	}
+
+	public IsochroneCache getIsochroneCache() {
+		return _isochroneCache;
+	}
+
+	public RouteCache getRouteCache() {
+		return _routeCache;
+	}
+
+	/**
+	 * Returns the map matcher of the graph for the calling thread.
+	 */
+	public MapMatcher getMapMatcher() {
+		return _mapMatchers.get();
+	}
+
+	private MapMatcher createMapMatcher() {
+		MapMatcher mapMatcher = new HiddenMarkovMapMatcher();
+		mapMatcher.setGraphHopper(_graphHopper);
+		return mapMatcher;
+	}
+
+	/**
+	 * Adds a reference unless the graph has already been released by all of its users.
+	 *
+	 * @return <code>false</code> if the graph is closed or about to be closed and must not be used anymore
+	 */
+	public boolean tryAcquire() {
+		while (true) {
+			int references = _references.get();
+			if (references <= 0)
+				return false;
+			if (_references.compareAndSet(references, references + 1))
+				return true;
+		}
+	}
+
+	/**
+	 * Drops a reference and closes the graph if it was the last one.
+	 */
+	public void release() {
+		int references = _references.decrementAndGet();
+		if (references < 0)
+			throw new IllegalStateException("The graph has already been released by all of its users.");
+		if (references == 0) {
+			try {
+				_graphHopper.close();
+			} finally {
+				_closed.countDown();
+			}
+		}
+	}
+
+	public boolean isClosed() {
+		return _closed.getCount() == 0;
+	}
+
+	/**
+	 * Waits until the last reference has been released and the graph is closed.
+	 *
+	 * @return <code>false</code> if the graph was still in use when the timeout elapsed
+	 */
+	public boolean awaitClosed(long timeout, TimeUnit unit) throws InterruptedException {
+		return _closed.await(timeout, unit);
+	}
+}
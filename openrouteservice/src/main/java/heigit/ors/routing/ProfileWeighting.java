@@ -14,6 +14,8 @@
 
 package heigit.ors.routing;
 
+import java.util.TreeMap;
+
 import com.graphhopper.util.Helper;
 import com.graphhopper.util.PMap;
 
@@ -48,6 +50,17 @@ public class ProfileWeighting {
 	{
 		return _params;
 	}
+
+	/**
+	 * @return	The name of the weighting followed by its parameters sorted by their names
+	 */
+	public String getCacheKey()
+	{
+		if (_params == null)
+			return _name;
+
+		return _name + new TreeMap<String, String>(_params.toMap());
+	}
 	public static String encodeName(String name)
 	{
 		return "weighting_#" + name + "#";
@@ -0,0 +1,158 @@
+/*  This file is part of Openrouteservice.
+ *
+ *  Openrouteservice is free software; you can redistribute it and/or modify it under the terms of the
+ *  GNU Lesser General Public License as published by the Free Software Foundation; either version 2.1
+ *  of the License, or (at your option) any later version.
+
+ *  This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ *  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *  See the GNU Lesser General Public License for more details.
+
+ *  You should have received a copy of the GNU Lesser General Public License along with this library;
+ *  if not, see <https://www.gnu.org/licenses/>.
+ */
+package heigit.ors.routing;
+
+import com.graphhopper.GHResponse;
+import com.graphhopper.PathWrapper;
+import com.graphhopper.storage.index.QueryResult;
+import com.graphhopper.util.Instruction;
+import com.graphhopper.util.InstructionList;
+import com.graphhopper.util.PointList;
+import com.graphhopper.util.RoundaboutInstruction;
+import com.graphhopper.util.shapes.GHPoint3D;
+
+import heigit.ors.util.ResultCache;
+
+/**
+ * Caches route segments by the points which their start and end snap to and the search parameters. Responses are
+ * copied when they are stored and again for every lookup, so no two requests share a point list or instruction.
+ */
+public class RouteCache {
+	private final ResultCache<String, GHResponse> _cache;
+
+	public RouteCache(int maximumSize, long timeToLive) {
+		_cache = new ResultCache<String, GHResponse>(maximumSize, timeToLive);
+	}
+
+	public static String createKey(QueryResult from, QueryResult to, WayPointBearing[] bearings, RouteSearchParameters searchParams) {
+		StringBuilder sb = new StringBuilder(128);
+		appendSnappedPoint(sb, from);
+		appendSnappedPoint(sb, to);
+
+		if (bearings != null) {
+			for (WayPointBearing bearing : bearings)
+				sb.append(bearing == null ? "null" : Double.toString(bearing.getValue())).append(',');
+		}
+		sb.append('|').append(searchParams.getCacheKey());
+
+		return sb.toString();
+	}
+
+	private static void appendSnappedPoint(StringBuilder sb, QueryResult qr) {
+		GHPoint3D point = qr.getSnappedPoint();
+		sb.append(qr.getClosestEdge().getEdge()).append(',').append(point.lat).append(',').append(point.lon).append('|');
+	}
+
+	/**
+	 * Returns whether the route of <code>resp</code> starts and ends at the snapped points of <code>from</code> and
+	 * <code>to</code>. Only then does the route belong to every request whose points snap to the same places.
+	 */
+	public static boolean isSnappedTo(GHResponse resp, QueryResult from, QueryResult to) {
+		PointList waypoints = resp.getBest().getWaypoints();
+		if (waypoints == null || waypoints.size() != 2)
+			return false;
+
+		GHPoint3D start = from.getSnappedPoint();
+		GHPoint3D end = to.getSnappedPoint();
+		return waypoints.getLat(0) == start.lat && waypoints.getLon(0) == start.lon && waypoints.getLat(1) == end.lat && waypoints.getLon(1) == end.lon;
+	}
+
+	public GHResponse get(String key) {
+		GHResponse resp = _cache.get(key);
+		return resp == null ? null : copy(resp);
+	}
+
+	public void put(String key, GHResponse resp) {
+		_cache.put(key, copy(resp));
+	}
+
+	public void clear() {
+		_cache.clear();
+	}
+
+	public int size() {
+		return _cache.size();
+	}
+
+	public long getHits() {
+		return _cache.getHits();
+	}
+
+	public long getMisses() {
+		return _cache.getMisses();
+	}
+
+	public double getHitRatio() {
+		return _cache.getHitRatio();
+	}
+
+	private static GHResponse copy(GHResponse resp) {
+		GHResponse result = new GHResponse();
+		result.getHints().merge(resp.getHints());
+
+		for (PathWrapper path : resp.getAll())
+			result.add(copy(path));
+
+		return result;
+	}
+
+	private static PathWrapper copy(PathWrapper path) {
+		PathWrapper result = new PathWrapper();
+		result.setDescription(path.getDescription());
+		result.setPoints(copy(path.getPoints()));
+		result.setWaypoints(copy(path.getWaypoints()));
+		result.setDistance(path.getDistance());
+		result.setTime(path.getTime());
+		result.setRouteWeight(path.getRouteWeight());
+		result.setAscend(path.getAscend());
+		result.setDescend(path.getDescend());
+		result.setFare(path.getFare());
+		result.setNumChanges(path.getNumChanges());
+		result.addPathDetails(path.getPathDetails());
+		result.addDebugInfo(path.getDebugInfo());
+
+		InstructionList instructions = path.getInstructions();
+		if (instructions != null) {
+			InstructionList resultInstructions = new InstructionList(instructions.size(), null);
+			for (Instruction instr : instructions)
+				resultInstructions.add(copy(instr));
+			result.setInstructions(resultInstructions);
+		}
+
+		return result;
+	}
+
+	/**
+	 * Copies everything of an instruction which {@link RouteResultBuilder} reads. Roundabouts keep their exit number,
+	 * other instruction types are identified by their sign.
+	 */
+	private static Instruction copy(Instruction instr) {
+		Instruction result;
+		if (instr instanceof RoundaboutInstruction) {
+			RoundaboutInstruction raInstr = new RoundaboutInstruction(instr.getSign(), instr.getName(), instr.getAnnotation(), copy(instr.getPoints()));
+			raInstr.setExitNumber(((RoundaboutInstruction) instr).getExitNumber());
+			result = raInstr;
+		} else {
+			result = new Instruction(instr.getSign(), instr.getName(), instr.getAnnotation(), copy(instr.getPoints()));
+		}
+
+		result.setDistance(instr.getDistance());
+		result.setTime(instr.getTime());
+		return result;
+	}
+
+	private static PointList copy(PointList points) {
+		return points == null ? null : points.clone(false);
+	}
+}
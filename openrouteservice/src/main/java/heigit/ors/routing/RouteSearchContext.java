@@ -16,7 +16,9 @@ package heigit.ors.routing;
 import com.graphhopper.GraphHopper;
 import com.graphhopper.routing.util.EdgeFilter;
 import com.graphhopper.routing.util.FlagEncoder;
+import com.graphhopper.storage.index.QueryResult;
 import com.graphhopper.util.PMap;
+import com.vividsolutions.jts.geom.Coordinate;
 
 public class RouteSearchContext {
 	private GraphHopper _graphhopper;
@@ -25,6 +27,9 @@ public class RouteSearchContext {
 	
 	private PMap _properties;
 
+	private Coordinate _closestLocation;
+	private QueryResult _closestResult;
+
 	public RouteSearchContext(GraphHopper gh, EdgeFilter edgeFilter, FlagEncoder encoder)
 	{
 		_graphhopper = gh;   
@@ -53,4 +58,19 @@ public class RouteSearchContext {
 	{
 		_properties = value;
 	}
+
+	/**
+	 * Snaps the location to the graph using the edge filter of this context. The result for the last location is
+	 * kept, so that the steps of a search which need the closest node of the same location look it up only once.
+	 */
+	public QueryResult findClosest(Coordinate location)
+	{
+		if (_closestResult == null || !location.equals2D(_closestLocation))
+		{
+			_closestResult = _graphhopper.getLocationIndex().findClosest(location.y, location.x, _edgeFilter);
+			_closestLocation = new Coordinate(location);
+		}
+
+		return _closestResult;
+	}
 }
@@ -21,6 +21,7 @@
 package heigit.ors.routing;
 
 import java.text.ParseException;
+import java.util.Arrays;
 import java.util.Iterator;
 
 import heigit.ors.routing.pathprocessors.BordersExtractor;
@@ -461,4 +462,36 @@ public class RouteSearchParameters {
     public void setBearings(WayPointBearing[] bearings) {
         _bearings = bearings;
     }
+
+    /**
+     * Returns a canonical string of all parameters which influence a search. Two parameter sets with the same key lead
+     * to the same result for the same locations, so the key can be used to look up cached results. The key is built
+     * from the parsed values in a fixed order, so the formatting of the options does not matter. Bearings and radiuses
+     * belong to the single locations and are left to the caches to compare.
+     */
+    public String getCacheKey() {
+        int[] avoidCountries = null;
+        if (_avoidCountries != null) {
+            avoidCountries = _avoidCountries.clone();
+            Arrays.sort(avoidCountries);
+        }
+
+        StringBuilder sb = new StringBuilder(64);
+        sb.append(_profileType).append('|').append(_weightingMethod).append('|').append(_considerTraffic)
+                .append('|').append(_considerTurnRestrictions).append('|').append(_maxSpeed)
+                .append('|').append(_avoidFeaturesTypes).append('|').append(_vehicleType)
+                .append('|').append(Arrays.toString(avoidCountries)).append('|').append(_avoidBorders)
+                .append('|').append(_flexibleMode).append('|');
+
+        if (_avoidAreas != null) {
+            for (Polygon poly : _avoidAreas)
+                sb.append(poly.toText()).append(',');
+        }
+        sb.append('|');
+
+        if (_profileParams != null)
+            sb.append(_profileParams.getCacheKey());
+
+        return sb.toString();
+    }
 }
@@ -26,6 +26,7 @@ import com.graphhopper.GraphHopper;
 import com.graphhopper.routing.util.*;
 import com.graphhopper.routing.weighting.Weighting;
 import com.graphhopper.storage.*;
+import com.graphhopper.storage.index.QueryResult;
 import com.graphhopper.util.*;
 import com.graphhopper.util.shapes.BBox;
 import com.graphhopper.util.shapes.GHPoint;
@@ -33,6 +34,7 @@ import com.typesafe.config.Config;
 import com.vividsolutions.jts.geom.Coordinate;
 import com.vividsolutions.jts.geom.Geometry;
 import com.vividsolutions.jts.geom.GeometryFactory;
+import heigit.ors.common.TravelRangeType;
 import heigit.ors.exceptions.InternalServerException;
 import heigit.ors.isochrones.*;
 import heigit.ors.isochrones.statistics.StatisticsProvider;
@@ -40,20 +42,24 @@ import heigit.ors.isochrones.statistics.StatisticsProviderConfiguration;
 import heigit.ors.isochrones.statistics.StatisticsProviderFactory;
 import heigit.ors.mapmatching.MapMatcher;
 import heigit.ors.mapmatching.RouteSegmentInfo;
-import heigit.ors.mapmatching.hmm.HiddenMarkovMapMatcher;
 import heigit.ors.matrix.*;
 import heigit.ors.matrix.algorithms.MatrixAlgorithm;
 import heigit.ors.matrix.algorithms.MatrixAlgorithmFactory;
+import heigit.ors.matrix.algorithms.rphast.RPHASTMatrixAlgorithm;
+import heigit.ors.metrics.ServiceMetrics;
 import heigit.ors.optimization.OptimizationErrorCodes;
 import heigit.ors.optimization.RouteOptimizationRequest;
 import heigit.ors.optimization.RouteOptimizationResult;
 import heigit.ors.optimization.solvers.OptimizationProblemSolver;
 import heigit.ors.optimization.solvers.OptimizationProblemSolverFactory;
 import heigit.ors.optimization.solvers.OptimizationSolution;
+import heigit.ors.routing.algorithms.SearchBuffersPool;
 import heigit.ors.routing.configuration.RouteProfileConfiguration;
 import heigit.ors.routing.graphhopper.extensions.*;
 import heigit.ors.routing.graphhopper.extensions.edgefilters.*;
 import heigit.ors.routing.graphhopper.extensions.flagencoders.WheelchairFlagEncoder;
+import heigit.ors.routing.graphhopper.extensions.reader.SharedOSMInputFile;
+import heigit.ors.routing.graphhopper.extensions.storages.ExtendedStorageRegistry;
 import heigit.ors.routing.graphhopper.extensions.storages.GraphStorageUtils;
 import heigit.ors.routing.parameters.*;
 import heigit.ors.routing.traffic.RealTrafficDataProvider;
@@ -61,7 +67,6 @@ import heigit.ors.routing.traffic.TrafficEdgeAnnotator;
 import heigit.ors.services.isochrones.IsochronesServiceSettings;
 import heigit.ors.services.matrix.MatrixServiceSettings;
 import heigit.ors.services.optimization.OptimizationServiceSettings;
-import heigit.ors.util.DebugUtility;
 import heigit.ors.util.RuntimeUtility;
 import heigit.ors.util.StringUtility;
 import heigit.ors.util.TimeUtility;
@@ -74,6 +79,8 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.text.SimpleDateFormat;
 import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * This class generates {@link RoutingProfile} classes and is used by mostly all service classes e.g.
@@ -90,26 +97,42 @@ public class RoutingProfile {
     private static int profileIdentifier = 0;
     private static final Object lockObj = new Object();
 
-    private ORSGraphHopper mGraphHopper;
+    // Time an update waits for the requests on the previous graph to finish before it leaves its files behind.
+    private static final long GRAPH_RELEASE_TIMEOUT = 10;
+
+    private final AtomicReference<GraphHopperHandle> mGraphHopperHandle = new AtomicReference<GraphHopperHandle>();
     private boolean mUseTrafficInfo;
     private Integer[] mRoutePrefs;
-    private Integer mUseCounter;
-    private boolean mUpdateRun;
-    private MapMatcher mMapMatcher;
 
     private RouteProfileConfiguration _config;
     private String _astarApproximation;
     private Double _astarEpsilon;
 
+    // Search collections and the weighting factory are shared by the requests of this profile instead of being
+    // allocated anew on every matrix computation.
+    private final SearchBuffersPool _searchBuffersPool = new SearchBuffersPool(Runtime.getRuntime().availableProcessors(), 64L * 1024 * 1024);
+    private final ORSWeightingFactory _weightingFactory = new ORSWeightingFactory(RealTrafficDataProvider.getInstance());
+    private final Map<String, Bulkhead> _bulkheads = new HashMap<String, Bulkhead>();
+
+    private static final Bulkhead UNLIMITED_BULKHEAD = new Bulkhead(null, null, 0, 0);
+
     public RoutingProfile(String osmFile, RouteProfileConfiguration rpc, RoutingProfilesCollection profiles, RoutingProfileLoadContext loadCntx) throws Exception {
+        this(osmFile, rpc, profiles, loadCntx, null);
+    }
+
+    public RoutingProfile(String osmFile, RouteProfileConfiguration rpc, RoutingProfilesCollection profiles, RoutingProfileLoadContext loadCntx, SharedOSMInputFile.Participant sharedOSMFile) throws Exception {
         mRoutePrefs = rpc.getProfilesTypes();
-        mUseCounter = 0;
         mUseTrafficInfo = /*mHasDynamicWeights &&*/ hasCarPreferences() ? rpc.getUseTrafficInformation() : false;
 
-        mGraphHopper = initGraphHopper(osmFile, rpc, profiles, loadCntx);
-
         _config = rpc;
 
+        deleteUpdatedGraphDirectories(rpc.getGraphPath());
+
+        mGraphHopperHandle.set(createGraphHopperHandle(initGraphHopper(osmFile, rpc, profiles, loadCntx, sharedOSMFile)));
+
+        for (Map.Entry<String, Integer> limit : rpc.getConcurrencyLimits().entrySet())
+            _bulkheads.put(limit.getKey(), new Bulkhead(limit.getKey(), rpc.getName(), limit.getValue(), rpc.getMaximumQueueWait()));
+
         Config optsExecute = _config.getExecutionOpts();
         if (optsExecute != null) {
             if (optsExecute.hasPath("methods.astar.approximation"))
@@ -120,6 +143,14 @@ public class RoutingProfile {
     }
 
     public static ORSGraphHopper initGraphHopper(String osmFile, RouteProfileConfiguration config, RoutingProfilesCollection profiles, RoutingProfileLoadContext loadCntx) throws Exception {
+        return initGraphHopper(osmFile, config, profiles, loadCntx, null);
+    }
+
+    /**
+     * @param sharedOSMFile     The participant in a read of the OSM file shared by several profiles, or null if the
+     *                          file is read for this profile alone
+     */
+    public static ORSGraphHopper initGraphHopper(String osmFile, RouteProfileConfiguration config, RoutingProfilesCollection profiles, RoutingProfileLoadContext loadCntx, SharedOSMInputFile.Participant sharedOSMFile) throws Exception {
         CmdArgs args = createGHSettings(osmFile, config);
 
         RoutingProfile refProfile = null;
@@ -159,7 +190,8 @@ public class RoutingProfile {
             loadCntx.setElevationProvider(gh.getElevationProvider());
         }
         gh.setGraphStorageFactory(new ORSGraphStorageFactory(gpc.getStorageBuilders()));
-        gh.setWeightingFactory(new ORSWeightingFactory(RealTrafficDataProvider.getInstance()));
+        gh.setWeightingFactory(new ORSWeightingFactory(RealTrafficDataProvider.getInstance(), gh));
+        gh.setSharedOSMFile(sharedOSMFile);
 
         gh.importOrLoad();
 
@@ -177,7 +209,7 @@ public class RoutingProfile {
             // class (to make the store) accessible (getLandmarkStorage()) - IMHO this is not worth it!
             // so gh.getCapacity() will be removed!
             //LOGGER.info(String.format("[%d] Capacity:  %s. (edges - %s, nodes - %s)", profileId, RuntimeUtility.getMemorySize(gh.getCapacity()), ghStorage.getEdges(), ghStorage.getNodes()));
-            LOGGER.info(String.format("[%d] Capacity: [UNKNOWN]. (edges - %s, nodes - %s)", profileId, ghStorage.getEdges(), ghStorage.getNodes()));
+            LOGGER.info(String.format("[%d] Capacity: resident %s, mapped %s (%s). (edges - %s, nodes - %s)", profileId, RuntimeUtility.getMemorySize(getResidentCapacity(ghStorage)), RuntimeUtility.getMemorySize(getMappedCapacity(ghStorage)), config.getGraphDataAccess(), ghStorage.getEdges(), ghStorage.getNodes()));
             // MARQ24 MOD END
             LOGGER.info(String.format("[%d] Total time: %s.", profileId, TimeUtility.getElapsedTime(startTime, true)));
             LOGGER.info(String.format("[%d] Finished at: %s.", profileId, new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").format(new Date())));
@@ -194,14 +226,99 @@ public class RoutingProfile {
         return gh;
     }
 
+    /**
+     * Creates the handle of a graph together with empty caches, so that no entry refers to the nodes of another graph.
+     */
+    private GraphHopperHandle createGraphHopperHandle(ORSGraphHopper gh) {
+        RouteCache routeCache = null;
+        if (_config.getRouteCacheSize() > 0)
+            routeCache = new RouteCache(_config.getRouteCacheSize(), _config.getRouteCacheTimeToLive() * 1000L);
+
+        IsochroneCache isochroneCache = null;
+        if (IsochronesServiceSettings.getCacheSize() > 0)
+            isochroneCache = new IsochroneCache(IsochronesServiceSettings.getCacheSize(), IsochronesServiceSettings.getCacheTimeToLive() * 1000L);
+
+        return new GraphHopperHandle(gh, isochroneCache, routeCache);
+    }
+
+    public RouteCache getRouteCache() {
+        GraphHopperHandle handle = mGraphHopperHandle.get();
+        return handle == null ? null : handle.getRouteCache();
+    }
+
+    public IsochroneCache getIsochroneCache() {
+        GraphHopperHandle handle = mGraphHopperHandle.get();
+        return handle == null ? null : handle.getIsochroneCache();
+    }
+
     public long getCapacity() {
-        GraphHopperStorage graph = mGraphHopper.getGraphHopperStorage();
-        return graph.getCapacity() + GraphStorageUtils.getCapacity(graph.getExtension());
+        GraphHopperHandle handle = tryAcquireGraphHopper();
+        if (handle == null)
+            return 0;
+
+        try {
+            GraphHopperStorage graph = handle.get().getGraphHopperStorage();
+            return graph.getCapacity() + GraphStorageUtils.getCapacity(graph.getExtension());
+        } finally {
+            handle.release();
+        }
+    }
+
+    /**
+     * Returns the number of bytes of this profile's storages (graph, CH, LM and extensions) held on the heap.
+     */
+    public long getResidentCapacity() {
+        GraphHopperHandle handle = tryAcquireGraphHopper();
+        if (handle == null)
+            return 0;
+
+        try {
+            return getResidentCapacity(handle.get().getGraphHopperStorage());
+        } finally {
+            handle.release();
+        }
+    }
+
+    /**
+     * Returns the number of bytes of this profile's storages which are memory-mapped and hence live in the OS page
+     * cache rather than on the heap.
+     */
+    public long getMappedCapacity() {
+        GraphHopperHandle handle = tryAcquireGraphHopper();
+        if (handle == null)
+            return 0;
+
+        try {
+            return getMappedCapacity(handle.get().getGraphHopperStorage());
+        } finally {
+            handle.release();
+        }
+    }
+
+    private static long getResidentCapacity(GraphHopperStorage graph) {
+        return getDataAccessCapacity(graph, false);
+    }
+
+    private static long getMappedCapacity(GraphHopperStorage graph) {
+        return getDataAccessCapacity(graph, true);
+    }
+
+    private static long getDataAccessCapacity(GraphHopperStorage graph, boolean mapped) {
+        long capacity = 0;
+        for (DataAccess da : graph.getDirectory().getAll()) {
+            if (da.getType().isMMap() == mapped)
+                capacity += da.getCapacity();
+        }
+        return capacity;
     }
 
     private static CmdArgs createGHSettings(String sourceFile, RouteProfileConfiguration config) {
         CmdArgs args = new CmdArgs();
-        args.put("graph.dataaccess", "RAM_STORE");
+        String dataAccess = config.getGraphDataAccess();
+        // A read-only mapping cannot be used to write a graph, so it is only applied once the graph has been built.
+        if ("MMAP_RO".equals(dataAccess) && !new File(config.getGraphPath(), "properties").exists())
+            dataAccess = "MMAP";
+        args.put("graph.dataaccess", dataAccess);
         args.put("datareader.file", sourceFile);
         args.put("graph.location", config.getGraphPath());
         args.put("graph.bytes_for_flags", config.getEncoderFlagsSize());
@@ -312,34 +429,125 @@ public class RoutingProfile {
     }
 
     public HashMap<Integer, Long> getTmcEdges() {
-        return mGraphHopper.getTmcGraphEdges();
+        GraphHopperHandle handle = tryAcquireGraphHopper();
+        if (handle == null)
+            return null;
+
+        try {
+            return handle.get().getTmcGraphEdges();
+        } finally {
+            handle.release();
+        }
     }
 
     public HashMap<Long, ArrayList<Integer>> getOsmId2edgeIds() {
-        return mGraphHopper.getOsmId2EdgeIds();
+        GraphHopperHandle handle = tryAcquireGraphHopper();
+        if (handle == null)
+            return null;
+
+        try {
+            return handle.get().getOsmId2EdgeIds();
+        } finally {
+            handle.release();
+        }
     }
 
+    /**
+     * Returns the current graph. Callers which work on the graph for longer than a single lookup should hold a
+     * reference through {@link #acquireGraphHopper()} instead, as the graph is closed once it has been replaced and
+     * released by its last request.
+     */
     public ORSGraphHopper getGraphhopper() {
-        return mGraphHopper;
+        GraphHopperHandle handle = mGraphHopperHandle.get();
+        return handle == null ? null : handle.get();
+    }
+
+    /**
+     * Adds a reference to the current graph, which the caller has to release when it is done with the graph.
+     *
+     * @throws Exception if the profile has been closed
+     */
+    GraphHopperHandle acquireGraphHopper() throws Exception {
+        GraphHopperHandle handle = tryAcquireGraphHopper();
+        if (handle == null)
+            throw new Exception("The routing profile has been closed.");
+        return handle;
+    }
+
+    /**
+     * Like {@link #acquireGraphHopper()}, but returns <code>null</code> if the profile has been closed.
+     */
+    private GraphHopperHandle tryAcquireGraphHopper() {
+        GraphHopperHandle handle = mGraphHopperHandle.get();
+        while (handle != null) {
+            if (handle.tryAcquire())
+                return handle;
+
+            // Acquiring fails if the handle was swapped out and released in the meantime, then the next one is
+            // current. A handle which is still installed has been released by close().
+            GraphHopperHandle current = mGraphHopperHandle.get();
+            if (current == handle)
+                break;
+            handle = current;
+        }
+
+        return null;
     }
 
     public BBox getBounds() {
-        return mGraphHopper.getGraphHopperStorage().getBounds();
+        GraphHopperHandle handle = tryAcquireGraphHopper();
+        if (handle == null)
+            return null;
+
+        try {
+            return handle.get().getGraphHopperStorage().getBounds();
+        } finally {
+            handle.release();
+        }
     }
 
+    /**
+     * Returns the properties of the current graph. They are read into memory when the graph is loaded and stay valid
+     * after the graph has been closed.
+     */
     public StorableProperties getGraphProperties() {
-        StorableProperties props = mGraphHopper.getGraphHopperStorage().getProperties();
-        return props;
+        GraphHopperHandle handle = tryAcquireGraphHopper();
+        if (handle == null)
+            return null;
+
+        try {
+            return handle.get().getGraphHopperStorage().getProperties();
+        } finally {
+            handle.release();
+        }
     }
 
     public String getGraphLocation() {
-        return mGraphHopper == null ? null : mGraphHopper.getGraphHopperStorage().getDirectory().toString();
+        GraphHopperHandle handle = tryAcquireGraphHopper();
+        if (handle == null)
+            return null;
+
+        try {
+            return handle.get().getGraphHopperStorage().getDirectory().toString();
+        } finally {
+            handle.release();
+        }
     }
 
     public RouteProfileConfiguration getConfiguration() {
         return _config;
     }
 
+    /**
+     * Returns the bulkhead which limits the concurrent requests of a service on this profile.
+     *
+     * @param service One of the service names of {@link ServiceMetrics}
+     */
+    public Bulkhead getBulkhead(String service) {
+        Bulkhead bulkhead = _bulkheads.get(service);
+        return bulkhead == null ? UNLIMITED_BULKHEAD : bulkhead;
+    }
+
     public Integer[] getPreferences() {
         return mRoutePrefs;
     }
@@ -355,7 +563,15 @@ public class RoutingProfile {
 
 
     public boolean isCHEnabled() {
-        return mGraphHopper != null && mGraphHopper.isCHEnabled();
+        GraphHopperHandle handle = tryAcquireGraphHopper();
+        if (handle == null)
+            return false;
+
+        try {
+            return handle.get().isCHEnabled();
+        } finally {
+            handle.release();
+        }
     }
 
     public boolean useTrafficInformation() {
@@ -363,77 +579,104 @@ public class RoutingProfile {
     }
 
     public void close() {
-        mGraphHopper.close();
-    }
-
-    private synchronized boolean isGHUsed() {
-        return mUseCounter > 0;
-    }
-
-    private synchronized void beginUseGH() {
-        mUseCounter++;
-    }
-
-    private synchronized void endUseGH() {
-        mUseCounter--;
+        GraphHopperHandle handle = mGraphHopperHandle.getAndSet(null);
+        if (handle != null)
+            handle.release();
     }
 
+    /**
+     * Replaces the graph by the one built in the location of <code>gh</code>. New requests use the new graph as soon
+     * as it is loaded, requests in progress finish on the old one, which is closed by the last of them.
+     *
+     * The new graph is moved to a directory <code>graphPath_&lt;timestamp&gt;</code> and used from there, as the
+     * files of the old graph cannot be replaced while it is in use. A copy of it is put in the configured location,
+     * from which the graph is loaded after a restart. The timestamped directory is deleted by the next update, once
+     * its graph has been closed, and any left over, e.g. by a restart, are deleted when the profile is loaded.
+     */
     public void updateGH(GraphHopper gh) throws Exception {
         if (gh == null)
             throw new Exception("GraphHopper instance is null.");
 
+        File dstDir = null;
+        boolean installed = false;
+
         try {
-            mUpdateRun = true;
-            while (true) {
-                if (!isGHUsed()) {
-                    GraphHopper ghOld = mGraphHopper;
+            GraphHopperHandle oldHandle = mGraphHopperHandle.get();
+            if (oldHandle == null)
+                throw new Exception("The routing profile has been closed.");
+            ORSGraphHopper ghOld = oldHandle.get();
 
-                    ghOld.close();
-                    ghOld.clean();
+            gh.close();
 
-                    gh.close();
-                    // gh.clean(); // do not remove on-disk files, we need to
-                    // copy them as follows
+            // The old graph is still in use, so the new one is loaded from a location of its own instead of
+            // being copied over the files of the old one.
+            File srcDir = new File(gh.getGraphHopperLocation());
+            dstDir = new File(_config.getGraphPath() + "_" + System.currentTimeMillis());
+            FileUtils.moveDirectory(srcDir, dstDir);
 
-                    RuntimeUtility.clearMemory(LOGGER);
+            RouteProfileConfiguration config = _config.clone();
+            config.setGraphPath(dstDir.getPath());
 
-                    // Change the content of the graph folder
-                    String oldLocation = ghOld.getGraphHopperLocation();
-                    File dstDir = new File(oldLocation);
-                    File srcDir = new File(gh.getGraphHopperLocation());
-                    FileUtils.copyDirectory(srcDir, dstDir, true);
-                    FileUtils.deleteDirectory(srcDir);
+            RoutingProfileLoadContext loadCntx = new RoutingProfileLoadContext();
 
-                    RoutingProfileLoadContext loadCntx = new RoutingProfileLoadContext();
+            // The new handle comes with empty caches, entries of requests on the old graph stay with the old handle.
+            GraphHopperHandle newHandle = createGraphHopperHandle(initGraphHopper(ghOld.getDataReaderFile(), config, RoutingProfileManager.getInstance().getProfiles(), loadCntx));
+            if (!mGraphHopperHandle.compareAndSet(oldHandle, newHandle)) {
+                newHandle.release();
+                throw new Exception("The routing profile has been closed while its graph was updated.");
+            }
+            installed = true;
 
-                    mGraphHopper = initGraphHopper(ghOld.getDataReaderFile(), _config, RoutingProfileManager.getInstance().getProfiles(), loadCntx);
+            loadCntx.releaseElevationProviderCacheAfterAllVehicleProfilesHaveBeenProcessed();
 
-                    loadCntx.releaseElevationProviderCacheAfterAllVehicleProfilesHaveBeenProcessed();
+            oldHandle.release();
 
-                    break;
-                }
+            File graphDir = new File(_config.getGraphPath());
+            File oldDir = new File(ghOld.getGraphHopperLocation());
 
-                Thread.sleep(2000);
+            // Only the updater waits for the old graph to be closed, then its files are deleted.
+            boolean oldClosed = oldHandle.awaitClosed(GRAPH_RELEASE_TIMEOUT, TimeUnit.MINUTES);
+            if (oldClosed) {
+                ghOld.clean();
+                RuntimeUtility.clearMemory(LOGGER);
+            } else {
+                LOGGER.warn(String.format("The previous graph in '%s' is still in use and has not been removed.", oldDir));
+            }
+
+            // Only the graph loaded at startup runs from the configured location itself, after an update that
+            // location holds a copy which is not in use.
+            if (oldClosed || !oldDir.getCanonicalFile().equals(graphDir.getCanonicalFile())) {
+                FileUtils.deleteDirectory(graphDir);
+                FileUtils.copyDirectory(dstDir, graphDir, true);
             }
         } catch (Exception ex) {
-            LOGGER.error(ex.getMessage());
-        }
+            LOGGER.error("Unable to update the graph of the routing profile.", ex);
 
-        mUpdateRun = false;
+            // The directory of a graph which has not been installed is not used by anyone.
+            if (dstDir != null && !installed)
+                FileUtils.deleteQuietly(dstDir);
+        }
     }
 
-    private void waitForUpdateCompletion() throws Exception {
-        if (mUpdateRun) {
-            long startTime = System.currentTimeMillis();
-
-            while (mUpdateRun) {
-                long curTime = System.currentTimeMillis();
-                if (curTime - startTime > 600000) {
-                    throw new Exception("The route profile is currently being updated.");
-                }
-
-                Thread.sleep(1000);
-            }
+    /**
+     * Deletes the directories <code>graphPath_&lt;timestamp&gt;</code> of updated graphs of an earlier run, see
+     * {@link #updateGH(GraphHopper)}. The graph is loaded from the configured location, so none of them is in use.
+     */
+    private static void deleteUpdatedGraphDirectories(String graphPath) {
+        File graphDir = new File(graphPath).getAbsoluteFile();
+        File parentDir = graphDir.getParentFile();
+        if (parentDir == null)
+            return;
+
+        String prefix = graphDir.getName() + "_";
+        File[] dirs = parentDir.listFiles(file -> file.isDirectory() && file.getName().startsWith(prefix)
+                && file.getName().substring(prefix.length()).matches("\\d+"));
+        if (dirs == null)
+            return;
+
+        for (File dir : dirs) {
+            LOGGER.info(String.format("Deleting the graph of an earlier update in '%s'.", dir));
+            FileUtils.deleteQuietly(dir);
         }
     }
 
@@ -473,24 +716,42 @@ public class RoutingProfile {
         }
 
 
-        IsochroneMap result = null;
-        waitForUpdateCompletion();
+        long startTime = System.nanoTime();
+        int profileType = parameters.getRouteParameters().getProfileType();
+        ServiceMetrics.recordIsochroneRange(profileType, parameters.getRangeType() == TravelRangeType.Time ? "time" : "distance", parameters.getMaximumRange());
 
-        beginUseGH();
+        IsochroneMap result = null;
+        GraphHopperHandle handle = acquireGraphHopper();
 
         try {
-            RouteSearchContext searchCntx = createSearchContext(parameters.getRouteParameters(), RouteSearchMode.Isochrones, null);
+            RouteSearchContext searchCntx = createSearchContext(handle.get(), parameters.getRouteParameters(), RouteSearchMode.Isochrones, null);
+
+            IsochroneCache isochroneCache = handle.getIsochroneCache();
+            String cacheKey = null;
+            if (isochroneCache != null && IsochroneCache.isCacheable(parameters)) {
+                Coordinate loc = parameters.getLocation();
+                // the builder snaps the location through the same context and reuses this result
+                int closestNode = searchCntx.findClosest(loc).getClosestNode();
+                if (closestNode != -1) {
+                    cacheKey = IsochroneCache.createKey(parameters, closestNode);
+                    result = isochroneCache.get(cacheKey, parameters);
+                }
+            }
 
-            IsochroneMapBuilderFactory isochroneMapBuilderFactory = new IsochroneMapBuilderFactory(searchCntx);
-            result = isochroneMapBuilderFactory.buildMap(parameters);
+            if (result == null) {
+                IsochroneMapBuilderFactory isochroneMapBuilderFactory = new IsochroneMapBuilderFactory(searchCntx);
+                result = isochroneMapBuilderFactory.buildMap(parameters);
 
-            endUseGH();
+                if (cacheKey != null)
+                    isochroneCache.put(cacheKey, result);
+            }
         } catch (Exception ex) {
-            endUseGH();
-
             LOGGER.error(ex);
+            ServiceMetrics.recordComputation(ServiceMetrics.ISOCHRONES, profileType, startTime, true);
 
             throw new InternalServerException(IsochronesErrorCodes.UNKNOWN, "Unable to build an isochrone map.");
+        } finally {
+            handle.release();
         }
 
         if (tempAttributes != null && result.getIsochronesCount() > 0) {
@@ -524,18 +785,31 @@ public class RoutingProfile {
 
             } catch (Exception ex) {
                 LOGGER.error(ex);
+                ServiceMetrics.recordComputation(ServiceMetrics.ISOCHRONES, profileType, startTime, true);
 
                 throw new InternalServerException(IsochronesErrorCodes.UNKNOWN, "Unable to compute isochrone attributes.");
             }
         }
 
+        ServiceMetrics.recordComputation(ServiceMetrics.ISOCHRONES, profileType, startTime, false);
+
         return result;
     }
 
     public MatrixResult computeMatrix(MatrixRequest req) throws Exception {
+        GraphHopperHandle handle = acquireGraphHopper();
+
+        try {
+            return computeMatrix(req, handle.get());
+        } finally {
+            handle.release();
+        }
+    }
+
+    private MatrixResult computeMatrix(MatrixRequest req, ORSGraphHopper gh) throws Exception {
+        long startTime = System.nanoTime();
         MatrixResult mtxResult = null;
 
-        GraphHopper gh = getGraphhopper();
         String encoderName = RoutingProfileType.getEncoderName(req.getProfileType());
         FlagEncoder flagEncoder = gh.getEncodingManager().getEncoder(encoderName);
 
@@ -557,16 +831,23 @@ public class RoutingProfile {
 
             HintsMap hintsMap = new HintsMap();
             hintsMap.setWeighting(weightingStr);
-            Weighting weighting = new ORSWeightingFactory(RealTrafficDataProvider.getInstance()).createWeighting(hintsMap, gh.getTraversalMode(), flagEncoder, graph, null, gh.getGraphHopperStorage());
+            Weighting weighting = _weightingFactory.createWeighting(hintsMap, gh.getTraversalMode(), flagEncoder, graph, null, gh.getGraphHopperStorage(), gh.getExtendedStorages());
 
             alg.init(req, gh, mtxSearchCntx.getGraph(), flagEncoder, weighting);
+            alg.setSearchBuffersPool(_searchBuffersPool);
+
+            ServiceMetrics.recordMatrixSize(req.getProfileType(), req.getSources().length, req.getDestinations().length);
+            ServiceMetrics.recordSearch(ServiceMetrics.MATRIX, req.getProfileType(), alg instanceof RPHASTMatrixAlgorithm ? ServiceMetrics.ALGORITHM_RPHAST : ServiceMetrics.ALGORITHM_DIJKSTRA_MATRIX, -1);
 
             mtxResult = alg.compute(mtxSearchCntx.getSources(), mtxSearchCntx.getDestinations(), req.getMetrics());
         } catch (Exception ex) {
             LOGGER.error(ex);
+            ServiceMetrics.recordComputation(ServiceMetrics.MATRIX, req.getProfileType(), startTime, true);
             throw new InternalServerException(MatrixErrorCodes.UNKNOWN, "Unable to compute a distance/duration matrix.");
         }
 
+        ServiceMetrics.recordComputation(ServiceMetrics.MATRIX, req.getProfileType(), startTime, false);
+
         return mtxResult;
     }
 
@@ -619,7 +900,7 @@ public class RoutingProfile {
         return optResult;
     }
 
-    private RouteSearchContext createSearchContext(RouteSearchParameters searchParams, RouteSearchMode mode, EdgeFilter customEdgeFilter) throws Exception {
+    private RouteSearchContext createSearchContext(ORSGraphHopper gh, RouteSearchParameters searchParams, RouteSearchMode mode, EdgeFilter customEdgeFilter) throws Exception {
         PMap props = new PMap();
 
         int profileType = searchParams.getProfileType();
@@ -628,13 +909,14 @@ public class RoutingProfile {
         if ("UNKNOWN".equals(encoderName))
             throw new InternalServerException(RoutingErrorCodes.UNKNOWN, "unknown vehicle profile.");
 
-        if (!mGraphHopper.getEncodingManager().supports(encoderName)) {
+        if (!gh.getEncodingManager().supports(encoderName)) {
             throw new IllegalArgumentException("Vehicle " + encoderName + " unsupported. " + "Supported are: "
-                    + mGraphHopper.getEncodingManager());
+                    + gh.getEncodingManager());
         }
 
-        FlagEncoder flagEncoder = mGraphHopper.getEncodingManager().getEncoder(encoderName);
-        GraphStorage gs = mGraphHopper.getGraphHopperStorage();
+        FlagEncoder flagEncoder = gh.getEncodingManager().getEncoder(encoderName);
+        GraphStorage gs = gh.getGraphHopperStorage();
+        ExtendedStorageRegistry storages = gh.getExtendedStorages();
         ProfileParameters profileParams = searchParams.getProfileParameters();
 
         /* Initialize empty edge filter sequence */
@@ -648,7 +930,7 @@ public class RoutingProfile {
         /* Avoid areas */
 
         if (searchParams.hasAvoidAreas()) {
-            edgeFilters.add(new AvoidAreasEdgeFilter(searchParams.getAvoidAreas()));
+            edgeFilters.add(new AvoidAreasEdgeFilter(searchParams.getAvoidAreas(), gh.getGraphHopperStorage(), gh.getLocationIndex()));
         }
 
         /* Heavy vehicle filter */
@@ -684,7 +966,7 @@ public class RoutingProfile {
 
                 /* Avoid any features other than hills */
                 if (avoidFeatures != AvoidFeatureFlags.Hills) {
-                    edgeFilters.add(new AvoidFeaturesEdgeFilter(profileType, searchParams, gs));
+                    edgeFilters.add(new AvoidFeaturesEdgeFilter(profileType, searchParams, storages));
                 }
 
                 /* Special case of hills */
@@ -715,21 +997,21 @@ public class RoutingProfile {
             CyclingParameters cyclingParams = (CyclingParameters) profileParams;
             int maximumGradient = cyclingParams.getMaximumGradient();
             if (maximumGradient > 0)
-                edgeFilters.add(new AvoidSteepnessEdgeFilter(gs, maximumGradient));
+                edgeFilters.add(new AvoidSteepnessEdgeFilter(storages, maximumGradient));
 
             int maximumTrailDifficulty = cyclingParams.getMaximumTrailDifficulty();
             if (maximumTrailDifficulty > 0)
-                edgeFilters.add(new TrailDifficultyEdgeFilter(flagEncoder, gs, maximumTrailDifficulty));
+                edgeFilters.add(new TrailDifficultyEdgeFilter(flagEncoder, storages, maximumTrailDifficulty));
 
         } else if (searchParams.hasParameters(WalkingParameters.class)) {
             WalkingParameters walkingParams = (WalkingParameters) profileParams;
             int maximumGradient = walkingParams.getMaximumGradient();
             if (maximumGradient > 0)
-                edgeFilters.add(new AvoidSteepnessEdgeFilter(gs, maximumGradient));
+                edgeFilters.add(new AvoidSteepnessEdgeFilter(storages, maximumGradient));
 
             int maximumTrailDifficulty = walkingParams.getMaximumTrailDifficulty();
             if (maximumTrailDifficulty > 0)
-                edgeFilters.add(new TrailDifficultyEdgeFilter(flagEncoder, gs, maximumTrailDifficulty));
+                edgeFilters.add(new TrailDifficultyEdgeFilter(flagEncoder, storages, maximumTrailDifficulty));
 
         }
 
@@ -757,7 +1039,7 @@ public class RoutingProfile {
             }
         }
 
-        RouteSearchContext searchCntx = new RouteSearchContext(mGraphHopper, edgeFilters, flagEncoder);
+        RouteSearchContext searchCntx = new RouteSearchContext(gh, edgeFilters, flagEncoder);
         searchCntx.setProperties(props);
 
         return searchCntx;
@@ -767,34 +1049,25 @@ public class RoutingProfile {
             throws Exception {
         RouteSegmentInfo[] rsi = null;
 
-        waitForUpdateCompletion();
-
-        beginUseGH();
+        GraphHopperHandle handle = acquireGraphHopper();
 
         try {
-            rsi = getMatchedSegmentsInternal(locations, searchRadius, null, bothDirections);
-
-            endUseGH();
-        } catch (Exception ex) {
-            endUseGH();
-
-            throw ex;
+            rsi = getMatchedSegmentsInternal(handle, locations, searchRadius, null, bothDirections);
+        } finally {
+            handle.release();
         }
 
         return rsi;
     }
 
-    private RouteSegmentInfo[] getMatchedSegmentsInternal(Coordinate[] locations,
+    private RouteSegmentInfo[] getMatchedSegmentsInternal(GraphHopperHandle handle, Coordinate[] locations,
                                                           double searchRadius, EdgeFilter edgeFilter, boolean bothDirections) {
-        if (mMapMatcher == null) {
-            mMapMatcher = new HiddenMarkovMapMatcher();
-            mMapMatcher.setGraphHopper(mGraphHopper);
-        }
-
-        mMapMatcher.setSearchRadius(searchRadius);
-        mMapMatcher.setEdgeFilter(edgeFilter);
+        // The matcher belongs to the calling thread, so the parameters of this request are not seen by others.
+        MapMatcher mapMatcher = handle.getMapMatcher();
+        mapMatcher.setSearchRadius(searchRadius);
+        mapMatcher.setEdgeFilter(edgeFilter);
 
-        return mMapMatcher.match(locations, bothDirections);
+        return mapMatcher.match(locations, bothDirections);
     }
 
     public boolean canProcessRequest(double totalDistance, double longestSegmentDistance, int wayPoints) {
@@ -806,17 +1079,47 @@ public class RoutingProfile {
 
     public GHResponse computeRoute(double lat0, double lon0, double lat1, double lon1, WayPointBearing[] bearings, double[] radiuses, boolean directedSegment, RouteSearchParameters searchParams, EdgeFilter customEdgeFilter, RouteProcessContext routeProcCntx)
             throws Exception {
+        GraphHopperHandle handle = acquireGraphHopper();
 
-        GHResponse resp = null;
+        try {
+            return computeRoute(handle, lat0, lon0, lat1, lon1, bearings, radiuses, directedSegment, searchParams, customEdgeFilter, routeProcCntx);
+        } finally {
+            handle.release();
+        }
+    }
 
-        waitForUpdateCompletion();
+    /**
+     * Computes a route on the graph of <code>handle</code>, which the caller holds a reference to. All segments of a
+     * request are computed on the same graph this way.
+     */
+    GHResponse computeRoute(GraphHopperHandle handle, double lat0, double lon0, double lat1, double lon1, WayPointBearing[] bearings, double[] radiuses, boolean directedSegment, RouteSearchParameters searchParams, EdgeFilter customEdgeFilter, RouteProcessContext routeProcCntx)
+            throws Exception {
 
-        beginUseGH();
+        long startTime = System.nanoTime();
+        GHResponse resp = null;
 
         try {
+            ORSGraphHopper gh = handle.get();
             int profileType = searchParams.getProfileType();
             int weightingMethod = searchParams.getWeightingMethod();
-            RouteSearchContext searchCntx = createSearchContext(searchParams, RouteSearchMode.Routing, customEdgeFilter);
+            RouteSearchContext searchCntx = createSearchContext(gh, searchParams, RouteSearchMode.Routing, customEdgeFilter);
+
+            RouteCache routeCache = handle.getRouteCache();
+            String cacheKey = null;
+            QueryResult from = null, to = null;
+            if (routeCache != null && isRouteCacheable(searchParams, customEdgeFilter, routeProcCntx)) {
+                // snap the points with the filter of the search, so that nearby inputs share an entry
+                from = searchCntx.findClosest(new Coordinate(lon0, lat0));
+                to = searchCntx.findClosest(new Coordinate(lon1, lat1));
+                if (isSnappedWithinRadius(from, radiuses, 0) && isSnappedWithinRadius(to, radiuses, 1)) {
+                    cacheKey = RouteCache.createKey(from, to, bearings, searchParams);
+                    resp = routeCache.get(cacheKey);
+                    if (resp != null) {
+                        ServiceMetrics.recordCacheHit(ServiceMetrics.ROUTING, profileType);
+                        return resp;
+                    }
+                }
+            }
 
             boolean flexibleMode = searchParams.getFlexibleMode();
             GHRequest req = null;
@@ -889,19 +1192,19 @@ public class RoutingProfile {
             }
 
             if (RoutingProfileType.isDriving(profileType) && RealTrafficDataProvider.getInstance().isInitialized())
-                req.setEdgeAnnotator(new TrafficEdgeAnnotator(mGraphHopper.getGraphHopperStorage()));
+                req.setEdgeAnnotator(new TrafficEdgeAnnotator(gh.getGraphHopperStorage()));
 
             req.setEdgeFilter(searchCntx.getEdgeFilter());
             req.setPathProcessor(routeProcCntx.getPathProcessor());
 
             if (useDynamicWeights(searchParams) || flexibleMode) {
-                if (mGraphHopper.isCHEnabled())
+                if (gh.isCHEnabled())
                     req.getHints().put("ch.disable", true);
-                if (mGraphHopper.getLMFactoryDecorator().isEnabled())
+                if (gh.getLMFactoryDecorator().isEnabled())
                     req.setAlgorithm("astarbi");
                 req.getHints().put("lm.disable", false);
             } else {
-                if (mGraphHopper.isCHEnabled())
+                if (gh.isCHEnabled())
                     req.getHints().put("lm.disable", true);
                 else
                     req.getHints().put("ch.disable", true);
@@ -919,19 +1222,18 @@ public class RoutingProfile {
                 req.getHints().put("astarbi.approximation", _astarApproximation);
 
 			/*if (directedSegment)
-				resp = mGraphHopper.directRoute(req); NOTE IMPLEMENTED!!!
+				resp = gh.directRoute(req); NOTE IMPLEMENTED!!!
 			else */
-            resp = mGraphHopper.route(req);
+            resp = gh.route(req);
 
-            if (DebugUtility.isDebug()) {
-                System.out.println("visited_nodes.average - " + resp.getHints().get("visited_nodes.average", ""));
-            }
+            ServiceMetrics.recordSearch(ServiceMetrics.ROUTING, profileType, getSearchAlgorithm(gh, req), resp.getHints().getLong("visited_nodes.sum", -1));
+            ServiceMetrics.recordComputation(ServiceMetrics.ROUTING, profileType, startTime, resp.hasErrors());
 
-            endUseGH();
+            if (cacheKey != null && !resp.hasErrors() && RouteCache.isSnappedTo(resp, from, to))
+                routeCache.put(cacheKey, resp);
         } catch (Exception ex) {
-            endUseGH();
-
             LOGGER.error(ex);
+            ServiceMetrics.recordComputation(ServiceMetrics.ROUTING, searchParams.getProfileType(), startTime, true);
 
             throw new InternalServerException(RoutingErrorCodes.UNKNOWN, "Unable to compute a route");
         }
@@ -939,6 +1241,21 @@ public class RoutingProfile {
         return resp;
     }
 
+    /**
+     * @return	The label of the algorithm which GraphHopper runs for the algorithm and hints of <code>req</code>
+     */
+    private static String getSearchAlgorithm(ORSGraphHopper gh, GHRequest req) {
+        HintsMap hints = req.getHints();
+        if (gh.isCHEnabled() && !hints.getBool("ch.disable", false))
+            return ServiceMetrics.ALGORITHM_CH;
+
+        boolean astar = req.getAlgorithm().startsWith("astar");
+        if (astar && gh.getLMFactoryDecorator().isEnabled() && !hints.getBool("lm.disable", false))
+            return ServiceMetrics.ALGORITHM_LM;
+
+        return astar ? ServiceMetrics.ALGORITHM_ASTAR : ServiceMetrics.ALGORITHM_DIJKSTRA;
+    }
+
     private boolean useDynamicWeights(RouteSearchParameters searchParams) {
         boolean dynamicWeights =
             searchParams.hasAvoidAreas()
@@ -971,8 +1288,18 @@ public class RoutingProfile {
     }
 
     public Geometry getEdgeGeometry(int edgeId, int mode, int adjnodeid) {
-        EdgeIteratorState iter = mGraphHopper.getGraphHopperStorage().getEdgeIteratorState(edgeId, adjnodeid);
-        PointList points = iter.fetchWayGeometry(mode);
+        GraphHopperHandle handle = tryAcquireGraphHopper();
+        if (handle == null)
+            return null;
+
+        PointList points;
+        try {
+            EdgeIteratorState iter = handle.get().getGraphHopperStorage().getEdgeIteratorState(edgeId, adjnodeid);
+            points = iter.fetchWayGeometry(mode);
+        } finally {
+            handle.release();
+        }
+
         if (points.size() > 1) {
             Coordinate[] coords = new Coordinate[points.size()];
             for (int i = 0; i < points.size(); i++) {
@@ -985,12 +1312,35 @@ public class RoutingProfile {
         return null;
     }
 
+    /**
+     * Route responses can only be reused if they do not depend on live traffic data and no path processor has to
+     * collect extra information while the route is computed.
+     */
+    private boolean isRouteCacheable(RouteSearchParameters searchParams, EdgeFilter customEdgeFilter, RouteProcessContext routeProcCntx) {
+        if (customEdgeFilter != null || routeProcCntx.getPathProcessor() != null || searchParams.getConsiderTraffic())
+            return false;
+
+        return !(RoutingProfileType.isDriving(searchParams.getProfileType()) && RealTrafficDataProvider.getInstance().isInitialized());
+    }
+
+    /**
+     * A point which lies further from the graph than its radius makes the search fail, so a route cached for a
+     * closer point with the same snapped position must not be returned for it.
+     */
+    private static boolean isSnappedWithinRadius(QueryResult qr, double[] radiuses, int index) {
+        if (!qr.isValid())
+            return false;
+
+        return radiuses == null || radiuses[index] < 0 || qr.getQueryDistance() <= radiuses[index];
+    }
+
     public EdgeFilter createAccessRestrictionFilter(Coordinate[] wayPoints) {
         //rp.getGraphhopper()
         return null;
     }
 
     public int hashCode() {
-        return mGraphHopper.getGraphHopperStorage().getDirectory().getLocation().hashCode();
+        // the configured location stays the same when the graph is replaced by an update
+        return _config.getGraphPath().hashCode();
     }
 }
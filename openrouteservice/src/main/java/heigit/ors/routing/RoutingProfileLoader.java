@@ -17,23 +17,39 @@ package heigit.ors.routing;
 import java.util.concurrent.Callable;
 
 import heigit.ors.routing.configuration.RouteProfileConfiguration;
+import heigit.ors.routing.graphhopper.extensions.reader.SharedOSMInputFile;
 
 public class RoutingProfileLoader implements Callable<RoutingProfile> {
 	private String osmFile;
 	private RouteProfileConfiguration rpc;
 	private RoutingProfilesCollection routeProfiles;
 	private RoutingProfileLoadContext loadCntx;
+	private SharedOSMInputFile.Participant sharedOSMFile;
 
 	public RoutingProfileLoader(String osmFile, RouteProfileConfiguration rpc, RoutingProfilesCollection routeProfiles, RoutingProfileLoadContext loadCntx) {
+		this(osmFile, rpc, routeProfiles, loadCntx, null);
+	}
+
+	/**
+	 * @param sharedOSMFile	The participant in a shared read of the OSM file. The loader leaves it when it is done,
+	 * 						whether the graph was imported, loaded or failed.
+	 */
+	public RoutingProfileLoader(String osmFile, RouteProfileConfiguration rpc, RoutingProfilesCollection routeProfiles, RoutingProfileLoadContext loadCntx, SharedOSMInputFile.Participant sharedOSMFile) {
 		this.osmFile = osmFile;
 		this.rpc = rpc;
 		this.routeProfiles = routeProfiles;
 		this.loadCntx = loadCntx;
+		this.sharedOSMFile = sharedOSMFile;
 	}
 
 	@Override
 	public RoutingProfile call() throws Exception {
 		Thread.currentThread().setName("ORS-pl-" + rpc.getName());
-		return new RoutingProfile(osmFile, rpc, routeProfiles, loadCntx);
+		try {
+			return new RoutingProfile(osmFile, rpc, routeProfiles, loadCntx, sharedOSMFile);
+		} finally {
+			if (sharedOSMFile != null)
+				sharedOSMFile.leave();
+		}
 	}
 }
\ No newline at end of file
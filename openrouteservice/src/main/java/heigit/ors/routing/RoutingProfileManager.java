@@ -33,19 +33,24 @@ import heigit.ors.exceptions.RouteNotFoundException;
 import heigit.ors.exceptions.ServerLimitExceededException;
 import heigit.ors.isochrones.IsochroneMap;
 import heigit.ors.isochrones.IsochroneSearchParameters;
+import heigit.ors.isochrones.builders.concaveballs.ConcaveBallsIsochroneMapBuilder;
 import heigit.ors.mapmatching.MapMatchingRequest;
 import heigit.ors.matrix.MatrixErrorCodes;
 import heigit.ors.matrix.MatrixRequest;
 import heigit.ors.matrix.MatrixResult;
+import heigit.ors.matrix.algorithms.rphast.RPHASTMatrixAlgorithm;
+import heigit.ors.metrics.ServiceMetrics;
 import heigit.ors.optimization.OptimizationErrorCodes;
 import heigit.ors.optimization.RouteOptimizationRequest;
 import heigit.ors.optimization.RouteOptimizationResult;
 import heigit.ors.routing.configuration.RouteProfileConfiguration;
 import heigit.ors.routing.configuration.RoutingManagerConfiguration;
+import heigit.ors.routing.graphhopper.extensions.reader.SharedOSMInputFile;
 import heigit.ors.routing.parameters.VehicleParameters;
 import heigit.ors.routing.pathprocessors.ElevationSmoothPathProcessor;
 import heigit.ors.routing.pathprocessors.ExtraInfoProcessor;
 import heigit.ors.routing.traffic.RealTrafficDataProvider;
+import heigit.ors.services.isochrones.IsochronesServiceSettings;
 import heigit.ors.services.routing.RoutingServiceSettings;
 import heigit.ors.util.FormatUtility;
 import heigit.ors.util.RuntimeUtility;
@@ -58,6 +63,7 @@ import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class RoutingProfileManager {
     private static final Logger LOGGER = Logger.getLogger(RoutingProfileManager.class.getName());
@@ -65,6 +71,7 @@ public class RoutingProfileManager {
     private RoutingProfilesCollection _routeProfiles;
     private RoutingProfilesUpdater _profileUpdater;
     private static RoutingProfileManager mInstance;
+    private static ExecutorService _isochronesExecutor;
 
     public static synchronized RoutingProfileManager getInstance() throws IOException {
         if (mInstance == null) {
@@ -109,7 +116,6 @@ public class RoutingProfileManager {
             RoutingManagerConfiguration rmc = RoutingManagerConfiguration.loadFromFile(graphProps);
 
             _routeProfiles = new RoutingProfilesCollection();
-            int nRouteInstances = rmc.Profiles.length;
 
             RoutingProfileLoadContext loadCntx = new RoutingProfileLoadContext(RoutingServiceSettings.getInitializationThreads());
             ExecutorService executor = Executors.newFixedThreadPool(RoutingServiceSettings.getInitializationThreads());
@@ -117,19 +123,9 @@ public class RoutingProfileManager {
 
             int nTotalTasks = 0;
 
-            for (int i = 0; i < nRouteInstances; i++) {
-                RouteProfileConfiguration rpc = rmc.Profiles[i];
-                if (!rpc.getEnabled())
-                    continue;
-
-                Integer[] routeProfiles = rpc.getProfilesTypes();
-
-                if (routeProfiles != null) {
-                    Callable<RoutingProfile> task = new RoutingProfileLoader(RoutingServiceSettings.getSourceFile(), rpc,
-                            _routeProfiles, loadCntx);
-                    compService.submit(task);
-                    nTotalTasks++;
-                }
+            for (RoutingProfileLoader task : createProfileLoaders(rmc, loadCntx)) {
+                compService.submit(task);
+                nTotalTasks++;
             }
 
             LOGGER.info("               ");
@@ -156,7 +152,7 @@ public class RoutingProfileManager {
             loadCntx.releaseElevationProviderCacheAfterAllVehicleProfilesHaveBeenProcessed();
 
 
-            LOGGER.info("Graphs were prepaired in " + TimeUtility.getElapsedTime(startTime, true) + ".");
+            LOGGER.info("Graphs were prepaired in " + TimeUtility.getElapsedTime(startTime, true) + ", peak memory usage: " + RuntimeUtility.getMemorySize(RuntimeUtility.getPeakMemoryUsage()) + ".");
         } catch (Exception ex) {
             LOGGER.error("Failed to prepare graphs.", ex);
         }
@@ -170,6 +166,7 @@ public class RoutingProfileManager {
         LOGGER.info("      ");
 
         long startTime = System.currentTimeMillis();
+        RuntimeUtility.resetPeakMemoryUsage();
 
         try {
             if (RoutingServiceSettings.getEnabled()) {
@@ -191,7 +188,6 @@ public class RoutingProfileManager {
                     prepareGraphs(graphProps);
                 } else {
                     _routeProfiles = new RoutingProfilesCollection();
-                    int nRouteInstances = rmc.Profiles.length;
 
                     RoutingProfileLoadContext loadCntx = new RoutingProfileLoadContext(RoutingServiceSettings.getInitializationThreads());
                     ExecutorService executor = Executors.newFixedThreadPool(RoutingServiceSettings.getInitializationThreads());
@@ -199,19 +195,9 @@ public class RoutingProfileManager {
 
                     int nTotalTasks = 0;
 
-                    for (int i = 0; i < nRouteInstances; i++) {
-                        RouteProfileConfiguration rpc = rmc.Profiles[i];
-                        if (!rpc.getEnabled())
-                            continue;
-
-                        Integer[] routeProfiles = rpc.getProfilesTypes();
-
-                        if (routeProfiles != null) {
-                            Callable<RoutingProfile> task = new RoutingProfileLoader(RoutingServiceSettings.getSourceFile(), rpc,
-                                    _routeProfiles, loadCntx);
-                            compService.submit(task);
-                            nTotalTasks++;
-                        }
+                    for (RoutingProfileLoader task : createProfileLoaders(rmc, loadCntx)) {
+                        compService.submit(task);
+                        nTotalTasks++;
                     }
 
                     LOGGER.info("               ");
@@ -237,7 +223,7 @@ public class RoutingProfileManager {
                     executor.shutdown();
                     loadCntx.releaseElevationProviderCacheAfterAllVehicleProfilesHaveBeenProcessed();
 
-                    LOGGER.info("Total time: " + TimeUtility.getElapsedTime(startTime, true) + ".");
+                    LOGGER.info("Total time: " + TimeUtility.getElapsedTime(startTime, true) + ", peak memory usage: " + RuntimeUtility.getMemorySize(RuntimeUtility.getPeakMemoryUsage()) + ".");
                     LOGGER.info("========================================================================");
 
                     if (rmc.TrafficInfoConfig != null && rmc.TrafficInfoConfig.Enabled) {
@@ -262,6 +248,44 @@ public class RoutingProfileManager {
             _routeProfiles.printStatistics(LOGGER);
     }
 
+    /**
+     * Creates a loader for every enabled profile. With a shared import, the profiles are split into groups which are
+     * loaded at the same time by the initialization threads, and each group reads the OSM file only once for all of
+     * its profiles which have to be imported.
+     */
+    private List<RoutingProfileLoader> createProfileLoaders(RoutingManagerConfiguration rmc, RoutingProfileLoadContext loadCntx) {
+        List<RouteProfileConfiguration> configs = new ArrayList<RouteProfileConfiguration>();
+        for (RouteProfileConfiguration rpc : rmc.Profiles) {
+            if (rpc.getEnabled() && rpc.getProfilesTypes() != null)
+                configs.add(rpc);
+        }
+
+        String osmFile = RoutingServiceSettings.getSourceFile();
+        List<RoutingProfileLoader> loaders = new ArrayList<RoutingProfileLoader>(configs.size());
+
+        if (!RoutingServiceSettings.getSharedImport() || configs.size() < 2) {
+            for (RouteProfileConfiguration rpc : configs)
+                loaders.add(new RoutingProfileLoader(osmFile, rpc, _routeProfiles, loadCntx));
+            return loaders;
+        }
+
+        // The members of a group wait for each other while reading, so a group must not be larger than the number of
+        // threads. The loaders are run in the order they are submitted, so the groups do not overlap.
+        int groupSize = Math.max(1, RoutingServiceSettings.getInitializationThreads());
+        SharedOSMInputFile sharedFile = null;
+
+        for (int i = 0; i < configs.size(); i++) {
+            if (i % groupSize == 0)
+                sharedFile = new SharedOSMInputFile(osmFile);
+
+            loaders.add(new RoutingProfileLoader(osmFile, configs.get(i), _routeProfiles, loadCntx, sharedFile.register()));
+        }
+
+        LOGGER.info(String.format("The OSM file is read once for up to %d profiles at a time.", groupSize));
+
+        return loaders;
+    }
+
     public void destroy() {
         if (_profileUpdater != null)
             _profileUpdater.destroy();
@@ -270,6 +294,10 @@ public class RoutingProfileManager {
             RealTrafficDataProvider.getInstance().destroy();
 
         _routeProfiles.destroy();
+
+        shutdownIsochronesExecutor();
+        ConcaveBallsIsochroneMapBuilder.shutdown();
+        RPHASTMatrixAlgorithm.shutdown();
     }
 
     public RoutingProfilesCollection getProfiles() {
@@ -292,14 +320,31 @@ public class RoutingProfileManager {
         if (req.getCoordinates().length <= 1)
             throw new Exception("Number of coordinates must be greater than 1.");
 
+        RoutingProfile rp = getRouteProfile(req, true);
+        Bulkhead bulkhead = rp.getBulkhead(ServiceMetrics.ROUTING);
+
+        bulkhead.acquire();
+        try {
+            // All segments and the extra info are computed on the same graph, even if it is updated meanwhile.
+            GraphHopperHandle handle = rp.acquireGraphHopper();
+            try {
+                return computeRoutes(rp, handle, req, invertFlow);
+            } finally {
+                handle.release();
+            }
+        } finally {
+            bulkhead.release();
+        }
+    }
+
+    private List<RouteResult> computeRoutes(RoutingProfile rp, GraphHopperHandle handle, RoutingRequest req, boolean invertFlow) throws Exception {
         List<RouteResult> routes = new ArrayList<RouteResult>(req.getCoordinates().length - 1);
 
-        RoutingProfile rp = getRouteProfile(req, true);
         RouteSearchParameters searchParams = req.getSearchParameters();
         PathProcessor pathProcessor = null;
 
         if (req.getExtraInfo() > 0) {
-            pathProcessor = new ExtraInfoProcessor(rp.getGraphhopper(), req);
+            pathProcessor = new ExtraInfoProcessor(handle.get(), req);
         } else {
             if (req.getIncludeElevation())
                 pathProcessor = new ElevationSmoothPathProcessor();
@@ -320,9 +365,9 @@ public class RoutingProfileManager {
             Coordinate c1 = coords[i];
             GHResponse gr = null;
             if (invertFlow)
-                gr = rp.computeRoute(c0.y, c0.x, c1.y, c1.x, null, null, false, searchParams, customEdgeFilter, routeProcCntx);
+                gr = rp.computeRoute(handle, c0.y, c0.x, c1.y, c1.x, null, null, false, searchParams, customEdgeFilter, routeProcCntx);
             else
-                gr = rp.computeRoute(c1.y, c1.x, c0.y, c0.x, null, null, false, searchParams, customEdgeFilter, routeProcCntx);
+                gr = rp.computeRoute(handle, c1.y, c1.x, c0.y, c0.x, null, null, false, searchParams, customEdgeFilter, routeProcCntx);
 
             //if (gr.hasErrors())
             //	throw new InternalServerException(RoutingErrorCodes.UNKNOWN, String.format("Unable to find a route between points %d (%s) and %d (%s)", i, FormatUtility.formatCoordinate(c0), i + 1, FormatUtility.formatCoordinate(c1)));
@@ -347,19 +392,35 @@ public class RoutingProfileManager {
     }
 
     public RouteResult computeRoute(RoutingRequest req) throws Exception {
-        List<GHResponse> routes = new ArrayList<GHResponse>();
-
 //System.out.println("PATCHED!!!!");
 //req.setExtraInfo(512);
 //req.getSearchParameters().setOptions("{\"profile_params\":{\"restrictions\":{\"trail_difficulty\":1}}}");
 //req.getSearchParameters().setFlexibleMode(true);
 
         RoutingProfile rp = getRouteProfile(req, false);
+        Bulkhead bulkhead = rp.getBulkhead(ServiceMetrics.ROUTING);
+
+        bulkhead.acquire();
+        try {
+            // All segments and the extra info are computed on the same graph, even if it is updated meanwhile.
+            GraphHopperHandle handle = rp.acquireGraphHopper();
+            try {
+                return computeRoute(rp, handle, req);
+            } finally {
+                handle.release();
+            }
+        } finally {
+            bulkhead.release();
+        }
+    }
+
+    private RouteResult computeRoute(RoutingProfile rp, GraphHopperHandle handle, RoutingRequest req) throws Exception {
+        List<GHResponse> routes = new ArrayList<GHResponse>();
         RouteSearchParameters searchParams = req.getSearchParameters();
         PathProcessor pathProcessor = null;
 
         if (req.getExtraInfo() > 0) {
-            pathProcessor = new ExtraInfoProcessor(rp.getGraphhopper(), req);
+            pathProcessor = new ExtraInfoProcessor(handle.get(), req);
         } else {
             if (req.getIncludeElevation())
                 pathProcessor = new ElevationSmoothPathProcessor();
@@ -398,7 +459,7 @@ public class RoutingProfileManager {
                 radiuses[1] = searchParams.getMaximumRadiuses()[i];
             }
 
-            GHResponse gr = rp.computeRoute(c0.y, c0.x, c1.y, c1.x, bearings, radiuses, c0.z == 1.0, searchParams, customEdgeFilter, routeProcCntx);
+            GHResponse gr = rp.computeRoute(handle, c0.y, c0.x, c1.y, c1.x, bearings, radiuses, c0.z == 1.0, searchParams, customEdgeFilter, routeProcCntx);
 
             if (gr.hasErrors()) {
                 if (gr.getErrors().size() > 0) {
@@ -542,8 +603,72 @@ public class RoutingProfileManager {
 
         int profileType = parameters.getRouteParameters().getProfileType();
         RoutingProfile rp = _routeProfiles.getRouteProfile(profileType, false);
+        Bulkhead bulkhead = rp.getBulkhead(ServiceMetrics.ISOCHRONES);
 
-        return rp.buildIsochrone(parameters, attributes);
+        bulkhead.acquire();
+        try {
+            return rp.buildIsochrone(parameters, attributes);
+        } finally {
+            bulkhead.release();
+        }
+    }
+
+    /**
+     * Builds the isochrone maps for several locations. When more than one thread is configured for the isochrones
+     * service, the maps are computed concurrently on a shared bounded pool.
+     *
+     * @param parameters The {@link IsochroneSearchParameters} of each location
+     * @param attributes The attributes are a {@link String}[] holding the set attributes from the api query
+     * @return Return is a list of {@link IsochroneMap} in the same order as the given parameters.
+     * @throws Exception
+     */
+    public List<IsochroneMap> buildIsochrones(List<IsochroneSearchParameters> parameters, String[] attributes) throws Exception {
+        List<IsochroneMap> result = new ArrayList<IsochroneMap>(parameters.size());
+
+        if (parameters.size() < 2 || IsochronesServiceSettings.getParallelThreads() < 2) {
+            for (IsochroneSearchParameters searchParams : parameters)
+                result.add(buildIsochrone(searchParams, attributes));
+            return result;
+        }
+
+        List<Callable<IsochroneMap>> tasks = new ArrayList<Callable<IsochroneMap>>(parameters.size());
+        for (IsochroneSearchParameters searchParams : parameters)
+            tasks.add(() -> buildIsochrone(searchParams, attributes));
+
+        for (Future<IsochroneMap> future : getIsochronesExecutor().invokeAll(tasks)) {
+            try {
+                result.add(future.get());
+            } catch (ExecutionException ex) {
+                if (ex.getCause() instanceof Exception)
+                    throw (Exception) ex.getCause();
+                throw ex;
+            }
+        }
+
+        return result;
+    }
+
+    private static synchronized ExecutorService getIsochronesExecutor() {
+        if (_isochronesExecutor == null) {
+            AtomicInteger threadCounter = new AtomicInteger();
+            ThreadFactory threadFactory = runnable -> {
+                Thread thread = new Thread(runnable);
+                thread.setName("ORS-Isochrones-" + threadCounter.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            };
+
+            _isochronesExecutor = Executors.newFixedThreadPool(IsochronesServiceSettings.getParallelThreads(), threadFactory);
+        }
+
+        return _isochronesExecutor;
+    }
+
+    private static synchronized void shutdownIsochronesExecutor() {
+        if (_isochronesExecutor != null) {
+            _isochronesExecutor.shutdownNow();
+            _isochronesExecutor = null;
+        }
     }
 
     public MatrixResult computeMatrix(MatrixRequest req) throws Exception {
@@ -552,7 +677,14 @@ public class RoutingProfileManager {
         if (rp == null)
             throw new InternalServerException(MatrixErrorCodes.UNKNOWN, "Unable to find an appropriate routing profile.");
 
-        return rp.computeMatrix(req);
+        Bulkhead bulkhead = rp.getBulkhead(ServiceMetrics.MATRIX);
+
+        bulkhead.acquire();
+        try {
+            return rp.computeMatrix(req);
+        } finally {
+            bulkhead.release();
+        }
     }
 
     public RouteOptimizationResult computeOptimizedRoutes(RouteOptimizationRequest req) throws Exception {
@@ -561,6 +693,14 @@ public class RoutingProfileManager {
         if (rp == null)
             throw new InternalServerException(OptimizationErrorCodes.UNKNOWN, "Unable to find an appropriate routing profile.");
 
-        return rp.computeOptimizedRoutes(req);
+        // The optimization is dominated by the computation of its matrix.
+        Bulkhead bulkhead = rp.getBulkhead(ServiceMetrics.MATRIX);
+
+        bulkhead.acquire();
+        try {
+            return rp.computeOptimizedRoutes(req);
+        } finally {
+            bulkhead.release();
+        }
     }
 }
@@ -176,9 +176,9 @@ public class RoutingProfilesCollection {
 		for(RoutingProfile profile : getUniqueProfiles())
 		{
 			i++;
-			long capacity = profile.getCapacity();
+			long capacity = profile.getResidentCapacity();
 			totalProfilesMemory += capacity;
-			logger.info(String.format("[%d] %s (%.1f%%)", i, RuntimeUtility.getMemorySize(capacity), ((double)capacity/totalUsedMemory)*100)); 
+			logger.info(String.format("[%d] %s (%.1f%%), mapped %s", i, RuntimeUtility.getMemorySize(capacity), ((double)capacity/totalUsedMemory)*100, RuntimeUtility.getMemorySize(profile.getMappedCapacity()))); 
 		}
 		
 		logger.info(String.format("Total: %s (%.1f%%)", RuntimeUtility.getMemorySize(totalProfilesMemory), ((double)totalProfilesMemory/totalUsedMemory)*100)); 
@@ -19,18 +19,83 @@ import com.graphhopper.routing.util.TraversalMode;
 import com.graphhopper.routing.weighting.Weighting;
 import com.graphhopper.storage.Graph;
 import com.graphhopper.storage.SPTEntry;
+import com.graphhopper.util.EdgeExplorer;
+import com.graphhopper.util.EdgeIterator;
 
 public class DijkstraCostCondition extends Dijkstra
 {
 	private double weightLimit = -1;
+	private boolean reverseDirection;
+	private SPTEntryHeap heap;
+	private int visitedNodes;
+
     public DijkstraCostCondition(Graph g, Weighting weighting, double maxCost, boolean reverseDirection, TraversalMode tMode)
     {
         super(g, weighting, tMode);
         initCollections(1000);
+        this.heap = new SPTEntryHeap(1000);
         this.weightLimit = maxCost;
+        this.reverseDirection = reverseDirection;
         setReverseDirection(reverseDirection);
     }
 
+    @Override
+    protected SPTEntry createSPTEntry(int node, double weight) {
+        return heap.createEntry(EdgeIterator.NO_EDGE, node, weight);
+    }
+
+    /**
+     * Same search as {@link Dijkstra#runAlgo()}, but the entries are kept in an {@link SPTEntryHeap} so that an
+     * improved weight does not require the linear remove of {@link java.util.PriorityQueue}.
+     */
+    @Override
+    protected void runAlgo() {
+        EdgeExplorer explorer = reverseDirection ? inEdgeExplorer : outEdgeExplorer;
+        while (true) {
+            visitedNodes++;
+            if (isMaxVisitedNodesExceeded() || finished())
+                break;
+
+            int startNode = currEdge.adjNode;
+            EdgeIterator iter = explorer.setBaseNode(startNode);
+            while (iter.next()) {
+                if (!accept(iter, currEdge.edge))
+                    continue;
+
+                int traversalId = traversalMode.createTraversalId(iter, reverseDirection);
+                double tmpWeight = weighting.calcWeight(iter, reverseDirection, currEdge.edge) + currEdge.weight;
+                if (Double.isInfinite(tmpWeight))
+                    continue;
+
+                SPTEntry nEdge = fromMap.get(traversalId);
+                if (nEdge == null) {
+                    nEdge = heap.createEntry(iter.getEdge(), iter.getAdjNode(), tmpWeight);
+                    nEdge.parent = currEdge;
+                    fromMap.put(traversalId, nEdge);
+                    heap.update(nEdge);
+                } else if (nEdge.weight > tmpWeight) {
+                    nEdge.edge = iter.getEdge();
+                    nEdge.weight = tmpWeight;
+                    nEdge.parent = currEdge;
+                    heap.update(nEdge);
+                } else
+                    continue;
+
+                updateBestPath(iter, nEdge, traversalId);
+            }
+
+            if (heap.isEmpty())
+                break;
+
+            currEdge = heap.poll();
+        }
+    }
+
+    @Override
+    public int getVisitedNodes() {
+        return visitedNodes;
+    }
+
     @Override
     protected boolean finished() {
         return  super.finished() || currEdge.weight > weightLimit;
@@ -23,30 +23,39 @@ import com.graphhopper.util.EdgeExplorer;
 import com.graphhopper.util.EdgeIterator;
 import com.graphhopper.util.Parameters;
 
-import java.util.PriorityQueue;
-
 public class DijkstraOneToManyAlgorithm extends AbstractOneToManyRoutingAlgorithm {
     protected IntObjectMap<SPTEntry> _fromMap;
-    protected PriorityQueue<SPTEntry> _fromHeap;
+    protected SPTEntryHeap _fromHeap;
     protected SPTEntry _currEdge;
     private int _visitedNodes;
     
     private int _targetsFound = 0;
     private IntObjectMap<SPTEntry> _targets;
     private int _targetsCount = 0;
+    private SearchBuffers _buffers;
 
     public DijkstraOneToManyAlgorithm(Graph graph, Weighting weighting, TraversalMode tMode) {
+        this(graph, weighting, tMode, new SearchBuffers());
+    }
+
+    public DijkstraOneToManyAlgorithm(Graph graph, Weighting weighting, TraversalMode tMode, SearchBuffers buffers) {
         super(graph, weighting, tMode);
         int size = Math.min(Math.max(200, graph.getNodes() / 10), 2000);
+        _buffers = buffers;
         initCollections(size);
     }
 
     protected void initCollections(int size) {
-        _fromHeap = new PriorityQueue<SPTEntry>(size);
-        _fromMap = new GHIntObjectHashMap<SPTEntry>(size);
+        _fromHeap = _buffers.getSPTEntryHeap(size);
+        _fromMap = _buffers.getSPTEntryMap(size);
         _targets = new GHIntObjectHashMap<SPTEntry>();
     }
     
+    @Override
+    protected SPTEntry createSPTEntry(int node, double weight) {
+        return _fromHeap.createEntry(EdgeIterator.NO_EDGE, node, weight);
+    }
+
     public void reset()
     {
     	_fromHeap.clear();
@@ -122,16 +131,15 @@ public class DijkstraOneToManyAlgorithm extends AbstractOneToManyRoutingAlgorith
 
                 SPTEntry nEdge = _fromMap.get(traversalId);
                 if (nEdge == null) {
-                    nEdge = new SPTEntry(iter.getEdge(), iter.getAdjNode(), tmpWeight);
+                    nEdge = _fromHeap.createEntry(iter.getEdge(), iter.getAdjNode(), tmpWeight);
                     nEdge.parent = _currEdge;
                     _fromMap.put(traversalId, nEdge);
-                    _fromHeap.add(nEdge);
+                    _fromHeap.update(nEdge);
                 } else if (nEdge.weight > tmpWeight) {
-                    _fromHeap.remove(nEdge);
                     nEdge.edge = iter.getEdge();
                     nEdge.weight = tmpWeight;
                     nEdge.parent = _currEdge;
-                    _fromHeap.add(nEdge);
+                    _fromHeap.update(nEdge);
                 } else
                     continue;
             }
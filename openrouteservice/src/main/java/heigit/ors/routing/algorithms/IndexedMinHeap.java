@@ -0,0 +1,182 @@
+/*  This file is part of Openrouteservice.
+ *
+ *  Openrouteservice is free software; you can redistribute it and/or modify it under the terms of the 
+ *  GNU Lesser General Public License as published by the Free Software Foundation; either version 2.1 
+ *  of the License, or (at your option) any later version.
+
+ *  This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; 
+ *  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. 
+ *  See the GNU Lesser General Public License for more details.
+
+ *  You should have received a copy of the GNU Lesser General Public License along with this library; 
+ *  if not, see <https://www.gnu.org/licenses/>.  
+ */
+package heigit.ors.routing.algorithms;
+
+import java.util.Arrays;
+
+/**
+ * A binary min-heap of int ids with double keys which keeps track of the position of every id in the heap. This
+ * allows to change the key of an element in O(log n) instead of the O(n) remove of {@link java.util.PriorityQueue}.
+ * The ids are expected to be dense, i.e. in the range [0, n) where n is the number of elements created by the
+ * search (e.g. slots of an arena or the index of an entry), as the positions are stored in a plain array.
+ */
+public class IndexedMinHeap {
+	private static final int NOT_CONTAINED = -1;
+
+	private int[] _ids;
+	private double[] _keys;
+	private int[] _positions;
+	private int _size;
+
+	public IndexedMinHeap(int initialCapacity) {
+		initialCapacity = Math.max(16, initialCapacity);
+		_ids = new int[initialCapacity];
+		_keys = new double[initialCapacity];
+		_positions = new int[initialCapacity];
+		Arrays.fill(_positions, NOT_CONTAINED);
+	}
+
+	public int size() {
+		return _size;
+	}
+
+	public boolean isEmpty() {
+		return _size == 0;
+	}
+
+	public boolean contains(int id) {
+		return id < _positions.length && _positions[id] != NOT_CONTAINED;
+	}
+
+	/**
+	 * Inserts the id with the given key or changes its key if the id is already in the heap.
+	 */
+	public void update(int id, double key) {
+		ensureIdCapacity(id);
+
+		int pos = _positions[id];
+		if (pos == NOT_CONTAINED) {
+			if (_size == _ids.length) {
+				_ids = Arrays.copyOf(_ids, _size * 2);
+				_keys = Arrays.copyOf(_keys, _size * 2);
+			}
+
+			pos = _size++;
+			_ids[pos] = id;
+			_keys[pos] = key;
+			_positions[id] = pos;
+			siftUp(pos);
+		} else {
+			double oldKey = _keys[pos];
+			_keys[pos] = key;
+
+			if (key < oldKey)
+				siftUp(pos);
+			else if (key > oldKey)
+				siftDown(pos);
+		}
+	}
+
+	public int peekId() {
+		if (_size == 0)
+			throw new IllegalStateException("Heap is empty");
+
+		return _ids[0];
+	}
+
+	public double peekKey() {
+		if (_size == 0)
+			throw new IllegalStateException("Heap is empty");
+
+		return _keys[0];
+	}
+
+	/**
+	 * Removes the element with the smallest key and returns its id.
+	 */
+	public int poll() {
+		int id = peekId();
+		_positions[id] = NOT_CONTAINED;
+		_size--;
+
+		if (_size > 0) {
+			_ids[0] = _ids[_size];
+			_keys[0] = _keys[_size];
+			_positions[_ids[0]] = 0;
+			siftDown(0);
+		}
+
+		return id;
+	}
+
+	public void clear() {
+		for (int i = 0; i < _size; i++)
+			_positions[_ids[i]] = NOT_CONTAINED;
+		_size = 0;
+	}
+
+	/**
+	 * Returns the approximate number of bytes occupied by the arrays of this heap.
+	 */
+	public long getMemoryUsage() {
+		return (long) _ids.length * (4 + 8) + (long) _positions.length * 4;
+	}
+
+	private void ensureIdCapacity(int id) {
+		if (id >= _positions.length) {
+			int oldLength = _positions.length;
+			_positions = Arrays.copyOf(_positions, Math.max(id + 1, oldLength * 2));
+			Arrays.fill(_positions, oldLength, _positions.length, NOT_CONTAINED);
+		}
+	}
+
+	private void siftUp(int pos) {
+		int id = _ids[pos];
+		double key = _keys[pos];
+
+		while (pos > 0) {
+			int parent = (pos - 1) >>> 1;
+			if (_keys[parent] <= key)
+				break;
+
+			move(parent, pos);
+			pos = parent;
+		}
+
+		set(pos, id, key);
+	}
+
+	private void siftDown(int pos) {
+		int id = _ids[pos];
+		double key = _keys[pos];
+		int half = _size >>> 1;
+
+		while (pos < half) {
+			int child = 2 * pos + 1;
+			int right = child + 1;
+			if (right < _size && _keys[right] < _keys[child])
+				child = right;
+
+			if (key <= _keys[child])
+				break;
+
+			move(child, pos);
+			pos = child;
+		}
+
+		set(pos, id, key);
+	}
+
+	private void move(int from, int to) {
+		_ids[to] = _ids[from];
+		_keys[to] = _keys[from];
+		_positions[_ids[to]] = to;
+	}
+
+	private void set(int pos, int id, double key) {
+		_ids[pos] = id;
+		_keys[pos] = key;
+		_positions[id] = pos;
+	}
+}
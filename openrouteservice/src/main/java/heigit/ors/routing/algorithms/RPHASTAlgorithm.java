@@ -15,8 +15,7 @@ package heigit.ors.routing.algorithms;
 
 import java.util.PriorityQueue;
 
-import com.carrotsearch.hppc.IntObjectMap;
-import com.graphhopper.coll.GHIntObjectHashMap;
+import com.carrotsearch.hppc.IntIntHashMap;
 import com.graphhopper.routing.QueryGraph;
 import com.graphhopper.routing.util.FlagEncoder;
 import com.graphhopper.routing.util.TraversalMode;
@@ -29,15 +28,17 @@ import com.graphhopper.util.EdgeIterator;
 import heigit.ors.routing.graphhopper.extensions.edgefilters.DownwardSearchEdgeFilter;
 import heigit.ors.routing.graphhopper.extensions.edgefilters.UpwardSearchEdgeFilter;
 import heigit.ors.routing.graphhopper.extensions.storages.MultiTreeSPEntry;
-import heigit.ors.routing.graphhopper.extensions.storages.MultiTreeSPEntryItem;
+import heigit.ors.routing.graphhopper.extensions.storages.MultiTreeSPEntryArena;
 
 public class RPHASTAlgorithm extends AbstractManyToManyRoutingAlgorithm {
 	//private final Logger logger = LoggerFactory.getLogger(getClass());
 
-	private IntObjectMap<MultiTreeSPEntry> _bestWeightMapFrom;
-	private MultiTreeSPEntry _currFrom;
-	private MultiTreeSPEntry _currTo;
-	private PriorityQueue<MultiTreeSPEntry> _prioQueue;
+	// maps a node id to the slot of its entry in the arena
+	private IntIntHashMap _bestWeightMapFrom;
+	private MultiTreeSPEntryArena _arena;
+	private int _currFrom;
+	private int _currTo;
+	private IndexedMinHeap _prioQueue;
 	private UpwardSearchEdgeFilter _upwardEdgeFilter;
 	private DownwardSearchEdgeFilter _downwardEdgeFilter;
 	private SubGraph _targetGraph;
@@ -46,17 +47,27 @@ public class RPHASTAlgorithm extends AbstractManyToManyRoutingAlgorithm {
 	private int _visitedCountFrom;
 	private int _visitedCountTo;
 	private int _treeEntrySize;
+	private int _initialSize;
+	private SearchBuffers _buffers;
 	
-	private MultiTreeSPEntryItem _msptItem;
-	private MultiTreeSPEntryItem _msptSubItem;
 	private boolean _addToQueue = false;
 	private double _edgeWeight, _entryWeight, _tmpWeight;
 	
 	public RPHASTAlgorithm(Graph graph, Weighting weighting, TraversalMode traversalMode) {
+		this(graph, weighting, traversalMode, new SearchBuffers());
+	}
+
+	/**
+	 * Creates the algorithm using the collections of the given buffers. The buffers must not be used by another
+	 * search until the results of this one have been processed.
+	 */
+	public RPHASTAlgorithm(Graph graph, Weighting weighting, TraversalMode traversalMode, SearchBuffers buffers) {
 		super(graph, weighting, traversalMode);
 
 		int size = Math.min(Math.max(200, graph.getNodes() / 10), 2000);
 
+		_buffers = buffers;
+		_initialSize = size;
 		initCollections(size);
 
 		CHGraph chGraph = null;
@@ -78,8 +89,8 @@ public class RPHASTAlgorithm extends AbstractManyToManyRoutingAlgorithm {
 	}
 
 	protected void initCollections(int size) {
-		_prioQueue = new PriorityQueue<MultiTreeSPEntry>(size);
-		_bestWeightMapFrom = new GHIntObjectHashMap<MultiTreeSPEntry>(size);
+		_prioQueue = _buffers.getMinHeap(size);
+		_bestWeightMapFrom = _buffers.getNodeSlotMap(size);
 	}
 
 	@Override
@@ -88,12 +99,15 @@ public class RPHASTAlgorithm extends AbstractManyToManyRoutingAlgorithm {
 		_finishedTo = false;
 		_prioQueue.clear();
 		_bestWeightMapFrom.clear();
+		if (_arena != null)
+			_arena.clear();
 	}
 
 	@Override
 	public void prepare(int[] sources, int[] targets) {
 		PriorityQueue<Integer> prioQueue = new PriorityQueue<>(100);
 		_treeEntrySize = sources.length;
+		_arena = _buffers.getArena(_treeEntrySize, _initialSize);
 
 		// Phase I: build shortest path tree from all target nodes to the
 		// highest node
@@ -119,6 +133,21 @@ public class RPHASTAlgorithm extends AbstractManyToManyRoutingAlgorithm {
 		//	_targetGraph.print();
 	}
 
+	/**
+	 * Prepares the algorithm using a target graph which has already been built by another instance for the same
+	 * set of targets. The sub graph is only read during the downward search and can therefore be shared between
+	 * several instances which process different subsets of the sources.
+	 */
+	public void prepare(int[] sources, SubGraph targetGraph) {
+		_treeEntrySize = sources.length;
+		_arena = _buffers.getArena(_treeEntrySize, _initialSize);
+		_targetGraph = targetGraph;
+	}
+
+	public SubGraph getTargetGraph() {
+		return _targetGraph;
+	}
+
 	private void addNodes(SubGraph graph, PriorityQueue<Integer> prioQueue, int[] nodes) {
 		for (int i = 0; i < nodes.length; i++) {
 			int nodeId = nodes[i];
@@ -152,7 +181,7 @@ public class RPHASTAlgorithm extends AbstractManyToManyRoutingAlgorithm {
 			return false;
 
 		_currFrom = _prioQueue.poll();
-		fillEdgesUpward(_currFrom, _prioQueue, _bestWeightMapFrom, _outEdgeExplorer);
+		fillEdgesUpward(_currFrom, _outEdgeExplorer);
 		_visitedCountFrom++;
 
 		return true;
@@ -163,12 +192,16 @@ public class RPHASTAlgorithm extends AbstractManyToManyRoutingAlgorithm {
 			return false;
 
 		_currTo = _prioQueue.poll();
-		fillEdgesDownward(_currTo, _prioQueue, _bestWeightMapFrom, _outEdgeExplorer);
+		fillEdgesDownward(_currTo, _outEdgeExplorer);
 		_visitedCountTo++;
 
 		return true;
 	}
 
+	private int getSlot(int node) {
+		return _bestWeightMapFrom.getOrDefault(node, MultiTreeSPEntryArena.NO_SLOT);
+	}
+
 	@Override
 	public MultiTreeSPEntry[] calcPaths(int[] from, int[] to) {
 		for (int i = 0; i < from.length; i++) {
@@ -176,16 +209,16 @@ public class RPHASTAlgorithm extends AbstractManyToManyRoutingAlgorithm {
 			  continue;
 
 			//If two queried points are on the same node, this case can occur
-			MultiTreeSPEntry existing = _bestWeightMapFrom.get(from[i]);
-			if (existing != null) {
-				existing.getItem(i).weight = 0.0;
+			int existing = getSlot(from[i]);
+			if (existing != MultiTreeSPEntryArena.NO_SLOT) {
+				_arena.setWeight(existing, i, 0.0);
 				continue;
 			}
 			
-			_currFrom = new MultiTreeSPEntry(from[i], EdgeIterator.NO_EDGE, 0.0, true, null, from.length);
-			_currFrom.getItem(i).weight = 0.0;
-			_currFrom.visited = true;
-				_prioQueue.add(_currFrom);
+			_currFrom = _arena.allocate(from[i], EdgeIterator.NO_EDGE, 0.0, true, MultiTreeSPEntryArena.NO_SLOT);
+			_arena.setWeight(_currFrom, i, 0.0);
+			_arena.setVisited(_currFrom, true);
+			_prioQueue.update(_currFrom, _arena.getTotalWeight(_currFrom));
 
 			if (!_traversalMode.isEdgeBased()) 
 				_bestWeightMapFrom.put(from[i], _currFrom);
@@ -194,71 +227,44 @@ public class RPHASTAlgorithm extends AbstractManyToManyRoutingAlgorithm {
 		}
  
 		_outEdgeExplorer = _graph.createEdgeExplorer();
-	//	StopWatch sw = new StopWatch();
-	//	sw.start();
 
 		runUpwardSearch();
 
-	//	sw.stop();
-		
-	//	if (logger.isInfoEnabled())
-	//	{
-	//		logger.info(Long.toString(sw.getTime()));
-	//		logger.info("HN: " + Integer.toString(_upwardEdgeFilter.getHighestNode()));
-	//	}
-
-
-		_currFrom = _bestWeightMapFrom.get(_upwardEdgeFilter.getHighestNode());
-		_currFrom.visited = true;
-		_currFrom.resetUpdate(true);
+		_currFrom = getSlot(_upwardEdgeFilter.getHighestNode());
+		_arena.setVisited(_currFrom, true);
+		_arena.resetUpdate(_currFrom, true);
 		_prioQueue.clear();
-		_prioQueue.add(_currFrom);
+		_prioQueue.update(_currFrom, _arena.getTotalWeight(_currFrom));
 
 		for (int i = 0; i < from.length; i++) {
 			int sourceNode = from[i];
-			MultiTreeSPEntry mspTree = _bestWeightMapFrom.get(sourceNode);
-			mspTree.getItem(i).update = true;
-			_prioQueue.add(mspTree);
+			int mspTree = getSlot(sourceNode);
+			_arena.setUpdate(mspTree, i, true);
+			_prioQueue.update(mspTree, _arena.getTotalWeight(mspTree));
 		}
 
 		_outEdgeExplorer = _targetGraph.createExplorer();
-	//	sw = new StopWatch();
-	//	sw.start();
+
 		runDownwardSearch();
-	//	sw.stop();
-		
-	//	if (logger.isInfoEnabled())
-	//	{
-	//		logger.info(Long.toString(sw.getTime()));
-			
-	//		logger.info("Iters: " + upwardIters + " " + downwardIters);
-	//		logger.info("Total: " + upwardItersTotal + " " + downwardItersTotal);
-	//		logger.info("Skipped: " + upwardItersSkipped + " " + downwardItersSkipped);
-	//	}
 		
 		MultiTreeSPEntry[] targets = new MultiTreeSPEntry[to.length];
 
-		for (int i = 0; i < to.length; ++i)
-			targets[i] = _bestWeightMapFrom.get(to[i]);
+		for (int i = 0; i < to.length; ++i) {
+			int slot = getSlot(to[i]);
+			targets[i] = slot == MultiTreeSPEntryArena.NO_SLOT ? null : new MultiTreeSPEntry(_arena, slot);
+		}
 
 		return targets;
 	}
 
-/*	private int downwardIters = 0;
-	private int upwardIters = 0;
-	private int downwardItersTotal = 0;
-	private int upwardItersTotal = 0;
-	private int downwardItersSkipped = 0;
-	private int upwardItersSkipped = 0;*/
-
-	private void fillEdgesUpward(MultiTreeSPEntry currEdge, PriorityQueue<MultiTreeSPEntry> prioQueue,
-			IntObjectMap<MultiTreeSPEntry> shortestWeightMap, EdgeExplorer explorer) {
-		EdgeIterator iter = explorer.setBaseNode(currEdge.adjNode);
+	private void fillEdgesUpward(int currEdge, EdgeExplorer explorer) {
+		int baseNode = _arena.getAdjNode(currEdge);
+		EdgeIterator iter = explorer.setBaseNode(baseNode);
 
 		if (iter == null) // we reach one of the target nodes
 			return;
 
-		_upwardEdgeFilter.setBaseNode(currEdge.adjNode);
+		_upwardEdgeFilter.setBaseNode(baseNode);
 
 		while (iter.next()) {
 			if (!_upwardEdgeFilter.accept(iter))
@@ -269,60 +275,44 @@ public class RPHASTAlgorithm extends AbstractManyToManyRoutingAlgorithm {
 			_edgeWeight = _weighting.calcWeight(iter, false, 0);
 
 			if (!Double.isInfinite(_edgeWeight)) {
-				MultiTreeSPEntry ee = shortestWeightMap.get(iter.getAdjNode());
+				int ee = getSlot(iter.getAdjNode());
 
-				if (ee == null) {
-					ee = new MultiTreeSPEntry(iter.getAdjNode(), iter.getEdge(), _edgeWeight, true, currEdge, currEdge.getSize());
+				if (ee == MultiTreeSPEntryArena.NO_SLOT) {
+					ee = _arena.allocate(iter.getAdjNode(), iter.getEdge(), _edgeWeight, true, currEdge);
 
-					shortestWeightMap.put(iter.getAdjNode(), ee);
-					prioQueue.add(ee);
+					_bestWeightMapFrom.put(iter.getAdjNode(), ee);
+					_prioQueue.update(ee, _arena.getTotalWeight(ee));
 				} else {
 					_addToQueue = false;
 					
 					for (int i = 0; i < _treeEntrySize; ++i) {
-						_msptItem = currEdge.getItem(i);
-						_entryWeight = _msptItem.weight;
+						_entryWeight = _arena.getWeight(currEdge, i);
 						
 						if (_entryWeight == Double.POSITIVE_INFINITY)
 							continue;
 
-						if (_msptItem.update == false) {
-							//					upwardItersSkipped++;
+						if (_arena.isUpdate(currEdge, i) == false)
 							continue;
-						}
-						_msptSubItem = ee.getItem(i);
 						
 						_tmpWeight = _edgeWeight + _entryWeight;
 
-						if (_msptSubItem.weight > _tmpWeight) {
-							_msptSubItem.weight = _tmpWeight;
-							_msptSubItem.edge = iter.getEdge();
-							_msptSubItem.parent = currEdge;
-							_msptSubItem.update = true;
-							
+						if (_arena.getWeight(ee, i) > _tmpWeight) {
+							_arena.setItem(ee, i, _tmpWeight, iter.getEdge(), currEdge, true);
 							_addToQueue = true;
-		//					upwardIters++;
-
-						} //else
-		//					upwardItersTotal++;
+						}
 					}
 
-					if (_addToQueue) {
-						ee.updateWeights();
-						prioQueue.remove(ee);
-						prioQueue.add(ee);
-					}
+					if (_addToQueue)
+						_prioQueue.update(ee, _arena.updateWeights(ee));
 				}
 			}
 		}
 		
-		if(!_targetGraph.containsNode(currEdge.adjNode)) currEdge.resetUpdate(false);
+		if(!_targetGraph.containsNode(baseNode)) _arena.resetUpdate(currEdge, false);
 	}
 
-	private void fillEdgesDownward(MultiTreeSPEntry currEdge, PriorityQueue<MultiTreeSPEntry> prioQueue,
-			IntObjectMap<MultiTreeSPEntry> shortestWeightMap, EdgeExplorer explorer) {
-
-		EdgeIterator iter = explorer.setBaseNode(currEdge.adjNode);
+	private void fillEdgesDownward(int currEdge, EdgeExplorer explorer) {
+		EdgeIterator iter = explorer.setBaseNode(_arena.getAdjNode(currEdge));
 
 		if (iter == null)
 			return;
@@ -331,68 +321,44 @@ public class RPHASTAlgorithm extends AbstractManyToManyRoutingAlgorithm {
 			_edgeWeight = _weighting.calcWeight(iter, false, 0);
 
 			if (!Double.isInfinite(_edgeWeight)) {
-				MultiTreeSPEntry ee = shortestWeightMap.get(iter.getAdjNode());
+				int ee = getSlot(iter.getAdjNode());
 
-				if (ee == null) {
-					ee = new MultiTreeSPEntry(iter.getAdjNode(), iter.getEdge(), _edgeWeight, true, currEdge, currEdge.getSize());
-					ee.visited = true;
+				if (ee == MultiTreeSPEntryArena.NO_SLOT) {
+					ee = _arena.allocate(iter.getAdjNode(), iter.getEdge(), _edgeWeight, true, currEdge);
+					_arena.setVisited(ee, true);
 
-					shortestWeightMap.put(iter.getAdjNode(), ee);
-					prioQueue.add(ee);
+					_bestWeightMapFrom.put(iter.getAdjNode(), ee);
+					_prioQueue.update(ee, _arena.getTotalWeight(ee));
 				} else {
 					_addToQueue = false;
 					
 					for (int i = 0; i < _treeEntrySize; ++i) {
-						_msptItem = currEdge.getItem(i);
-						_entryWeight = _msptItem.weight;
+						_entryWeight = _arena.getWeight(currEdge, i);
 						
 						if (_entryWeight == Double.POSITIVE_INFINITY)
 							continue;
 
-//						if (_msptItem.update == false) {
-//		//					downwardItersSkipped++;
-//							continue;
-//						}
-
 						_tmpWeight = _edgeWeight + _entryWeight;
 
-						MultiTreeSPEntryItem eeItem = ee.getItem(i);
-
-						if (eeItem.weight > _tmpWeight) {
-							eeItem.weight = _tmpWeight;
-							eeItem.edge = iter.getEdge();
-							eeItem.parent = currEdge;
-							eeItem.update = true;
-							
+						if (_arena.getWeight(ee, i) > _tmpWeight) {
+							_arena.setItem(ee, i, _tmpWeight, iter.getEdge(), currEdge, true);
 							_addToQueue = true;
-		//					downwardIters++;
-						} //else
-						//	downwardItersTotal++;
+						}
 					}
 					
-					ee.updateWeights();
+					_arena.updateWeights(ee);
 					
-					if (ee.visited == false) {
-						// // This is the case if the node has been assigned a
-						// weight in
-						// // the upwards pass (fillEdges). We need to use it in
-						// the
-						// // downwards pass to access lower level nodes, though
-						// the
-						// weight
-						// // does not have to be reset necessarily //
-						ee.visited = true;
-//						ee.resetUpdate(true);
-						prioQueue.add(ee);
+					if (_arena.isVisited(ee) == false) {
+						// This is the case if the node has been assigned a weight in the upwards pass (fillEdges). 
+						// We need to use it in the downwards pass to access lower level nodes, though the weight 
+						// does not have to be reset necessarily.
+						_arena.setVisited(ee, true);
+						_prioQueue.update(ee, _arena.getTotalWeight(ee));
 					} else if (_addToQueue) {
-						ee.visited = true;
-						prioQueue.remove(ee);
-						prioQueue.add(ee);
+						_prioQueue.update(ee, _arena.getTotalWeight(ee));
 					}
 				}
 			}
 		}
-		
-//		currEdge.resetUpdate(false);
 	}
 }
@@ -0,0 +1,78 @@
+/*  This file is part of Openrouteservice.
+ *
+ *  Openrouteservice is free software; you can redistribute it and/or modify it under the terms of the 
+ *  GNU Lesser General Public License as published by the Free Software Foundation; either version 2.1 
+ *  of the License, or (at your option) any later version.
+
+ *  This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; 
+ *  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. 
+ *  See the GNU Lesser General Public License for more details.
+
+ *  You should have received a copy of the GNU Lesser General Public License along with this library; 
+ *  if not, see <https://www.gnu.org/licenses/>.  
+ */
+package heigit.ors.routing.algorithms;
+
+import java.util.Arrays;
+
+import com.graphhopper.storage.SPTEntry;
+
+/**
+ * A priority queue of {@link SPTEntry} objects ordered by their weight which supports changing the weight of an
+ * entry in O(log n). Entries have to be created through {@link #createEntry(int, int, double)} so that each of them
+ * gets a dense id in the underlying {@link IndexedMinHeap}.
+ */
+public class SPTEntryHeap {
+	public static class Entry extends SPTEntry {
+		private final int id;
+
+		private Entry(int id, int edgeId, int adjNode, double weight) {
+			super(edgeId, adjNode, weight);
+			this.id = id;
+		}
+	}
+
+	private IndexedMinHeap _heap;
+	private Entry[] _entries;
+	private int _size;
+
+	public SPTEntryHeap(int initialCapacity) {
+		_heap = new IndexedMinHeap(initialCapacity);
+		_entries = new Entry[Math.max(16, initialCapacity)];
+	}
+
+	public Entry createEntry(int edgeId, int adjNode, double weight) {
+		if (_size == _entries.length)
+			_entries = Arrays.copyOf(_entries, _size * 2);
+
+		Entry entry = new Entry(_size, edgeId, adjNode, weight);
+		_entries[_size++] = entry;
+
+		return entry;
+	}
+
+	/**
+	 * Inserts the entry or moves it to the position given by its current weight if it is already queued.
+	 */
+	public void update(SPTEntry entry) {
+		_heap.update(((Entry) entry).id, entry.weight);
+	}
+
+	public boolean isEmpty() {
+		return _heap.isEmpty();
+	}
+
+	public int size() {
+		return _heap.size();
+	}
+
+	public SPTEntry poll() {
+		return _entries[_heap.poll()];
+	}
+
+	public void clear() {
+		_heap.clear();
+		Arrays.fill(_entries, 0, _size, null);
+		_size = 0;
+	}
+}
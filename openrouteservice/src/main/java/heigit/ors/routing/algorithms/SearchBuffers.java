@@ -0,0 +1,112 @@
+/*  This file is part of Openrouteservice.
+ *
+ *  Openrouteservice is free software; you can redistribute it and/or modify it under the terms of the 
+ *  GNU Lesser General Public License as published by the Free Software Foundation; either version 2.1 
+ *  of the License, or (at your option) any later version.
+
+ *  This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; 
+ *  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. 
+ *  See the GNU Lesser General Public License for more details.
+
+ *  You should have received a copy of the GNU Lesser General Public License along with this library; 
+ *  if not, see <https://www.gnu.org/licenses/>.  
+ */
+package heigit.ors.routing.algorithms;
+
+import com.carrotsearch.hppc.IntIntHashMap;
+import com.carrotsearch.hppc.IntObjectMap;
+import com.graphhopper.coll.GHIntObjectHashMap;
+import com.graphhopper.storage.SPTEntry;
+
+import heigit.ors.routing.graphhopper.extensions.storages.MultiTreeSPEntryArena;
+
+/**
+ * Holds the heaps, maps and arenas used by the matrix searches, so that they can be reused by subsequent requests
+ * instead of being allocated again. The collections are created lazily on first use. An instance must only be used
+ * by one search at a time; see {@link SearchBuffersPool}.
+ */
+public class SearchBuffers {
+	private IndexedMinHeap _minHeap;
+	private IntIntHashMap _nodeSlotMap;
+	private MultiTreeSPEntryArena _arena;
+	private SPTEntryHeap _sptEntryHeap;
+	private GHIntObjectHashMap<SPTEntry> _sptEntryMap;
+
+	public IndexedMinHeap getMinHeap(int initialCapacity) {
+		if (_minHeap == null)
+			_minHeap = new IndexedMinHeap(initialCapacity);
+		else
+			_minHeap.clear();
+
+		return _minHeap;
+	}
+
+	public IntIntHashMap getNodeSlotMap(int initialCapacity) {
+		if (_nodeSlotMap == null)
+			_nodeSlotMap = new IntIntHashMap(initialCapacity);
+		else
+			_nodeSlotMap.clear();
+
+		return _nodeSlotMap;
+	}
+
+	public MultiTreeSPEntryArena getArena(int numTrees, int initialCapacity) {
+		if (_arena == null)
+			_arena = new MultiTreeSPEntryArena(numTrees, initialCapacity);
+		else
+			_arena.reset(numTrees);
+
+		return _arena;
+	}
+
+	public SPTEntryHeap getSPTEntryHeap(int initialCapacity) {
+		if (_sptEntryHeap == null)
+			_sptEntryHeap = new SPTEntryHeap(initialCapacity);
+		else
+			_sptEntryHeap.clear();
+
+		return _sptEntryHeap;
+	}
+
+	public IntObjectMap<SPTEntry> getSPTEntryMap(int initialCapacity) {
+		if (_sptEntryMap == null)
+			_sptEntryMap = new GHIntObjectHashMap<SPTEntry>(initialCapacity);
+		else
+			_sptEntryMap.clear();
+
+		return _sptEntryMap;
+	}
+
+	/**
+	 * Drops all references to entries of the last search so that they can be garbage collected while the buffers
+	 * are pooled.
+	 */
+	public void clear() {
+		if (_minHeap != null)
+			_minHeap.clear();
+		if (_nodeSlotMap != null)
+			_nodeSlotMap.clear();
+		if (_arena != null)
+			_arena.clear();
+		if (_sptEntryHeap != null)
+			_sptEntryHeap.clear();
+		if (_sptEntryMap != null)
+			_sptEntryMap.clear();
+	}
+
+	/**
+	 * Returns the approximate number of bytes occupied by the largest buffers.
+	 */
+	public long getMemoryUsage() {
+		long res = 0;
+		if (_arena != null)
+			res += _arena.getMemoryUsage();
+		if (_minHeap != null)
+			res += _minHeap.getMemoryUsage();
+		if (_nodeSlotMap != null)
+			res += (long) _nodeSlotMap.keys.length * 8;
+		if (_sptEntryMap != null)
+			res += (long) _sptEntryMap.keys.length * 8;
+		return res;
+	}
+}
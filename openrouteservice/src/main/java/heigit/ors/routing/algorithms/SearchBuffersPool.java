@@ -0,0 +1,49 @@
+/*  This file is part of Openrouteservice.
+ *
+ *  Openrouteservice is free software; you can redistribute it and/or modify it under the terms of the 
+ *  GNU Lesser General Public License as published by the Free Software Foundation; either version 2.1 
+ *  of the License, or (at your option) any later version.
+
+ *  This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; 
+ *  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. 
+ *  See the GNU Lesser General Public License for more details.
+
+ *  You should have received a copy of the GNU Lesser General Public License along with this library; 
+ *  if not, see <https://www.gnu.org/licenses/>.  
+ */
+package heigit.ors.routing.algorithms;
+
+import java.util.concurrent.ArrayBlockingQueue;
+
+/**
+ * A bounded pool of {@link SearchBuffers}. Buffers which have grown beyond the given memory limit (e.g. after a very
+ * large matrix) are not returned to the pool, so that idle buffers do not keep large amounts of memory alive.
+ */
+public class SearchBuffersPool {
+	private final ArrayBlockingQueue<SearchBuffers> _buffers;
+	private final long _maxMemoryUsage;
+
+	public SearchBuffersPool(int capacity, long maxMemoryUsage) {
+		_buffers = new ArrayBlockingQueue<SearchBuffers>(Math.max(1, capacity));
+		_maxMemoryUsage = maxMemoryUsage;
+	}
+
+	public SearchBuffers acquire() {
+		SearchBuffers buffers = _buffers.poll();
+		return buffers == null ? new SearchBuffers() : buffers;
+	}
+
+	public void release(SearchBuffers buffers) {
+		if (buffers == null)
+			return;
+
+		buffers.clear();
+
+		if (buffers.getMemoryUsage() <= _maxMemoryUsage)
+			_buffers.offer(buffers);
+	}
+
+	public int size() {
+		return _buffers.size();
+	}
+}
@@ -28,6 +28,7 @@ public class RouteProfileConfiguration
 	private Boolean _enabled = true;
 	private String _profiles; // comma separated
 	private String _graphPath;
+	private String _graphDataAccess = "RAM_STORE";
 	private Map<String, Map<String, String>> _extStorages;
 	private Map<String, Map<String, String>> _graphBuilders;
 	private Double _maximumDistance = 0.0;
@@ -36,6 +37,11 @@ public class RouteProfileConfiguration
 	private boolean _useTrafficInformation = false;
 	private boolean _instructions = true;
 	private boolean _optimize = false;
+	private int _routeCacheSize = 0;
+	private int _routeCacheTimeToLive = 3600; // in seconds
+	private Map<String, Integer> _concurrencyLimits;
+	private long _maximumQueueWait = 1000; // in milliseconds
+	private int _storageBuilderThreads = 0;
 	
 	private int _encoderFlagsSize = 4;
 	private String _encoderOptions = null;
@@ -54,6 +60,7 @@ public class RouteProfileConfiguration
 	{
 		_extStorages = new HashMap<String, Map<String, String>>();
 		_graphBuilders = new HashMap<String, Map<String, String>>();
+		_concurrencyLimits = new HashMap<String, Integer>();
 	}
 	
 	public Integer[] getProfilesTypes()
@@ -83,6 +90,7 @@ public class RouteProfileConfiguration
 		rpc._enabled = this._enabled;
 		rpc._profiles = this._profiles;
 		rpc._graphPath = this._graphPath;
+		rpc._graphDataAccess = this._graphDataAccess;
 			
 		rpc._maximumDistance = this._maximumDistance;
 		rpc._maximumSegmentDistanceWithDynamicWeights = this._maximumSegmentDistanceWithDynamicWeights;
@@ -90,6 +98,11 @@ public class RouteProfileConfiguration
 		rpc._useTrafficInformation = this._useTrafficInformation;
 		rpc._optimize = this._optimize;
 		rpc._instructions = this._instructions;
+		rpc._routeCacheSize = this._routeCacheSize;
+		rpc._routeCacheTimeToLive = this._routeCacheTimeToLive;
+		rpc._concurrencyLimits = this._concurrencyLimits;
+		rpc._maximumQueueWait = this._maximumQueueWait;
+		rpc._storageBuilderThreads = this._storageBuilderThreads;
 		
 		rpc._encoderFlagsSize = this._encoderFlagsSize;
 		rpc._encoderOptions = this._encoderOptions;
@@ -149,6 +162,16 @@ public class RouteProfileConfiguration
 		return _graphPath;
 	}
 	
+	public void setGraphDataAccess(String value)
+	{
+		_graphDataAccess = value; 
+	}
+	
+	public String getGraphDataAccess()
+	{
+		return _graphDataAccess;
+	}
+	
 	public void setExtStorages(Map<String, Map<String, String>> value)
 	{
 		_extStorages = value; 
@@ -305,6 +328,46 @@ public class RouteProfileConfiguration
 		this._executionOpts = executionOpts;
 	}
 
+	public int getRouteCacheSize() {
+		return _routeCacheSize;
+	}
+
+	public void setRouteCacheSize(int routeCacheSize) {
+		_routeCacheSize = routeCacheSize;
+	}
+
+	public int getRouteCacheTimeToLive() {
+		return _routeCacheTimeToLive;
+	}
+
+	public void setRouteCacheTimeToLive(int routeCacheTimeToLive) {
+		_routeCacheTimeToLive = routeCacheTimeToLive;
+	}
+
+	/**
+	 * Returns the number of requests per service which may be computed on the profile at the same time. Services
+	 * without an entry are not limited.
+	 */
+	public Map<String, Integer> getConcurrencyLimits() {
+		return _concurrencyLimits;
+	}
+
+	public long getMaximumQueueWait() {
+		return _maximumQueueWait;
+	}
+
+	public void setMaximumQueueWait(long maximumQueueWait) {
+		_maximumQueueWait = maximumQueueWait;
+	}
+
+	public int getStorageBuilderThreads() {
+		return _storageBuilderThreads;
+	}
+
+	public void setStorageBuilderThreads(int storageBuilderThreads) {
+		_storageBuilderThreads = storageBuilderThreads;
+	}
+
 	public boolean getOptimize() {
 		return _optimize;
 	}
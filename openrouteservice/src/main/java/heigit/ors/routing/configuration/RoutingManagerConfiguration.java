@@ -98,6 +98,31 @@ public class RoutingManagerConfiguration
 					case "optimize":
 						profile.setOptimize(Boolean.parseBoolean(paramItem.getValue().toString()));
 						break;
+					case "graph_dataaccess":
+						String dataAccess = StringUtility.trimQuotes(paramItem.getValue().toString()).toUpperCase();
+						if (!"RAM_STORE".equals(dataAccess) && !"MMAP".equals(dataAccess) && !"MMAP_RO".equals(dataAccess))
+							throw new Exception("'graph_dataaccess' must be one of RAM_STORE, MMAP or MMAP_RO.");
+						profile.setGraphDataAccess(dataAccess);
+						break;
+					case "route_cache_size":
+						profile.setRouteCacheSize(Integer.parseInt(paramItem.getValue().toString()));
+						break;
+					case "route_cache_ttl":
+						profile.setRouteCacheTimeToLive(Integer.parseInt(paramItem.getValue().toString()));
+						break;
+					case "concurrency_limits":
+						@SuppressWarnings("unchecked")
+						Map<String, Object> limits = (Map<String, Object>)paramItem.getValue();
+
+						for(Map.Entry<String, Object> limit : limits.entrySet())
+							profile.getConcurrencyLimits().put(limit.getKey(), Integer.parseInt(limit.getValue().toString()));
+						break;
+					case "maximum_queue_wait":
+						profile.setMaximumQueueWait(Long.parseLong(paramItem.getValue().toString()));
+						break;
+					case "storage_builder_threads":
+						profile.setStorageBuilderThreads(Integer.parseInt(paramItem.getValue().toString()));
+						break;
 					case "encoder_flags_size":
 						profile.setEncoderFlagsSize(Integer.parseInt(paramItem.getValue().toString()));
 						break;
@@ -13,6 +13,7 @@
  */
 package heigit.ors.routing.graphhopper.extensions;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.logging.Logger;
@@ -30,15 +31,18 @@ import heigit.ors.plugins.PluginManager;
 import heigit.ors.routing.configuration.RouteProfileConfiguration;
 import heigit.ors.routing.graphhopper.extensions.graphbuilders.GraphBuilder;
 import heigit.ors.routing.graphhopper.extensions.storages.builders.GraphStorageBuilder;
+import heigit.ors.routing.graphhopper.extensions.storages.builders.PipelinedGraphStorageBuilder;
 
 public class GraphProcessContext {
 	private static Logger LOGGER = Logger.getLogger(GraphProcessContext.class.getName());
+	private static final int PIPELINE_BATCH_SIZE = 1024;
 
 	private Envelope _bbox;
 	private List<GraphBuilder> _graphBuilders;
 	private GraphBuilder[] _arrGraphBuilders;
 	private List<GraphStorageBuilder> _storageBuilders;
 	private GraphStorageBuilder[] _arrStorageBuilders;
+	private StorageBuilderPipeline _pipeline;
 
 	public GraphProcessContext(RouteProfileConfiguration config) throws Exception
 	{
@@ -51,8 +55,27 @@ public class GraphProcessContext {
 
 			if (_storageBuilders != null && _storageBuilders.size() > 0)
 			{
-				_arrStorageBuilders = new GraphStorageBuilder[_storageBuilders.size()];
-				_arrStorageBuilders = _storageBuilders.toArray(_arrStorageBuilders);
+				List<GraphStorageBuilder> inlineBuilders = new ArrayList<GraphStorageBuilder>(_storageBuilders);
+				List<PipelinedGraphStorageBuilder> pipelinedBuilders = new ArrayList<PipelinedGraphStorageBuilder>();
+
+				// Builders which can analyse ways independently of each other are run on worker threads
+				if (config.getStorageBuilderThreads() > 0)
+				{
+					for (GraphStorageBuilder builder : _storageBuilders)
+					{
+						if (builder instanceof PipelinedGraphStorageBuilder)
+						{
+							pipelinedBuilders.add((PipelinedGraphStorageBuilder)builder);
+							inlineBuilders.remove(builder);
+						}
+					}
+				}
+
+				if (inlineBuilders.size() > 0)
+					_arrStorageBuilders = inlineBuilders.toArray(new GraphStorageBuilder[inlineBuilders.size()]);
+
+				if (pipelinedBuilders.size() > 0)
+					_pipeline = new StorageBuilderPipeline(pipelinedBuilders.toArray(new PipelinedGraphStorageBuilder[pipelinedBuilders.size()]), config.getStorageBuilderThreads(), PIPELINE_BATCH_SIZE);
 			}
 		}
 
@@ -93,6 +116,10 @@ public class GraphProcessContext {
 
 	public void processWay(ReaderWay way) 
 	{
+		// The way is queued first so that the edges created from it are never attributed to the previous way
+		if (_pipeline != null)
+			addPipelineWay(way, null, null);
+
 		try
 		{
 			if (_arrStorageBuilders != null)
@@ -146,6 +173,9 @@ public class GraphProcessContext {
 	 * @param nodeTags  Tags for nodes found on the way
 	 */
 	public void processWay(ReaderWay way, Coordinate[] coords, HashMap<Integer, HashMap<String, String>> nodeTags) {
+		if (_pipeline != null)
+			addPipelineWay(way, coords, nodeTags);
+
 		try
 		{
 			if (_arrStorageBuilders != null)
@@ -167,6 +197,23 @@ public class GraphProcessContext {
 		}
 	}
 
+	/**
+	 * Queues a way in the pipeline. Unlike a failure of a single way in a storage builder, a failure of the pipeline
+	 * means that the results of whole batches are lost, so the import is aborted instead of building an incomplete
+	 * graph.
+	 */
+	private void addPipelineWay(ReaderWay way, Coordinate[] coords, HashMap<Integer, HashMap<String, String>> nodeTags)
+	{
+		try
+		{
+			_pipeline.addWay(way, coords, nodeTags);
+		}
+		catch(Exception ex)
+		{
+			throw new RuntimeException("Unable to analyse the ways for the extended storages.", ex);
+		}
+	}
+
 	public void processEdge(ReaderWay way, EdgeIteratorState edge)
 	{
 		if (_arrStorageBuilders != null)
@@ -205,6 +252,9 @@ public class GraphProcessContext {
 				}
 			}
 		}
+
+		if (_pipeline != null)
+			_pipeline.addEdge(edge.getEdge(), edge.getBaseNode(), edge.getAdjNode(), null);
 	}
 
 	public void processEdge(ReaderWay way, EdgeIteratorState edge, Coordinate[] coords) {
@@ -214,6 +264,9 @@ public class GraphProcessContext {
 				_arrStorageBuilders[i].processEdge(way, edge, coords);
 			}
 		}
+
+		if (_pipeline != null)
+			_pipeline.addEdge(edge.getEdge(), edge.getBaseNode(), edge.getAdjNode(), coords);
 	}
 
 	public boolean createEdges(DataReaderContext readerCntx, ReaderWay way, LongArrayList osmNodeIds, long wayFlags, List<EdgeIteratorState> createdEdges) throws Exception
@@ -262,14 +315,23 @@ public class GraphProcessContext {
 
 	public void finish()
 	{
-		if (_arrStorageBuilders != null)
+		if (_pipeline != null)
 		{
-			int nStorages = _arrStorageBuilders.length;
-			if (nStorages > 0)
+			try
+			{
+				_pipeline.finish();
+			}
+			catch(Exception ex)
 			{
-				for (int i = 0; i < nStorages; ++i)
-					_arrStorageBuilders[i].finish();
+				// the extended storages would be saved and served with the results of the failed batches missing
+				throw new RuntimeException("Unable to analyse the ways for the extended storages.", ex);
 			}
 		}
+
+		if (_storageBuilders != null)
+		{
+			for (GraphStorageBuilder builder : _storageBuilders)
+				builder.finish();
+		}
 	}
 }
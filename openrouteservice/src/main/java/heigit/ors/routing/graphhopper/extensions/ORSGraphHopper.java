@@ -36,6 +36,9 @@ import com.graphhopper.routing.util.FlagEncoder;
 import com.graphhopper.util.CmdArgs;
 import heigit.ors.mapmatching.RouteSegmentInfo;
 import heigit.ors.routing.RoutingProfile;
+import heigit.ors.routing.graphhopper.extensions.reader.SharedOSMInputFile;
+import heigit.ors.routing.graphhopper.extensions.storages.ExtendedStorageRegistry;
+import heigit.ors.routing.graphhopper.extensions.storages.GraphStorageUtils;
 
 import com.graphhopper.GHRequest;
 import com.graphhopper.GHResponse;
@@ -63,6 +66,11 @@ public class ORSGraphHopper extends GraphHopper {
     // A route profile for referencing which is used to extract names of adjacent streets and other objects.
     private RoutingProfile refRouteProfile;
 
+    private SharedOSMInputFile.Participant sharedOSMFile;
+
+    // The ORS storages of the graph, resolved once it has been imported or loaded.
+    private ExtendedStorageRegistry extendedStorages;
+
     public ORSGraphHopper(GraphProcessContext procCntx, boolean useTmc, RoutingProfile refProfile) {
         _procCntx = procCntx;
         this.refRouteProfile = refProfile;
@@ -75,8 +83,17 @@ public class ORSGraphHopper extends GraphHopper {
         _procCntx.init(this);
     }
 
+    /**
+     * Import the OSM file in a single read shared with other profiles.
+     */
+    public void setSharedOSMFile(SharedOSMInputFile.Participant sharedOSMFile) {
+        this.sharedOSMFile = sharedOSMFile;
+    }
+
     protected DataReader createReader(GraphHopperStorage tmpGraph) {
-        return initDataReader(new ORSOSMReader(tmpGraph, _procCntx, tmcEdges, osmId2EdgeIds, refRouteProfile));
+        ORSOSMReader reader = new ORSOSMReader(tmpGraph, _procCntx, tmcEdges, osmId2EdgeIds, refRouteProfile);
+        reader.setSharedOSMFile(sharedOSMFile);
+        return initDataReader(reader);
     }
 
     public boolean load(String graphHopperFolder) {
@@ -135,9 +152,21 @@ public class ORSGraphHopper extends GraphHopper {
             }
         }
 
+        extendedStorages = GraphStorageUtils.createExtendedStorages(getGraphHopperStorage());
+
         return gh;
     }
 
+    /**
+     * @return	The ORS storages of the graph. They are resolved early if a weighting needs them while the graph is
+     * prepared.
+     */
+    public ExtendedStorageRegistry getExtendedStorages() {
+        if (extendedStorages == null)
+            extendedStorages = GraphStorageUtils.createExtendedStorages(getGraphHopperStorage());
+        return extendedStorages;
+    }
+
     public RouteSegmentInfo getRouteSegment(double[] latitudes, double[] longitudes, String vehicle, EdgeFilter edgeFilter) {
         RouteSegmentInfo result = null;
 
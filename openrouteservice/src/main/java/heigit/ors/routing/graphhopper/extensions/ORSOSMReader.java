@@ -16,12 +16,14 @@ package heigit.ors.routing.graphhopper.extensions;
 import com.carrotsearch.hppc.LongArrayList;
 import com.graphhopper.reader.ReaderNode;
 import com.graphhopper.reader.ReaderWay;
+import com.graphhopper.reader.osm.OSMInput;
 import com.graphhopper.reader.osm.OSMReader;
 import com.graphhopper.storage.GraphHopperStorage;
 import com.graphhopper.util.EdgeIteratorState;
 import com.graphhopper.util.Helper;
 import com.vividsolutions.jts.geom.*;
 import heigit.ors.routing.RoutingProfile;
+import heigit.ors.routing.graphhopper.extensions.reader.SharedOSMInputFile;
 import heigit.ors.routing.graphhopper.extensions.reader.osmfeatureprocessors.OSMFeatureFilter;
 import heigit.ors.routing.graphhopper.extensions.reader.osmfeatureprocessors.WheelchairWayFilter;
 import heigit.ors.routing.graphhopper.extensions.storages.builders.BordersGraphStorageBuilder;
@@ -29,6 +31,10 @@ import heigit.ors.routing.graphhopper.extensions.storages.builders.GraphStorageB
 import heigit.ors.routing.graphhopper.extensions.storages.builders.WheelchairGraphStorageBuilder;
 import org.apache.log4j.Logger;
 
+import javax.xml.stream.XMLStreamException;
+
+import java.io.File;
+import java.io.IOException;
 import java.io.InvalidObjectException;
 import java.util.*;
 
@@ -60,6 +66,8 @@ public class ORSOSMReader extends OSMReader {
 
 	private HashSet<String> extraTagKeys;
 
+	private SharedOSMInputFile.Participant sharedOSMFile;
+
 	public ORSOSMReader(GraphHopperStorage storage, GraphProcessContext procCntx, HashMap<Integer, Long> tmcEdges,  HashMap<Long, ArrayList<Integer>> osmId2EdgeIds, RoutingProfile refProfile) {
 		super(storage);
 
@@ -102,6 +110,23 @@ public class ORSOSMReader extends OSMReader {
 		}
 	}
 
+	/**
+	 * Read the OSM data together with the readers of other profiles rather than parsing the file again.
+	 *
+	 * @param sharedOSMFile		The participant in a shared read of the OSM file, null to read it separately
+	 */
+	public void setSharedOSMFile(SharedOSMInputFile.Participant sharedOSMFile) {
+		this.sharedOSMFile = sharedOSMFile;
+	}
+
+	@Override
+	protected OSMInput openOsmInputFile(File osmFile) throws XMLStreamException, IOException {
+		if (sharedOSMFile != null && sharedOSMFile.getFile().getAbsoluteFile().equals(osmFile.getAbsoluteFile()))
+			return sharedOSMFile.open();
+
+		return super.openOsmInputFile(osmFile);
+	}
+
 	@Override
 	protected boolean isInBounds(ReaderNode node) {
 		if (_procCntx != null) {
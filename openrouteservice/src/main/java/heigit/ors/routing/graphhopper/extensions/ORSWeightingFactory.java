@@ -26,6 +26,9 @@ import com.graphhopper.util.Helper;
 import com.graphhopper.util.PMap;
 import heigit.ors.routing.ProfileWeighting;
 import heigit.ors.routing.graphhopper.extensions.flagencoders.deprecated.exghoverwrite.ExGhORSFootFlagEncoder;
+import heigit.ors.routing.graphhopper.extensions.storages.EdgeAttributeReader;
+import heigit.ors.routing.graphhopper.extensions.storages.ExtendedStorageRegistry;
+import heigit.ors.routing.graphhopper.extensions.storages.GraphStorageUtils;
 import heigit.ors.routing.graphhopper.extensions.weighting.*;
 import heigit.ors.routing.traffic.RealTrafficDataProvider;
 
@@ -41,14 +44,37 @@ public class ORSWeightingFactory extends DefaultWeightingFactory {
 
 	private RealTrafficDataProvider m_trafficDataProvider;
 	private Map<Object, TurnCostExtension> m_turnCostExtensions;
+	private ORSGraphHopper m_graphHopper;
 
 	public ORSWeightingFactory(RealTrafficDataProvider trafficProvider)
+	{
+		this(trafficProvider, null);
+	}
+
+	/**
+	 * @param graphHopper	The graph hopper whose searches use this factory, which provides the ORS storages of its graph
+	 */
+	public ORSWeightingFactory(RealTrafficDataProvider trafficProvider, ORSGraphHopper graphHopper)
 	{
 		m_trafficDataProvider = trafficProvider;
 		m_turnCostExtensions = new HashMap<Object, TurnCostExtension>();
+		m_graphHopper = graphHopper;
 	}
 
 	public Weighting createWeighting(HintsMap hintsMap, TraversalMode tMode, FlagEncoder encoder, Graph graph, LocationIndex locationIndex, GraphHopperStorage graphStorage) {
+		ExtendedStorageRegistry storages;
+		if (m_graphHopper != null && m_graphHopper.getGraphHopperStorage() == graphStorage)
+			storages = m_graphHopper.getExtendedStorages();
+		else
+			storages = GraphStorageUtils.createExtendedStorages(graphStorage);
+
+		return createWeighting(hintsMap, tMode, encoder, graph, locationIndex, graphStorage, storages);
+	}
+
+	/**
+	 * @param storages	The ORS storages of <code>graphStorage</code>, which the soft weightings read
+	 */
+	public Weighting createWeighting(HintsMap hintsMap, TraversalMode tMode, FlagEncoder encoder, Graph graph, LocationIndex locationIndex, GraphHopperStorage graphStorage, ExtendedStorageRegistry storages) {
 		String strWeighting = hintsMap.get("weighting_method", "").toLowerCase();
 		if (Helper.isEmpty(strWeighting))
 			strWeighting = hintsMap.getWeighting();
@@ -125,6 +151,8 @@ public class ORSWeightingFactory extends DefaultWeightingFactory {
 			}
 
 			List<Weighting> softWeightings = new ArrayList<Weighting>();
+			// a single reader fetches the attributes of all soft weightings for an edge
+			EdgeAttributeReader attributes = new EdgeAttributeReader(storages, getSoftWeightingAttributes(weightingNames));
 
 			for (int i = 0; i < weightingNames.size(); i++)
 			{
@@ -133,16 +161,16 @@ public class ORSWeightingFactory extends DefaultWeightingFactory {
 				switch(weightingName)
 				{
 				case "steepness_difficulty":
-					softWeightings.add(new SteepnessDifficultyWeighting(encoder, getWeightingProps(weightingName, map), graphStorage));
+					softWeightings.add(new SteepnessDifficultyWeighting(encoder, getWeightingProps(weightingName, map), attributes));
 					break;
 				case "avoid_hills":
-					softWeightings.add(new AvoidHillsWeighting(encoder, getWeightingProps(weightingName, map), graphStorage));
+					softWeightings.add(new AvoidHillsWeighting(encoder, getWeightingProps(weightingName, map), attributes));
 					break;
 				case "green":
-					softWeightings.add(new GreenWeighting(encoder, getWeightingProps(weightingName, map), graphStorage));
+					softWeightings.add(new GreenWeighting(encoder, getWeightingProps(weightingName, map), attributes));
 					break;
 				case "quiet":
-					softWeightings.add(new QuietWeighting(encoder, getWeightingProps(weightingName, map), graphStorage));
+					softWeightings.add(new QuietWeighting(encoder, getWeightingProps(weightingName, map), attributes));
 					break;
 				case "acceleration":
 					softWeightings.add(new AccelerationWeighting(encoder, getWeightingProps(weightingName, map), graphStorage));
@@ -154,13 +182,37 @@ public class ORSWeightingFactory extends DefaultWeightingFactory {
 			{
 				Weighting[] arrWeightings = new Weighting[softWeightings.size()];
 				arrWeightings = softWeightings.toArray(arrWeightings);
-				result = new AdditionWeighting(arrWeightings, result, encoder, hintsMap, graphStorage);
+				result = new AdditionWeighting(arrWeightings, result, encoder, attributes);
 			}
 		}
 
 		return result;
 	}
 
+	private static int getSoftWeightingAttributes(List<String> weightingNames)
+	{
+		int attributes = 0;
+
+		for (String weightingName : weightingNames)
+		{
+			switch(weightingName)
+			{
+			case "steepness_difficulty":
+			case "avoid_hills":
+				attributes |= EdgeAttributeReader.HILL_INDEX;
+				break;
+			case "green":
+				attributes |= EdgeAttributeReader.GREEN_INDEX;
+				break;
+			case "quiet":
+				attributes |= EdgeAttributeReader.NOISE_INDEX;
+				break;
+			}
+		}
+
+		return attributes;
+	}
+
 	private boolean isFootBasedFlagEncoder(FlagEncoder encoder){
 		return encoder instanceof ExGhORSFootFlagEncoder || encoder instanceof FootFlagEncoder;
 	}
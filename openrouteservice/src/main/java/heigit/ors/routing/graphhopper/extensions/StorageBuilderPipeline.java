@@ -0,0 +1,207 @@
+/*  This file is part of Openrouteservice.
+ *
+ *  Openrouteservice is free software; you can redistribute it and/or modify it under the terms of the
+ *  GNU Lesser General Public License as published by the Free Software Foundation; either version 2.1
+ *  of the License, or (at your option) any later version.
+
+ *  This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ *  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *  See the GNU Lesser General Public License for more details.
+
+ *  You should have received a copy of the GNU Lesser General Public License along with this library;
+ *  if not, see <https://www.gnu.org/licenses/>.
+ */
+package heigit.ors.routing.graphhopper.extensions;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.log4j.Logger;
+
+import com.graphhopper.reader.ReaderWay;
+import com.vividsolutions.jts.geom.Coordinate;
+
+import heigit.ors.routing.graphhopper.extensions.storages.builders.PipelinedGraphStorageBuilder;
+
+/**
+ * Runs the way analysis of {@link PipelinedGraphStorageBuilder}s on worker threads while the OSM file is read. Ways
+ * are collected into batches which are analysed in parallel. The edges created for a way are recorded on the reader
+ * thread, which later applies the results batch by batch, so the storages are written in edge order and only ever
+ * from the reader thread.
+ */
+public class StorageBuilderPipeline {
+	private static final Logger LOGGER = Logger.getLogger(StorageBuilderPipeline.class.getName());
+
+	private static final Coordinate[] NO_COORDINATES = new Coordinate[0];
+
+	private final PipelinedGraphStorageBuilder[] _builders;
+	private final int _batchSize;
+	private final int _maximumPendingBatches;
+	private final ExecutorService _executor;
+	private final ArrayDeque<Batch> _pending = new ArrayDeque<Batch>();
+	private Batch _batch;
+	private WayTask _way;
+
+	/**
+	 * @param threads	The number of worker threads
+	 * @param batchSize	The number of ways analysed by one task
+	 */
+	public StorageBuilderPipeline(PipelinedGraphStorageBuilder[] builders, int threads, int batchSize) {
+		_builders = builders;
+		_batchSize = batchSize;
+		// Enough batches are kept in flight to keep all workers busy while the reader applies the oldest one.
+		_maximumPendingBatches = 2 * threads;
+
+		AtomicInteger threadCounter = new AtomicInteger();
+		ThreadFactory threadFactory = runnable -> {
+			Thread thread = new Thread(runnable);
+			thread.setName("ORS-StorageBuilder-" + threadCounter.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		};
+		_executor = Executors.newFixedThreadPool(threads, threadFactory);
+		_batch = new Batch(batchSize);
+	}
+
+	/**
+	 * Queues a way for analysis. The way is copied, as the reader may change it afterwards.
+	 */
+	public void addWay(ReaderWay way, Coordinate[] coords, HashMap<Integer, HashMap<String, String>> nodeTags) throws Exception {
+		_way = new WayTask(copyWay(way), coords == null ? NO_COORDINATES : coords, nodeTags);
+		_batch.ways.add(_way);
+
+		if (_batch.ways.size() >= _batchSize) {
+			submit();
+
+			// The batch just submitted still receives the edges of its last way, so it is never applied here.
+			while (_pending.size() > _maximumPendingBatches)
+				apply(_pending.poll());
+		}
+	}
+
+	/**
+	 * Records an edge created from the way added last.
+	 */
+	public void addEdge(int edgeId, int baseNode, int adjNode, Coordinate[] coords) {
+		if (_way != null)
+			_way.edges.add(new EdgeTask(edgeId, baseNode, adjNode, coords == null ? NO_COORDINATES : coords));
+	}
+
+	/**
+	 * Applies the results of all remaining ways and stops the worker threads.
+	 */
+	public void finish() throws Exception {
+		try {
+			submit();
+			while (!_pending.isEmpty())
+				apply(_pending.poll());
+		} finally {
+			_executor.shutdownNow();
+			_way = null;
+		}
+	}
+
+	private void submit() {
+		if (_batch.ways.isEmpty())
+			return;
+
+		Batch batch = _batch;
+		batch.results = _executor.submit(() -> analyze(batch.ways));
+		_pending.add(batch);
+		_batch = new Batch(_batchSize);
+	}
+
+	private Object[][] analyze(List<WayTask> ways) {
+		Object[][] results = new Object[ways.size()][_builders.length];
+
+		for (int i = 0; i < ways.size(); i++) {
+			WayTask task = ways.get(i);
+			for (int j = 0; j < _builders.length; j++) {
+				try {
+					results[i][j] = _builders[j].analyzeWay(task.way, task.coords, task.nodeTags);
+				} catch (Exception ex) {
+					LOGGER.warn(ex.getMessage() + ". Way id = " + task.way.getId());
+				}
+			}
+		}
+
+		return results;
+	}
+
+	private void apply(Batch batch) throws Exception {
+		Object[][] results;
+		try {
+			results = batch.results.get();
+		} catch (ExecutionException ex) {
+			if (ex.getCause() instanceof Exception)
+				throw (Exception) ex.getCause();
+			throw ex;
+		}
+
+		for (int i = 0; i < batch.ways.size(); i++) {
+			WayTask task = batch.ways.get(i);
+			for (EdgeTask edge : task.edges) {
+				for (int j = 0; j < _builders.length; j++) {
+					try {
+						_builders[j].applyEdge(results[i][j], task.way, edge.edgeId, edge.baseNode, edge.adjNode, edge.coords);
+					} catch (Exception ex) {
+						LOGGER.warn(ex.getMessage() + ". Way id = " + task.way.getId());
+					}
+				}
+			}
+		}
+	}
+
+	private static ReaderWay copyWay(ReaderWay way) {
+		ReaderWay copy = new ReaderWay(way.getId());
+		copy.getNodes().addAll(way.getNodes());
+		for (Map.Entry<String, Object> tag : way.getTags().entrySet())
+			copy.setTag(tag.getKey(), tag.getValue());
+		return copy;
+	}
+
+	private static class Batch {
+		final List<WayTask> ways;
+		Future<Object[][]> results;
+
+		Batch(int size) {
+			ways = new ArrayList<WayTask>(size);
+		}
+	}
+
+	private static class WayTask {
+		final ReaderWay way;
+		final Coordinate[] coords;
+		final HashMap<Integer, HashMap<String, String>> nodeTags;
+		final List<EdgeTask> edges = new ArrayList<EdgeTask>(4);
+
+		WayTask(ReaderWay way, Coordinate[] coords, HashMap<Integer, HashMap<String, String>> nodeTags) {
+			this.way = way;
+			this.coords = coords;
+			this.nodeTags = nodeTags;
+		}
+	}
+
+	private static class EdgeTask {
+		final int edgeId;
+		final int baseNode;
+		final int adjNode;
+		final Coordinate[] coords;
+
+		EdgeTask(int edgeId, int baseNode, int adjNode, Coordinate[] coords) {
+			this.edgeId = edgeId;
+			this.baseNode = baseNode;
+			this.adjNode = adjNode;
+			this.coords = coords;
+		}
+	}
+}
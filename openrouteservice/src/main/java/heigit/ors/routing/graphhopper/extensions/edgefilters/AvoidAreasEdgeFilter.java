@@ -13,89 +13,150 @@
  */
 package heigit.ors.routing.graphhopper.extensions.edgefilters;
 
-import java.io.Serializable;
-
+import com.graphhopper.coll.GHBitSet;
+import com.graphhopper.coll.GHBitSetImpl;
+import com.graphhopper.coll.GHIntArrayList;
+import com.graphhopper.coll.GHTBitSet;
 import com.graphhopper.routing.util.EdgeFilter;
+import com.graphhopper.storage.Graph;
+import com.graphhopper.storage.index.LocationIndex;
+import com.graphhopper.util.EdgeExplorer;
+import com.graphhopper.util.EdgeIterator;
 import com.graphhopper.util.EdgeIteratorState;
 import com.graphhopper.util.PointList;
+import com.graphhopper.util.shapes.BBox;
 
 import com.vividsolutions.jts.geom.Coordinate;
-import com.vividsolutions.jts.geom.CoordinateSequence;
 import com.vividsolutions.jts.geom.Envelope;
 import com.vividsolutions.jts.geom.GeometryFactory;
 import com.vividsolutions.jts.geom.LineString;
 import com.vividsolutions.jts.geom.Polygon;
+import com.vividsolutions.jts.geom.prep.PreparedGeometry;
+import com.vividsolutions.jts.geom.prep.PreparedGeometryFactory;
+import com.vividsolutions.jts.index.ItemVisitor;
+import com.vividsolutions.jts.index.strtree.STRtree;
 
 public class AvoidAreasEdgeFilter implements EdgeFilter {
 
 	private Envelope env; 
-	private Polygon[] polys;
-	private DefaultCoordinateSequence coordSequence;
+	private PreparedGeometry[] preparedPolys;
+	private Envelope[] polyEnvelopes;
+	private STRtree polysIndex;
 	private GeometryFactory geomFactory = new GeometryFactory();
-	
-	private double eMinX = Double.MAX_VALUE;
-	private double eMinY = Double.MAX_VALUE;
-	private double eMaxX = Double.MIN_VALUE;
-	private double eMaxY = Double.MIN_VALUE;
-	
+
+	// Reused for every edge, so that edges far away from the polygons do not allocate any geometry
+	private final Envelope edgeEnvelope = new Envelope();
+	private int[] candidates;
+	private int candidatesCount;
+	private final ItemVisitor candidatesCollector = item -> candidates[candidatesCount++] = (Integer) item;
+
+	// Edges of the base graph which have been tested before the search, edges with higher ids are virtual ones
+	private GHBitSet blockedEdges;
+	private int baseEdgesCount;
+
 	/**
 	 * Creates an edges filter which accepts both direction of the specified vehicle.
 	 */
 	public AvoidAreasEdgeFilter(Polygon[] polys)
 	{
-		this.polys = polys;
-
 		if (polys != null && polys.length > 0)
 		{
-			double minX = Double.MAX_VALUE;
-			double minY = Double.MAX_VALUE;
-			double maxX = Double.MIN_VALUE;
-			double maxY = Double.MIN_VALUE;
+			preparedPolys = new PreparedGeometry[polys.length];
+			polyEnvelopes = new Envelope[polys.length];
+			polysIndex = new STRtree();
+			env = new Envelope();
 
-			for (int i = 0; i< polys.length; i++)
+			for (int i = 0; i < polys.length; i++)
 			{
 				Polygon poly = polys[i];
-				Envelope env = poly.getEnvelopeInternal();
-				if (env.getMinX() < minX)
-					minX = env.getMinX();
-				if (env.getMinY() < minY)
-					minY = env.getMinY();
-				if (env.getMaxX() > maxX)
-					maxX = env.getMaxX();
-				if (env.getMaxY() > maxY)
-					maxY = env.getMaxY();
+				preparedPolys[i] = PreparedGeometryFactory.prepare(poly);
+				polyEnvelopes[i] = poly.getEnvelopeInternal();
+				polysIndex.insert(polyEnvelopes[i], i);
+				env.expandToInclude(polyEnvelopes[i]);
 			}
 
-			env = new Envelope(minX, maxX, minY, maxY);
-
-			coordSequence = new DefaultCoordinateSequence(new Coordinate[1], 1);
+			polysIndex.build();
+			candidates = new int[polys.length];
 		}
 	}
 
+	/**
+	 * Creates an edges filter which tests all edges of the graph close to the polygons once before the search starts,
+	 * so that accepting an edge during the search is a single lookup.
+	 */
+	public AvoidAreasEdgeFilter(Polygon[] polys, Graph graph, LocationIndex locationIndex)
+	{
+		this(polys);
+
+		if (env != null)
+			findBlockedEdges(graph, locationIndex);
+	}
+
+	private void findBlockedEdges(Graph graph, LocationIndex locationIndex)
+	{
+		final GHBitSet testedEdges = new GHTBitSet();
+		final GHIntArrayList blocked = new GHIntArrayList();
+		final EdgeExplorer explorer = graph.createEdgeExplorer();
+
+		locationIndex.query(new BBox(env.getMinX(), env.getMaxX(), env.getMinY(), env.getMaxY()), new LocationIndex.Visitor() {
+			@Override
+			public void onNode(int nodeId) {
+				EdgeIterator iter = explorer.setBaseNode(nodeId);
+				while (iter.next())
+				{
+					int edgeId = iter.getEdge();
+					if (testedEdges.contains(edgeId))
+						continue;
+
+					testedEdges.add(edgeId);
+					if (!acceptGeometry(iter))
+						blocked.add(edgeId);
+				}
+			}
+		});
+
+		// A hash based set is smaller than a bit set as long as only a small part of the graph is blocked
+		int maxBlockedEdge = -1;
+		for (int i = 0; i < blocked.size(); i++)
+			maxBlockedEdge = Math.max(maxBlockedEdge, blocked.get(i));
+
+		GHBitSet edges = blocked.size() * 128L < maxBlockedEdge + 1 ? new GHTBitSet(blocked.size()) : new GHBitSetImpl(maxBlockedEdge + 1);
+		for (int i = 0; i < blocked.size(); i++)
+			edges.add(blocked.get(i));
+
+		baseEdgesCount = graph.getAllEdges().getMaxId();
+		blockedEdges = edges;
+	}
+
 	@Override
 	public final boolean accept(EdgeIteratorState iter ) {
 		if (env == null)
 			return true;
 
-		boolean inEnv = false;
-		//   PointList pl = iter.fetchWayGeometry(2); // does not work
+		if (blockedEdges != null)
+		{
+			int edgeId = iter.getEdge();
+			if (edgeId < baseEdgesCount)
+				return !blockedEdges.contains(edgeId);
+		}
+
+		return acceptGeometry(iter);
+	}
+
+	private boolean acceptGeometry(EdgeIteratorState iter)
+	{
 		PointList pl = iter.fetchWayGeometry(3);
 		int size = pl.getSize();
 
-		eMinX = Double.MAX_VALUE;
-		eMinY = Double.MAX_VALUE;
-		eMaxX = Double.MIN_VALUE;
-		eMaxY = Double.MIN_VALUE;
+		double eMinX = Double.MAX_VALUE;
+		double eMinY = Double.MAX_VALUE;
+		double eMaxX = -Double.MAX_VALUE;
+		double eMaxY = -Double.MAX_VALUE;
 
-		for (int j = 0; j < pl.getSize(); j++)
+		for (int j = 0; j < size; j++)
 		{
 			double x = pl.getLon(j);
 			double y = pl.getLat(j);
-			if (env.contains(x, y))
-			{
-				inEnv = true;
-				break;
-			}
 
 			if (x < eMinX)
 				eMinX = x;
@@ -107,226 +168,88 @@ public class AvoidAreasEdgeFilter implements EdgeFilter {
 				eMaxY = y;
 		}
 
-		if (inEnv || !(eMinX > env.getMaxX() || eMaxX < env.getMinX() || eMinY > env.getMaxY() || eMaxY < env.getMinY()))
+		if (eMinX > env.getMaxX() || eMaxX < env.getMinX() || eMinY > env.getMaxY() || eMaxY < env.getMinY())
+			return true;
+
+		if (size < 2)
+			return false;
+
+		edgeEnvelope.init(eMinX, eMaxX, eMinY, eMaxY);
+		candidatesCount = 0;
+		polysIndex.query(edgeEnvelope, candidatesCollector);
+
+		LineString ls = null;
+
+		for (int i = 0; i < candidatesCount; i++)
 		{
-			// We have to reset the coordinate sequence else for some reason the envelopes for the edge are wrong
-			coordSequence = new DefaultCoordinateSequence(new Coordinate[1], 1);
-			if (size >= 2)
-			{
-				// resize sequence if needed
-				coordSequence.resize(size);
+			int polyIndex = candidates[i];
 
-				for (int j = 0; j < size; j++)
-				{
-					double x = pl.getLon(j);
-					double y = pl.getLat(j);
-					Coordinate c =  coordSequence.getCoordinate(j);
-
-					if (c == null)
-					{
-						c = new Coordinate(x, y);
-						coordSequence.setCoordinate(j, c);
-					}
-					else
-					{
-						c.x = x;
-						c.y = y;
-					}
-				}
+			// An edge none of whose segments reaches the envelope of the polygon can neither cross nor lie within it
+			if (!intersectsEnvelope(pl, polyEnvelopes[polyIndex]))
+				continue;
 
-				LineString ls = geomFactory.createLineString(coordSequence);
+			if (ls == null)
+				ls = createLineString(pl);
 
-				for (int i = 0; i < polys.length; i++)
-				{
-					Polygon poly = polys[i];
-					if (poly.contains(ls) || ls.crosses(poly))
-					{
-						return false;
-					}
-				}
-			}
-			else
-			{
+			PreparedGeometry poly = preparedPolys[polyIndex];
+			if (poly.intersects(ls) && (poly.contains(ls) || poly.crosses(ls)))
 				return false;
-			}
 		}
-			/*else
-			{
-				// Check if edge geomery intersects env.
-				if (!(eMinX > env.getMaxX() || eMaxX < env.getMinX() || eMinY > env.getMaxY() || eMaxY < env.getMinY()))
-				{
-					
-				}
-			}	*/
 
 		return true;
 	}
 
+	private LineString createLineString(PointList pl)
+	{
+		int size = pl.getSize();
+		Coordinate[] coords = new Coordinate[size];
+		for (int j = 0; j < size; j++)
+			coords[j] = new Coordinate(pl.getLon(j), pl.getLat(j));
+
+		return geomFactory.createLineString(coords);
+	}
+
 	/**
-	 * The CoordinateSequence implementation that Geometries use by default. In
-	 * this implementation, Coordinates returned by #toArray and #get are live --
-	 * parties that change them are actually changing the
-	 * DefaultCoordinateSequence's underlying data.
-	 *
-	 * @version 1.7
+	 * Checks whether any segment of the line touches the envelope without creating any objects.
 	 */
-	class DefaultCoordinateSequence implements CoordinateSequence, Serializable
+	static boolean intersectsEnvelope(PointList pl, Envelope env)
 	{
-		//With contributions from Markus Schaber [schabios@logi-track.com] 2004-03-26
-		private static final long serialVersionUID = -915438501601840650L;
-		private Coordinate[] coordinates;
-		private int size;
-		/**
-		 * Constructs a DefaultCoordinateSequence based on the given array (the
-		 * array is not copied).
-		 *
-		 * @param coordinates the coordinate array that will be referenced.
-		 */
-		public DefaultCoordinateSequence(Coordinate[] coordinates, int size) {
-			if (coordinates == null)
-			{
-				throw new IllegalArgumentException("Null coordinate");
-			}
-			this.coordinates = coordinates;
-			this.size = size;
-		}
+		double x1 = pl.getLon(0);
+		double y1 = pl.getLat(0);
 
-		/**
-		 * @see com.vividsolutions.jts.geom.CoordinateSequence#getDimension()
-		 */
-		public int getDimension() { return 3; }
-		/**
-		 * Get the Coordinate with index i.
-		 *
-		 * @param i
-		 * the index of the coordinate
-		 * @return the requested Coordinate instance
-		 */
-		public Coordinate getCoordinate(int i) {
-			return coordinates[i];
-		}
+		for (int j = 1; j < pl.getSize(); j++)
+		{
+			double x2 = pl.getLon(j);
+			double y2 = pl.getLat(j);
 
-		public void setCoordinate(int i, Coordinate c) {
-			coordinates[i] = c;
-		}
+			if (segmentIntersectsEnvelope(x1, y1, x2, y2, env))
+				return true;
 
-		/**
-		 * Get a copy of the Coordinate with index i.
-		 *
-		 * @param i the index of the coordinate
-		 * @return a copy of the requested Coordinate
-		 */
-		public Coordinate getCoordinateCopy(int i) {
-			return new Coordinate(coordinates[i]);
-		}
-		/**
-		 * @see com.vividsolutions.jts.geom.CoordinateSequence#getX(int)
-		 */
-		public void getCoordinate(int index, Coordinate coord) {
-			coord.x = coordinates[index].x;
-			coord.y = coordinates[index].y;
-		}
-		/**
-		 * @see com.vividsolutions.jts.geom.CoordinateSequence#getX(int)
-		 */
-		public double getX(int index) {
-			return coordinates[index].x;
-		}
-		/**
-		 * @see com.vividsolutions.jts.geom.CoordinateSequence#getY(int)
-		 */
-		public double getY(int index) {
-			return coordinates[index].y;
-		}
-		/**
-		 * @see com.vividsolutions.jts.geom.CoordinateSequence#getOrdinate(int, int)
-		 */
-		public double getOrdinate(int index, int ordinateIndex)
-		{
-			switch (ordinateIndex) {
-			case CoordinateSequence.X: return coordinates[index].x;
-			case CoordinateSequence.Y: return coordinates[index].y;
-			case CoordinateSequence.Z: return coordinates[index].z;
-			}
-			return Double.NaN;
-		}
-		/**
-		 * @see com.vividsolutions.jts.geom.CoordinateSequence#setOrdinate(int, int, double)
-		 */
-		public void setOrdinate(int index, int ordinateIndex, double value)
-		{
-			switch (ordinateIndex) {
-			case CoordinateSequence.X: coordinates[index].x = value;
-			case CoordinateSequence.Y: coordinates[index].y = value;
-			case CoordinateSequence.Z: coordinates[index].z = value;
-			}
-		}
-		/**
-		 * Creates a deep copy of the Object
-		 *
-		 * @return The deep copy
-		 */
-		public Object clone() {
-			Coordinate[] cloneCoordinates = new Coordinate[size()];
-			for (int i = 0; i < coordinates.length; i++) {
-				cloneCoordinates[i] = (Coordinate) coordinates[i].clone();
-			}
-			return new DefaultCoordinateSequence(cloneCoordinates, size);
+			x1 = x2;
+			y1 = y2;
 		}
 
-		/**
-		 * Returns the size of the coordinate sequence
-		 *
-		 * @return the number of coordinates
-		 */
-		public int size() {
-			return size;
-		}
+		return false;
+	}
 
-		public void resize(int size)
-		{
-			if (size > this.size)
-			{
-				coordinates = new Coordinate[size];
-			}
+	static boolean segmentIntersectsEnvelope(double x1, double y1, double x2, double y2, Envelope env)
+	{
+		double minX = env.getMinX(), minY = env.getMinY(), maxX = env.getMaxX(), maxY = env.getMaxY();
 
-			this.size = size;
-		}
+		if (Math.max(x1, x2) < minX || Math.min(x1, x2) > maxX || Math.max(y1, y2) < minY || Math.min(y1, y2) > maxY)
+			return false;
 
-		/**
-		 * This method exposes the internal Array of Coordinate Objects
-		 *
-		 * @return the Coordinate[] array.
-		 */
-		public Coordinate[] toCoordinateArray() {
-			return coordinates;
-		}
-		public Envelope expandEnvelope(Envelope env)
-		{
-			for (int i = 0; i < coordinates.length; i++ ) {
-				env.expandToInclude(coordinates[i]);
-			}
-			return env;
-		}
-		/**
-		 * Returns the string Representation of the coordinate array
-		 *
-		 * @return The string
-		 */
-		public String toString() {
-			if (coordinates.length > 0) {
-				StringBuffer strBuf = new StringBuffer(17 * coordinates.length);
-				strBuf.append('(');
-				strBuf.append(coordinates[0]);
-				for (int i = 1; i < coordinates.length; i++) {
-					strBuf.append(", ");
-					strBuf.append(coordinates[i]);
-				}
-				strBuf.append(')');
-				return strBuf.toString();
-			} else {
-				return "()";
-			}
-		}
+		if ((x1 >= minX && x1 <= maxX && y1 >= minY && y1 <= maxY) || (x2 >= minX && x2 <= maxX && y2 >= minY && y2 <= maxY))
+			return true;
+
+		// The bounding boxes overlap, so the segment hits the envelope unless all corners lie on the same side of it
+		double dx = x2 - x1;
+		double dy = y2 - y1;
+		double c1 = dx * (minY - y1) - dy * (minX - x1);
+		double c2 = dx * (minY - y1) - dy * (maxX - x1);
+		double c3 = dx * (maxY - y1) - dy * (minX - x1);
+		double c4 = dx * (maxY - y1) - dy * (maxX - x1);
+
+		return !((c1 > 0 && c2 > 0 && c3 > 0 && c4 > 0) || (c1 < 0 && c2 < 0 && c3 < 0 && c4 < 0));
 	}
 }
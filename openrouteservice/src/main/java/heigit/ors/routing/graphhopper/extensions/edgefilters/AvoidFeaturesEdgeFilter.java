@@ -22,40 +22,40 @@ import heigit.ors.routing.pathprocessors.TollwayExtractor;
 
 import com.graphhopper.routing.util.EdgeFilter;
 import com.graphhopper.routing.util.FlagEncoder;
-import com.graphhopper.storage.GraphStorage;
 import com.graphhopper.util.EdgeIteratorState;
 
 public class AvoidFeaturesEdgeFilter implements EdgeFilter {
-	private byte[] _buffer;
-	private WayCategoryGraphStorage _storage;
+	private EdgeAttributeReader _attributes;
 	private TollwayExtractor _tollwayExtractor;
 	private int _avoidFeatureType;
 	private int _profileCategory;
 
 	private static final int NOT_TOLLWAYS = ~AvoidFeatureFlags.Tollways;
 
-	public AvoidFeaturesEdgeFilter(int profileType, RouteSearchParameters searchParams, GraphStorage graphStorage) throws Exception {
-		this._buffer = new byte[10];
-
+	public AvoidFeaturesEdgeFilter(int profileType, RouteSearchParameters searchParams, ExtendedStorageRegistry storages) throws Exception {
 		_profileCategory = RoutingProfileCategory.getFromRouteProfile(profileType);
 
 		this._avoidFeatureType = searchParams.getAvoidFeatureTypes() & AvoidFeatureFlags.getProfileFlags(_profileCategory);
 
-		_storage = GraphStorageUtils.getGraphExtension(graphStorage, WayCategoryGraphStorage.class);
-		if (_storage == null)
+		// the tollways are only read when they are avoided, as they share their flag with the steps
+		int attributes = EdgeAttributeReader.WAY_CATEGORY;
+		if (_profileCategory == RoutingProfileCategory.DRIVING && (_avoidFeatureType & AvoidFeatureFlags.Tollways) != 0)
+			attributes |= EdgeAttributeReader.TOLLWAYS;
+
+		_attributes = new EdgeAttributeReader(storages, attributes);
+		if (!_attributes.hasAttribute(EdgeAttributeReader.WAY_CATEGORY))
 			throw new Exception("ExtendedGraphStorage for avoid features was not found.");
 
-		TollwaysGraphStorage extTollways = GraphStorageUtils.getGraphExtension(graphStorage, TollwaysGraphStorage.class);
-		if (extTollways != null)
-			_tollwayExtractor = new TollwayExtractor(extTollways, searchParams.getVehicleType(), searchParams.getProfileParameters());
+		if (_attributes.hasAttribute(EdgeAttributeReader.TOLLWAYS))
+			_tollwayExtractor = new TollwayExtractor(storages.get(TollwaysGraphStorage.class), searchParams.getVehicleType(), searchParams.getProfileParameters());
 	}
 
 	@Override
 	public final boolean accept(EdgeIteratorState iter) {
 
 		if (_avoidFeatureType != 0) {
-			int edge = iter.getEdge();
-			int edgeFeatType = _storage.getEdgeValue(edge, _buffer);
+			_attributes.read(iter.getEdge());
+			int edgeFeatType = _attributes.getWayCategory();
 
 			if (edgeFeatType != 0) {
 				int avoidEdgeFeatureType = _avoidFeatureType & edgeFeatType;
@@ -71,7 +71,7 @@ public class AvoidFeaturesEdgeFilter implements EdgeFilter {
 						}
 						else if (_tollwayExtractor != null) {
 							// false when there is a toll for the given profile
-							return _tollwayExtractor.getValue(edge) == 0;
+							return _tollwayExtractor.getValueOfType(_attributes.getTollwayType()) == 0;
 						}
 
 					} else {
@@ -13,31 +13,28 @@
  */
 package heigit.ors.routing.graphhopper.extensions.edgefilters;
 
-import com.graphhopper.routing.EdgeIteratorStateHelper;
 import com.graphhopper.routing.util.EdgeFilter;
-import com.graphhopper.storage.GraphStorage;
 import com.graphhopper.util.EdgeIteratorState;
-import heigit.ors.routing.graphhopper.extensions.storages.GraphStorageUtils;
-import heigit.ors.routing.graphhopper.extensions.storages.HillIndexGraphStorage;
+import heigit.ors.routing.graphhopper.extensions.storages.EdgeAttributeReader;
+import heigit.ors.routing.graphhopper.extensions.storages.ExtendedStorageRegistry;
 
 public class AvoidSteepnessEdgeFilter implements EdgeFilter {
-	private byte[] buffer;
     private double maximumSteepness;
-    private HillIndexGraphStorage gsHillIndex;
+    private EdgeAttributeReader attributes;
     
-	public AvoidSteepnessEdgeFilter(GraphStorage graphStorage, double maxSteepness) {
+	public AvoidSteepnessEdgeFilter(ExtendedStorageRegistry storages, double maxSteepness) {
 		this.maximumSteepness = maxSteepness;
-        this.buffer = new byte[1];
         
-        gsHillIndex = GraphStorageUtils.getGraphExtension(graphStorage, HillIndexGraphStorage.class);
+        attributes = new EdgeAttributeReader(storages, EdgeAttributeReader.HILL_INDEX);
 	}
 
 	@Override
 	public final boolean accept(EdgeIteratorState iter) {
-		if (gsHillIndex != null)
+		if (attributes.hasAttribute(EdgeAttributeReader.HILL_INDEX))
 		{
+			attributes.read(iter);
 			boolean revert = iter.getBaseNode() < iter.getAdjNode();
-			int hillIndex = gsHillIndex.getEdgeValue(EdgeIteratorStateHelper.getOriginalEdge(iter), revert, buffer);
+			int hillIndex = attributes.getHillIndex(revert);
 
 			if (hillIndex > maximumSteepness)
 				return false;
@@ -13,25 +13,20 @@
  */
 package heigit.ors.routing.graphhopper.extensions.edgefilters;
 
-import com.graphhopper.routing.EdgeIteratorStateHelper;
 import com.graphhopper.routing.util.EdgeFilter;
 import com.graphhopper.routing.util.FlagEncoder;
-import com.graphhopper.storage.GraphStorage;
 import com.graphhopper.util.EdgeIteratorState;
 import heigit.ors.routing.RoutingProfileType;
-import heigit.ors.routing.graphhopper.extensions.storages.GraphStorageUtils;
-import heigit.ors.routing.graphhopper.extensions.storages.HillIndexGraphStorage;
-import heigit.ors.routing.graphhopper.extensions.storages.TrailDifficultyScaleGraphStorage;
+import heigit.ors.routing.graphhopper.extensions.storages.EdgeAttributeReader;
+import heigit.ors.routing.graphhopper.extensions.storages.ExtendedStorageRegistry;
 
 public class TrailDifficultyEdgeFilter implements EdgeFilter {
 	private FlagEncoder _encoder;
 	private boolean _isHiking = true;
-	private TrailDifficultyScaleGraphStorage _extTrailDifficulty;
-	private HillIndexGraphStorage _extHillIndex;
-	private byte[] _buffer = new byte[2];
+	private EdgeAttributeReader _attributes;
 	private int _maximumScale = 10;
 
-	public TrailDifficultyEdgeFilter(FlagEncoder encoder, GraphStorage graphStorage, int maximumScale) {
+	public TrailDifficultyEdgeFilter(FlagEncoder encoder, ExtendedStorageRegistry storages, int maximumScale) {
 		this._encoder = encoder;
 
 		_maximumScale = maximumScale;
@@ -39,30 +34,31 @@ public class TrailDifficultyEdgeFilter implements EdgeFilter {
 		int routePref = RoutingProfileType.getFromEncoderName(encoder.toString());
 		_isHiking = RoutingProfileType.isWalking(routePref);
 
-		_extTrailDifficulty = GraphStorageUtils.getGraphExtension(graphStorage, TrailDifficultyScaleGraphStorage.class);
-		_extHillIndex = GraphStorageUtils.getGraphExtension(graphStorage, HillIndexGraphStorage.class);
+		int attributes = _isHiking ? EdgeAttributeReader.TRAIL_DIFFICULTY : EdgeAttributeReader.TRAIL_DIFFICULTY | EdgeAttributeReader.HILL_INDEX;
+		_attributes = new EdgeAttributeReader(storages, attributes);
 	}
 
 	@Override
 	public final boolean accept(EdgeIteratorState iter ) {
+		_attributes.read(iter);
+
 		if (_isHiking)
 		{
-			int value = _extTrailDifficulty.getHikingScale(EdgeIteratorStateHelper.getOriginalEdge(iter), _buffer);
+			int value = _attributes.getHikingScale();
 			if (value > _maximumScale)
 				return false;
 		}
 		else
 		{
 			boolean uphill = false;
-			if (_extHillIndex != null)
+			if (_attributes.hasAttribute(EdgeAttributeReader.HILL_INDEX))
 			{
 				boolean revert = iter.getBaseNode() < iter.getAdjNode();
-				int hillIndex = _extHillIndex.getEdgeValue(EdgeIteratorStateHelper.getOriginalEdge(iter), revert, _buffer);
-				if (hillIndex > 0)
+				if (_attributes.getHillIndex(revert) > 0)
 					uphill = true;
 			}
 
-			int value = _extTrailDifficulty.getMtbScale(EdgeIteratorStateHelper.getOriginalEdge(iter), _buffer, uphill);
+			int value = _attributes.getMtbScale(uphill);
 			if (value > _maximumScale)
 				return false;
 		}
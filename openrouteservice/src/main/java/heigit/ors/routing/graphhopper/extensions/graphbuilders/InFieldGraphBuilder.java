@@ -13,51 +13,55 @@
  */
 package heigit.ors.routing.graphhopper.extensions.graphbuilders;
 
-import com.carrotsearch.hppc.IntIndexedContainer;
+import com.carrotsearch.hppc.IntArrayList;
 import com.carrotsearch.hppc.LongArrayList;
+import com.carrotsearch.hppc.LongHashSet;
 import com.graphhopper.GraphHopper;
 import com.graphhopper.coll.LongIntMap;
 import com.graphhopper.reader.ReaderWay;
-import com.graphhopper.routing.Dijkstra;
-import com.graphhopper.routing.Path;
-import com.graphhopper.routing.util.EncodingManager;
-import com.graphhopper.routing.util.TraversalMode;
-import com.graphhopper.routing.weighting.FastestWeighting;
-import com.graphhopper.routing.weighting.Weighting;
-import com.graphhopper.storage.GraphExtension;
-import com.graphhopper.storage.GraphHopperStorage;
-import com.graphhopper.storage.RAMDirectory;
 import com.graphhopper.util.DistanceCalc;
 import com.graphhopper.util.EdgeIteratorState;
 import com.graphhopper.util.Helper;
 import com.vividsolutions.jts.geom.*;
+import com.vividsolutions.jts.geom.prep.PreparedGeometry;
+import com.vividsolutions.jts.geom.prep.PreparedGeometryFactory;
+import com.vividsolutions.jts.index.ItemVisitor;
+import com.vividsolutions.jts.index.strtree.STRtree;
+import heigit.ors.routing.algorithms.IndexedMinHeap;
 import heigit.ors.routing.graphhopper.extensions.DataReaderContext;
-import heigit.ors.routing.graphhopper.extensions.flagencoders.deprecated.exghoverwrite.ExGhORSFootFlagEncoder;
 
 import java.util.*;
 
+/**
+ * Connects the nodes of open spaces (ways tagged with area=yes, e.g. pedestrian plazas) across the area. A visibility
+ * graph links every pair of nodes of the boundary which can see each other through the area. Shortest paths between
+ * the tower nodes of the area in this graph are added to the graph as edges, together with the boundary itself.
+ */
 public class InFieldGraphBuilder extends AbstractGraphBuilder {
 
 	private GeometryFactory geometryFactory = new GeometryFactory();
-	private Map<Integer, Integer> intId2idx = new HashMap<Integer, Integer>(); 
-	private Map<Integer, Integer> idx2intId =  new HashMap<Integer, Integer>(); 
-	private Map<Integer, Long> intId2osmId = new HashMap<Integer, Long>();
-	private ArrayList<Integer> internalTowerNodeIds = new ArrayList<Integer>(); 
-	private Coordinate[] _coordinates;
-	private Set<ArrayList<Integer>> _edges = new HashSet<ArrayList<Integer>>();
-	private ArrayList<Integer> tmpEdge = new ArrayList<Integer>();   
-	private ExGhORSFootFlagEncoder footEncoder;
-	private List<Weighting> weightings;
-	private EncodingManager encodingManager;
+	private DistanceCalc distCalc = Helper.DIST_EARTH;
+
+	// The local visibility graph over the positions of the nodes in the way, reused for all ways
+	private int _nodesCount;
+	private int[] _internalIds = new int[0];
+	private double[] _lats = new double[0];
+	private double[] _lons = new double[0];
+	private IntArrayList[] _adjNodes = new IntArrayList[0];
+	private double[] _weights = new double[0];
+	private int[] _parents = new int[0];
+	private boolean[] _settled = new boolean[0];
+	private IndexedMinHeap _heap = new IndexedMinHeap(16);
+
+	// Pairs of internal node ids of the edges created for the current way, the smaller id in the upper half
+	private LongHashSet _edges = new LongHashSet();
+
+	private final Envelope _queryEnvelope = new Envelope();
+	private final IntArrayList _crossingCandidates = new IntArrayList();
+	private final ItemVisitor _crossingCandidatesCollector = item -> _crossingCandidates.add((Integer) item);
 
 	@Override
 	public void init(GraphHopper graphhopper) throws Exception {
-		// create local network taken from        
-		// https://github.com/graphhopper/graphhopper/blob/0.5/core/src/test/java/com/graphhopper/GraphHopperTest.java#L746
-		footEncoder = new ExGhORSFootFlagEncoder();
-		encodingManager = new EncodingManager(footEncoder);  
-		weightings = new ArrayList<Weighting>(1);
-		weightings.add(new FastestWeighting(footEncoder));
 	}
 
 	@Override
@@ -67,156 +71,177 @@ public class InFieldGraphBuilder extends AbstractGraphBuilder {
 			return false;
 
 		LongIntMap nodeMap = readerCntx.getNodeMap();
-		Polygon openSpace = osmPolygon2JTS(readerCntx, osmNodeIds);
 
-		internalTowerNodeIds.clear();
-		intId2osmId.clear();
-		idx2intId.clear();
-		intId2idx.clear();
-
-		// fill list with tower nodes        
-		// fill map "internal ID 2 OSM ID"     
-		for (int j = 0; j < osmNodeIds.size() - 1; j++) {       
-			long osmNodeId = osmNodeIds.get(j);           
-			int internalOSMId = nodeMap.get(osmNodeId);   
-			intId2osmId.put(internalOSMId, osmNodeId);          
-			if (internalOSMId < -2) //towernode
-			{        
-				internalTowerNodeIds.add(internalOSMId);    
-			}      
+		// The last node closes the ring and is the same as the first one
+		int n = osmNodeIds.size() - 1;
+		ensureCapacity(n);
+		_nodesCount = n;
+
+		for (int i = 0; i < n; i++) {
+			int internalId = nodeMap.get(osmNodeIds.get(i));
+			_internalIds[i] = internalId;
+			_lats[i] = readerCntx.getNodeLatitude(internalId);
+			_lons[i] = readerCntx.getNodeLongitude(internalId);
+			_adjNodes[i].clear();
 		}
 
-		DistanceCalc distCalc = Helper.DIST_EARTH;
-		@SuppressWarnings("resource")
-		GraphHopperStorage graphStorage = new GraphHopperStorage(weightings,  new RAMDirectory(), encodingManager, false,  new GraphExtension.NoOpExtension()).create(20);
-
-		for (int j = 0; j < osmNodeIds.size() - 1; j++) {                 
-			long mainOsmId = osmNodeIds.get(j);        
-			int internalMainId = nodeMap.get(mainOsmId);       
-			int idxMain = j;         
-			// coordinates of the first nodes     
-			double latMain = readerCntx.getNodeLatitude(internalMainId),      
-					lonMain = readerCntx.getNodeLongitude(internalMainId);     
-			// connect the boundary of the open space        
-			long neighborOsmId = osmNodeIds.get(j + 1);           
-			int internalNeighborId = nodeMap.get(neighborOsmId);   
-			int idxNeighbor = idxMain + 1;                               
-			double latNeighbor = readerCntx.getNodeLatitude(internalNeighborId), lonNeighbor = readerCntx.getNodeLongitude(internalNeighborId);         
-			double distance = distCalc.calcDist(latMain, lonMain, latNeighbor, lonNeighbor);    
-			graphStorage.edge(idxMain, idxNeighbor, distance, true);         
-			// iterate through remaining nodes,        
-			// but not through the direct neighbors 
-			for (int k = j + 2; k < osmNodeIds.size() - 1; k++) {  
-				long partnerOsmId = osmNodeIds.get(k);          
-				int internalPartnerId = nodeMap.get(partnerOsmId);  
-				// coordinates of second nodes            
-				double latPartner = readerCntx.getNodeLatitude(internalPartnerId),
-						lonPartner = readerCntx.getNodeLatitude(internalPartnerId);   
-				// connect nodes            
-				LineString ls = (LineString) geometryFactory.createLineString( new Coordinate[] { new Coordinate(lonMain, latMain), new Coordinate(lonPartner, latPartner) }); 
-				// check if new edge is within open space     
-				if (ls.within(openSpace)) {        
-					// compute distance between nodes        
-					distance = distCalc.calcDist(latMain, lonMain, latPartner, lonPartner);    
-					// the index number of the nodes in the local network                  
-					// necessary, because it does not accept big values              
-					int idxPartner = k;                   
-					// fill             
-					intId2idx.put(internalMainId, idxMain);  
-					intId2idx.put(internalPartnerId, idxPartner);      
-					// fill                   
-					idx2intId.put(idxMain, internalMainId);     
-					idx2intId.put(idxPartner, internalPartnerId);    
-					// add edge to local graph          
-					graphStorage.edge(idxMain, idxPartner, distance, true);                               
-				}         
-			}    
+		Polygon openSpace = osmPolygon2JTS(readerCntx, osmNodeIds);
+		PreparedGeometry preparedOpenSpace = PreparedGeometryFactory.prepare(openSpace);
+		STRtree segments = createSegmentsIndex(n);
+
+		// Connect the boundary of the open space
+		for (int i = 0; i < n; i++)
+			addLocalEdge(i, (i + 1) % n);
+
+		// Connect all nodes which can see each other through the open space, neighbours are connected already
+		for (int i = 0; i < n; i++) {
+			for (int j = i + 2; j < (i == 0 ? n - 1 : n); j++) {
+				if (isVisible(i, j, segments, preparedOpenSpace))
+					addLocalEdge(i, j);
+			}
 		}
 
-		// a set with all created edges.  
-		// the nodes which create the edge are stored in a ArrayList.   
-		// it is important that the first node is smaller than the second node.  
-		// TODO maybe a treeset would make the code more elegant
 		_edges.clear();
 
-		// compute routes between all tower nodes using the local graph    
-		for (int i = 0; i < internalTowerNodeIds.size(); i++) {  
-			int internalIdTowerStart = internalTowerNodeIds.get(i);   
-			// check if tower node is in map         
-			// it can miss if no edge is starting from here    
-			if (false == intId2idx.containsKey(internalIdTowerStart)) {     
-				continue;             }      
-			int idxTowerStart = intId2idx.get(internalIdTowerStart);   
-			for (int j = i + 1; j < internalTowerNodeIds.size(); j++) { 
-				int internalIdTowerDestination = internalTowerNodeIds.get(j);      
-				// check if tower node is in map          
-				// it can miss if no edge is starting from here      
-				if (false == intId2idx.containsKey(internalIdTowerDestination)) {    
-					continue;                 }          
-				int idxTowerDest = intId2idx.get(internalIdTowerDestination);  
-				// compute route between tower nodes          
-				try
-				{
-					Dijkstra dijkstra = new Dijkstra(graphStorage, weightings.get(0), TraversalMode.EDGE_BASED_2DIR);  
-					Path path = dijkstra.calcPath(idxTowerStart, idxTowerDest);            
-					IntIndexedContainer pathNodes = path.calcNodes();           
-					// iterate through nodes of routing result           
-					for (int k = 0; k < pathNodes.size() - 1; k++) {      
-						// local index                 
-						int idxNodeA = pathNodes.get(k);            
-						int idxNodeB = pathNodes.get(k + 1);            
-						// internal Node IDs                
-						int nodeA = idx2intId.get(idxNodeA);     
-						int nodeB = idx2intId.get(idxNodeB);             
-						// add to nodes to array sorted              
-						int minNode = Integer.min(nodeA, nodeB);         
-						int maxNode = Integer.max(nodeA, nodeB);            
-						tmpEdge.clear(); 
-						tmpEdge.add(minNode);          
-						tmpEdge.add(maxNode);           
-						boolean edgeIsNew = _edges.add(tmpEdge);        
-						if (edgeIsNew) {     
-							// it is necessary to get the long node OSM IDs...           
-							long osmNodeA = intId2osmId.get(minNode);         
-							long osmNodeB = intId2osmId.get(maxNode);            
-							addNodePairAsEdgeToGraph(readerCntx, way.getId(), wayFlags, createdEdges, osmNodeA, osmNodeB);           
-						}     
-					}
-				}
-				catch(Exception ex)
-				{
-					
-				}
+		// Compute the routes from every tower node to all tower nodes after it with one search
+		for (int i = 0; i < n; i++) {
+			if (!isTowerNode(i))
+				continue;
+
+			calcShortestPathTree(i);
+
+			for (int j = i + 1; j < n; j++) {
+				if (!isTowerNode(j) || !_settled[j])
+					continue;
+
+				for (int node = j; _parents[node] >= 0; node = _parents[node])
+					addEdge(readerCntx, way.getId(), wayFlags, createdEdges, osmNodeIds, node, _parents[node]);
 			}
 		}
 
-		// TODO this loop can maybe be integrated at the part where the boundary edges are handled alread<       
-		// add boundary of open space
-		for (int i = 0; i < osmNodeIds.size() - 1; i++) {     
-			long osmIdA = osmNodeIds.get(i);        
-			long osmIdB = osmNodeIds.get(i + 1);   
-			int internalIdA = nodeMap.get(osmIdA);     
-			int internalIdB = nodeMap.get(osmIdB);         
-			// add to nodes to array sorted     
-			int minIntId = Integer.min(internalIdA, internalIdB);    
-			int maxIndId = Integer.max(internalIdA, internalIdB);
-			// create a boundary edge     
-			tmpEdge.clear();
-			tmpEdge.add(minIntId);        
-			tmpEdge.add(maxIndId);             
-			// test if already exists       
-			boolean edgeIsNew = _edges.add(tmpEdge);    
-			if (edgeIsNew) {     
-				// edge is added to global GraphHopper graph  
-				addNodePairAsEdgeToGraph(readerCntx, way.getId(), wayFlags, createdEdges, osmIdA, osmIdB);   
-			}     
-		}
+		// Add the boundary of the open space
+		for (int i = 0; i < n; i++)
+			addEdge(readerCntx, way.getId(), wayFlags, createdEdges, osmNodeIds, i, i + 1);
 
-		graphStorage.close();
-		
 		return true;
 	}
 
+	private boolean isTowerNode(int index) {
+		return _internalIds[index] < -2;
+	}
+
+	/**
+	 * Two nodes can see each other if the line between them lies within the open space. Lines which properly cross a
+	 * segment of the boundary are rejected by a look into the segments index without creating any geometry, all other
+	 * ones are tested exactly against the prepared polygon.
+	 */
+	private boolean isVisible(int a, int b, STRtree segments, PreparedGeometry openSpace) {
+		double ax = _lons[a], ay = _lats[a], bx = _lons[b], by = _lats[b];
+
+		_crossingCandidates.clear();
+		_queryEnvelope.init(ax, bx, ay, by);
+		segments.query(_queryEnvelope, _crossingCandidatesCollector);
+
+		for (int k = 0; k < _crossingCandidates.size(); k++) {
+			int s = _crossingCandidates.get(k);
+			int t = (s + 1) % _nodesCount;
+			if (crossesProperly(ax, ay, bx, by, _lons[s], _lats[s], _lons[t], _lats[t]))
+				return false;
+		}
+
+		LineString ls = geometryFactory.createLineString(new Coordinate[] { new Coordinate(ax, ay), new Coordinate(bx, by) });
+		return openSpace.contains(ls);
+	}
+
+	/**
+	 * Checks whether the two segments cross in a single point which lies in the interior of both of them.
+	 */
+	static boolean crossesProperly(double ax, double ay, double bx, double by, double cx, double cy, double dx, double dy) {
+		double d1 = orientation(ax, ay, bx, by, cx, cy);
+		double d2 = orientation(ax, ay, bx, by, dx, dy);
+		double d3 = orientation(cx, cy, dx, dy, ax, ay);
+		double d4 = orientation(cx, cy, dx, dy, bx, by);
+
+		return ((d1 > 0 && d2 < 0) || (d1 < 0 && d2 > 0)) && ((d3 > 0 && d4 < 0) || (d3 < 0 && d4 > 0));
+	}
+
+	private static double orientation(double ax, double ay, double bx, double by, double cx, double cy) {
+		return (bx - ax) * (cy - ay) - (by - ay) * (cx - ax);
+	}
+
+	private STRtree createSegmentsIndex(int n) {
+		STRtree segments = new STRtree();
+		for (int i = 0; i < n; i++) {
+			int j = (i + 1) % n;
+			segments.insert(new Envelope(_lons[i], _lons[j], _lats[i], _lats[j]), i);
+		}
+		segments.build();
+
+		return segments;
+	}
+
+	private void addLocalEdge(int a, int b) {
+		_adjNodes[a].add(b);
+		_adjNodes[b].add(a);
+	}
+
+	private void calcShortestPathTree(int source) {
+		Arrays.fill(_weights, 0, _nodesCount, Double.MAX_VALUE);
+		Arrays.fill(_parents, 0, _nodesCount, -1);
+		Arrays.fill(_settled, 0, _nodesCount, false);
+
+		_heap.clear();
+		_weights[source] = 0;
+		_heap.update(source, 0);
+
+		while (!_heap.isEmpty()) {
+			int node = _heap.poll();
+			_settled[node] = true;
+
+			IntArrayList adjNodes = _adjNodes[node];
+			for (int k = 0; k < adjNodes.size(); k++) {
+				int adjNode = adjNodes.get(k);
+				if (_settled[adjNode])
+					continue;
+
+				double weight = _weights[node] + distCalc.calcDist(_lats[node], _lons[node], _lats[adjNode], _lons[adjNode]);
+				if (weight < _weights[adjNode]) {
+					_weights[adjNode] = weight;
+					_parents[adjNode] = node;
+					_heap.update(adjNode, weight);
+				}
+			}
+		}
+	}
+
+	private void addEdge(DataReaderContext readerCntx, long wayOsmId, long wayFlags, List<EdgeIteratorState> createdEdges, LongArrayList osmNodeIds, int indexA, int indexB) {
+		// The position after the last node is the closing node of the ring
+		int internalIdA = _internalIds[indexA % _nodesCount];
+		int internalIdB = _internalIds[indexB % _nodesCount];
+
+		long key = ((long) Math.min(internalIdA, internalIdB) << 32) | (Math.max(internalIdA, internalIdB) & 0xFFFFFFFFL);
+		if (_edges.add(key))
+			addNodePairAsEdgeToGraph(readerCntx, wayOsmId, wayFlags, createdEdges, osmNodeIds.get(indexA), osmNodeIds.get(indexB));
+	}
+
+	private void ensureCapacity(int n) {
+		if (_internalIds.length >= n)
+			return;
+
+		int capacity = Math.max(n, 2 * _internalIds.length);
+		_internalIds = new int[capacity];
+		_lats = new double[capacity];
+		_lons = new double[capacity];
+		_weights = new double[capacity];
+		_parents = new int[capacity];
+		_settled = new boolean[capacity];
+
+		IntArrayList[] adjNodes = Arrays.copyOf(_adjNodes, capacity);
+		for (int i = _adjNodes.length; i < capacity; i++)
+			adjNodes[i] = new IntArrayList();
+		_adjNodes = adjNodes;
+	}
+
 	private void addNodePairAsEdgeToGraph(DataReaderContext readerCntx, long wayOsmId, long wayFlags,  List<EdgeIteratorState> createdEdges, long Node1, long Node2) {   
 		// list which contains the Nodes of the new Edge     
 		LongArrayList subgraphNodes = new LongArrayList(5);  
@@ -227,17 +252,15 @@ public class InFieldGraphBuilder extends AbstractGraphBuilder {
 
 	private Polygon osmPolygon2JTS(DataReaderContext readerCntx, LongArrayList osmNodeIds) {     
 		// collect all coordinates in ArrayList       
-		if (_coordinates == null || _coordinates.length < osmNodeIds.size())
-			_coordinates = new Coordinate[osmNodeIds.size()];
+		Coordinate[] coords = new Coordinate[osmNodeIds.size()];
 
 		for (int i = 0; i < osmNodeIds.size(); i++) 
 		{      
 			long osmNodeId = osmNodeIds.get(i);       
 			int internalID = readerCntx.getNodeMap().get(osmNodeId);   
-			_coordinates[i] = new Coordinate(readerCntx.getNodeLongitude(internalID),  readerCntx.getNodeLatitude(internalID));
+			coords[i] = new Coordinate(readerCntx.getNodeLongitude(internalID),  readerCntx.getNodeLatitude(internalID));
 		}  
 
-		Coordinate[] coords  = Arrays.copyOf(_coordinates, osmNodeIds.size());
 		LinearRing ring = geometryFactory.createLinearRing(coords);     
 		LinearRing holes[] = null;    
 		// a JTS polygon consists of a ring and holes   
@@ -0,0 +1,287 @@
+/*  This file is part of Openrouteservice.
+ *
+ *  Openrouteservice is free software; you can redistribute it and/or modify it under the terms of the
+ *  GNU Lesser General Public License as published by the Free Software Foundation; either version 2.1
+ *  of the License, or (at your option) any later version.
+
+ *  This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ *  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *  See the GNU Lesser General Public License for more details.
+
+ *  You should have received a copy of the GNU Lesser General Public License along with this library;
+ *  if not, see <https://www.gnu.org/licenses/>.
+ */
+package heigit.ors.routing.graphhopper.extensions.reader;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import javax.xml.stream.XMLStreamException;
+
+import org.apache.log4j.Logger;
+
+import com.graphhopper.reader.ReaderElement;
+import com.graphhopper.reader.ReaderNode;
+import com.graphhopper.reader.ReaderRelation;
+import com.graphhopper.reader.ReaderWay;
+import com.graphhopper.reader.osm.OSMInput;
+import com.graphhopper.reader.osm.OSMInputFile;
+
+import heigit.ors.util.TimeUtility;
+
+/**
+ * Reads an OSM file once for several OSM readers which import it at the same time. Every reader registers as a
+ * participant and opens the file as usual for each of its passes. As soon as all participants have opened a pass, a
+ * single thread decompresses and parses the file and hands the elements to all of them in batches. Each reader works
+ * on its own copy of an element, as the readers change ways while they process them.
+ *
+ * All participants have to run concurrently, and every participant must leave once it does not read any more, e.g.
+ * because its graph was loaded from disk instead of being imported. Otherwise the others wait for it forever.
+ */
+public class SharedOSMInputFile {
+	private static final Logger LOGGER = Logger.getLogger(SharedOSMInputFile.class.getName());
+
+	private static final int BATCH_SIZE = 4096;
+	private static final int QUEUE_CAPACITY = 16;
+	private static final long OFFER_TIMEOUT = 100; // in milliseconds
+	private static final List<ReaderElement> END_OF_FILE = new ArrayList<ReaderElement>(0);
+
+	private final File _file;
+	private final List<Input> _opened = new ArrayList<Input>();
+	private int _activeParticipants;
+	private int _passes;
+
+	public SharedOSMInputFile(String file) {
+		_file = new File(file);
+	}
+
+	/**
+	 * Adds a reader of the file. All participants must be registered before any of them opens the file.
+	 */
+	public synchronized Participant register() {
+		_activeParticipants++;
+		return new Participant();
+	}
+
+	/**
+	 * @return	The number of times the file has been read
+	 */
+	public synchronized int getPassesCount() {
+		return _passes;
+	}
+
+	private synchronized Input open(Participant participant) {
+		if (participant._left)
+			throw new IllegalStateException("The participant has already left the shared OSM file.");
+
+		if (participant._input != null)
+			participant._input.close();
+
+		participant._input = new Input();
+		_opened.add(participant._input);
+		startPassIfReady();
+
+		return participant._input;
+	}
+
+	private synchronized void leave(Participant participant) {
+		if (participant._left)
+			return;
+
+		participant._left = true;
+		_activeParticipants--;
+
+		if (participant._input != null) {
+			_opened.remove(participant._input);
+			participant._input.close();
+			participant._input = null;
+		}
+
+		startPassIfReady();
+	}
+
+	private void startPassIfReady() {
+		if (_opened.isEmpty() || _opened.size() < _activeParticipants)
+			return;
+
+		final List<Input> inputs = new ArrayList<Input>(_opened);
+		_opened.clear();
+		_passes++;
+
+		Thread thread = new Thread(() -> readPass(inputs));
+		thread.setName("ORS-SharedOSMInput-" + _passes);
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	private void readPass(List<Input> inputs) {
+		long startTime = System.currentTimeMillis();
+		long elements = 0;
+		Exception error = null;
+
+		try (OSMInput in = new OSMInputFile(_file).open()) {
+			List<ReaderElement> batch = new ArrayList<ReaderElement>(BATCH_SIZE);
+			ReaderElement element;
+
+			while ((element = in.getNext()) != null) {
+				batch.add(element);
+				if (batch.size() == BATCH_SIZE) {
+					if (!publish(inputs, batch))
+						break;
+					elements += batch.size();
+					batch = new ArrayList<ReaderElement>(BATCH_SIZE);
+				}
+			}
+
+			if (!batch.isEmpty() && publish(inputs, batch))
+				elements += batch.size();
+		} catch (Exception ex) {
+			LOGGER.error(String.format("Failed to read '%s'.", _file), ex);
+			error = ex;
+		}
+
+		for (Input input : inputs) {
+			input._error = error;
+			offer(input, END_OF_FILE);
+		}
+
+		LOGGER.info(String.format("Read %d elements of '%s' for %d readers in %s.", elements, _file, inputs.size(), TimeUtility.getElapsedTime(startTime, true)));
+	}
+
+	/**
+	 * @return <code>false</code> if none of the readers takes elements anymore
+	 */
+	private boolean publish(List<Input> inputs, List<ReaderElement> batch) {
+		boolean delivered = false;
+
+		for (Input input : inputs) {
+			if (offer(input, batch))
+				delivered = true;
+		}
+
+		return delivered;
+	}
+
+	private boolean offer(Input input, List<ReaderElement> batch) {
+		try {
+			// The slowest reader determines the pace, but one which stops reading must not block the others.
+			while (!input._closed) {
+				if (input._queue.offer(batch, OFFER_TIMEOUT, TimeUnit.MILLISECONDS))
+					return true;
+			}
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+		}
+
+		return false;
+	}
+
+	private static ReaderElement copyElement(ReaderElement element) {
+		switch (element.getType()) {
+		case ReaderElement.NODE:
+			ReaderNode node = (ReaderNode) element;
+			return copyTags(node, new ReaderNode(node.getId(), node.getLat(), node.getLon()));
+		case ReaderElement.WAY:
+			ReaderWay way = (ReaderWay) element;
+			ReaderWay wayCopy = new ReaderWay(way.getId());
+			wayCopy.getNodes().addAll(way.getNodes());
+			return copyTags(way, wayCopy);
+		case ReaderElement.RELATION:
+			ReaderRelation relation = (ReaderRelation) element;
+			ReaderRelation relationCopy = new ReaderRelation(relation.getId());
+			for (ReaderRelation.Member member : relation.getMembers())
+				relationCopy.add(new ReaderRelation.Member(member));
+			return copyTags(relation, relationCopy);
+		default:
+			// The file header is only read
+			return element;
+		}
+	}
+
+	private static ReaderElement copyTags(ReaderElement source, ReaderElement target) {
+		for (Map.Entry<String, Object> tag : source.getTags().entrySet())
+			target.setTag(tag.getKey(), tag.getValue());
+		return target;
+	}
+
+	/**
+	 * A reader of the shared file.
+	 */
+	public class Participant {
+		private Input _input;
+		private boolean _left;
+
+		private Participant() {
+		}
+
+		/**
+		 * Opens the next pass over the file. The elements are delivered once all other participants have opened the
+		 * pass as well or left.
+		 */
+		public OSMInput open() {
+			return SharedOSMInputFile.this.open(this);
+		}
+
+		/**
+		 * Stops taking part in further passes. Must be called by every participant, including those which never open
+		 * the file.
+		 */
+		public void leave() {
+			SharedOSMInputFile.this.leave(this);
+		}
+
+		public File getFile() {
+			return _file;
+		}
+	}
+
+	private static class Input implements OSMInput {
+		private final BlockingQueue<List<ReaderElement>> _queue = new ArrayBlockingQueue<List<ReaderElement>>(QUEUE_CAPACITY);
+		private volatile boolean _closed;
+		private volatile Exception _error;
+		private List<ReaderElement> _batch;
+		private int _index;
+		private boolean _finished;
+
+		@Override
+		public ReaderElement getNext() throws XMLStreamException {
+			while (_batch == null || _index == _batch.size()) {
+				if (_finished || _closed)
+					return null;
+
+				try {
+					_batch = _queue.take();
+				} catch (InterruptedException ex) {
+					Thread.currentThread().interrupt();
+					throw new XMLStreamException("Interrupted while waiting for OSM elements.", ex);
+				}
+				_index = 0;
+
+				if (_batch == END_OF_FILE) {
+					_finished = true;
+					if (_error != null)
+						throw new XMLStreamException("Failed to read the shared OSM file.", _error);
+				}
+			}
+
+			// The batches are shared by all readers, so every reader gets its own copy of an element.
+			return copyElement(_batch.get(_index++));
+		}
+
+		@Override
+		public int getUnprocessedElements() {
+			return _queue.size() * BATCH_SIZE;
+		}
+
+		@Override
+		public void close() {
+			_closed = true;
+			_queue.clear();
+		}
+	}
+}
@@ -0,0 +1,206 @@
+/*
+ *  Licensed to GIScience Research Group, Heidelberg University (GIScience)
+ *
+ *   http://www.giscience.uni-hd.de
+ *   http://www.heigit.org
+ *
+ *  under one or more contributor license agreements. See the NOTICE file
+ *  distributed with this work for additional information regarding copyright
+ *  ownership. The GIScience licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except in compliance
+ *  with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package heigit.ors.routing.graphhopper.extensions.reader.borders;
+
+import com.vividsolutions.jts.geom.Coordinate;
+import com.vividsolutions.jts.geom.Envelope;
+import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.geom.GeometryFactory;
+import com.vividsolutions.jts.geom.prep.PreparedGeometry;
+import com.vividsolutions.jts.index.strtree.STRtree;
+import org.apache.log4j.Logger;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Spatial index over the country polygons of all hierarchies. An STR-tree over the polygon envelopes replaces the
+ * scan over all hierarchies and polygons. An optional raster grid records for every cell whether it lies in the
+ * interior of a single country and is not touched by any other polygon. Points in such cells need no exact
+ * point-in-polygon test. Only cells along a boundary fall back to the prepared geometries of the candidates.
+ *
+ * The index is immutable once built and can be queried from several threads. The exact tests use the prepared
+ * geometries which {@link CountryBordersPolygon} keeps per thread, as JTS prepared geometries are not thread-safe.
+ */
+public class CountryBordersIndex {
+    private static final Logger LOGGER = Logger.getLogger(CountryBordersIndex.class);
+
+    private static final int NO_POLYGON = -1;
+    private static final int BOUNDARY = -2;
+    private static final long MAX_GRID_CELLS = 1L << 25;
+
+    private final CountryBordersPolygon[] polygons;
+    private final CountryBordersHierarchy[] polygonHierarchies;
+    private final STRtree tree = new STRtree();
+
+    private double gridMinX, gridMinY, cellSize;
+    private int gridColumns, gridRows;
+    private int[] cells;
+
+    /**
+     * Build the index. Candidates are returned in the order in which the hierarchies and their polygons are given.
+     *
+     * @param hierarchies   The hierarchies holding the country polygons
+     * @param cellSize      The size of a grid cell in degrees, 0 for no grid
+     */
+    public CountryBordersIndex(Collection<CountryBordersHierarchy> hierarchies, double cellSize) {
+        List<CountryBordersPolygon> polygonList = new ArrayList<>();
+        List<CountryBordersHierarchy> hierarchyList = new ArrayList<>();
+
+        for (CountryBordersHierarchy h : hierarchies) {
+            for (CountryBordersPolygon cp : h.getPolygons()) {
+                tree.insert(cp.getBoundary().getEnvelopeInternal(), polygonList.size());
+                polygonList.add(cp);
+                hierarchyList.add(h);
+            }
+        }
+        // Build the tree now, so that concurrent queries only ever read it
+        tree.build();
+
+        polygons = polygonList.toArray(new CountryBordersPolygon[polygonList.size()]);
+        polygonHierarchies = hierarchyList.toArray(new CountryBordersHierarchy[hierarchyList.size()]);
+
+        if (cellSize > 0 && polygons.length > 0)
+            buildGrid(cellSize);
+    }
+
+    /**
+     * Get the polygons whose bounding box (and that of their hierarchy) contains the coordinate.
+     *
+     * @param c     The coordinate to lookup
+     * @return      The candidate polygons in the order of the hierarchies
+     */
+    public CountryBordersPolygon[] getCandidates(Coordinate c) {
+        List<?> items = tree.query(new Envelope(c));
+        if (items.isEmpty())
+            return new CountryBordersPolygon[0];
+
+        int[] matches = new int[items.size()];
+        int count = 0;
+        for (Object item : items) {
+            int i = (Integer) item;
+            if (polygonHierarchies[i].inBbox(c) && polygons[i].inBbox(c))
+                matches[count++] = i;
+        }
+        Arrays.sort(matches, 0, count);
+
+        CountryBordersPolygon[] candidates = new CountryBordersPolygon[count];
+        for (int i = 0; i < count; i++)
+            candidates[i] = polygons[matches[i]];
+        return candidates;
+    }
+
+    /**
+     * Get the polygon the coordinate is located in if the grid shows that it is inside a single country, away from
+     * any boundary.
+     *
+     * @param c     The coordinate to lookup
+     * @return      The polygon containing the coordinate, or null if the coordinate has to be tested exactly
+     */
+    public CountryBordersPolygon getInteriorPolygon(Coordinate c) {
+        if (cells == null || Double.isNaN(c.x) || Double.isNaN(c.y))
+            return null;
+
+        int col = (int) Math.floor((c.x - gridMinX) / cellSize);
+        int row = (int) Math.floor((c.y - gridMinY) / cellSize);
+        if (col < 0 || row < 0 || col >= gridColumns || row >= gridRows)
+            return null;
+
+        int cell = cells[row * gridColumns + col];
+        return cell >= 0 ? polygons[cell] : null;
+    }
+
+    private void buildGrid(double size) {
+        Envelope extent = new Envelope();
+        for (CountryBordersPolygon cp : polygons)
+            extent.expandToInclude(cp.getBoundary().getEnvelopeInternal());
+
+        long columns = Math.max(1, (long) Math.ceil(extent.getWidth() / size));
+        long rows = Math.max(1, (long) Math.ceil(extent.getHeight() / size));
+        if (columns * rows > MAX_GRID_CELLS) {
+            LOGGER.warn("A border grid with a cell size of " + size + " would need " + (columns * rows) + " cells, the grid is not used.");
+            return;
+        }
+
+        long startTime = System.currentTimeMillis();
+
+        gridMinX = extent.getMinX();
+        gridMinY = extent.getMinY();
+        cellSize = size;
+        gridColumns = (int) columns;
+        gridRows = (int) rows;
+
+        int[] grid = new int[gridColumns * gridRows];
+        Arrays.fill(grid, NO_POLYGON);
+
+        GeometryFactory gf = new GeometryFactory();
+        int interiorCells = 0;
+
+        for (int i = 0; i < polygons.length; i++) {
+            PreparedGeometry boundary = polygons[i].getPreparedBoundary();
+            Envelope env = polygons[i].getBoundary().getEnvelopeInternal();
+
+            int col0 = clamp((int) Math.floor((env.getMinX() - gridMinX) / cellSize), gridColumns);
+            int col1 = clamp((int) Math.floor((env.getMaxX() - gridMinX) / cellSize), gridColumns);
+            int row0 = clamp((int) Math.floor((env.getMinY() - gridMinY) / cellSize), gridRows);
+            int row1 = clamp((int) Math.floor((env.getMaxY() - gridMinY) / cellSize), gridRows);
+
+            for (int row = row0; row <= row1; row++) {
+                for (int col = col0; col <= col1; col++) {
+                    int index = row * gridColumns + col;
+                    if (grid[index] == BOUNDARY)
+                        continue;
+
+                    Geometry cell = gf.toGeometry(getCellEnvelope(col, row));
+                    if (!boundary.intersects(cell))
+                        continue;
+
+                    // The whole closed cell has to be in the interior, as points on a boundary are not contained in
+                    // a country. A second polygon touching the cell makes it a boundary cell as well.
+                    if (grid[index] == NO_POLYGON && boundary.containsProperly(cell)) {
+                        grid[index] = i;
+                        interiorCells++;
+                    } else {
+                        if (grid[index] >= 0)
+                            interiorCells--;
+                        grid[index] = BOUNDARY;
+                    }
+                }
+            }
+        }
+
+        cells = grid;
+
+        LOGGER.info(String.format("Border grid of %d x %d cells built in %d ms, %d cells are inside a single country.", gridColumns, gridRows, System.currentTimeMillis() - startTime, interiorCells));
+    }
+
+    private Envelope getCellEnvelope(int col, int row) {
+        double x = gridMinX + col * cellSize;
+        double y = gridMinY + row * cellSize;
+        return new Envelope(x, x + cellSize, y, y + cellSize);
+    }
+
+    private static int clamp(int value, int size) {
+        return Math.max(0, Math.min(size - 1, value));
+    }
+}
@@ -21,15 +21,22 @@
 package heigit.ors.routing.graphhopper.extensions.reader.borders;
 
 import com.vividsolutions.jts.geom.*;
+import com.vividsolutions.jts.geom.prep.PreparedGeometry;
+import com.vividsolutions.jts.geom.prep.PreparedGeometryFactory;
 import org.apache.log4j.Logger;
 
 import java.io.InvalidObjectException;
 
 public class CountryBordersPolygon {
     private static final Logger LOGGER = Logger.getLogger(CountryBordersPolygon.class);
+    private static final GeometryFactory GEOMETRY_FACTORY = new GeometryFactory();
     private String name;
     private MultiPolygon boundary;
     private Geometry boundaryLine;
+    // JTS builds the indexes of a prepared geometry lazily and reuses mutable search structures in every query, so
+    // each thread gets prepared geometries of its own.
+    private final ThreadLocal<PreparedGeometry> preparedBoundary = ThreadLocal.withInitial(() -> PreparedGeometryFactory.prepare(this.boundary));
+    private final ThreadLocal<PreparedGeometry> preparedBoundaryLine = ThreadLocal.withInitial(() -> PreparedGeometryFactory.prepare(this.boundaryLine));
     private double area = 0;
     private long hierarchyId;
     private double minLat = 180f, minLon = 180f, maxLat = -180f, maxLon = -180f;
@@ -78,7 +85,7 @@ public class CountryBordersPolygon {
 
     public boolean crossesBoundary(LineString line) {
         // Check if the given linestring crosses the boundary of this country
-        return this.boundaryLine.intersects(line);
+        return this.preparedBoundaryLine.get().intersects(line);
     }
 
     public String getName() {
@@ -89,6 +96,14 @@ public class CountryBordersPolygon {
         return this.boundary;
     }
 
+    /**
+     * Get the prepared boundary of the calling thread. Prepared geometries index the segments once, so that the many
+     * lookups during the import are fast, but must not be shared between threads.
+     */
+    public PreparedGeometry getPreparedBoundary() {
+        return this.preparedBoundary.get();
+    }
+
     public boolean inBbox(Coordinate c) {
         if(c.x < minLon || c.x > maxLon || c.y < minLat || c.y > maxLat)
             return false;
@@ -98,9 +113,7 @@ public class CountryBordersPolygon {
 
     public boolean inArea(Coordinate c) {
         if(!Double.isNaN(c.x) && !Double.isNaN(c.y) && inBbox(c)) {
-            GeometryFactory gf = new GeometryFactory();
-
-            return boundary.contains(gf.createPoint(c));
+            return preparedBoundary.get().contains(GEOMETRY_FACTORY.createPoint(c));
         }
 
         return false;
@@ -53,6 +53,9 @@ public class CountryBordersReader {
 
     private HashMap<Long, CountryBordersHierarchy> hierarchies = new HashMap<>();
 
+    private double gridCellSize = 0;
+    private volatile CountryBordersIndex index;
+
     /**
      * Empty constructor which does not read any data - the user must explicitly pass information
      */
@@ -100,6 +103,20 @@ public class CountryBordersReader {
     public void addHierarchy(Long id, CountryBordersHierarchy hierarchy) {
         if(!hierarchies.containsKey(id)) {
             hierarchies.put(id, hierarchy);
+            index = null;
+        }
+    }
+
+    /**
+     * Set the size of the grid cells (in degrees) used to skip the exact point in polygon test for points far away
+     * from any border. A size of 0 disables the grid.
+     *
+     * @param cellSize      The size of a grid cell in degrees
+     */
+    public void setGridCellSize(double cellSize) {
+        if(cellSize != gridCellSize) {
+            gridCellSize = cellSize;
+            index = null;
         }
     }
 
@@ -270,25 +287,34 @@ public class CountryBordersReader {
      * @return      An array of CountryBorderPolygons that the point is within the geometry of.
      */
     public CountryBordersPolygon[] getCountry(Coordinate c) {
+        CountryBordersIndex idx = getIndex();
+
+        CountryBordersPolygon interior = idx.getInteriorPolygon(c);
+        if(interior != null)
+            return new CountryBordersPolygon[] {interior};
+
         ArrayList<CountryBordersPolygon> countries = new ArrayList<>();
-        Iterator it = hierarchies.entrySet().iterator();
-        while(it.hasNext()) {
-            Map.Entry<Long, CountryBordersHierarchy> pair = (Map.Entry)it.next();
-            CountryBordersHierarchy h =  pair.getValue();
-            if(h.inBbox(c)) {
-                // Now need to check the countries
-                ArrayList<CountryBordersPolygon> ps = h.getPolygons();
-                for(CountryBordersPolygon cp : ps) {
-                    if(cp.inBbox(c) && cp.inArea(c)) {
-                        countries.add(cp);
-                    }
-                }
+        for(CountryBordersPolygon cp : idx.getCandidates(c)) {
+            if(cp.inArea(c)) {
+                countries.add(cp);
             }
         }
 
         return countries.toArray(new CountryBordersPolygon[countries.size()]);
     }
 
+    /**
+     * Method for getting the country that the given point is located in if the point lies within a single country and
+     * away from its borders. Returns null if the point is close to a border, in overlapping regions or outside of all
+     * countries, in which case the candidate countries need to be tested exactly.
+     *
+     * @param c     The point that you want to know which country is in
+     * @return      The CountryBordersPolygon containing the point, or null if this can not be decided quickly
+     */
+    public CountryBordersPolygon getInteriorCountry(Coordinate c) {
+        return getIndex().getInteriorPolygon(c);
+    }
+
     /**
      * Method for getting a list of country objects that the given point COULD be found within. This could be more than
      * one if the point is found in overlapping regions. This tests against bounding boxes, and so the countries
@@ -299,23 +325,21 @@ public class CountryBordersReader {
      * @return      An array of CountryBorderPolygons that the point is within the geometry of.
      */
     public CountryBordersPolygon[] getCandidateCountry(Coordinate c) {
-        ArrayList<CountryBordersPolygon> countries = new ArrayList<>();
-        Iterator it = hierarchies.entrySet().iterator();
-        while(it.hasNext()) {
-            Map.Entry<Long, CountryBordersHierarchy> pair = (Map.Entry)it.next();
-            CountryBordersHierarchy h =  pair.getValue();
-            if(h.inBbox(c)) {
-                // Now need to check the countries
-                ArrayList<CountryBordersPolygon> ps = h.getPolygons();
-                for(CountryBordersPolygon cp : ps) {
-                    if(cp.inBbox(c)) {
-                        countries.add(cp);
-                    }
+        return getIndex().getCandidates(c);
+    }
+
+    private CountryBordersIndex getIndex() {
+        CountryBordersIndex idx = index;
+        if(idx == null) {
+            synchronized (this) {
+                idx = index;
+                if(idx == null) {
+                    idx = new CountryBordersIndex(hierarchies.values(), gridCellSize);
+                    index = idx;
                 }
             }
         }
-
-        return countries.toArray(new CountryBordersPolygon[countries.size()]);
+        return idx;
     }
 
     /**
@@ -84,19 +84,15 @@ public class BordersGraphStorage implements GraphExtension {
 	 */
 	public short getEdgeValue(int edgeId, Property prop) {
 		long edgePointer = (long) edgeId * edgeEntryBytes;
-		short border = 0, start = 0, end = 0;
-		border = orsEdges.getShort(edgePointer + EF_BORDER);
-		start = orsEdges.getShort(edgePointer + EF_START);
-		end = orsEdges.getShort(edgePointer + EF_END);
 
+		// Only read the requested value, edge filters call this for every edge they see
 		switch (prop) {
 			case TYPE:
-
-				return border;
+				return orsEdges.getShort(edgePointer + EF_BORDER);
 			case START:
-				return start;
+				return orsEdges.getShort(edgePointer + EF_START);
 			case END:
-				return end;
+				return orsEdges.getShort(edgePointer + EF_END);
 			default:
 				return 0;
 		}
@@ -0,0 +1,173 @@
+/*  This file is part of Openrouteservice.
+ *
+ *  Openrouteservice is free software; you can redistribute it and/or modify it under the terms of the 
+ *  GNU Lesser General Public License as published by the Free Software Foundation; either version 2.1 
+ *  of the License, or (at your option) any later version.
+
+ *  This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; 
+ *  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. 
+ *  See the GNU Lesser General Public License for more details.
+
+ *  You should have received a copy of the GNU Lesser General Public License along with this library; 
+ *  if not, see <https://www.gnu.org/licenses/>.  
+ */
+package heigit.ors.routing.graphhopper.extensions.storages;
+
+import com.graphhopper.routing.EdgeIteratorStateHelper;
+import com.graphhopper.routing.util.WaySurfaceDescription;
+import com.graphhopper.storage.GraphExtension;
+import com.graphhopper.util.EdgeIteratorState;
+
+/**
+ * Reads the attributes stored for an edge in the ORS storages. The attributes are requested once when the reader is
+ * created, and {@link #read(EdgeIteratorState)} then fetches all of them for an edge in one pass, so that path
+ * processors, edge filters and weightings which need several attributes neither resolve the storages nor the
+ * original edge more than once. Reading the same edge again does not touch the storages.
+ *
+ * A reader keeps the values of the last edge and must not be shared between threads.
+ */
+public class EdgeAttributeReader {
+	public static final int WAY_SURFACE = 1;
+	public static final int WAY_CATEGORY = 2;
+	public static final int TOLLWAYS = 4;
+	public static final int GREEN_INDEX = 8;
+	public static final int NOISE_INDEX = 16;
+	public static final int OSM_ID = 32;
+	public static final int TRAIL_DIFFICULTY = 64;
+	public static final int HILL_INDEX = 128;
+
+	private static final int NO_EDGE = -1;
+
+	private final WaySurfaceTypeGraphStorage _waySurface;
+	private final WayCategoryGraphStorage _wayCategory;
+	private final TollwaysGraphStorage _tollways;
+	private final GreenIndexGraphStorage _greenIndex;
+	private final NoiseIndexGraphStorage _noiseIndex;
+	private final OsmIdGraphStorage _osmId;
+	private final TrailDifficultyScaleGraphStorage _trailDifficulty;
+	private final HillIndexGraphStorage _hillIndex;
+	private final int _attributes;
+
+	private final byte[] _buffer = new byte[4];
+	private final WaySurfaceDescription _waySurfaceValue = new WaySurfaceDescription();
+	private int _edgeId = NO_EDGE;
+	private int _wayCategoryValue;
+	private int _tollwaysValue;
+	private int _greenIndexValue;
+	private int _noiseIndexValue;
+	private long _osmIdValue;
+	private int _hikingScaleValue;
+	private int _mtbScaleValue;
+	private int _mtbUphillScaleValue;
+	private int _hillIndexValue;
+	private int _reverseHillIndexValue;
+
+	/**
+	 * @param attributes	The attributes to read as a combination of the flags of this class. Attributes whose storage
+	 * the graph does not have are left out, see {@link #hasAttribute(int)}.
+	 */
+	public EdgeAttributeReader(ExtendedStorageRegistry storages, int attributes) {
+		_waySurface = getStorage(storages, attributes, WAY_SURFACE, WaySurfaceTypeGraphStorage.class);
+		_wayCategory = getStorage(storages, attributes, WAY_CATEGORY, WayCategoryGraphStorage.class);
+		_tollways = getStorage(storages, attributes, TOLLWAYS, TollwaysGraphStorage.class);
+		_greenIndex = getStorage(storages, attributes, GREEN_INDEX, GreenIndexGraphStorage.class);
+		_noiseIndex = getStorage(storages, attributes, NOISE_INDEX, NoiseIndexGraphStorage.class);
+		_osmId = getStorage(storages, attributes, OSM_ID, OsmIdGraphStorage.class);
+		_trailDifficulty = getStorage(storages, attributes, TRAIL_DIFFICULTY, TrailDifficultyScaleGraphStorage.class);
+		_hillIndex = getStorage(storages, attributes, HILL_INDEX, HillIndexGraphStorage.class);
+
+		_attributes = (_waySurface != null ? WAY_SURFACE : 0) | (_wayCategory != null ? WAY_CATEGORY : 0) | (_tollways != null ? TOLLWAYS : 0)
+				| (_greenIndex != null ? GREEN_INDEX : 0) | (_noiseIndex != null ? NOISE_INDEX : 0) | (_osmId != null ? OSM_ID : 0)
+				| (_trailDifficulty != null ? TRAIL_DIFFICULTY : 0) | (_hillIndex != null ? HILL_INDEX : 0);
+	}
+
+	private static <T extends GraphExtension> T getStorage(ExtendedStorageRegistry storages, int attributes, int attribute, Class<T> type) {
+		return storages != null && (attributes & attribute) != 0 ? storages.get(type) : null;
+	}
+
+	/**
+	 * @return	<code>true</code> if the attribute has been requested and the graph has a storage for it
+	 */
+	public boolean hasAttribute(int attribute) {
+		return (_attributes & attribute) == attribute;
+	}
+
+	/**
+	 * Reads all requested attributes of the original edge of <code>edge</code>.
+	 */
+	public void read(EdgeIteratorState edge) {
+		read(EdgeIteratorStateHelper.getOriginalEdge(edge));
+	}
+
+	public void read(int edgeId) {
+		if (edgeId == _edgeId)
+			return;
+		_edgeId = edgeId;
+
+		if (_waySurface != null)
+			_waySurface.getEdgeValue(edgeId, _buffer, _waySurfaceValue);
+		if (_wayCategory != null)
+			_wayCategoryValue = _wayCategory.getEdgeValue(edgeId, _buffer);
+		if (_tollways != null)
+			_tollwaysValue = _tollways.getEdgeValue(edgeId, _buffer);
+		if (_greenIndex != null)
+			_greenIndexValue = _greenIndex.getEdgeValue(edgeId, _buffer);
+		if (_noiseIndex != null)
+			_noiseIndexValue = _noiseIndex.getEdgeValue(edgeId, _buffer);
+		if (_osmId != null)
+			_osmIdValue = _osmId.getEdgeValue(edgeId, _buffer);
+		if (_trailDifficulty != null) {
+			_hikingScaleValue = _trailDifficulty.getHikingScale(edgeId, _buffer);
+			_mtbScaleValue = _trailDifficulty.getMtbScale(edgeId, _buffer, false);
+			_mtbUphillScaleValue = _trailDifficulty.getMtbScale(edgeId, _buffer, true);
+		}
+		if (_hillIndex != null) {
+			_hillIndexValue = _hillIndex.getEdgeValue(edgeId, false, _buffer);
+			_reverseHillIndexValue = _hillIndex.getEdgeValue(edgeId, true, _buffer);
+		}
+	}
+
+	public int getWayType() {
+		return _waySurfaceValue.WayType;
+	}
+
+	public int getSurfaceType() {
+		return _waySurfaceValue.SurfaceType;
+	}
+
+	public int getWayCategory() {
+		return _wayCategoryValue;
+	}
+
+	/**
+	 * @return	The tollway type as stored, see {@link heigit.ors.routing.pathprocessors.TollwayExtractor} for whether
+	 * a vehicle has to pay
+	 */
+	public int getTollwayType() {
+		return _tollwaysValue;
+	}
+
+	public int getGreenIndex() {
+		return _greenIndexValue;
+	}
+
+	public int getNoiseIndex() {
+		return _noiseIndexValue;
+	}
+
+	public long getOsmId() {
+		return _osmIdValue;
+	}
+
+	public int getHikingScale() {
+		return _hikingScaleValue;
+	}
+
+	public int getMtbScale(boolean uphill) {
+		return uphill ? _mtbUphillScaleValue : _mtbScaleValue;
+	}
+
+	public int getHillIndex(boolean reverse) {
+		return reverse ? _reverseHillIndexValue : _hillIndexValue;
+	}
+}
@@ -0,0 +1,67 @@
+/*  This file is part of Openrouteservice.
+ *
+ *  Openrouteservice is free software; you can redistribute it and/or modify it under the terms of the 
+ *  GNU Lesser General Public License as published by the Free Software Foundation; either version 2.1 
+ *  of the License, or (at your option) any later version.
+
+ *  This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; 
+ *  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. 
+ *  See the GNU Lesser General Public License for more details.
+
+ *  You should have received a copy of the GNU Lesser General Public License along with this library; 
+ *  if not, see <https://www.gnu.org/licenses/>.  
+ */
+package heigit.ors.routing.graphhopper.extensions.storages;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import com.graphhopper.storage.ExtendedStorageSequence;
+import com.graphhopper.storage.GraphExtension;
+
+/**
+ * The ORS storages of a graph, resolved once when the graph has been loaded. A storage is found by its class or any
+ * of its super classes with a single map lookup, instead of scanning the extensions of the graph each time an edge
+ * filter, weighting or path processor is created for a request.
+ */
+public class ExtendedStorageRegistry {
+	private final GraphExtension[] _extensions;
+	private final Map<Class<?>, GraphExtension> _extensionsByType = new HashMap<Class<?>, GraphExtension>();
+
+	public ExtendedStorageRegistry(GraphExtension extension) {
+		if (extension instanceof ExtendedStorageSequence)
+			_extensions = ((ExtendedStorageSequence) extension).getExtensions();
+		else if (extension == null || extension instanceof GraphExtension.NoOpExtension)
+			_extensions = new GraphExtension[0];
+		else
+			_extensions = new GraphExtension[] { extension };
+
+		for (GraphExtension ext : _extensions) {
+			// the first extension of a type wins, as it did with the linear search
+			for (Class<?> type = ext.getClass(); type != Object.class; type = type.getSuperclass()) {
+				if (!_extensionsByType.containsKey(type))
+					_extensionsByType.put(type, ext);
+			}
+		}
+	}
+
+	/**
+	 * @return	The storage of the given type or <code>null</code> if the graph does not have one
+	 */
+	@SuppressWarnings("unchecked")
+	public <T extends GraphExtension> T get(Class<T> type) {
+		if (type.isInterface()) {
+			for (GraphExtension ext : _extensions) {
+				if (type.isInstance(ext))
+					return (T) ext;
+			}
+			return null;
+		}
+
+		return (T) _extensionsByType.get(type);
+	}
+
+	public GraphExtension[] getExtensions() {
+		return _extensions;
+	}
+}
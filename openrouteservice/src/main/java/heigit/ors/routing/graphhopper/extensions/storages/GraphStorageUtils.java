@@ -50,6 +50,20 @@ public class GraphStorageUtils {
 
 		return null;
 	}
+
+	/**
+	 * Resolves the ORS storages of a graph. The registry is not kept; the graph hopper holds the one of its graph,
+	 * see {@link heigit.ors.routing.graphhopper.extensions.ORSGraphHopper#getExtendedStorages()}.
+	 *
+	 * @return	The storages or <code>null</code> if the graph storage does not support extensions
+	 */
+	public static ExtendedStorageRegistry createExtendedStorages(GraphStorage graphStorage)
+	{
+		if (!(graphStorage instanceof GraphHopperStorage))
+			return null;
+
+		return new ExtendedStorageRegistry(((GraphHopperStorage) graphStorage).getExtension());
+	}
 	
 	public static long getCapacity(GraphExtension ext)
 	{
@@ -14,100 +14,52 @@
 package heigit.ors.routing.graphhopper.extensions.storages;
 
 /**
- * This class is used to create the shortest-path-tree from linked entities.
- * <p>
- *
+ * A read-only view on a node of a many-to-many shortest path tree. The values of the node (weights, edges, parents
+ * and update flags of every tree) are stored in the slot it occupies in a {@link MultiTreeSPEntryArena}.
  */
-public class MultiTreeSPEntry implements Cloneable, Comparable<MultiTreeSPEntry> {
-	public int adjNode;
-	public boolean visited = false;
-	private MultiTreeSPEntryItem[] items;
-	private double totalWeight = 0.0;
-
-	public MultiTreeSPEntry(int adjNode, int edgeId, double edgeWeight, boolean updated, MultiTreeSPEntry parent, int numTrees) {
-		this.adjNode = adjNode;
-		this.items = new MultiTreeSPEntryItem[numTrees];
-		double entryWeight;
-		
-		for (int i = 0; i < numTrees; ++i)
-		{
-			MultiTreeSPEntryItem item = new MultiTreeSPEntryItem();
-			items[i] = item;
-
-			entryWeight = parent == null ? Double.POSITIVE_INFINITY : parent.items[i].weight;
-			if (entryWeight == Double.POSITIVE_INFINITY && parent != null)
-				continue;
+public class MultiTreeSPEntry {
+	public final int adjNode;
+	private final MultiTreeSPEntryArena arena;
+	private final int slot;
 
-			item.weight = edgeWeight + entryWeight;
-			item.parent = parent;
-			item.edge = edgeId;
-			item.update = updated;
-			totalWeight += item.weight;
-		}
-	}
-	
-	private MultiTreeSPEntry(MultiTreeSPEntry entry) {
-		int numTrees = entry.items.length;
-		this.items = new MultiTreeSPEntryItem[numTrees];
-		
-		for (int i = 0; i < numTrees; ++i)
-		{
-			MultiTreeSPEntryItem item = new MultiTreeSPEntryItem();
-			entry.items[i].assignFrom(item);
-			items[i] = item;
-		}
-		
-		totalWeight = entry.totalWeight;
+	public MultiTreeSPEntry(MultiTreeSPEntryArena arena, int slot) {
+		this.arena = arena;
+		this.slot = slot;
+		this.adjNode = arena.getAdjNode(slot);
 	}
 
-	public int getSize()
+	public MultiTreeSPEntryArena getArena()
 	{
-		return items.length;
+		return arena;
 	}
 
-	public MultiTreeSPEntryItem getItem(int index)
+	public int getSlot()
 	{
-		return items[index];
+		return slot;
 	}
 
-	public void resetUpdate(boolean value)
+	public int getSize()
 	{
-		for (int i = 0; i < items.length; i++) {
-			items[i].update = value;
-		}
+		return arena.getNumTrees();
 	}
 
-	@Override
-	public MultiTreeSPEntry clone() {
-		MultiTreeSPEntry res = new MultiTreeSPEntry(this);
-		return res;
+	public double getWeight(int index)
+	{
+		return arena.getWeight(slot, index);
 	}
 
-	public MultiTreeSPEntry cloneFull() {
-		throw new UnsupportedOperationException("cloneFull not supported");
-	}
-	
-	public void updateWeights()
+	public int getEdge(int index)
 	{
-		totalWeight = 0.0;
-		
-		for (int i = 0; i < items.length; i++) {
-			if(items[i].weight == Double.POSITIVE_INFINITY) continue;
-			totalWeight += items[i].weight;
-		}
+		return arena.getEdge(slot, index);
 	}
 
-	@Override
-	public int compareTo(MultiTreeSPEntry o) {
-		if (totalWeight < o.totalWeight)
-			return -1;
-
-		// assumption no NaN and no -0
-		return totalWeight > o.totalWeight ? 1 : 0;
+	public int getParentSlot(int index)
+	{
+		return arena.getParent(slot, index);
 	}
 
 	@Override
 	public String toString() {
-		return adjNode + " (" + 0 + ") weights: " + totalWeight; // TODO
+		return adjNode + " (" + slot + ") weights: " + arena.getTotalWeight(slot);
 	}
 }
@@ -0,0 +1,222 @@
+/*  This file is part of Openrouteservice.
+ *
+ *  Openrouteservice is free software; you can redistribute it and/or modify it under the terms of the 
+ *  GNU Lesser General Public License as published by the Free Software Foundation; either version 2.1 
+ *  of the License, or (at your option) any later version.
+
+ *  This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; 
+ *  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. 
+ *  See the GNU Lesser General Public License for more details.
+
+ *  You should have received a copy of the GNU Lesser General Public License along with this library; 
+ *  if not, see <https://www.gnu.org/licenses/>.  
+ */
+package heigit.ors.routing.graphhopper.extensions.storages;
+
+import java.util.Arrays;
+
+import com.graphhopper.util.EdgeIterator;
+
+/**
+ * Stores the per-tree values of all {@link MultiTreeSPEntry} instances of one many-to-many search in flat primitive
+ * arrays. The values of tree t of the entry in slot s are located at index s * numTrees + t, so that no objects
+ * have to be allocated per tree.
+ */
+public class MultiTreeSPEntryArena {
+	public static final int NO_SLOT = -1;
+
+	private int _numTrees;
+	private int _size;
+	private int[] _adjNodes;
+	private double[] _totalWeights;
+	private boolean[] _visited;
+	private double[] _weights;
+	private int[] _edges;
+	private int[] _parents;
+	private boolean[] _updates;
+
+	public MultiTreeSPEntryArena(int numTrees, int initialCapacity) {
+		_numTrees = numTrees;
+		initialCapacity = Math.max(1, initialCapacity);
+		_adjNodes = new int[initialCapacity];
+		_totalWeights = new double[initialCapacity];
+		_visited = new boolean[initialCapacity];
+		_weights = new double[initialCapacity * numTrees];
+		_edges = new int[initialCapacity * numTrees];
+		_parents = new int[initialCapacity * numTrees];
+		_updates = new boolean[initialCapacity * numTrees];
+	}
+
+	public int getNumTrees() {
+		return _numTrees;
+	}
+
+	public int size() {
+		return _size;
+	}
+
+	public void clear() {
+		_size = 0;
+	}
+
+	/**
+	 * Removes all entries and prepares the arena for a search with the given number of trees. The already allocated
+	 * arrays are kept, so that an arena can be reused by subsequent searches.
+	 */
+	public void reset(int numTrees) {
+		_size = 0;
+
+		if (numTrees != _numTrees) {
+			_numTrees = numTrees;
+
+			int length = _adjNodes.length * numTrees;
+			if (_weights.length < length) {
+				_weights = new double[length];
+				_edges = new int[length];
+				_parents = new int[length];
+				_updates = new boolean[length];
+			}
+		}
+	}
+
+	/**
+	 * Returns the approximate number of bytes occupied by the arrays of this arena.
+	 */
+	public long getMemoryUsage() {
+		return (long) _adjNodes.length * (4 + 8 + 1) + (long) _weights.length * (8 + 4 + 4 + 1);
+	}
+
+	/**
+	 * Reserves a new slot for the given node with all trees set to an infinite weight and returns its index.
+	 */
+	public int allocate(int adjNode) {
+		if (_size == _adjNodes.length)
+			grow();
+
+		int slot = _size++;
+		_adjNodes[slot] = adjNode;
+		_totalWeights[slot] = 0.0;
+		_visited[slot] = false;
+
+		int from = slot * _numTrees;
+		int to = from + _numTrees;
+		Arrays.fill(_weights, from, to, Double.POSITIVE_INFINITY);
+		Arrays.fill(_edges, from, to, EdgeIterator.NO_EDGE);
+		Arrays.fill(_parents, from, to, NO_SLOT);
+		Arrays.fill(_updates, from, to, false);
+
+		return slot;
+	}
+
+	/**
+	 * Reserves a new slot for the given node which is reached via edgeId from the entry in parentSlot. Every tree
+	 * which has already reached the parent gets the parent's weight plus edgeWeight. If there is no parent, all
+	 * trees are initialized with an infinite weight.
+	 */
+	public int allocate(int adjNode, int edgeId, double edgeWeight, boolean updated, int parentSlot) {
+		int slot = allocate(adjNode);
+		double entryWeight;
+		double itemWeight;
+		double totalWeight = 0.0;
+
+		for (int i = 0; i < _numTrees; ++i)
+		{
+			entryWeight = parentSlot == NO_SLOT ? Double.POSITIVE_INFINITY : getWeight(parentSlot, i);
+			if (entryWeight == Double.POSITIVE_INFINITY && parentSlot != NO_SLOT)
+				continue;
+
+			itemWeight = edgeWeight + entryWeight;
+			setItem(slot, i, itemWeight, edgeId, parentSlot, updated);
+			totalWeight += itemWeight;
+		}
+
+		_totalWeights[slot] = totalWeight;
+
+		return slot;
+	}
+
+	private void grow() {
+		int capacity = _adjNodes.length * 2;
+		_adjNodes = Arrays.copyOf(_adjNodes, capacity);
+		_totalWeights = Arrays.copyOf(_totalWeights, capacity);
+		_visited = Arrays.copyOf(_visited, capacity);
+		_weights = Arrays.copyOf(_weights, capacity * _numTrees);
+		_edges = Arrays.copyOf(_edges, capacity * _numTrees);
+		_parents = Arrays.copyOf(_parents, capacity * _numTrees);
+		_updates = Arrays.copyOf(_updates, capacity * _numTrees);
+	}
+
+	public int getAdjNode(int slot) {
+		return _adjNodes[slot];
+	}
+
+	public boolean isVisited(int slot) {
+		return _visited[slot];
+	}
+
+	public void setVisited(int slot, boolean value) {
+		_visited[slot] = value;
+	}
+
+	/**
+	 * Returns the total weight of the slot as it was computed by the last call to {@link #updateWeights(int)}.
+	 */
+	public double getTotalWeight(int slot) {
+		return _totalWeights[slot];
+	}
+
+	public double getWeight(int slot, int tree) {
+		return _weights[slot * _numTrees + tree];
+	}
+
+	public void setWeight(int slot, int tree, double weight) {
+		_weights[slot * _numTrees + tree] = weight;
+	}
+
+	public int getEdge(int slot, int tree) {
+		return _edges[slot * _numTrees + tree];
+	}
+
+	public int getParent(int slot, int tree) {
+		return _parents[slot * _numTrees + tree];
+	}
+
+	public boolean isUpdate(int slot, int tree) {
+		return _updates[slot * _numTrees + tree];
+	}
+
+	public void setUpdate(int slot, int tree, boolean value) {
+		_updates[slot * _numTrees + tree] = value;
+	}
+
+	public void setItem(int slot, int tree, double weight, int edge, int parent, boolean update) {
+		int index = slot * _numTrees + tree;
+		_weights[index] = weight;
+		_edges[index] = edge;
+		_parents[index] = parent;
+		_updates[index] = update;
+	}
+
+	public void resetUpdate(int slot, boolean value) {
+		int from = slot * _numTrees;
+		Arrays.fill(_updates, from, from + _numTrees, value);
+	}
+
+	/**
+	 * Sets the total weight of the slot to the sum of all its finite tree weights and returns it.
+	 */
+	public double updateWeights(int slot) {
+		double totalWeight = 0.0;
+		int from = slot * _numTrees;
+		int to = from + _numTrees;
+
+		for (int i = from; i < to; i++) {
+			if (_weights[i] != Double.POSITIVE_INFINITY)
+				totalWeight += _weights[i];
+		}
+
+		_totalWeights[slot] = totalWeight;
+
+		return totalWeight;
+	}
+}
@@ -105,11 +105,21 @@ public class OsmIdGraphStorage implements GraphExtension {
      * @return          The OSM ID that was stored for the edge (normally the OSM ID of the way the edge was created from)
      */
     public long getEdgeValue(int edgeId) {
-        byte[] buffer = new byte[4];
+        return getEdgeValue(edgeId, new byte[4]);
+    }
+
+    /**
+     * Get the OSM id of the edge specified without allocating a buffer
+     * @param edgeId    The internal graph id of the edge that the OSM way ID is required for
+     * @param buffer    A buffer of at least four bytes
+     * @return          The OSM ID that was stored for the edge
+     */
+    public long getEdgeValue(int edgeId, byte[] buffer) {
         long edgePointer = (long) edgeId * edgeEntryBytes;
         orsEdges.getBytes(edgePointer + EF_OSMID, buffer, 4);
 
-        return EncodeUtils.byteArrayToLong(buffer);
+        // the same as EncodeUtils.byteArrayToLong for four bytes, but independent of the length of the buffer
+        return (buffer[0] & 0xFFL) << 24 | (buffer[1] & 0xFFL) << 16 | (buffer[2] & 0xFFL) << 8 | (buffer[3] & 0xFFL);
     }
 
     public boolean isRequireNodeField() {
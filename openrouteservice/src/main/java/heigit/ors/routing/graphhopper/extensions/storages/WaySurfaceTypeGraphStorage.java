@@ -103,12 +103,19 @@ public class WaySurfaceTypeGraphStorage implements GraphExtension {
 
 	
 	public WaySurfaceDescription getEdgeValue(int edgeId, byte[] buffer)
+	{
+		return getEdgeValue(edgeId, buffer, new WaySurfaceDescription());
+	}
+
+	/**
+	 * Reads the way and surface type of an edge into the given description, so that it can be reused for all edges.
+	 */
+	public WaySurfaceDescription getEdgeValue(int edgeId, byte[] buffer, WaySurfaceDescription res)
 	{
 		long edgePointer = (long) edgeId * edgeEntryBytes;
 		orsEdges.getBytes(edgePointer + EF_WAYTYPE, buffer, 1);
 		
 		byte compValue = buffer[0];
-		WaySurfaceDescription res = new WaySurfaceDescription();
 		res.WayType = (byte)((compValue & 0b11110000) >> 4);
 	    res.SurfaceType = (byte)(compValue & 0b00001111);
 	    
@@ -36,9 +36,11 @@ import java.util.MissingResourceException;
  *
  * @author Adam Rousell
  */
-public class BordersGraphStorageBuilder extends AbstractGraphStorageBuilder {
+public class BordersGraphStorageBuilder extends AbstractGraphStorageBuilder implements PipelinedGraphStorageBuilder {
     final static Logger LOGGER = Logger.getLogger(BordersGraphStorageBuilder.class.getName());
 
+    private static final short[] NO_CROSSING = new short[] { 0, 0, 0 };
+
     private BordersGraphStorage _storage;
     private CountryBordersReader cbReader;
 
@@ -89,6 +91,10 @@ public class BordersGraphStorageBuilder extends AbstractGraphStorageBuilder {
             this.cbReader = new CountryBordersReader(bordersFile, countryIdsFile, openBordersFile);
         }
 
+        // Points in grid cells that lie within a single country do not need the exact point in polygon test
+        if(_parameters.containsKey("grid_cell_size"))
+            this.cbReader.setGridCellSize(Double.parseDouble(_parameters.get("grid_cell_size")));
+
         _storage = new BordersGraphStorage();
         return _storage;
 
@@ -147,28 +153,64 @@ public class BordersGraphStorageBuilder extends AbstractGraphStorageBuilder {
 
             // First get the start and end countries - if either of these is empty, then there is no crossing
             if (way.hasTag("country1") && way.hasTag("country2")) {
-                String startVal = way.getTag("country1");
-                String endVal = way.getTag("country2");
+                short[] values = getCrossingValues(way.getTag("country1"), way.getTag("country2"));
+                _storage.setEdgeValue(edge.getEdge(), values[0], values[1], values[2]);
+            } else {
+                _storage.setEdgeValue(edge.getEdge(), (short) 0, (short) 0, (short) 0);
+            }
+        }
+    }
 
-                // Lookup values
-                short start = 0, end = 0;
+    /**
+     * Determine the border crossing of a way without tagging it, so that ways can be analysed in parallel.
+     *
+     * @param way       The OSM way
+     * @param coords    Coordinates of the way
+     * @return          The type, start and end country ids of the crossing, all 0 if the way does not cross a border
+     */
+    @Override
+    public Object analyzeWay(ReaderWay way, Coordinate[] coords, HashMap<Integer, HashMap<String,String>> nodeTags) {
+        if(cbReader == null)
+            return null;
 
-                try {
-                    start = Short.parseShort(cbReader.getId(startVal));
-                    end = Short.parseShort(cbReader.getId(endVal));
-                } catch (NumberFormatException nfe) {
-                    LOGGER.error("Error in lookup for ids " + startVal + " and " + endVal);
-                }
+        String[] countries = findBorderCrossing(coords);
+        if (countries.length > 1 && !countries[0].equals(countries[1]))
+            return getCrossingValues(countries[0], countries[1]);
 
-                short type = (cbReader.isOpen(cbReader.getEngName(startVal), cbReader.getEngName(endVal))) ? (short) 2 : (short) 1;
+        return NO_CROSSING;
+    }
 
-                _storage.setEdgeValue(edge.getEdge(), type, start, end);
-            } else {
-                _storage.setEdgeValue(edge.getEdge(), (short) 0, (short) 0, (short) 0);
-            }
+    @Override
+    public void applyEdge(Object wayResult, ReaderWay way, int edgeId, int baseNode, int adjNode, Coordinate[] coords) {
+        if(_storage != null) {
+            short[] values = wayResult == null ? NO_CROSSING : (short[]) wayResult;
+            _storage.setEdgeValue(edgeId, values[0], values[1], values[2]);
         }
     }
 
+    /**
+     * Look up the type of a border crossing (1 for controlled and 2 for open) and the ids of the two countries.
+     *
+     * @param startVal  The name of the country the way starts in
+     * @param endVal    The name of the country the way ends in
+     * @return          The type, start and end country ids
+     */
+    private short[] getCrossingValues(String startVal, String endVal) {
+        // Lookup values
+        short start = 0, end = 0;
+
+        try {
+            start = Short.parseShort(cbReader.getId(startVal));
+            end = Short.parseShort(cbReader.getId(endVal));
+        } catch (NumberFormatException nfe) {
+            LOGGER.error("Error in lookup for ids " + startVal + " and " + endVal);
+        }
+
+        short type = (cbReader.isOpen(cbReader.getEngName(startVal), cbReader.getEngName(endVal))) ? (short) 2 : (short) 1;
+
+        return new short[] { type, start, end };
+    }
+
     /**
      * Method identifying the name of the extension which is used in various building processes
      *
@@ -230,9 +272,10 @@ public class BordersGraphStorageBuilder extends AbstractGraphStorageBuilder {
                     // Check each country candidate
                     boolean found = false;
                     int countriesFound = 0;
+                    CountryBordersPolygon interior = cbReader.getInteriorCountry(c);
 
                     for(CountryBordersPolygon cbp : countries) {
-                        if (cbp.inArea(c)) {
+                        if (interior != null ? cbp == interior : cbp.inArea(c)) {
                             found = true;
                             countriesFound++;
                             if(!temp.contains(cbp)) {
@@ -0,0 +1,47 @@
+/*  This file is part of Openrouteservice.
+ *
+ *  Openrouteservice is free software; you can redistribute it and/or modify it under the terms of the 
+ *  GNU Lesser General Public License as published by the Free Software Foundation; either version 2.1 
+ *  of the License, or (at your option) any later version.
+
+ *  This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; 
+ *  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. 
+ *  See the GNU Lesser General Public License for more details.
+
+ *  You should have received a copy of the GNU Lesser General Public License along with this library; 
+ *  if not, see <https://www.gnu.org/licenses/>.  
+ */
+package heigit.ors.routing.graphhopper.extensions.storages.builders;
+
+import java.util.HashMap;
+
+import com.graphhopper.reader.ReaderWay;
+
+import com.vividsolutions.jts.geom.Coordinate;
+
+/**
+ * A storage builder whose analysis of a way does not depend on the ways read before it. When the import runs with
+ * storage builder threads, the ways are analysed on worker threads while the reader continues with the file, and the
+ * results are applied to the edges of the ways on the reader thread in the order the edges were created.
+ */
+public interface PipelinedGraphStorageBuilder extends GraphStorageBuilder
+{
+	/**
+	 * Analyses a way. The method is called concurrently for different ways, so it must neither change the state of
+	 * the builder nor the way.
+	 *
+	 * @param way		A copy of the OSM way which is not changed by the reader
+	 * @param coords	Coordinates of the way, empty if no geometry is available
+	 * @param nodeTags	Tags for nodes found on the way, may be <code>null</code>
+	 * @return			The result which is passed to {@link #applyEdge} for every edge of the way
+	 */
+	public abstract Object analyzeWay(ReaderWay way, Coordinate[] coords, HashMap<Integer, HashMap<String, String>> nodeTags);
+
+	/**
+	 * Stores the values of an edge created from a way analysed by {@link #analyzeWay}.
+	 *
+	 * @param wayResult	The result of the analysis of the way, <code>null</code> if it failed
+	 * @param coords	Coordinates of the base and adjacent node of the edge
+	 */
+	public abstract void applyEdge(Object wayResult, ReaderWay way, int edgeId, int baseNode, int adjNode, Coordinate[] coords);
+}
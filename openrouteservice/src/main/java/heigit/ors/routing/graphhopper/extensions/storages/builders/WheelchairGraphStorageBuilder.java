@@ -32,7 +32,7 @@ import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.Arrays;
 
-public class WheelchairGraphStorageBuilder extends AbstractGraphStorageBuilder 
+public class WheelchairGraphStorageBuilder extends AbstractGraphStorageBuilder implements PipelinedGraphStorageBuilder
 {
 	private static Logger LOGGER = Logger.getLogger(WheelchairGraphStorageBuilder.class.getName());
 
@@ -557,6 +557,42 @@ public class WheelchairGraphStorageBuilder extends AbstractGraphStorageBuilder
 
 	@Override
 	public void processEdge(ReaderWay way, EdgeIteratorState edge, Coordinate[] coords)
+	{
+		_storage.setEdgeValues(edge.getEdge(), getEdgeAttributes(way, edge.getBaseNode(), edge.getAdjNode(), coords));
+	}
+
+	/**
+	 * Process the way on a separate builder so that the state of this one is not touched. The returned builder holds
+	 * the attributes of the way and is used to derive the attributes of its edges in {@link #applyEdge}.
+	 */
+	@Override
+	public Object analyzeWay(ReaderWay way, Coordinate[] coords, HashMap<Integer, HashMap<String,String>> nodeTags)
+	{
+		WheelchairGraphStorageBuilder wayBuilder = new WheelchairGraphStorageBuilder(kerbOnCrossing);
+		wayBuilder.processWay(way, coords, nodeTags == null ? new HashMap<>() : nodeTags);
+		return wayBuilder;
+	}
+
+	@Override
+	public void applyEdge(Object wayResult, ReaderWay way, int edgeId, int baseNode, int adjNode, Coordinate[] coords)
+	{
+		if (_storage == null || wayResult == null)
+			return;
+
+		WheelchairGraphStorageBuilder wayBuilder = (WheelchairGraphStorageBuilder) wayResult;
+		_storage.setEdgeValues(edgeId, wayBuilder.getEdgeAttributes(way, baseNode, adjNode, coords));
+	}
+
+	/**
+	 * Get the attributes of an edge of the way processed last
+	 *
+	 * @param way		The way the edge was created from
+	 * @param baseNode	The internal id of the base node of the edge
+	 * @param adjNode	The internal id of the adjacent node of the edge
+	 * @param coords	Coordinates of the base and adjacent node
+	 * @return			The attributes to store for the edge
+	 */
+	WheelchairAttributes getEdgeAttributes(ReaderWay way, int baseNode, int adjNode, Coordinate[] coords)
 	{
 		WheelchairAttributes at = _wheelchairAttributes.copy();
 
@@ -565,7 +601,7 @@ public class WheelchairGraphStorageBuilder extends AbstractGraphStorageBuilder
         // This is only applicable if the kerb height is stored on a node rather than on the way itself. If that is the
         // case, then the kerb height has already been stored in the attributes.
 
-		float kerbHeight = getKerbHeightForWay(way, edge);
+		float kerbHeight = getKerbHeightForWay(way, baseNode, adjNode);
 		if(kerbHeight > -1) {
 			at.setSlopedKerbHeight(kerbHeight);
 		}
@@ -608,17 +644,20 @@ public class WheelchairGraphStorageBuilder extends AbstractGraphStorageBuilder
 			}
 		}
 
-		_storage.setEdgeValues(edge.getEdge(), at);
-
+		return at;
 	}
 
 	float getKerbHeightForWay(ReaderWay way, EdgeIteratorState edge) {
+		return getKerbHeightForWay(way, edge.getBaseNode(), edge.getAdjNode());
+	}
+
+	float getKerbHeightForWay(ReaderWay way, int baseNode, int adjNode) {
 		float kerbHeight = -1;
 
 		if((kerbOnCrossing && way.hasTag("footway") && way.getTag("footway").equals("crossing"))
 				|| !kerbOnCrossing) {
 			// Look for kerb information
-			kerbHeight = getKerbHeightForWayFromNodeTags(edge.getBaseNode(), edge.getAdjNode());
+			kerbHeight = getKerbHeightForWayFromNodeTags(baseNode, adjNode);
 		}
 
 		return kerbHeight;
@@ -19,14 +19,25 @@ import com.graphhopper.routing.weighting.AbstractWeighting;
 import com.graphhopper.storage.GraphStorage;
 import com.graphhopper.util.EdgeIteratorState;
 import com.graphhopper.util.PMap;
+import heigit.ors.routing.graphhopper.extensions.storages.EdgeAttributeReader;
 
 public class AdditionWeighting extends AbstractWeighting {
 	private Weighting _superWeighting;
     private WeightCalc _weightCalc;
+    private EdgeAttributeReader _attributes;
 
     public AdditionWeighting(Weighting[] weightings, Weighting superWeighting, FlagEncoder encoder, PMap map, GraphStorage graphStorage) {
+        this(weightings, superWeighting, encoder, null);
+    }
+
+    /**
+     * @param attributes	The reader shared by the weightings, which reads all of their attributes of an edge at once
+     * before they are summed up, or <code>null</code> if they read their attributes themselves
+     */
+    public AdditionWeighting(Weighting[] weightings, Weighting superWeighting, FlagEncoder encoder, EdgeAttributeReader attributes) {
         super(encoder);
         _superWeighting = superWeighting;
+        _attributes = attributes;
         
         int count = weightings.length;
         if (count == 1)
@@ -154,7 +165,9 @@ public class AdditionWeighting extends AbstractWeighting {
 
     @Override
     public double calcWeight(EdgeIteratorState edgeState, boolean reverse, int prevOrNextEdgeId) {
-        
+        if (_attributes != null)
+            _attributes.read(edgeState);
+
     	return _superWeighting.calcWeight(edgeState, reverse, prevOrNextEdgeId) * _weightCalc.calcWeight(edgeState, reverse, prevOrNextEdgeId);
     }
 
@@ -165,6 +178,9 @@ public class AdditionWeighting extends AbstractWeighting {
 	
 	@Override
 	public long calcMillis(EdgeIteratorState edgeState, boolean reverse, int prevOrNextEdgeId) {
+		if (_attributes != null)
+			_attributes.read(edgeState);
+
 		return _superWeighting.calcMillis(edgeState, reverse, prevOrNextEdgeId) + _weightCalc.calcMillis(edgeState, reverse, prevOrNextEdgeId);
 	}
 
@@ -13,8 +13,8 @@
  */
 package heigit.ors.routing.graphhopper.extensions.weighting;
 
+import heigit.ors.routing.graphhopper.extensions.storages.EdgeAttributeReader;
 import heigit.ors.routing.graphhopper.extensions.storages.GraphStorageUtils;
-import heigit.ors.routing.graphhopper.extensions.storages.HillIndexGraphStorage;
 
 import com.graphhopper.routing.weighting.FastestWeighting;
 import com.graphhopper.routing.util.FlagEncoder;
@@ -29,30 +29,37 @@ import com.graphhopper.util.PMap;
  */
 public class AvoidHillsWeighting extends FastestWeighting
 {
-	private HillIndexGraphStorage gsHillIndex;
-	private byte[] buffer;
+	private EdgeAttributeReader attributes;
 	private double maxSteepness = -1;
 	                                         //0     1   2    3    4    5    6    7    8    9   10    11   12   13    14    15
 	private static double[] PENALTY_FACTOR = {1.0, 1.0, 1.1, 1.5, 1.7, 1.8, 2.0, 2.2, 2.4, 2.6, 2.8, 3.2, 3.5, 3.7, 3.9, 4.2};
 	//private static double[] PENALTY_FACTOR = {1.0, 1.0, 1.1, 1.5, 2.0, 2.1, 2.3, 2.4, 2.5, 2.7, 2.9, 3.1, 3.3, 3.6, 3.8, 4.5};
 
     public AvoidHillsWeighting(FlagEncoder encoder, PMap map, GraphStorage graphStorage)
+    {
+        this(encoder, map, new EdgeAttributeReader(GraphStorageUtils.createExtendedStorages(graphStorage), EdgeAttributeReader.HILL_INDEX));
+    }
+
+    /**
+     * @param attributes	A reader of the hill index, which may be shared with the other soft weightings
+     */
+    public AvoidHillsWeighting(FlagEncoder encoder, PMap map, EdgeAttributeReader attributes)
     {
         super(encoder, map);
         
-        buffer = new byte[1];
         this.maxSteepness = map.getDouble("steepness_maximum", -1);
         
-        gsHillIndex = GraphStorageUtils.getGraphExtension(graphStorage, HillIndexGraphStorage.class);
+        this.attributes = attributes;
     }
     
     @Override
     public double calcWeight(EdgeIteratorState edgeState, boolean reverse, int prevOrNextEdgeId )
     {
-    	if (gsHillIndex != null)
+    	if (attributes.hasAttribute(EdgeAttributeReader.HILL_INDEX))
     	{
+    		attributes.read(edgeState);
     		boolean revert = edgeState.getBaseNode() < edgeState.getAdjNode();
-    		int hillIndex = gsHillIndex.getEdgeValue(edgeState.getEdge(), revert, buffer);
+    		int hillIndex = attributes.getHillIndex(revert);
     		
     		if (maxSteepness > 0 && hillIndex > maxSteepness)
     			return 100;
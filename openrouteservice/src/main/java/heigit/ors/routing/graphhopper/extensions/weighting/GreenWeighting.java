@@ -13,29 +13,34 @@
  */
 package heigit.ors.routing.graphhopper.extensions.weighting;
 
-import com.graphhopper.routing.EdgeIteratorStateHelper;
 import com.graphhopper.routing.util.FlagEncoder;
 import com.graphhopper.routing.weighting.FastestWeighting;
 import com.graphhopper.storage.GraphStorage;
 import com.graphhopper.util.EdgeIteratorState;
 import com.graphhopper.util.PMap;
+import heigit.ors.routing.graphhopper.extensions.storages.EdgeAttributeReader;
 import heigit.ors.routing.graphhopper.extensions.storages.GraphStorageUtils;
-import heigit.ors.routing.graphhopper.extensions.storages.GreenIndexGraphStorage;
 
 /**
  * Created by lliu on 15/03/2017.
  */
 public class GreenWeighting extends FastestWeighting {
-    private GreenIndexGraphStorage _gsGreenIndex;
-    private byte[] _buffer = new byte[1];
+    private EdgeAttributeReader _attributes;
     private double[] _factors = new double[totalLevel]; 
 
     private static final int totalLevel = 64;
 
     public GreenWeighting(FlagEncoder encoder, PMap map, GraphStorage graphStorage) {
+        this(encoder, map, new EdgeAttributeReader(GraphStorageUtils.createExtendedStorages(graphStorage), EdgeAttributeReader.GREEN_INDEX));
+    }
+
+    /**
+     * @param attributes	A reader of the green index, which may be shared with the other soft weightings
+     */
+    public GreenWeighting(FlagEncoder encoder, PMap map, EdgeAttributeReader attributes) {
         super(encoder, map);
         
-        _gsGreenIndex = GraphStorageUtils.getGraphExtension(graphStorage, GreenIndexGraphStorage.class);
+        _attributes = attributes;
         double factor = map.getDouble("factor", 1);
         
         for (int i = 0; i < totalLevel; i++)
@@ -57,9 +62,9 @@ public class GreenWeighting extends FastestWeighting {
 
     @Override
     public double calcWeight(EdgeIteratorState edgeState, boolean reverse, int prevOrNextEdgeId) {
-        if (_gsGreenIndex != null) {
-            int greenLevel = _gsGreenIndex.getEdgeValue(EdgeIteratorStateHelper.getOriginalEdge(edgeState), _buffer);
-            return _factors[greenLevel];
+        if (_attributes.hasAttribute(EdgeAttributeReader.GREEN_INDEX)) {
+            _attributes.read(edgeState);
+            return _factors[_attributes.getGreenIndex()];
         }
 
         return 1.0;
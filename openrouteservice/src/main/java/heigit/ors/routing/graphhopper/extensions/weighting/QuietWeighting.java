@@ -13,24 +13,28 @@
  */
 package heigit.ors.routing.graphhopper.extensions.weighting;
 
-import com.graphhopper.routing.EdgeIteratorStateHelper;
 import com.graphhopper.routing.util.FlagEncoder;
 import com.graphhopper.routing.weighting.FastestWeighting;
 import com.graphhopper.storage.GraphStorage;
 import com.graphhopper.util.EdgeIteratorState;
 import com.graphhopper.util.PMap;
+import heigit.ors.routing.graphhopper.extensions.storages.EdgeAttributeReader;
 import heigit.ors.routing.graphhopper.extensions.storages.GraphStorageUtils;
-import heigit.ors.routing.graphhopper.extensions.storages.NoiseIndexGraphStorage;
 
 public class QuietWeighting extends FastestWeighting {
-    private NoiseIndexGraphStorage _gsNoiseIndex;
-    private byte[] _buffer;
+    private EdgeAttributeReader _attributes;
     private double _weightingFactor = 1;
 
     public QuietWeighting(FlagEncoder encoder, PMap map, GraphStorage graphStorage) {
+        this(encoder, map, new EdgeAttributeReader(GraphStorageUtils.createExtendedStorages(graphStorage), EdgeAttributeReader.NOISE_INDEX));
+    }
+
+    /**
+     * @param attributes	A reader of the noise index, which may be shared with the other soft weightings
+     */
+    public QuietWeighting(FlagEncoder encoder, PMap map, EdgeAttributeReader attributes) {
         super(encoder, map);
-        _buffer = new byte[1];
-        _gsNoiseIndex = GraphStorageUtils.getGraphExtension(graphStorage, NoiseIndexGraphStorage.class);
+        _attributes = attributes;
         _weightingFactor = map.getDouble("factor", 1);
     }
 
@@ -49,9 +53,9 @@ public class QuietWeighting extends FastestWeighting {
 
     @Override
     public double calcWeight(EdgeIteratorState edgeState, boolean reverse, int prevOrNextEdgeId) {
-        if (_gsNoiseIndex != null) {
-            int noiseLevel = _gsNoiseIndex.getEdgeValue(EdgeIteratorStateHelper.getOriginalEdge(edgeState), _buffer);
-            return calcNoiseWeightFactor(noiseLevel);
+        if (_attributes.hasAttribute(EdgeAttributeReader.NOISE_INDEX)) {
+            _attributes.read(edgeState);
+            return calcNoiseWeightFactor(_attributes.getNoiseIndex());
         }
 
         return 1.0;
@@ -13,14 +13,13 @@
  */
 package heigit.ors.routing.graphhopper.extensions.weighting;
 
-import com.graphhopper.routing.EdgeIteratorStateHelper;
 import com.graphhopper.routing.util.FlagEncoder;
 import com.graphhopper.routing.weighting.FastestWeighting;
 import com.graphhopper.storage.GraphStorage;
 import com.graphhopper.util.EdgeIteratorState;
 import com.graphhopper.util.PMap;
+import heigit.ors.routing.graphhopper.extensions.storages.EdgeAttributeReader;
 import heigit.ors.routing.graphhopper.extensions.storages.GraphStorageUtils;
-import heigit.ors.routing.graphhopper.extensions.storages.HillIndexGraphStorage;
 
 public class SteepnessDifficultyWeighting extends FastestWeighting
 {
@@ -29,8 +28,7 @@ public class SteepnessDifficultyWeighting extends FastestWeighting
      */
     public static final int KEY = 101;
     
-	private HillIndexGraphStorage gsHillIndex;
-	private byte[] buffer;
+	private EdgeAttributeReader attributes;
 	private double[] difficultyWeights;
 	
 	private static double BIKE_DIFFICULTY_MATRIX[][];
@@ -189,16 +187,22 @@ public class SteepnessDifficultyWeighting extends FastestWeighting
 	}
 
     public SteepnessDifficultyWeighting(FlagEncoder encoder, PMap map, GraphStorage graphStorage)
+    {
+        this(encoder, map, new EdgeAttributeReader(GraphStorageUtils.createExtendedStorages(graphStorage), EdgeAttributeReader.HILL_INDEX));
+    }
+
+    /**
+     * @param attributes	A reader of the hill index, which may be shared with the other soft weightings
+     */
+    public SteepnessDifficultyWeighting(FlagEncoder encoder, PMap map, EdgeAttributeReader attributes)
     {
         super(encoder, map);
-        
-        buffer = new byte[1];
 
 	    int difficultyLevel = map.getInt("level", -1);
 
-        gsHillIndex = GraphStorageUtils.getGraphExtension(graphStorage, HillIndexGraphStorage.class);
+        this.attributes = attributes;
         
-        if (gsHillIndex != null)
+        if (attributes.hasAttribute(EdgeAttributeReader.HILL_INDEX))
         {
         	if (difficultyLevel >= 0)
         	{
@@ -214,10 +218,11 @@ public class SteepnessDifficultyWeighting extends FastestWeighting
     @Override
     public double calcWeight(EdgeIteratorState edgeState, boolean reverse, int prevOrNextEdgeId )
     {
-    	if (gsHillIndex != null)
+    	if (attributes.hasAttribute(EdgeAttributeReader.HILL_INDEX))
     	{
+    		attributes.read(edgeState);
     		boolean revert = edgeState.getBaseNode() < edgeState.getAdjNode();
-    		int hillIndex = gsHillIndex.getEdgeValue(EdgeIteratorStateHelper.getOriginalEdge(edgeState), revert, buffer);
+    		int hillIndex = attributes.getHillIndex(revert);
 
     		if (difficultyWeights != null)
     			return difficultyWeights[hillIndex];
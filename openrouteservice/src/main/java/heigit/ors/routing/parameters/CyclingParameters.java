@@ -29,4 +29,9 @@ public class CyclingParameters extends ProfileParameters
 	public void setMaximumTrailDifficulty(int value) {
 		_maximumTrailDifficulty = value;
 	}
+
+	@Override
+	public String getCacheKey() {
+		return super.getCacheKey() + '|' + _maximumTrailDifficulty;
+	}
 }
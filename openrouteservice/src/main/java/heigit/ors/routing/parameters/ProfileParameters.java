@@ -13,6 +13,11 @@
  */
 package heigit.ors.routing.parameters;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
 import heigit.ors.routing.ProfileWeighting;
 import heigit.ors.routing.ProfileWeightingCollection;
 
@@ -50,4 +55,26 @@ public class ProfileParameters {
     {
     	return _weightings != null && _weightings.size() > 0;
     }
+
+    /**
+     * Returns a canonical string of the parameters, in which the weightings are sorted by their names.
+     */
+    public String getCacheKey()
+    {
+        StringBuilder sb = new StringBuilder(64);
+        sb.append(getClass().getSimpleName()).append('|').append(_maximumGradient).append('|');
+
+        if (_weightings != null) {
+            List<String> weightings = new ArrayList<String>(_weightings.size());
+            Iterator<ProfileWeighting> iter = _weightings.getIterator();
+            while (iter.hasNext())
+                weightings.add(iter.next().getCacheKey());
+
+            Collections.sort(weightings);
+            for (String weighting : weightings)
+                sb.append(weighting).append(',');
+        }
+
+        return sb.toString();
+    }
 }
@@ -74,6 +74,11 @@ public class VehicleParameters extends ProfileParameters {
 		_characteristics = characteristics;
 	}
 	
+	@Override
+	public String getCacheKey() {
+		return super.getCacheKey() + '|' + _length + '|' + _height + '|' + _width + '|' + _weight + '|' + _axleload + '|' + _characteristics;
+	}
+
 	public boolean hasAttributes() {
 		return _height > 0.0 || _length > 0.0 || _width > 0.0 || _weight > 0.0 || _axleload > 0.0 || _characteristics != 0;
 	}
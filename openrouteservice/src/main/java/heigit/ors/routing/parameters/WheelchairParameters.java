@@ -70,4 +70,9 @@ public class WheelchairParameters extends ProfileParameters
 	public float getMinimumWidth() { return _minWidth; }
 
 	public void setMinimumWidth(float width) { _minWidth = width; }
+
+	@Override
+	public String getCacheKey() {
+		return super.getCacheKey() + '|' + _maxIncline + '|' + _maxSlopedKerb + '|' + _surfaceType + '|' + _trackType + '|' + _smoothnessType + '|' + _minWidth;
+	}
 }
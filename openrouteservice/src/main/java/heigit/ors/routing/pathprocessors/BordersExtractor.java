@@ -10,6 +10,7 @@ public class BordersExtractor {
     private VehicleParameters _vehicleParams;
     private BordersGraphStorage _storage;
     private int[] _avoidCountries;
+    private boolean[] _isAvoidCountry;
 
     public BordersExtractor(BordersGraphStorage storage, ProfileParameters vehicleParams, int[] avoidCountries)
     {
@@ -17,6 +18,16 @@ public class BordersExtractor {
 
         _avoidCountries = avoidCountries;
 
+        // Country ids are small, so a lookup table replaces the search through the avoided countries for every edge
+        int maxCountry = -1;
+        for (int country : avoidCountries)
+            maxCountry = Math.max(maxCountry, country);
+        _isAvoidCountry = new boolean[maxCountry + 1];
+        for (int country : avoidCountries) {
+            if (country >= 0)
+                _isAvoidCountry[country] = true;
+        }
+
         if (vehicleParams instanceof VehicleParameters)
             _vehicleParams = (VehicleParameters)vehicleParams;
     }
@@ -45,8 +56,16 @@ public class BordersExtractor {
         int startCountry = _storage.getEdgeValue(edgeId, BordersGraphStorage.Property.START);
         int endCountry = _storage.getEdgeValue(edgeId, BordersGraphStorage.Property.END);
 
+        return isAvoidCountry(startCountry) || isAvoidCountry(endCountry);
+    }
+
+    private boolean isAvoidCountry(int country) {
+        if (country >= 0)
+            return country < _isAvoidCountry.length && _isAvoidCountry[country];
+
+        // Negative ids can not be in the lookup table
         for(int i=0; i<_avoidCountries.length; i++) {
-            if(startCountry == _avoidCountries[i] || endCountry == _avoidCountries[i] ) {
+            if(country == _avoidCountries[i]) {
                 return true;
             }
         }
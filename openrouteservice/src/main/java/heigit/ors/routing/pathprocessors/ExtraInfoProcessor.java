@@ -13,11 +13,9 @@
  */
 package heigit.ors.routing.pathprocessors;
 
-import com.graphhopper.routing.EdgeIteratorStateHelper;
 import com.graphhopper.routing.util.FlagEncoder;
 import com.graphhopper.routing.util.PathProcessor;
 import com.graphhopper.routing.util.PriorityCode;
-import com.graphhopper.routing.util.WaySurfaceDescription;
 import com.graphhopper.routing.weighting.PriorityWeighting;
 import com.graphhopper.util.EdgeIteratorState;
 import com.graphhopper.util.PointList;
@@ -26,7 +24,8 @@ import heigit.ors.routing.RouteExtraInfoFlag;
 import heigit.ors.routing.RoutingProfileType;
 import heigit.ors.routing.RoutingRequest;
 import heigit.ors.routing.graphhopper.extensions.ORSGraphHopper;
-import heigit.ors.routing.graphhopper.extensions.storages.*;
+import heigit.ors.routing.graphhopper.extensions.storages.EdgeAttributeReader;
+import heigit.ors.routing.graphhopper.extensions.storages.TollwaysGraphStorage;
 import heigit.ors.routing.util.ElevationSmoother;
 import heigit.ors.routing.util.extrainfobuilders.RouteExtraInfoBuilder;
 import heigit.ors.routing.util.extrainfobuilders.SimpleRouteExtraInfoBuilder;
@@ -36,14 +35,7 @@ import java.util.ArrayList;
 import java.util.List;
 
 public class ExtraInfoProcessor extends PathProcessor {
-	private WaySurfaceTypeGraphStorage _extWaySurface;
-	private WayCategoryGraphStorage _extWayCategory;
-	private GreenIndexGraphStorage _extGreenIndex;
-	private NoiseIndexGraphStorage _extNoiseIndex;
-	private TollwaysGraphStorage _extTollways;
-	private TrailDifficultyScaleGraphStorage _extTrailDifficulty;
-	private HillIndexGraphStorage _extHillIndex;
-	private OsmIdGraphStorage _extOsmId;
+	private EdgeAttributeReader _attributes;
 	
 	private RouteExtraInfo _surfaceInfo;
 	private RouteExtraInfoBuilder _surfaceInfoBuilder;
@@ -83,7 +75,6 @@ public class ExtraInfoProcessor extends PathProcessor {
 	private FlagEncoder _encoder;
 	private double _maximumSpeed = -1;
 	private boolean _encoderWithPriority = false;
-	private byte[] buffer;
 	private boolean _lastSegment;
 
 	public ExtraInfoProcessor(ORSGraphHopper graphHopper, RoutingRequest req) throws Exception 
@@ -91,12 +82,11 @@ public class ExtraInfoProcessor extends PathProcessor {
 		_profileType = req.getSearchParameters().getProfileType();
 		_maximumSpeed = req.getSearchParameters().getMaximumSpeed();
 		int extraInfo = req.getExtraInfo();
+		_attributes = new EdgeAttributeReader(graphHopper.getExtendedStorages(), getRequiredAttributes(extraInfo));
 		
 		if (RouteExtraInfoFlag.isSet(extraInfo, RouteExtraInfoFlag.WayCategory))
 		{
-			_extWayCategory = GraphStorageUtils.getGraphExtension(graphHopper.getGraphHopperStorage(), WayCategoryGraphStorage.class);
-			
-			if (_extWayCategory == null)
+			if (!_attributes.hasAttribute(EdgeAttributeReader.WAY_CATEGORY))
 				throw new Exception("WayCategory storage is not found.");
 			
 			_wayCategoryInfo = new RouteExtraInfo("waycategory");
@@ -105,9 +95,7 @@ public class ExtraInfoProcessor extends PathProcessor {
 		
 		if (RouteExtraInfoFlag.isSet(extraInfo, RouteExtraInfoFlag.Surface) || RouteExtraInfoFlag.isSet(extraInfo, RouteExtraInfoFlag.WayType))
 		{
-			_extWaySurface = GraphStorageUtils.getGraphExtension(graphHopper.getGraphHopperStorage(), WaySurfaceTypeGraphStorage.class);
-			
-			if (_extWaySurface == null)
+			if (!_attributes.hasAttribute(EdgeAttributeReader.WAY_SURFACE))
 				throw new Exception("WaySurfaceType storage is not found.");
 
 			if (RouteExtraInfoFlag.isSet(extraInfo, RouteExtraInfoFlag.Surface))
@@ -143,53 +131,65 @@ public class ExtraInfoProcessor extends PathProcessor {
 		
 		if (RouteExtraInfoFlag.isSet(extraInfo, RouteExtraInfoFlag.Tollways))
 		{
-			_extTollways = GraphStorageUtils.getGraphExtension(graphHopper.getGraphHopperStorage(), TollwaysGraphStorage.class);
-
-			if (_extTollways == null)
+			if (!_attributes.hasAttribute(EdgeAttributeReader.TOLLWAYS))
 				throw new Exception("Tollways storage is not found.");
 			
 			_tollwaysInfo = new RouteExtraInfo("tollways");
 			_tollwaysInfoBuilder = new SimpleRouteExtraInfoBuilder(_tollwaysInfo);
-			_tollwayExtractor = new TollwayExtractor(_extTollways, req.getSearchParameters().getVehicleType(), req.getSearchParameters().getProfileParameters());
+			_tollwayExtractor = new TollwayExtractor(graphHopper.getExtendedStorages().get(TollwaysGraphStorage.class), req.getSearchParameters().getVehicleType(), req.getSearchParameters().getProfileParameters());
 		}
 
 		if (RouteExtraInfoFlag.isSet(extraInfo, RouteExtraInfoFlag.TrailDifficulty))
 		{
-			_extTrailDifficulty  = GraphStorageUtils.getGraphExtension(graphHopper.getGraphHopperStorage(), TrailDifficultyScaleGraphStorage.class);
-			_extHillIndex = GraphStorageUtils.getGraphExtension(graphHopper.getGraphHopperStorage(), HillIndexGraphStorage.class);
-			
 			_trailDifficultyInfo = new RouteExtraInfo("traildifficulty");
 			_trailDifficultyInfoBuilder = new SimpleRouteExtraInfoBuilder(_trailDifficultyInfo);
 		}
 
 		if (RouteExtraInfoFlag.isSet(extraInfo, RouteExtraInfoFlag.Green)) {
-			_extGreenIndex = GraphStorageUtils.getGraphExtension(graphHopper.getGraphHopperStorage(), GreenIndexGraphStorage.class);
-
-			if (_extGreenIndex == null)
+			if (!_attributes.hasAttribute(EdgeAttributeReader.GREEN_INDEX))
 				throw new Exception("GreenIndex storage is not found.");
 			_greenInfo = new RouteExtraInfo("green");
 			_greenInfoBuilder = new SimpleRouteExtraInfoBuilder(_greenInfo);
 		}
 
 		if (RouteExtraInfoFlag.isSet(extraInfo, RouteExtraInfoFlag.Noise)) {
-
-			_extNoiseIndex = GraphStorageUtils.getGraphExtension(graphHopper.getGraphHopperStorage(), NoiseIndexGraphStorage.class);
-
-			if (_extNoiseIndex == null)
+			if (!_attributes.hasAttribute(EdgeAttributeReader.NOISE_INDEX))
 				throw new Exception("NoiseIndex storage is not found.");
 			_noiseInfo = new RouteExtraInfo("noise");
 			_noiseInfoBuilder = new SimpleRouteExtraInfoBuilder(_noiseInfo);
 		}
 
 		if (RouteExtraInfoFlag.isSet(extraInfo, RouteExtraInfoFlag.OsmId)) {
-			_extOsmId = GraphStorageUtils.getGraphExtension(graphHopper.getGraphHopperStorage(), OsmIdGraphStorage.class);
-
-			if(_extOsmId == null)
+			if (!_attributes.hasAttribute(EdgeAttributeReader.OSM_ID))
 				throw new Exception("OsmId storage is not found");
 			_osmIdInfo = new RouteExtraInfo("osmId");
 			_osmIdInfoBuilder = new SimpleRouteExtraInfoBuilder(_osmIdInfo);
 		}
-		buffer = new byte[4];
+	}
+
+	/**
+	 * @return	The attributes of the edges needed for the given extra info
+	 */
+	private static int getRequiredAttributes(int extraInfo)
+	{
+		int attributes = 0;
+
+		if (RouteExtraInfoFlag.isSet(extraInfo, RouteExtraInfoFlag.WayCategory))
+			attributes |= EdgeAttributeReader.WAY_CATEGORY;
+		if (RouteExtraInfoFlag.isSet(extraInfo, RouteExtraInfoFlag.Surface) || RouteExtraInfoFlag.isSet(extraInfo, RouteExtraInfoFlag.WayType))
+			attributes |= EdgeAttributeReader.WAY_SURFACE;
+		if (RouteExtraInfoFlag.isSet(extraInfo, RouteExtraInfoFlag.Tollways))
+			attributes |= EdgeAttributeReader.TOLLWAYS;
+		if (RouteExtraInfoFlag.isSet(extraInfo, RouteExtraInfoFlag.TrailDifficulty))
+			attributes |= EdgeAttributeReader.TRAIL_DIFFICULTY | EdgeAttributeReader.HILL_INDEX;
+		if (RouteExtraInfoFlag.isSet(extraInfo, RouteExtraInfoFlag.Green))
+			attributes |= EdgeAttributeReader.GREEN_INDEX;
+		if (RouteExtraInfoFlag.isSet(extraInfo, RouteExtraInfoFlag.Noise))
+			attributes |= EdgeAttributeReader.NOISE_INDEX;
+		if (RouteExtraInfoFlag.isSet(extraInfo, RouteExtraInfoFlag.OsmId))
+			attributes |= EdgeAttributeReader.OSM_ID;
+
+		return attributes;
 	}
 
 	public void setSegmentIndex(int index, int count)
@@ -231,41 +231,48 @@ public class ExtraInfoProcessor extends PathProcessor {
 	public void processEdge(EdgeIteratorState edge, boolean isLastEdge, PointList geom) {
 		double dist = edge.getDistance();
 
-		if (_extWaySurface != null && _wayTypeInfo != null || _surfaceInfo != null)
+		// all stored attributes of the edge are read at once
+		_attributes.read(edge);
+
+		if (_surfaceInfoBuilder != null)
 		{
-			WaySurfaceDescription wsd = _extWaySurface.getEdgeValue(EdgeIteratorStateHelper.getOriginalEdge(edge), buffer);
+			int value = _attributes.getSurfaceType();
+			_surfaceInfoBuilder.addSegment(value, value, geom, dist, isLastEdge && _lastSegment);
+		}
 
-			if (_surfaceInfoBuilder != null)
-				_surfaceInfoBuilder.addSegment(wsd.SurfaceType, wsd.SurfaceType, geom, dist, isLastEdge && _lastSegment);
-			
-			if (_wayTypeInfo != null)
-				_wayTypeInfoBuilder.addSegment(wsd.WayType, wsd.WayType, geom, dist, isLastEdge && _lastSegment);
+		if (_wayTypeInfoBuilder != null)
+		{
+			int value = _attributes.getWayType();
+			_wayTypeInfoBuilder.addSegment(value, value, geom, dist, isLastEdge && _lastSegment);
 		}
 		
 		if (_wayCategoryInfoBuilder != null)
 		{
-			int value = _extWayCategory.getEdgeValue(EdgeIteratorStateHelper.getOriginalEdge(edge), buffer);
+			int value = _attributes.getWayCategory();
 			_wayCategoryInfoBuilder.addSegment(value, value, geom, dist, isLastEdge && _lastSegment);
 		}
 		
 		if (_trailDifficultyInfoBuilder != null)
 		{
 			int value = 0;
-			if (RoutingProfileType.isCycling(_profileType))
+			if (!_attributes.hasAttribute(EdgeAttributeReader.TRAIL_DIFFICULTY))
+			{
+				// no trail difficulties are stored for this profile
+			}
+			else if (RoutingProfileType.isCycling(_profileType))
 			{
 				boolean uphill = false;
-				if (_extHillIndex != null)
+				if (_attributes.hasAttribute(EdgeAttributeReader.HILL_INDEX))
 				{
 					boolean revert = edge.getBaseNode() > edge.getAdjNode();
-					int hillIndex = _extHillIndex.getEdgeValue(EdgeIteratorStateHelper.getOriginalEdge(edge), revert, buffer);
-					if (hillIndex > 0)
+					if (_attributes.getHillIndex(revert) > 0)
 						uphill = true;
 				}
 				
-				value = _extTrailDifficulty.getMtbScale(EdgeIteratorStateHelper.getOriginalEdge(edge), buffer, uphill);
+				value = _attributes.getMtbScale(uphill);
 			}
 			else if (RoutingProfileType.isWalking(_profileType))
-				value = _extTrailDifficulty.getHikingScale(EdgeIteratorStateHelper.getOriginalEdge(edge), buffer);
+				value = _attributes.getHikingScale();
 			
 			_trailDifficultyInfoBuilder.addSegment(value, value, geom, dist, isLastEdge && _lastSegment);
 		}
@@ -280,7 +287,7 @@ public class ExtraInfoProcessor extends PathProcessor {
 		
 		if (_tollwaysInfoBuilder != null)
 		{
-			int value = _tollwayExtractor.getValue(EdgeIteratorStateHelper.getOriginalEdge(edge));
+			int value = _tollwayExtractor.getValueOfType(_attributes.getTollwayType());
 		    _tollwaysInfoBuilder.addSegment(value, value, geom, dist, isLastEdge && _lastSegment);
 		}
 
@@ -312,7 +319,7 @@ public class ExtraInfoProcessor extends PathProcessor {
 		}
 
 		if (_greenInfoBuilder != null) {
-			int value = _extGreenIndex.getEdgeValue(EdgeIteratorStateHelper.getOriginalEdge(edge), buffer);
+			int value = _attributes.getGreenIndex();
 			// This number is how many levels client can display in the stats bar
 			// FIXME should be changed when the specific bar legend for green routing is finished
 			int MIN_CLIENT_VAL = 3;
@@ -322,7 +329,7 @@ public class ExtraInfoProcessor extends PathProcessor {
 		}
 		
 		if (_noiseInfoBuilder != null) {
-			int noise_level = _extNoiseIndex.getEdgeValue(EdgeIteratorStateHelper.getOriginalEdge(edge), buffer);
+			int noise_level = _attributes.getNoiseIndex();
 			// convert the noise level (from 0 to 3) to the values (from 7 to 10) for the client
 			if (noise_level > 3)
 				noise_level = 3; 
@@ -333,7 +340,7 @@ public class ExtraInfoProcessor extends PathProcessor {
 
 		if (_osmIdInfoBuilder != null) {
 
-			long osmId = _extOsmId.getEdgeValue(EdgeIteratorStateHelper.getOriginalEdge(edge));
+			long osmId = _attributes.getOsmId();
 
 			_osmIdInfoBuilder.addSegment((double)osmId, osmId, geom, dist, isLastEdge && _lastSegment);
 		}
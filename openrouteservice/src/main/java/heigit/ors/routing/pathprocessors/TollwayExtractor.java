@@ -39,8 +39,16 @@ public class TollwayExtractor {
 	 * @see HeavyVehicleAttributes
 	 */
 	public int getValue(int edgeId) {
-		int value = _storage.getEdgeValue(edgeId, _buffer);
+		return getValueOfType(_storage.getEdgeValue(edgeId, _buffer));
+	}
 
+	/**
+	 * Same as {@link #getValue(int)} for a tollway type which has already been read from the storage, e.g. by an
+	 * {@link heigit.ors.routing.graphhopper.extensions.storages.EdgeAttributeReader}.
+	 *
+	 * @param value				The tollway type stored for the edge
+	 */
+	public int getValueOfType(int value) {
 		if (value != TollwayType.None) {
 
 			// Check if "toll=yes" is present. If no and you're a car, you're good to go
@@ -14,7 +14,9 @@
 package heigit.ors.services;
 
 import com.graphhopper.storage.StorableProperties;
+import heigit.ors.isochrones.IsochroneCache;
 import heigit.ors.localization.LocalizationManager;
+import heigit.ors.routing.RouteCache;
 import heigit.ors.routing.RoutingProfile;
 import heigit.ors.routing.RoutingProfileManager;
 import heigit.ors.routing.RoutingProfileManagerStatus;
@@ -27,6 +29,7 @@ import heigit.ors.services.mapmatching.MapMatchingServiceSettings;
 import heigit.ors.services.matrix.MatrixServiceSettings;
 import heigit.ors.services.routing.RoutingServiceSettings;
 import heigit.ors.util.AppInfo;
+import heigit.ors.util.FormatUtility;
 import org.json.JSONException;
 import org.json.JSONObject;
 
@@ -105,6 +108,26 @@ public class ORSServicesUtils {
 					if (jProfileLimits.length() > 0)
 						jProfileProps.put("limits", jProfileLimits);
 
+					RouteCache routeCache = rp.getRouteCache();
+					if (routeCache != null) {
+						JSONObject jCache = new JSONObject(true);
+						jCache.put("size", routeCache.size());
+						jCache.put("hits", routeCache.getHits());
+						jCache.put("misses", routeCache.getMisses());
+						jCache.put("hit_ratio", FormatUtility.roundToDecimals(routeCache.getHitRatio(), 4));
+						jProfileProps.put("route_cache", jCache);
+					}
+
+					IsochroneCache isochroneCache = rp.getIsochroneCache();
+					if (isochroneCache != null) {
+						JSONObject jCache = new JSONObject(true);
+						jCache.put("size", isochroneCache.size());
+						jCache.put("hits", isochroneCache.getHits());
+						jCache.put("misses", isochroneCache.getMisses());
+						jCache.put("hit_ratio", FormatUtility.roundToDecimals(isochroneCache.getHitRatio(), 4));
+						jProfileProps.put("isochrones_cache", jCache);
+					}
+
 					jProfiles.put("profile " + Integer.toString(i), jProfileProps);
 
 					i++;
@@ -37,6 +37,9 @@ public class IsochronesServiceSettings {
 	private static boolean allowComputeArea = true;
 	private static Map<String, StatisticsProviderConfiguration> statsProviders;
 	private static String attribution = "";
+	private static int parallelThreads = 1;
+	private static int cacheSize = 0;
+	private static int cacheTimeToLive = 3600; // in seconds
 
 	static 
 	{
@@ -80,6 +83,15 @@ public class IsochronesServiceSettings {
 		value = AppConfig.Global().getServiceParameter("isochrones", "allow_compute_area");
 		if (value != null)
 			allowComputeArea = Boolean.parseBoolean(value);
+		value = AppConfig.Global().getServiceParameter("isochrones", "parallel_threads");
+		if (value != null)
+			parallelThreads = Math.max(1, Integer.parseInt(value));
+		value = AppConfig.Global().getServiceParameter("isochrones", "cache_size");
+		if (value != null)
+			cacheSize = Math.max(0, Integer.parseInt(value));
+		value = AppConfig.Global().getServiceParameter("isochrones", "cache_ttl");
+		if (value != null)
+			cacheTimeToLive = Math.max(0, Integer.parseInt(value));
 
 		statsProviders = new HashMap<String, StatisticsProviderConfiguration>();
 
@@ -186,6 +198,18 @@ public class IsochronesServiceSettings {
 		return maximumIntervals;
 	}
 
+	public static int getParallelThreads() {
+		return parallelThreads;
+	}
+
+	public static int getCacheSize() {
+		return cacheSize;
+	}
+
+	public static int getCacheTimeToLive() {
+		return cacheTimeToLive;
+	}
+
 	public static Map<String, StatisticsProviderConfiguration> getStatsProviders() {
 		return statsProviders;
 	}
@@ -22,12 +22,12 @@ import heigit.ors.exceptions.MissingParameterException;
 import heigit.ors.exceptions.ParameterValueException;
 import heigit.ors.exceptions.StatusCodeException;
 import heigit.ors.exceptions.UnknownParameterValueException;
+import heigit.ors.io.JsonStreamReader;
 import heigit.ors.isochrones.IsochroneRequest;
 import heigit.ors.isochrones.IsochronesErrorCodes;
 import heigit.ors.routing.RoutingProfileType;
 import heigit.ors.services.isochrones.IsochronesServiceSettings;
 import heigit.ors.util.CoordTools;
-import heigit.ors.util.StreamUtility;
 import org.json.JSONArray;
 import org.json.JSONObject;
 
@@ -39,10 +39,10 @@ public class JsonIsochroneRequestParser {
 
 	public static IsochroneRequest parseFromStream(InputStream stream) throws Exception 
 	{
+		JsonStreamReader reader = new JsonStreamReader(stream);
 		JSONObject json = null;
 		try {
-			String body = StreamUtility.readStream(stream);
-			json = new JSONObject(body);
+			json = reader.readObject(null, new String[] { "location" });
 		} catch (Exception ex) {
 			throw new StatusCodeException(StatusCode.BAD_REQUEST, IsochronesErrorCodes.INVALID_JSON_FORMAT, "Unable to parse JSON document.");
 		}
@@ -79,15 +79,13 @@ public class JsonIsochroneRequestParser {
 				
 				if (jTraveller.has("location"))
 				{
-					try
-					{
-						JSONArray jLocation = jTraveller.getJSONArray("location");
-						travellerInfo.setLocation(new Coordinate(jLocation.getDouble(0), jLocation.getDouble(1)));						
-					}
-					catch(Exception nfex)
-					{
+					double[] location = JsonStreamReader.getCoordinates(jTraveller, "location");
+
+					// missing components of a coordinate are returned as NaN
+					if (location == null || reader.hasInvalidCoordinates("location") || Double.isNaN(location[0]) || Double.isNaN(location[1]))
 						throw new ParameterValueException(IsochronesErrorCodes.INVALID_PARAMETER_FORMAT, "location");
-					}
+
+					travellerInfo.setLocation(new Coordinate(location[0], location[1]));
 				}
 				else
 				{
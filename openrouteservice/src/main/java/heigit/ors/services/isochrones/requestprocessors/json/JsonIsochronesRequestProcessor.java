@@ -91,13 +91,14 @@ public class JsonIsochronesRequestProcessor extends AbstractHttpRequestProcessor
         if (travellers.size() > 0) {
             String[] nonDefaultAttrs = req.getNonDefaultAttributes();
 
+            List<IsochroneSearchParameters> searchParams = new ArrayList<IsochroneSearchParameters>(travellers.size());
+            for (int i = 0; i < travellers.size(); ++i)
+                searchParams.add(req.getSearchParameters(i));
+
             IsochroneMapCollection isoMaps = new IsochroneMapCollection();
 
-            for (int i = 0; i < travellers.size(); ++i) {
-                IsochroneSearchParameters searchParams = req.getSearchParameters(i);
-                IsochroneMap isochroneMap = RoutingProfileManager.getInstance().buildIsochrone(searchParams, nonDefaultAttrs);
+            for (IsochroneMap isochroneMap : RoutingProfileManager.getInstance().buildIsochrones(searchParams, nonDefaultAttrs))
                 isoMaps.add(isochroneMap);
-            }
 
             writeResponse(response, req, isoMaps);
         }
@@ -24,6 +24,8 @@ public class MatrixServiceSettings
 	private static boolean allowResolveLocations = true;
 	private static String attribution = "";
 	private static boolean enabled = true;
+	private static int parallelThreads = 1;
+	private static int parallelChunkSize = 25;
 	
 	static 
 	{
@@ -48,6 +50,12 @@ public class MatrixServiceSettings
 		value = AppConfig.Global().getServiceParameter("matrix", "attribution");
 		if (value != null)
 			attribution = value;
+		value = AppConfig.Global().getServiceParameter("matrix", "parallel_threads");
+		if (value != null)
+			parallelThreads = Math.max(1, Integer.parseInt(value));
+		value = AppConfig.Global().getServiceParameter("matrix", "parallel_chunk_size");
+		if (value != null)
+			parallelChunkSize = Math.max(1, Integer.parseInt(value));
 	}
 	
 	public static Boolean getEnabled() {
@@ -70,6 +78,14 @@ public class MatrixServiceSettings
 		return maximumSearchRadius;
 	}
 	
+	public static int getParallelThreads() {
+		return parallelThreads;
+	}
+	
+	public static int getParallelChunkSize() {
+		return parallelChunkSize;
+	}
+	
 	public static String getAttribution() {
 		return attribution;
 	}
@@ -0,0 +1,56 @@
+/*  This file is part of Openrouteservice.
+ *
+ *  Openrouteservice is free software; you can redistribute it and/or modify it under the terms of the
+ *  GNU Lesser General Public License as published by the Free Software Foundation; either version 2.1
+ *  of the License, or (at your option) any later version.
+
+ *  This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ *  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *  See the GNU Lesser General Public License for more details.
+
+ *  You should have received a copy of the GNU Lesser General Public License along with this library;
+ *  if not, see <https://www.gnu.org/licenses/>.
+ */
+package heigit.ors.services.matrix.requestprocessors.binary;
+
+import java.io.OutputStream;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import heigit.ors.matrix.MatrixRequest;
+import heigit.ors.matrix.MatrixResult;
+import heigit.ors.services.matrix.requestprocessors.json.JsonMatrixRequestProcessor;
+
+/**
+ * Accepts the same requests as {@link JsonMatrixRequestProcessor} and answers them in the format described in
+ * {@link BinaryMatrixResponseWriter}.
+ */
+public class BinaryMatrixRequestProcessor extends JsonMatrixRequestProcessor 
+{
+	public static final String CONTENT_TYPE = "application/octet-stream";
+
+	public BinaryMatrixRequestProcessor(HttpServletRequest request) throws Exception {
+		super(request);
+	}
+
+	@Override
+	protected void writeResponse(HttpServletResponse response, MatrixRequest request, MatrixResult mtxResult) throws Exception
+	{
+		BinaryMatrixResponseWriter writer = new BinaryMatrixResponseWriter(mtxResult, request.getMetrics(), request.getUnits(), request.getResolveLocations());
+
+		response.setContentType(CONTENT_TYPE);
+		response.setContentLengthLong(writer.getContentLength());
+		response.addHeader("Vary", "Accept, Accept-Encoding");
+
+		OutputStream out = response.getOutputStream();
+		try
+		{
+			writer.write(out);
+		}
+		finally
+		{
+			out.close();
+		}
+	}
+}
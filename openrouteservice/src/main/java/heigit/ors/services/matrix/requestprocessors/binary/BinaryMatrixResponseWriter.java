@@ -0,0 +1,197 @@
+/*  This file is part of Openrouteservice.
+ *
+ *  Openrouteservice is free software; you can redistribute it and/or modify it under the terms of the
+ *  GNU Lesser General Public License as published by the Free Software Foundation; either version 2.1
+ *  of the License, or (at your option) any later version.
+
+ *  This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ *  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *  See the GNU Lesser General Public License for more details.
+
+ *  You should have received a copy of the GNU Lesser General Public License along with this library;
+ *  if not, see <https://www.gnu.org/licenses/>.
+ */
+package heigit.ors.services.matrix.requestprocessors.binary;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+
+import com.vividsolutions.jts.geom.Coordinate;
+
+import heigit.ors.common.DistanceUnit;
+import heigit.ors.matrix.MatrixMetricsType;
+import heigit.ors.matrix.MatrixResult;
+import heigit.ors.matrix.ResolvedLocation;
+
+/**
+ * Writes a matrix response in a compact binary format. All values are little-endian.
+ *
+ * <pre>
+ * header (16 bytes)
+ *   byte[4]  magic "ORSM"
+ *   uint8    format version (1)
+ *   uint8    metrics, a combination of MatrixMetricsType flags (Duration = 1, Distance = 2, Weight = 4)
+ *   uint8    distance units, the ordinal of DistanceUnit (Meters = 0, Kilometers = 1, Miles = 2)
+ *   uint8    flags, bit 0 is set if location names are included
+ *   int32    number of sources (rows)
+ *   int32    number of destinations (columns)
+ * tables, one per metric in the order durations, distances, weights
+ *   float32[rows * columns]  row-major values, -1 marks unreachable pairs
+ * locations, the sources followed by the destinations
+ *   float64  longitude, NaN if the location could not be resolved
+ *   float64  latitude, NaN if the location could not be resolved
+ *   float32  snapped distance
+ *   if names are included: int32 length of the UTF-8 encoded name in bytes (-1 if there is none), then the bytes
+ * </pre>
+ */
+public class BinaryMatrixResponseWriter {
+	public static final byte[] MAGIC = { 'O', 'R', 'S', 'M' };
+	public static final int VERSION = 1;
+	public static final int FLAG_LOCATION_NAMES = 1;
+	public static final int[] METRICS_ORDER = { MatrixMetricsType.Duration, MatrixMetricsType.Distance, MatrixMetricsType.Weight };
+
+	private static final int HEADER_SIZE = 16;
+	private static final int LOCATION_SIZE = 8 + 8 + 4;
+	private static final int BUFFER_SIZE = 65536;
+
+	private final int _metrics;
+	private final DistanceUnit _units;
+	private final boolean _includeLocationNames;
+	private final MatrixResult _result;
+	private final int _rows;
+	private final int _columns;
+	private byte[][] _sourceNames;
+	private byte[][] _destinationNames;
+
+	public BinaryMatrixResponseWriter(MatrixResult result, int metrics, DistanceUnit units, boolean includeLocationNames) {
+		_result = result;
+		_metrics = metrics;
+		_units = units == null ? DistanceUnit.Meters : units;
+		_includeLocationNames = includeLocationNames;
+		_rows = result.getSources().length;
+		_columns = result.getDestinations().length;
+
+		if (includeLocationNames) {
+			_sourceNames = encodeNames(result.getSources());
+			_destinationNames = encodeNames(result.getDestinations());
+		}
+	}
+
+	/**
+	 * Returns the exact number of bytes {@link #write(OutputStream)} produces.
+	 */
+	public long getContentLength() {
+		long length = HEADER_SIZE;
+
+		for (int metric : METRICS_ORDER) {
+			if (MatrixMetricsType.isSet(_metrics, metric))
+				length += 4L * _rows * _columns;
+		}
+
+		length += (long) LOCATION_SIZE * (_rows + _columns);
+		if (_includeLocationNames)
+			length += getNamesLength(_sourceNames) + getNamesLength(_destinationNames);
+
+		return length;
+	}
+
+	public void write(OutputStream stream) throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+
+		buffer.put(MAGIC);
+		buffer.put((byte) VERSION);
+		buffer.put((byte) _metrics);
+		buffer.put((byte) _units.ordinal());
+		buffer.put((byte) (_includeLocationNames ? FLAG_LOCATION_NAMES : 0));
+		buffer.putInt(_rows);
+		buffer.putInt(_columns);
+
+		for (int metric : METRICS_ORDER) {
+			if (MatrixMetricsType.isSet(_metrics, metric))
+				writeTable(stream, buffer, _result.getTable(metric), _rows * _columns);
+		}
+
+		writeLocations(stream, buffer, _result.getSources(), _sourceNames);
+		writeLocations(stream, buffer, _result.getDestinations(), _destinationNames);
+
+		flush(stream, buffer);
+		stream.flush();
+	}
+
+	private static void writeTable(OutputStream stream, ByteBuffer buffer, float[] values, int size) throws IOException {
+		int offset = 0;
+
+		while (offset < size) {
+			if (buffer.remaining() < 4)
+				flush(stream, buffer);
+
+			// Bulk copy as many values as fit into the buffer; the float view takes care of the byte order.
+			int count = Math.min(size - offset, buffer.remaining() / 4);
+			buffer.asFloatBuffer().put(values, offset, count);
+			buffer.position(buffer.position() + count * 4);
+			offset += count;
+		}
+	}
+
+	private static void writeLocations(OutputStream stream, ByteBuffer buffer, ResolvedLocation[] locations, byte[][] names) throws IOException {
+		for (int i = 0; i < locations.length; i++) {
+			if (buffer.remaining() < LOCATION_SIZE + 4)
+				flush(stream, buffer);
+
+			ResolvedLocation loc = locations[i];
+			if (loc != null) {
+				Coordinate c = loc.getCoordinate();
+				buffer.putDouble(c.x);
+				buffer.putDouble(c.y);
+				buffer.putFloat((float) loc.getSnappedDistance());
+			} else {
+				buffer.putDouble(Double.NaN);
+				buffer.putDouble(Double.NaN);
+				buffer.putFloat(0);
+			}
+
+			if (names != null) {
+				byte[] name = names[i];
+				buffer.putInt(name == null ? -1 : name.length);
+				if (name != null) {
+					int offset = 0;
+					while (offset < name.length) {
+						if (!buffer.hasRemaining())
+							flush(stream, buffer);
+						int count = Math.min(name.length - offset, buffer.remaining());
+						buffer.put(name, offset, count);
+						offset += count;
+					}
+				}
+			}
+		}
+	}
+
+	private static void flush(OutputStream stream, ByteBuffer buffer) throws IOException {
+		stream.write(buffer.array(), 0, buffer.position());
+		buffer.clear();
+	}
+
+	private static byte[][] encodeNames(ResolvedLocation[] locations) {
+		byte[][] names = new byte[locations.length][];
+
+		for (int i = 0; i < locations.length; i++) {
+			if (locations[i] != null && locations[i].getName() != null)
+				names[i] = locations[i].getName().getBytes(StandardCharsets.UTF_8);
+		}
+
+		return names;
+	}
+
+	private static long getNamesLength(byte[][] names) {
+		long length = 0;
+
+		for (byte[] name : names)
+			length += 4 + (name == null ? 0 : name.length);
+
+		return length;
+	}
+}
@@ -26,7 +26,6 @@ import javax.servlet.http.HttpServletRequest;
 
 import heigit.ors.servlet.http.AbstractHttpRequestProcessor;
 import org.json.JSONArray;
-import org.json.JSONException;
 import org.json.JSONObject;
 
 import com.graphhopper.util.Helper;
@@ -39,6 +38,7 @@ import heigit.ors.exceptions.ParameterOutOfRangeException;
 import heigit.ors.exceptions.ParameterValueException;
 import heigit.ors.exceptions.StatusCodeException;
 import heigit.ors.exceptions.UnknownParameterValueException;
+import heigit.ors.io.JsonStreamReader;
 import heigit.ors.matrix.MatrixErrorCodes;
 import heigit.ors.matrix.MatrixMetricsType;
 import heigit.ors.matrix.MatrixRequest;
@@ -48,20 +48,15 @@ import heigit.ors.util.ArraysUtility;
 import heigit.ors.util.CoordTools;
 import heigit.ors.util.DistanceUnitUtil;
 import heigit.ors.util.JsonUtility;
-import heigit.ors.util.StreamUtility;
 
 public class JsonMatrixRequestParser {
 
     public static MatrixRequest parseFromStream(InputStream stream) throws Exception {
-        String body = StreamUtility.readStream(stream);
-
-        if (Helper.isEmpty(body))
-            throw new StatusCodeException(StatusCode.BAD_REQUEST, MatrixErrorCodes.INVALID_JSON_FORMAT, "Unable to parse JSON document.");
-
+        JsonStreamReader reader = new JsonStreamReader(stream);
         JSONObject json = null;
 
         try {
-            json = new JSONObject(body);
+            json = reader.readObject("locations");
         } catch (Exception ex) {
             throw new StatusCodeException(StatusCode.BAD_REQUEST, MatrixErrorCodes.INVALID_JSON_FORMAT, "Unable to parse JSON document." + ex.getMessage());
         }
@@ -90,29 +85,28 @@ public class JsonMatrixRequestParser {
         }
 
 
-        JSONArray jLocations = json.optJSONArray("locations");
+        double[] coordinates = JsonStreamReader.getCoordinates(json, "locations");
         Coordinate[] locations = null;
 
-        if (jLocations != null) {
-            try {
-                int nLocations = jLocations.length();
-                if (nLocations < 2)
-                    throw new ParameterValueException(MatrixErrorCodes.INVALID_PARAMETER_VALUE, "locations");
+        if (coordinates != null) {
+            if (reader.hasInvalidCoordinates("locations"))
+                throw new ParameterValueException(MatrixErrorCodes.INVALID_PARAMETER_FORMAT, "locations");
 
-                locations = new Coordinate[nLocations];
+            int nLocations = coordinates.length / 2;
+            if (nLocations < 2)
+                throw new ParameterValueException(MatrixErrorCodes.INVALID_PARAMETER_VALUE, "locations");
 
-                for (int i = 0; i < nLocations; i++) {
-                    JSONArray jCoordinate = jLocations.getJSONArray(i);
+            locations = new Coordinate[nLocations];
 
-                    if (jCoordinate.length() < 2)
-                        throw new ParameterValueException(MatrixErrorCodes.INVALID_PARAMETER_VALUE, "locations");
+            for (int i = 0; i < nLocations; i++) {
+                double x = coordinates[2 * i];
+                double y = coordinates[2 * i + 1];
 
-                    locations[i] = new Coordinate(jCoordinate.getDouble(0), jCoordinate.getDouble(1));
-                }
-            } catch (NumberFormatException nfex) {
-                throw new ParameterValueException(MatrixErrorCodes.INVALID_PARAMETER_FORMAT, "locations");
-            } catch (JSONException jex) {
-                throw new ParameterValueException(MatrixErrorCodes.INVALID_PARAMETER_FORMAT, "locations");
+                // missing components of a coordinate are returned as NaN
+                if (Double.isNaN(x) || Double.isNaN(y))
+                    throw new ParameterValueException(MatrixErrorCodes.INVALID_PARAMETER_VALUE, "locations");
+
+                locations[i] = new Coordinate(x, y);
             }
         } else {
             throw new MissingParameterException(MatrixErrorCodes.MISSING_PARAMETER, "locations");
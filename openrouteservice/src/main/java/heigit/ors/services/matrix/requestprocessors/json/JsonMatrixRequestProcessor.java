@@ -13,15 +13,18 @@
  */
 package heigit.ors.services.matrix.requestprocessors.json;
 
+import java.io.BufferedWriter;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
 import heigit.ors.routing.RoutingProfilesCollection;
-import org.json.JSONArray;
 import org.json.JSONObject;
 
 import com.graphhopper.util.Helper;
-import com.vividsolutions.jts.geom.Coordinate;
 
 import heigit.ors.common.StatusCode;
 import heigit.ors.config.AppConfig;
@@ -29,17 +32,14 @@ import heigit.ors.exceptions.ParameterOutOfRangeException;
 import heigit.ors.exceptions.StatusCodeException;
 import heigit.ors.matrix.MatrixRequest;
 import heigit.ors.matrix.MatrixResult;
-import heigit.ors.matrix.ResolvedLocation;
 import heigit.ors.matrix.MatrixErrorCodes;
 import heigit.ors.matrix.MatrixMetricsType;
 import heigit.ors.routing.RoutingProfileManager;
 import heigit.ors.routing.RoutingProfileType;
 import heigit.ors.services.matrix.MatrixServiceSettings;
 import heigit.ors.servlet.http.AbstractHttpRequestProcessor;
-import heigit.ors.servlet.util.ServletUtility;
 import heigit.ors.util.AppInfo;
 import heigit.ors.util.DistanceUnitUtil;
-import heigit.ors.util.FormatUtility;
 
 public class JsonMatrixRequestProcessor extends AbstractHttpRequestProcessor 
 {
@@ -115,20 +115,8 @@ public class JsonMatrixRequestProcessor extends AbstractHttpRequestProcessor
 		writeResponse(response, req, mtxResult);
 	}
 	
-	private void writeResponse(HttpServletResponse response, MatrixRequest request, MatrixResult mtxResult) throws Exception
+	protected void writeResponse(HttpServletResponse response, MatrixRequest request, MatrixResult mtxResult) throws Exception
 	{
-		JSONObject jResp = new JSONObject(true);
-		
-		if (MatrixMetricsType.isSet(request.getMetrics(), MatrixMetricsType.Distance))
-			jResp.put("distances", createTable(mtxResult.getTable(MatrixMetricsType.Distance), request.getSources().length, request.getDestinations().length));
-		if (MatrixMetricsType.isSet(request.getMetrics(), MatrixMetricsType.Duration))
-			jResp.put("durations", createTable(mtxResult.getTable(MatrixMetricsType.Duration), request.getSources().length, request.getDestinations().length));
-		if (MatrixMetricsType.isSet(request.getMetrics(), MatrixMetricsType.Weight))
-			jResp.put("weights", createTable(mtxResult.getTable(MatrixMetricsType.Weight), request.getSources().length, request.getDestinations().length));		
-
-		jResp.put("destinations", createLocations(mtxResult.getDestinations(), request.getResolveLocations()));
-		jResp.put("sources", createLocations(mtxResult.getSources(), request.getResolveLocations()));
-		
 		JSONObject jInfo = new JSONObject(true);
 		jInfo.put("service", "matrix");
 		jInfo.put("engine", AppInfo.getEngineInfo());
@@ -153,66 +141,37 @@ public class JsonMatrixRequestProcessor extends AbstractHttpRequestProcessor
 			jQuery.put("id", request.getId());
 
 		jInfo.put("query", jQuery);
-		jResp.put("info", jInfo);
-		
-		ServletUtility.write(response, jResp);
-	}
-	
-	private JSONArray createLocations(ResolvedLocation[] locations, boolean includeLocationNames)
-	{
-		JSONArray jLocations = new JSONArray(locations.length);
-		
-		for (int i = 0; i < locations.length; i++)
+
+		// The tables are streamed straight from the result arrays, so the length of the response is not known upfront.
+		response.setCharacterEncoding("UTF-8");
+		response.setContentType("application/json");
+		response.addHeader("Vary", "Accept-Encoding");
+
+		int rows = request.getSources().length;
+		int clms = request.getDestinations().length;
+
+		Writer out = new BufferedWriter(new OutputStreamWriter(response.getOutputStream(), StandardCharsets.UTF_8), 65536);
+		try
 		{
-			JSONObject jLoc = new JSONObject(true);
-
-			ResolvedLocation loc = locations[i];
-			if (loc != null)
-			{
-				Coordinate c = locations[i].getCoordinate();
-				JSONArray jCoord = new JSONArray(2);
-				jCoord.put(FormatUtility.roundToDecimals(c.x, 6));
-				jCoord.put(FormatUtility.roundToDecimals(c.y, 6));
-				jLoc.put("location", jCoord);
-
-				if (includeLocationNames && loc.getName() != null)
-					jLoc.put("name", loc.getName());
-
-				jLoc.put("snapped_distance",FormatUtility.roundToDecimals( loc.getSnappedDistance(), 2));
-			}
-			else
-				jLoc.put("location", JSONObject.NULL);
-			
-			jLocations.put(jLoc);
+			JsonMatrixResponseWriter writer = new JsonMatrixResponseWriter(out);
+			writer.startResponse();
+
+			if (MatrixMetricsType.isSet(request.getMetrics(), MatrixMetricsType.Distance))
+				writer.writeTable("distances", mtxResult.getTable(MatrixMetricsType.Distance), rows, clms);
+			if (MatrixMetricsType.isSet(request.getMetrics(), MatrixMetricsType.Duration))
+				writer.writeTable("durations", mtxResult.getTable(MatrixMetricsType.Duration), rows, clms);
+			if (MatrixMetricsType.isSet(request.getMetrics(), MatrixMetricsType.Weight))
+				writer.writeTable("weights", mtxResult.getTable(MatrixMetricsType.Weight), rows, clms);
+
+			writer.writeLocations("destinations", mtxResult.getDestinations(), request.getResolveLocations());
+			writer.writeLocations("sources", mtxResult.getSources(), request.getResolveLocations());
+			writer.writeObject("info", jInfo);
+
+			writer.endResponse();
 		}
-		
-		return jLocations;
-	}
-	
-	private JSONArray createTable(float[] values, int rows, int clms)
-	{
-		JSONArray jMatrix = new JSONArray(rows);
-		
-		int rowOffset = 0;
-		float value = 0;
-		
-		for (int i = 0; i < rows; ++i)
+		finally
 		{
-			JSONArray jRow = new JSONArray(clms);
-			rowOffset = i*clms;
-			
-			for (int j = 0; j < clms; ++j)
-			{
-				value = values[rowOffset + j];
-				if (value == -1)
-					jRow.put(JSONObject.NULL);
-				else
-					jRow.put(FormatUtility.roundToDecimals(value, 2));
-			}
-			
-			jMatrix.put(jRow);
+			out.close();
 		}
-		
-		return jMatrix;
 	}
 }
@@ -0,0 +1,168 @@
+/*  This file is part of Openrouteservice.
+ *
+ *  Openrouteservice is free software; you can redistribute it and/or modify it under the terms of the
+ *  GNU Lesser General Public License as published by the Free Software Foundation; either version 2.1
+ *  of the License, or (at your option) any later version.
+
+ *  This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ *  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *  See the GNU Lesser General Public License for more details.
+
+ *  You should have received a copy of the GNU Lesser General Public License along with this library;
+ *  if not, see <https://www.gnu.org/licenses/>.
+ */
+package heigit.ors.services.matrix.requestprocessors.json;
+
+import java.io.IOException;
+import java.io.Writer;
+
+import org.json.JSONObject;
+
+import com.vividsolutions.jts.geom.Coordinate;
+
+import heigit.ors.matrix.ResolvedLocation;
+
+/**
+ * Writes the JSON representation of a matrix response directly to a {@link Writer}. Table values are formatted
+ * from the <code>float[]</code> arrays of the result into a small character buffer, so no intermediate JSON tree
+ * or per-cell objects are created regardless of the size of the matrix.
+ */
+public class JsonMatrixResponseWriter {
+	private static final long[] POWERS_OF_TEN = { 1L, 10L, 100L, 1000L, 10000L, 100000L, 1000000L, 10000000L };
+	private static final char[] NULL_VALUE = { 'n', 'u', 'l', 'l' };
+
+	private final Writer _writer;
+	private final char[] _buffer = new char[32];
+	private boolean _firstMember = true;
+
+	public JsonMatrixResponseWriter(Writer writer) {
+		_writer = writer;
+	}
+
+	public void startResponse() throws IOException {
+		_writer.write('{');
+		_firstMember = true;
+	}
+
+	public void endResponse() throws IOException {
+		_writer.write('}');
+		_writer.flush();
+	}
+
+	/**
+	 * Writes a table of <code>rows</code> x <code>columns</code> values rounded to two decimals. Unreachable
+	 * entries (a value of -1) are written as <code>null</code>.
+	 */
+	public void writeTable(String name, float[] values, int rows, int columns) throws IOException {
+		writeName(name);
+
+		_writer.write('[');
+		for (int i = 0; i < rows; i++) {
+			if (i > 0)
+				_writer.write(',');
+
+			_writer.write('[');
+			int rowOffset = i * columns;
+			for (int j = 0; j < columns; j++) {
+				if (j > 0)
+					_writer.write(',');
+
+				float value = values[rowOffset + j];
+				if (value == -1 || Float.isNaN(value) || Float.isInfinite(value))
+					_writer.write(NULL_VALUE);
+				else
+					writeDecimal(value, 2);
+			}
+			_writer.write(']');
+		}
+		_writer.write(']');
+	}
+
+	public void writeLocations(String name, ResolvedLocation[] locations, boolean includeLocationNames) throws IOException {
+		writeName(name);
+
+		_writer.write('[');
+		for (int i = 0; i < locations.length; i++) {
+			if (i > 0)
+				_writer.write(',');
+
+			ResolvedLocation loc = locations[i];
+			if (loc != null) {
+				Coordinate c = loc.getCoordinate();
+				_writer.write("{\"location\":[");
+				writeDecimal(c.x, 6);
+				_writer.write(',');
+				writeDecimal(c.y, 6);
+				_writer.write(']');
+
+				if (includeLocationNames && loc.getName() != null) {
+					_writer.write(",\"name\":");
+					JSONObject.quote(loc.getName(), _writer);
+				}
+
+				_writer.write(",\"snapped_distance\":");
+				writeDecimal(loc.getSnappedDistance(), 2);
+				_writer.write('}');
+			} else {
+				_writer.write("{\"location\":null}");
+			}
+		}
+		_writer.write(']');
+	}
+
+	/**
+	 * Writes a small object, such as the info block, using its own serialisation.
+	 */
+	public void writeObject(String name, JSONObject object) throws IOException {
+		writeName(name);
+		object.write(_writer);
+	}
+
+	private void writeName(String name) throws IOException {
+		if (!_firstMember)
+			_writer.write(',');
+		_firstMember = false;
+
+		JSONObject.quote(name, _writer);
+		_writer.write(':');
+	}
+
+	/**
+	 * Writes the value rounded half up to the given number of decimals without trailing zeros, which is the same
+	 * text <code>org.json</code> produces for <code>FormatUtility.roundToDecimals(value, decimals)</code> in the
+	 * range used by matrix responses.
+	 */
+	private void writeDecimal(double value, int decimals) throws IOException {
+		long scaled = Math.round(value * POWERS_OF_TEN[decimals]);
+		boolean negative = scaled < 0;
+		if (negative)
+			scaled = -scaled;
+
+		long integerPart = scaled / POWERS_OF_TEN[decimals];
+		long fraction = scaled % POWERS_OF_TEN[decimals];
+
+		int pos = _buffer.length;
+		if (fraction != 0) {
+			int digits = decimals;
+			while (fraction % 10 == 0) {
+				fraction /= 10;
+				digits--;
+			}
+			for (int i = 0; i < digits; i++) {
+				_buffer[--pos] = (char) ('0' + fraction % 10);
+				fraction /= 10;
+			}
+			_buffer[--pos] = '.';
+		}
+
+		do {
+			_buffer[--pos] = (char) ('0' + integerPart % 10);
+			integerPart /= 10;
+		} while (integerPart != 0);
+
+		if (negative)
+			_buffer[--pos] = '-';
+
+		_writer.write(_buffer, pos, _buffer.length - pos);
+	}
+}
@@ -25,6 +25,7 @@ public class RoutingServiceSettings {
 	private static String sourceFile = "";
 	private static String workingMode = "Normal"; // Normal or PrepareGraphs
 	private static int initializationThreads = 1;
+	private static boolean sharedImport = false;
 	private static boolean distanceApproximation = false;
 	private static String storageFormat = "Native";
 	private static String attribution = "";
@@ -59,6 +60,10 @@ public class RoutingServiceSettings {
 		if (value != null)
 			initializationThreads = Integer.parseInt(value);
 		
+		value = config.getServiceParameter("routing", "shared_import");
+		if (value != null)
+			sharedImport = Boolean.parseBoolean(value);
+		
 		value = config.getServiceParameter("routing", "distance_approximation");
 		if (value != null)
 			distanceApproximation = Boolean.parseBoolean(value);
@@ -89,6 +94,10 @@ public class RoutingServiceSettings {
 		return initializationThreads;
 	}
 	
+	public static boolean getSharedImport() {
+		return sharedImport;
+	}
+	
 	public static boolean getDistanceApproximation()	{
 		return distanceApproximation;
 	}
@@ -24,8 +24,12 @@ import javax.servlet.ServletResponse;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
+import heigit.ors.config.AppConfig;
+
 public class CompressionFilter implements Filter 
 {
+	private int _minimumSize = 1024;
+
 	public void doFilter(ServletRequest req, ServletResponse res, FilterChain chain) throws IOException, ServletException 
 	{
 		if (req instanceof HttpServletRequest)
@@ -43,16 +47,19 @@ public class CompressionFilter implements Filter
 					chain.doFilter(req, wrappedResponse);
 					wrappedResponse.finishResponse();
 					return;
-				}
-				else*/ if(acceptEncoding.indexOf(ContentEncodingType.GZIP) != -1) {
-					GZIPResponseWrapper wrappedResponse = new GZIPResponseWrapper(response);
+				}*/
+				String contentEncoding = null;
+				if (acceptEncoding.indexOf(ContentEncodingType.GZIP) != -1)
+					contentEncoding = ContentEncodingType.GZIP;
+				else if (acceptEncoding.indexOf(ContentEncodingType.DEFLATE) != -1)
+					contentEncoding = ContentEncodingType.DEFLATE;
+
+				if (contentEncoding != null) {
+					CompressionResponseWrapper wrappedResponse = new CompressionResponseWrapper(response, contentEncoding, _minimumSize);
 					chain.doFilter(req, wrappedResponse);
 					wrappedResponse.finishResponse();
 					return;
 				}
-				else if (acceptEncoding.indexOf(ContentEncodingType.DEFLATE) != -1) {
-                   // todo
-				}
 			}
 
 			chain.doFilter(req, res);
@@ -60,7 +67,9 @@ public class CompressionFilter implements Filter
 	}
 
 	public void init(FilterConfig filterConfig) {
-
+		String value = AppConfig.Global().getParameter("compression", "minimum_size");
+		if (value != null)
+			_minimumSize = Math.max(0, Integer.parseInt(value));
 	}
 
 	public void destroy() {
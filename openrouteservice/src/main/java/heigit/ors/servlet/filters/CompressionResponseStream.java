@@ -0,0 +1,147 @@
+/*  This file is part of Openrouteservice.
+ *
+ *  Openrouteservice is free software; you can redistribute it and/or modify it under the terms of the 
+ *  GNU Lesser General Public License as published by the Free Software Foundation; either version 2.1 
+ *  of the License, or (at your option) any later version.
+
+ *  This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; 
+ *  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. 
+ *  See the GNU Lesser General Public License for more details.
+
+ *  You should have received a copy of the GNU Lesser General Public License along with this library; 
+ *  if not, see <https://www.gnu.org/licenses/>.  
+ */
+package heigit.ors.servlet.filters;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Compresses the response body while it is being written. Output is held back until it exceeds the minimum size;
+ * smaller responses are sent uncompressed with their exact length. Larger ones are compressed in chunks straight
+ * into the servlet output stream, which the container sends with chunked transfer encoding.
+ */
+class CompressionResponseStream extends ServletOutputStream { 
+	private static final int BUFFER_SIZE = 8192;
+
+	private HttpServletResponse _response = null;
+	private String _contentEncoding = null;
+	private byte[] _buffer = null;
+	private int _count = 0;
+	private Deflater _deflater = null;
+	private OutputStream _compressedStream = null;
+	private boolean _closed = false;
+
+	public CompressionResponseStream(HttpServletResponse response, String contentEncoding, int minimumSize) throws IOException {
+		super();
+		
+		_response = response;
+		_contentEncoding = contentEncoding;
+		_buffer = new byte[minimumSize];
+	}
+
+	public void close() throws IOException {
+		if (_closed) 
+			throw new IOException("This output stream has already been closed");
+
+		if (_compressedStream == null)
+		{
+			ServletOutputStream outputStream = _response.getOutputStream();
+			_response.setContentLength(_count);
+			outputStream.write(_buffer, 0, _count);
+			outputStream.close();
+		}
+		else
+		{
+			_compressedStream.close();
+			if (_deflater != null)
+				_deflater.end();
+		}
+
+		_buffer = null;
+		_closed = true;
+	}
+	
+	public boolean isClosed() {
+		return _closed;
+	}
+
+	public void flush() throws IOException {
+		if (_closed) 
+			throw new IOException("Cannot flush a closed output stream");
+
+		// Until the minimum size is reached it is not yet known whether the response will be compressed.
+		if (_compressedStream != null)
+			_compressedStream.flush();
+	}
+
+	public void write(int b) throws IOException {
+		if (_closed) 
+			throw new IOException("Cannot write to a closed output stream");
+
+		if (_compressedStream == null && _count == _buffer.length)
+			startCompression();
+
+		if (_compressedStream != null)
+			_compressedStream.write(b);
+		else
+			_buffer[_count++] = (byte)b;
+	}
+
+	public void write(byte b[]) throws IOException {
+		write(b, 0, b.length);
+	}
+
+	public void write(byte b[], int off, int len) throws IOException {
+		if (_closed) 
+			throw new IOException("Cannot write to a closed output stream");
+
+		if (_compressedStream == null && _count + len > _buffer.length)
+			startCompression();
+
+		if (_compressedStream != null)
+			_compressedStream.write(b, off, len);
+		else
+		{
+			System.arraycopy(b, off, _buffer, _count, len);
+			_count += len;
+		}
+	}
+
+	private void startCompression() throws IOException {
+		_response.addHeader("Content-Encoding", _contentEncoding);
+
+		ServletOutputStream outputStream = _response.getOutputStream();
+		// Sync flushing makes flush() push all data written so far to the client.
+		if (ContentEncodingType.GZIP.equals(_contentEncoding))
+			_compressedStream = new GZIPOutputStream(outputStream, BUFFER_SIZE, true);
+		else
+		{
+			_deflater = new Deflater(Deflater.DEFAULT_COMPRESSION);
+			_compressedStream = new DeflaterOutputStream(outputStream, _deflater, BUFFER_SIZE, true);
+		}
+
+		_compressedStream.write(_buffer, 0, _count);
+		_buffer = null;
+	}
+
+	public void reset() {
+
+	}
+
+	@Override
+	public boolean isReady() {
+		return false;
+	}
+
+	@Override
+	public void setWriteListener(WriteListener arg0) {
+	}
+}
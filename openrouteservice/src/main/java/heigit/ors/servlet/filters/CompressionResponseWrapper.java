@@ -21,18 +21,22 @@ import javax.servlet.ServletOutputStream;
 import javax.servlet.http.HttpServletResponse;
 import javax.servlet.http.HttpServletResponseWrapper;
 
-class GZIPResponseWrapper extends HttpServletResponseWrapper {
+class CompressionResponseWrapper extends HttpServletResponseWrapper {
 	protected HttpServletResponse _origResponse = null;
-	protected GZIPResponseStream _stream = null;
+	protected CompressionResponseStream _stream = null;
 	protected PrintWriter _writer = null;
+	protected String _contentEncoding = null;
+	protected int _minimumSize;
 
-	public GZIPResponseWrapper(HttpServletResponse response) {
+	public CompressionResponseWrapper(HttpServletResponse response, String contentEncoding, int minimumSize) {
 		super(response);
 		_origResponse = response;
+		_contentEncoding = contentEncoding;
+		_minimumSize = minimumSize;
 	}
 
-	public GZIPResponseStream createOutputStream() throws IOException {
-		return new GZIPResponseStream(_origResponse);
+	public CompressionResponseStream createOutputStream() throws IOException {
+		return new CompressionResponseStream(_origResponse, _contentEncoding, _minimumSize);
 	}
 
 	public void finishResponse() {
@@ -77,4 +81,6 @@ class GZIPResponseWrapper extends HttpServletResponseWrapper {
 	}
 
 	public void setContentLength(int length) {}
+
+	public void setContentLengthLong(long length) {}
 }
@@ -0,0 +1,66 @@
+/*  This file is part of Openrouteservice.
+ *
+ *  Openrouteservice is free software; you can redistribute it and/or modify it under the terms of the 
+ *  GNU Lesser General Public License as published by the Free Software Foundation; either version 2.1 
+ *  of the License, or (at your option) any later version.
+
+ *  This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; 
+ *  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. 
+ *  See the GNU Lesser General Public License for more details.
+
+ *  You should have received a copy of the GNU Lesser General Public License along with this library; 
+ *  if not, see <https://www.gnu.org/licenses/>.  
+ */
+package heigit.ors.servlet.filters;
+
+import java.io.IOException;
+
+import javax.servlet.Filter;
+import javax.servlet.FilterChain;
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import heigit.ors.common.StatusCode;
+import heigit.ors.metrics.ServiceMetrics;
+
+/**
+ * Records the number, status codes and latency of requests to the endpoints the filter is mapped to.
+ */
+public class MetricsFilter implements Filter 
+{
+	public void doFilter(ServletRequest req, ServletResponse res, FilterChain chain) throws IOException, ServletException 
+	{
+		if (!(req instanceof HttpServletRequest))
+		{
+			chain.doFilter(req, res);
+			return;
+		}
+
+		HttpServletRequest request = (HttpServletRequest) req;
+		HttpServletResponse response = (HttpServletResponse) res;
+		long startTime = System.nanoTime();
+		int statusCode = StatusCode.INTERNAL_SERVER_ERROR;
+
+		try
+		{
+			chain.doFilter(req, res);
+			statusCode = response.getStatus();
+		}
+		finally
+		{
+			ServiceMetrics.recordHttpRequest(request.getServletPath(), statusCode, startTime);
+		}
+	}
+
+	public void init(FilterConfig filterConfig) {
+
+	}
+
+	public void destroy() {
+
+	}
+}
@@ -22,6 +22,7 @@ import org.json.JSONObject;
 
 import heigit.ors.common.StatusCode;
 import heigit.ors.exceptions.InternalServerException;
+import heigit.ors.exceptions.ServiceUnavailableException;
 import heigit.ors.exceptions.StatusCodeException;
 import heigit.ors.servlet.util.ServletUtility;
 import heigit.ors.util.AppInfo;
@@ -65,6 +66,9 @@ public class BaseHttpServlet extends HttpServlet
 				StatusCodeException sce = (StatusCodeException)ex;
 				statusCode = sce.getStatusCode();
 				errorCode = sce.getInternalCode();
+
+				if (ex instanceof ServiceUnavailableException)
+					res.setHeader("Retry-After", Integer.toString(((ServiceUnavailableException)ex).getRetryAfter()));
 			}
 			
 			if (errorCode > 0)
@@ -0,0 +1,53 @@
+/*  This file is part of Openrouteservice.
+ *
+ *  Openrouteservice is free software; you can redistribute it and/or modify it under the terms of the 
+ *  GNU Lesser General Public License as published by the Free Software Foundation; either version 2.1 
+ *  of the License, or (at your option) any later version.
+
+ *  This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; 
+ *  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. 
+ *  See the GNU Lesser General Public License for more details.
+
+ *  You should have received a copy of the GNU Lesser General Public License along with this library; 
+ *  if not, see <https://www.gnu.org/licenses/>.  
+ */
+package heigit.ors.servlet.http;
+
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+
+import javax.servlet.*;
+import javax.servlet.http.*;
+
+import heigit.ors.metrics.MetricsRegistry;
+import heigit.ors.servlet.util.ServletUtility;
+
+/**
+ * Exposes the recorded service metrics in the Prometheus text format.
+ */
+public class MetricsServlet extends BaseHttpServlet {
+
+	private static final long serialVersionUID = 1L;
+
+	private static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+	public void init() throws ServletException {
+
+	}
+
+	public void destroy() {
+	}
+
+	public void doGet(HttpServletRequest request, HttpServletResponse response) throws ServletException {
+		try
+		{
+			StringWriter writer = new StringWriter();
+			MetricsRegistry.getInstance().write(writer);
+
+			ServletUtility.write(response, writer.toString().getBytes(StandardCharsets.UTF_8), CONTENT_TYPE);
+		}
+		catch (Exception ex) {
+			writeError(response, ex);
+		}
+	}
+}
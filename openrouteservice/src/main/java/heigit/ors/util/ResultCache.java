@@ -0,0 +1,109 @@
+/*  This file is part of Openrouteservice.
+ *
+ *  Openrouteservice is free software; you can redistribute it and/or modify it under the terms of the
+ *  GNU Lesser General Public License as published by the Free Software Foundation; either version 2.1
+ *  of the License, or (at your option) any later version.
+
+ *  This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ *  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *  See the GNU Lesser General Public License for more details.
+
+ *  You should have received a copy of the GNU Lesser General Public License along with this library;
+ *  if not, see <https://www.gnu.org/licenses/>.
+ */
+package heigit.ors.util;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A thread-safe cache of computed results which evicts the least recently used entry once the maximum number of
+ * entries is reached. Entries older than the given time to live are treated as missing.
+ */
+public class ResultCache<K, V> {
+	private final int _maximumSize;
+	private final long _timeToLive;
+	private final LinkedHashMap<K, Entry<V>> _entries;
+	private final AtomicLong _hits = new AtomicLong();
+	private final AtomicLong _misses = new AtomicLong();
+
+	/**
+	 * @param maximumSize	The maximum number of entries
+	 * @param timeToLive	The time in milliseconds after which an entry expires, a value of 0 disables expiration
+	 */
+	public ResultCache(int maximumSize, long timeToLive) {
+		_maximumSize = maximumSize;
+		_timeToLive = timeToLive;
+		_entries = new LinkedHashMap<K, Entry<V>>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+				return size() > _maximumSize;
+			}
+		};
+	}
+
+	public V get(K key) {
+		Entry<V> entry;
+
+		synchronized (_entries) {
+			entry = _entries.get(key);
+			if (entry != null && _timeToLive > 0 && System.currentTimeMillis() - entry.created > _timeToLive) {
+				_entries.remove(key);
+				entry = null;
+			}
+		}
+
+		if (entry == null) {
+			_misses.incrementAndGet();
+			return null;
+		}
+
+		_hits.incrementAndGet();
+		return entry.value;
+	}
+
+	public void put(K key, V value) {
+		synchronized (_entries) {
+			_entries.put(key, new Entry<V>(value, System.currentTimeMillis()));
+		}
+	}
+
+	public void clear() {
+		synchronized (_entries) {
+			_entries.clear();
+		}
+	}
+
+	public int size() {
+		synchronized (_entries) {
+			return _entries.size();
+		}
+	}
+
+	public long getHits() {
+		return _hits.get();
+	}
+
+	public long getMisses() {
+		return _misses.get();
+	}
+
+	public double getHitRatio() {
+		long hits = _hits.get();
+		long total = hits + _misses.get();
+		return total == 0 ? 0.0 : (double) hits / total;
+	}
+
+	private static class Entry<V> {
+		private final V value;
+		private final long created;
+
+		Entry(V value, long created) {
+			this.value = value;
+			this.created = created;
+		}
+	}
+}
@@ -13,6 +13,9 @@
  */
 package heigit.ors.util;
 
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
 import java.text.DecimalFormat;
 
 import org.apache.log4j.Logger;
@@ -34,6 +37,24 @@ public class RuntimeUtility {
 				+ getMemorySize(Runtime.getRuntime().totalMemory() -(Runtime.getRuntime().freeMemory())));
 	}
 	
+	/**
+	 * Returns the sum of the highest usage of all heap memory pools since the start or the last reset. As the pools
+	 * reach their peaks at different times, this is an upper bound of the heap actually used at once.
+	 */
+	public static long getPeakMemoryUsage() {
+		long usage = 0;
+		for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+			if (pool.getType() == MemoryType.HEAP && pool.isValid())
+				usage += pool.getPeakUsage().getUsed();
+		}
+		return usage;
+	}
+
+	public static void resetPeakMemoryUsage() {
+		for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans())
+			pool.resetPeakUsage();
+	}
+
 	public static String getMemorySize(long size)
 	{
         String hrSize = null;
@@ -18,7 +18,9 @@ import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.Reader;
 import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
 
 import com.graphhopper.util.Helper;
 
@@ -55,7 +57,7 @@ public class StreamUtility {
 	 */
 	public static String readStream(InputStream stream, int bufferSize, String encoding) throws IOException {
 		StringWriter sw = new StringWriter();
-		int bytesRead;
+		int charsRead;
 
 		if (!Helper.isEmpty(encoding)) {
 			BufferedReader br = new BufferedReader(new InputStreamReader(stream, encoding), bufferSize);
@@ -64,10 +66,12 @@ public class StreamUtility {
 				sw.write(str);
 			}
 		} else {
-			byte[] buffer = new byte[bufferSize];
+			// Decoding through a reader keeps multi-byte characters intact across buffer boundaries.
+			Reader reader = new InputStreamReader(stream, StandardCharsets.UTF_8);
+			char[] buffer = new char[bufferSize];
 
-			while ((bytesRead = stream.read(buffer)) != -1) {
-				sw.write(new String(buffer, 0, bytesRead));
+			while ((charsRead = reader.read(buffer)) != -1) {
+				sw.write(buffer, 0, charsRead);
 			}
 		}
 
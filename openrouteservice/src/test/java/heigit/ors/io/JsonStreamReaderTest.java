@@ -0,0 +1,97 @@
+package heigit.ors.io;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class JsonStreamReaderTest {
+    private static JsonStreamReader createReader(String json) {
+        return new JsonStreamReader(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    public void readsCoordinatesIntoArray() throws Exception {
+        JsonStreamReader reader = createReader("{\"profile\":\"driving-car\",\"locations\":[[8.681495,49.41461], [ -8.686507 , 49.41943, 100 ],[1e2,0.000001234567890123456]],\"id\":5}");
+        JSONObject json = reader.readObject("locations");
+
+        assertArrayEquals(new double[] { 8.681495, 49.41461, -8.686507, 49.41943, 100, 0.000001234567890123456 }, JsonStreamReader.getCoordinates(json, "locations"), 0);
+        assertFalse(reader.hasInvalidCoordinates("locations"));
+        assertEquals("driving-car", json.getString("profile"));
+        assertEquals("5", json.optString("id"));
+    }
+
+    @Test
+    public void marksMissingAndInvalidCoordinates() throws Exception {
+        JsonStreamReader reader = createReader("{\"locations\":[[8.68],[8.68,\"a\"]]}");
+        JSONObject json = reader.readObject("locations");
+
+        double[] coordinates = JsonStreamReader.getCoordinates(json, "locations");
+        assertEquals(4, coordinates.length);
+        assertTrue(Double.isNaN(coordinates[1]));
+        assertTrue(reader.hasInvalidCoordinates("locations"));
+    }
+
+    @Test
+    public void acceptsNumericStrings() throws Exception {
+        JsonStreamReader reader = createReader("{\"locations\":[[\"8.681495\",\"49.41461\"],[8.686507,\"-49.41943\"]]}");
+        JSONObject json = reader.readObject("locations");
+
+        assertArrayEquals(new double[] { 8.681495, 49.41461, 8.686507, -49.41943 }, JsonStreamReader.getCoordinates(json, "locations"), 0);
+        assertFalse(reader.hasInvalidCoordinates("locations"));
+    }
+
+    @Test
+    public void marksFlatCoordinateListAsInvalid() throws Exception {
+        JsonStreamReader reader = createReader("{\"locations\":[8.68,49.41]}");
+        reader.readObject("locations");
+
+        assertTrue(reader.hasInvalidCoordinates("locations"));
+    }
+
+    @Test
+    public void readsNestedPoints() throws Exception {
+        JsonStreamReader reader = createReader("{\"travellers\":[{\"profile\":\"driving-car\",\"location\":[8.681495,49.41461]},{\"location\":[\"8.69\",49.42,0]}]}");
+        JSONObject json = reader.readObject(null, new String[] { "location" });
+
+        JSONArray travellers = json.getJSONArray("travellers");
+        assertArrayEquals(new double[] { 8.681495, 49.41461 }, JsonStreamReader.getCoordinates(travellers.getJSONObject(0), "location"), 0);
+        assertArrayEquals(new double[] { 8.69, 49.42 }, JsonStreamReader.getCoordinates(travellers.getJSONObject(1), "location"), 0);
+        assertEquals("driving-car", travellers.getJSONObject(0).getString("profile"));
+        assertFalse(reader.hasInvalidCoordinates("location"));
+    }
+
+    @Test
+    public void keepsOtherValuesInObject() throws Exception {
+        JsonStreamReader reader = createReader("{\"locations\":\"8.68,49.41|8.69,49.42\"}");
+        JSONObject json = reader.readObject("locations");
+
+        assertNull(JsonStreamReader.getCoordinates(json, "locations"));
+        assertEquals("8.68,49.41|8.69,49.42", json.getString("locations"));
+    }
+
+    @Test
+    public void decodesMultiByteCharacters() throws Exception {
+        StringBuilder sb = new StringBuilder();
+        while (sb.length() < 20000)
+            sb.append("äöü€");
+
+        JSONObject json = createReader("{\"name\":\"" + sb + "\"}").readObject();
+
+        assertEquals(sb.toString(), json.getString("name"));
+    }
+
+    @Test(expected = JSONException.class)
+    public void rejectsDuplicateCoordinateKeys() throws Exception {
+        createReader("{\"locations\":[[1,2]],\"locations\":[]}").readObject("locations");
+    }
+}
@@ -0,0 +1,158 @@
+package heigit.ors.isochrones.builders.concaveballs;
+
+import com.carrotsearch.hppc.IntObjectHashMap;
+import com.carrotsearch.hppc.IntObjectMap;
+import com.graphhopper.GraphHopper;
+import com.graphhopper.routing.util.EncodingManager;
+import com.graphhopper.storage.DAType;
+import com.graphhopper.storage.GHDirectory;
+import com.graphhopper.storage.GraphExtension;
+import com.graphhopper.storage.GraphHopperStorage;
+import com.graphhopper.storage.NodeAccess;
+import com.graphhopper.storage.SPTEntry;
+import com.graphhopper.util.DistanceCalc;
+import com.graphhopper.util.EdgeIterator;
+import com.graphhopper.util.Helper;
+import com.vividsolutions.jts.geom.Coordinate;
+import heigit.ors.common.TravelRangeType;
+import heigit.ors.isochrones.IsochroneMap;
+import heigit.ors.isochrones.IsochroneSearchParameters;
+import heigit.ors.routing.RouteSearchContext;
+import heigit.ors.routing.graphhopper.extensions.ORSDefaultFlagEncoderFactory;
+import heigit.ors.routing.graphhopper.extensions.flagencoders.FlagEncoderNames;
+import org.junit.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ConcaveBallsIsochroneMapBuilderTest {
+    private static final int SIZE = 15;
+    private static final int CENTER = SIZE / 2;
+    private static final double SPACING = 0.005;
+
+    private final DistanceCalc distCalc = Helper.DIST_EARTH;
+    private final GraphHopperStorage _graphStorage;
+    private final int[][] _horizontalEdges = new int[SIZE][SIZE - 1];
+    private final int[][] _verticalEdges = new int[SIZE - 1][SIZE];
+
+    /**
+     * A grid of SIZE x SIZE nodes, which are about 500 m apart.
+     */
+    public ConcaveBallsIsochroneMapBuilderTest() {
+        EncodingManager encodingManager = new EncodingManager(new ORSDefaultFlagEncoderFactory(), FlagEncoderNames.CAR_ORS, 4);
+        _graphStorage = new GraphHopperStorage(new GHDirectory("", DAType.RAM_STORE), encodingManager, false, new GraphExtension.NoOpExtension());
+        _graphStorage.create(SIZE * SIZE);
+
+        NodeAccess nodeAccess = _graphStorage.getNodeAccess();
+        for (int row = 0; row < SIZE; row++) {
+            for (int col = 0; col < SIZE; col++)
+                nodeAccess.setNode(getNode(row, col), 49.4 + row * SPACING, 8.6 + col * SPACING);
+        }
+
+        for (int row = 0; row < SIZE; row++) {
+            for (int col = 0; col < SIZE; col++) {
+                if (col + 1 < SIZE)
+                    _horizontalEdges[row][col] = addEdge(getNode(row, col), getNode(row, col + 1));
+                if (row + 1 < SIZE)
+                    _verticalEdges[row][col] = addEdge(getNode(row, col), getNode(row + 1, col));
+            }
+        }
+    }
+
+    private static int getNode(int row, int col) {
+        return row * SIZE + col;
+    }
+
+    private int addEdge(int a, int b) {
+        NodeAccess nodeAccess = _graphStorage.getNodeAccess();
+        double distance = distCalc.calcDist(nodeAccess.getLat(a), nodeAccess.getLon(a), nodeAccess.getLat(b), nodeAccess.getLon(b));
+        return _graphStorage.edge(a, b, distance, true).getEdge();
+    }
+
+    /**
+     * A shortest path tree from the center, which first follows the column of the center and then the rows.
+     */
+    private IntObjectMap<SPTEntry> createTree() {
+        IntObjectMap<SPTEntry> map = new IntObjectHashMap<>();
+        SPTEntry[][] entries = new SPTEntry[SIZE][SIZE];
+        entries[CENTER][CENTER] = createEntry(EdgeIterator.NO_EDGE, getNode(CENTER, CENTER), 0, null);
+
+        for (int distance = 1; distance <= 2 * CENTER; distance++) {
+            for (int row = 0; row < SIZE; row++) {
+                for (int col = 0; col < SIZE; col++) {
+                    if (Math.abs(row - CENTER) + Math.abs(col - CENTER) != distance)
+                        continue;
+
+                    SPTEntry parent;
+                    int edge;
+                    if (col != CENTER) {
+                        int parentCol = col < CENTER ? col + 1 : col - 1;
+                        parent = entries[row][parentCol];
+                        edge = _horizontalEdges[row][Math.min(col, parentCol)];
+                    } else {
+                        int parentRow = row < CENTER ? row + 1 : row - 1;
+                        parent = entries[parentRow][col];
+                        edge = _verticalEdges[Math.min(row, parentRow)][col];
+                    }
+
+                    int node = getNode(row, col);
+                    double weight = parent.weight + _graphStorage.getEdgeIteratorState(edge, node).getDistance();
+                    entries[row][col] = createEntry(edge, node, weight, parent);
+                }
+            }
+        }
+
+        for (SPTEntry[] row : entries) {
+            for (SPTEntry entry : row)
+                map.put(entry.adjNode, entry);
+        }
+
+        return map;
+    }
+
+    private static SPTEntry createEntry(int edge, int adjNode, double weight, SPTEntry parent) {
+        SPTEntry entry = new SPTEntry(edge, adjNode, weight);
+        entry.originalEdge = edge;
+        entry.parent = parent;
+        return entry;
+    }
+
+    private IsochroneMap computeIntervals(ExecutorService executor) throws Exception {
+        GraphHopper gh = new GraphHopper().setGraphHopperStorage(_graphStorage);
+        ConcaveBallsIsochroneMapBuilder builder = new ConcaveBallsIsochroneMapBuilder();
+        builder.initialize(new RouteSearchContext(gh, null, null));
+
+        Coordinate location = new Coordinate(8.6 + CENTER * SPACING, 49.4 + CENTER * SPACING);
+        IsochroneSearchParameters parameters = new IsochroneSearchParameters(0, location, new double[] { 1000, 2000, 3000, 4000 });
+        parameters.setRangeType(TravelRangeType.Distance);
+
+        IntObjectMap<SPTEntry> tree = createTree();
+        IsochroneMap isochroneMap = new IsochroneMap(0, location);
+        builder.computeIntervals(isochroneMap, new SortedSPTEntries(tree), tree.size(), parameters, 100, executor);
+        return isochroneMap;
+    }
+
+    @Test
+    public void TestParallelIntervalsMatchSequentialIntervals() throws Exception {
+        IsochroneMap sequential = computeIntervals(null);
+
+        IsochroneMap parallel;
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            parallel = computeIntervals(executor);
+        } finally {
+            executor.shutdown();
+        }
+
+        assertEquals(4, sequential.getIsochronesCount());
+        assertEquals(sequential.getIsochronesCount(), parallel.getIsochronesCount());
+
+        for (int i = 0; i < sequential.getIsochronesCount(); i++) {
+            assertEquals(sequential.getIsochrone(i).getValue(), parallel.getIsochrone(i).getValue(), 0);
+            assertTrue(sequential.getIsochrone(i).getGeometry().equalsExact(parallel.getIsochrone(i).getGeometry()));
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package heigit.ors.isochrones.builders.concaveballs;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class PointGridTest {
+    @Test
+    public void rejectsDuplicatePoints() {
+        PointGrid grid = new PointGrid(0.0025, 16);
+
+        assertTrue(grid.add(8.6812, 49.4141, 0));
+        assertFalse(grid.add(8.6812, 49.4141, 0));
+        assertTrue(grid.add(8.6813, 49.4141, 0));
+        assertEquals(2, grid.size());
+    }
+
+    @Test
+    public void rejectsPointsCloserThanThreshold() {
+        PointGrid grid = new PointGrid(0.0025, 16);
+
+        assertTrue(grid.add(-0.0001, -0.0001, 0.0025));
+        // in a neighbouring cell, but closer than the threshold
+        assertFalse(grid.add(0.0010, 0.0010, 0.0025));
+        assertTrue(grid.add(0.0030, 0.0030, 0.0025));
+        assertEquals(2, grid.size());
+    }
+
+    @Test
+    public void matchesBruteForceThinning() {
+        double threshold = 0.0035;
+        PointGrid grid = new PointGrid(threshold, 16);
+        List<double[]> accepted = new ArrayList<double[]>();
+        Random random = new Random(42);
+
+        for (int i = 0; i < 5000; i++) {
+            double lon = 8.6 + random.nextDouble() * 0.2;
+            double lat = 49.35 + random.nextDouble() * 0.2;
+            boolean checkNeighbours = random.nextInt(4) != 0;
+
+            boolean expected = true;
+            for (double[] p : accepted) {
+                double dx = p[0] - lon;
+                double dy = p[1] - lat;
+                if (checkNeighbours ? Math.sqrt(dx * dx + dy * dy) < threshold : (dx == 0 && dy == 0)) {
+                    expected = false;
+                    break;
+                }
+            }
+
+            assertEquals(expected, grid.add(lon, lat, checkNeighbours ? threshold : 0));
+            if (expected)
+                accepted.add(new double[] { lon, lat });
+        }
+
+        assertEquals(accepted.size(), grid.size());
+    }
+}
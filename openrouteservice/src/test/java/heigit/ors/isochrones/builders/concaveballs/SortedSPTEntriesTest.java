@@ -0,0 +1,110 @@
+package heigit.ors.isochrones.builders.concaveballs;
+
+import com.carrotsearch.hppc.IntObjectHashMap;
+import com.carrotsearch.hppc.IntObjectMap;
+import com.graphhopper.storage.SPTEntry;
+import com.graphhopper.util.EdgeIterator;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class SortedSPTEntriesTest {
+    /**
+     * A tree rooted at node 0. Edges 1 and 2 leave the root, edges 4 and 5 continue from edge 2 and edge 3 from edge 1.
+     */
+    private static SortedSPTEntries createEntries() {
+        SPTEntry root = createEntry(EdgeIterator.NO_EDGE, 0, 0, null);
+        SPTEntry e1 = createEntry(1, 1, 10, root);
+        SPTEntry e2 = createEntry(2, 2, 5, root);
+        SPTEntry e3 = createEntry(3, 3, 20, e1);
+        SPTEntry e4 = createEntry(4, 4, 10, e2);
+        SPTEntry e5 = createEntry(5, 5, 12, e2);
+
+        // inserted out of order, the result must not depend on the iteration order of the map
+        IntObjectMap<SPTEntry> map = new IntObjectHashMap<>();
+        map.put(5, e5);
+        map.put(3, e3);
+        map.put(0, root);
+        map.put(4, e4);
+        map.put(2, e2);
+        map.put(1, e1);
+
+        return new SortedSPTEntries(map);
+    }
+
+    private static SPTEntry createEntry(int edge, int adjNode, double weight, SPTEntry parent) {
+        SPTEntry entry = new SPTEntry(edge, adjNode, weight);
+        entry.originalEdge = edge;
+        entry.parent = parent;
+        return entry;
+    }
+
+    @Test
+    public void sortsByParentWeightAndEdge() {
+        SortedSPTEntries entries = createEntries();
+
+        // the root has no edge and is left out
+        assertEquals(5, entries.size());
+
+        int[] edges = { 1, 2, 4, 5, 3 };
+        float[] parentWeights = { 0, 0, 5, 5, 10 };
+        for (int i = 0; i < edges.length; i++) {
+            assertEquals(edges[i], entries.getEdge(i));
+            assertEquals(edges[i], entries.getAdjNode(i));
+            assertEquals(parentWeights[i], entries.getParentWeight(i), 0);
+        }
+
+        assertEquals(10, entries.getWeight(0), 0);
+        assertEquals(20, entries.getWeight(4), 0);
+    }
+
+    @Test
+    public void marksEdgesWithoutSuccessorsAsDeadEnds() {
+        SortedSPTEntries entries = createEntries();
+
+        assertFalse(entries.isDeadEnd(0));
+        assertFalse(entries.isDeadEnd(1));
+        assertTrue(entries.isDeadEnd(2));
+        assertTrue(entries.isDeadEnd(3));
+        assertTrue(entries.isDeadEnd(4));
+    }
+
+    @Test
+    public void intervalBoundsIncludeEqualWeights() {
+        SortedSPTEntries entries = createEntries();
+
+        // both edges entered at weight 5 belong to the slice [5, 5]
+        assertEquals(2, entries.getFromIndex(5));
+        assertEquals(4, entries.getToIndex(5));
+
+        assertEquals(0, entries.getFromIndex(0));
+        assertEquals(2, entries.getToIndex(0));
+        assertEquals(4, entries.getFromIndex(5.5));
+        assertEquals(2, entries.getToIndex(4.9));
+    }
+
+    @Test
+    public void intervalBoundsOutsideOfWeights() {
+        SortedSPTEntries entries = createEntries();
+
+        assertEquals(0, entries.getFromIndex(-1));
+        assertEquals(0, entries.getToIndex(-1));
+        assertEquals(5, entries.getToIndex(10));
+        assertEquals(5, entries.getFromIndex(11));
+        assertEquals(5, entries.getToIndex(11));
+    }
+
+    @Test
+    public void emptyTree() {
+        IntObjectMap<SPTEntry> map = new IntObjectHashMap<>();
+        map.put(0, createEntry(EdgeIterator.NO_EDGE, 0, 0, null));
+
+        SortedSPTEntries entries = new SortedSPTEntries(map);
+
+        assertEquals(0, entries.size());
+        assertEquals(0, entries.getFromIndex(0));
+        assertEquals(0, entries.getToIndex(0));
+    }
+}
@@ -0,0 +1,73 @@
+package heigit.ors.metrics;
+
+import org.junit.Test;
+
+import java.io.StringWriter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class MetricsRegistryTest {
+    @Test
+    public void returnsSameMetricForSameLabels() {
+        MetricsRegistry registry = new MetricsRegistry();
+        Counter counter = registry.counter("test_total", "Test counter.", "profile", "driving-car");
+
+        assertSame(counter, registry.counter("test_total", "Test counter.", "profile", "driving-car"));
+        assertTrue(counter != registry.counter("test_total", "Test counter.", "profile", "cycling-regular"));
+    }
+
+    @Test
+    public void recordsHistogramBuckets() {
+        Histogram histogram = new Histogram(Histogram.exponentialBounds(1, 2, 4));
+        histogram.record(0.5);
+        histogram.record(1);
+        histogram.record(3);
+        histogram.record(100);
+
+        assertEquals(4, histogram.getCount());
+        assertEquals(104.5, histogram.getSum(), 1e-9);
+        long[] counts = histogram.getBucketCounts();
+        assertEquals(2, counts[0]);
+        assertEquals(0, counts[1]);
+        assertEquals(1, counts[2]);
+        assertEquals(0, counts[3]);
+    }
+
+    @Test
+    public void readsGaugeWhenWritten() throws Exception {
+        MetricsRegistry registry = new MetricsRegistry();
+        long[] value = { 1 };
+        registry.gauge("test_queued", "Test gauge.", () -> value[0], "profile", "car");
+        value[0] = 5;
+
+        StringWriter writer = new StringWriter();
+        registry.write(writer);
+
+        assertEquals("# HELP test_queued Test gauge.\n"
+                + "# TYPE test_queued gauge\n"
+                + "test_queued{profile=\"car\"} 5\n", writer.toString());
+    }
+
+    @Test
+    public void writesPrometheusTextFormat() throws Exception {
+        MetricsRegistry registry = new MetricsRegistry();
+        registry.counter("test_requests_total", "Test requests.", "endpoint", "/routes", "status", "200").add(3);
+        registry.histogram("test_duration_seconds", "Test durations.", new double[] { 0.1, 1 }, "service", "say \"hi\"").record(0.5);
+
+        StringWriter writer = new StringWriter();
+        registry.write(writer);
+
+        assertEquals("# HELP test_duration_seconds Test durations.\n"
+                + "# TYPE test_duration_seconds histogram\n"
+                + "test_duration_seconds_bucket{service=\"say \\\"hi\\\"\",le=\"0.1\"} 0\n"
+                + "test_duration_seconds_bucket{service=\"say \\\"hi\\\"\",le=\"1\"} 1\n"
+                + "test_duration_seconds_bucket{service=\"say \\\"hi\\\"\",le=\"+Inf\"} 1\n"
+                + "test_duration_seconds_sum{service=\"say \\\"hi\\\"\"} 0.5\n"
+                + "test_duration_seconds_count{service=\"say \\\"hi\\\"\"} 1\n"
+                + "# HELP test_requests_total Test requests.\n"
+                + "# TYPE test_requests_total counter\n"
+                + "test_requests_total{endpoint=\"/routes\",status=\"200\"} 3\n", writer.toString());
+    }
+}
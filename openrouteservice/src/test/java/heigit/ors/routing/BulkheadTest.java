@@ -0,0 +1,70 @@
+package heigit.ors.routing;
+
+import heigit.ors.exceptions.ServiceUnavailableException;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class BulkheadTest {
+    @Test
+    public void rejectsRequestsBeyondLimit() throws Exception {
+        Bulkhead bulkhead = new Bulkhead("routing", "test-reject", 2, 10);
+        bulkhead.acquire();
+        bulkhead.acquire();
+
+        try {
+            bulkhead.acquire();
+            fail("Expected the third request to be rejected.");
+        } catch (ServiceUnavailableException ex) {
+            assertEquals(503, ex.getStatusCode());
+            assertEquals(1, ex.getRetryAfter());
+        }
+        assertEquals(1, bulkhead.getRejectedCount());
+        assertEquals(0, bulkhead.getQueueLength());
+
+        bulkhead.release();
+        bulkhead.acquire();
+    }
+
+    @Test
+    public void queuedRequestStartsWhenSlotIsReleased() throws Exception {
+        Bulkhead bulkhead = new Bulkhead("matrix", "test-queue", 1, 10000);
+        bulkhead.acquire();
+
+        CountDownLatch started = new CountDownLatch(1);
+        Thread waiting = new Thread(() -> {
+            try {
+                bulkhead.acquire();
+                started.countDown();
+                bulkhead.release();
+            } catch (Exception ex) {
+                // The latch is not counted down, which fails the test.
+            }
+        });
+        waiting.start();
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while (bulkhead.getQueueLength() == 0 && System.currentTimeMillis() < deadline)
+            Thread.sleep(1);
+        assertEquals(1, bulkhead.getQueueLength());
+
+        bulkhead.release();
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        waiting.join();
+        assertEquals(0, bulkhead.getQueueLength());
+        assertEquals(0, bulkhead.getRejectedCount());
+    }
+
+    @Test
+    public void unlimitedBulkheadNeverRejects() throws Exception {
+        Bulkhead bulkhead = new Bulkhead("isochrones", "test-unlimited", 0, 0);
+        for (int i = 0; i < 1000; i++)
+            bulkhead.acquire();
+        assertEquals(0, bulkhead.getRejectedCount());
+    }
+}
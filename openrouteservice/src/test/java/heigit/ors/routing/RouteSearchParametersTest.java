@@ -0,0 +1,36 @@
+package heigit.ors.routing;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+public class RouteSearchParametersTest {
+    private static String getCacheKey(String options) throws Exception {
+        RouteSearchParameters params = new RouteSearchParameters();
+        params.setProfileType(RoutingProfileType.CYCLING_REGULAR);
+        params.setOptions(options);
+        return params.getCacheKey();
+    }
+
+    @Test
+    public void cacheKeyDoesNotDependOnTheFormattingOfTheOptions() throws Exception {
+        String key = getCacheKey("{\"avoid_features\":\"ferries|steps\",\"avoid_countries\":\"1|2\","
+                + "\"profile_params\":{\"restrictions\":{\"gradient\":5,\"trail_difficulty\":2},"
+                + "\"weightings\":{\"steepness_difficulty\":{\"level\":1},\"green\":{\"factor\":0.5}}}}");
+        String reordered = getCacheKey("{ \"profile_params\": { \"weightings\": { \"green\": { \"factor\": 0.5 },"
+                + " \"steepness_difficulty\": { \"level\": 1 } }, \"restrictions\": { \"trail_difficulty\": 2, \"gradient\": 5 } },"
+                + " \"avoid_countries\": \"2|1\", \"avoid_features\": \"steps|ferries\" }");
+
+        assertEquals(key, reordered);
+    }
+
+    @Test
+    public void cacheKeyContainsTheProfileParameters() throws Exception {
+        String key = getCacheKey("{\"profile_params\":{\"restrictions\":{\"gradient\":5}}}");
+
+        assertNotEquals(key, getCacheKey("{\"profile_params\":{\"restrictions\":{\"gradient\":6}}}"));
+        assertNotEquals(key, getCacheKey("{\"profile_params\":{\"restrictions\":{\"gradient\":5},\"weightings\":{\"green\":{\"factor\":0.5}}}}"));
+        assertNotEquals(key, getCacheKey("{\"profile_params\":{\"restrictions\":{\"gradient\":5},\"weightings\":{\"green\":{\"factor\":0.8}}}}"));
+    }
+}
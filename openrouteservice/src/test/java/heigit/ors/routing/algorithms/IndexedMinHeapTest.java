@@ -0,0 +1,92 @@
+package heigit.ors.routing.algorithms;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class IndexedMinHeapTest {
+    @Test
+    public void pollReturnsIdsOrderedByKey() {
+        IndexedMinHeap heap = new IndexedMinHeap(4);
+        heap.update(3, 30.0);
+        heap.update(0, 5.0);
+        heap.update(7, 12.5);
+        heap.update(1, Double.POSITIVE_INFINITY);
+
+        assertEquals(4, heap.size());
+        assertEquals(0, heap.poll());
+        assertEquals(7, heap.poll());
+        assertEquals(3, heap.poll());
+        assertEquals(1, heap.poll());
+        assertTrue(heap.isEmpty());
+    }
+
+    @Test
+    public void updateChangesKeyOfContainedId() {
+        IndexedMinHeap heap = new IndexedMinHeap(4);
+        heap.update(0, 10.0);
+        heap.update(1, 20.0);
+        heap.update(2, 30.0);
+
+        heap.update(2, 1.0);
+        assertEquals(3, heap.size());
+        assertEquals(2, heap.peekId());
+        assertEquals(1.0, heap.peekKey(), 0.0);
+
+        heap.update(2, 25.0);
+        assertEquals(0, heap.poll());
+        assertEquals(1, heap.poll());
+        assertEquals(2, heap.poll());
+    }
+
+    @Test
+    public void clearRemovesAllIds() {
+        IndexedMinHeap heap = new IndexedMinHeap(4);
+        heap.update(5, 1.0);
+        heap.update(9, 2.0);
+        heap.clear();
+
+        assertTrue(heap.isEmpty());
+        assertFalse(heap.contains(5));
+        assertFalse(heap.contains(9));
+
+        heap.update(9, 3.0);
+        assertEquals(1, heap.size());
+        assertEquals(9, heap.poll());
+    }
+
+    @Test
+    public void randomUpdatesKeepHeapOrder() {
+        Random random = new Random(42);
+        int n = 2000;
+        double[] keys = new double[n];
+        IndexedMinHeap heap = new IndexedMinHeap(16);
+
+        for (int i = 0; i < n; i++) {
+            keys[i] = random.nextDouble() * 1000;
+            heap.update(i, keys[i]);
+        }
+
+        for (int i = 0; i < n; i += 3) {
+            keys[i] = random.nextDouble() * 1000;
+            heap.update(i, keys[i]);
+        }
+
+        double prevKey = Double.NEGATIVE_INFINITY;
+        int count = 0;
+        while (!heap.isEmpty()) {
+            double key = heap.peekKey();
+            int id = heap.poll();
+            assertEquals(keys[id], key, 0.0);
+            assertTrue(key >= prevKey);
+            prevKey = key;
+            count++;
+        }
+
+        assertEquals(n, count);
+    }
+}
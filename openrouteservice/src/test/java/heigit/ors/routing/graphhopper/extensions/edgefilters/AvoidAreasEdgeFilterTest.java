@@ -5,9 +5,13 @@ import com.graphhopper.storage.DAType;
 import com.graphhopper.storage.GHDirectory;
 import com.graphhopper.storage.GraphExtension;
 import com.graphhopper.storage.GraphHopperStorage;
+import com.graphhopper.storage.NodeAccess;
+import com.graphhopper.storage.RAMDirectory;
+import com.graphhopper.storage.index.LocationIndexTree;
 import com.graphhopper.util.EdgeIteratorState;
 import com.graphhopper.util.Helper;
 import com.vividsolutions.jts.geom.Coordinate;
+import com.vividsolutions.jts.geom.Envelope;
 import com.vividsolutions.jts.geom.GeometryFactory;
 import com.vividsolutions.jts.geom.Polygon;
 import heigit.ors.routing.RouteSearchParameters;
@@ -51,4 +55,70 @@ public class AvoidAreasEdgeFilterTest {
         assertFalse(filter.accept(iter1));
         assertTrue(filter.accept(iter2));
     }
+
+    @Test
+    public void TestAvoidSeveralPolygons() {
+        EdgeIteratorState iter1 = _graphStorage.edge(0, 1, 100, true);
+        iter1.setWayGeometry(Helper.createPointList(0, 0, 10, 0));
+        EdgeIteratorState iter2 = _graphStorage.edge(0, 2, 200, true);
+        iter2.setWayGeometry(Helper.createPointList(0, 0, 0, 10, 10, 10));
+
+        GeometryFactory gf = new GeometryFactory();
+
+        Polygon poly1 = gf.createPolygon(new Coordinate[]{ new Coordinate(-1,5),
+                new Coordinate(1,5),
+                new Coordinate(1,6),
+                new Coordinate(-1,5)});
+        // Lies within the bounding box of the second edge, but none of its segments reaches the polygon
+        Polygon poly2 = gf.createPolygon(new Coordinate[]{ new Coordinate(6,2),
+                new Coordinate(8,2),
+                new Coordinate(8,4),
+                new Coordinate(6,2)});
+        Polygon poly3 = gf.createPolygon(new Coordinate[]{ new Coordinate(20,20),
+                new Coordinate(21,20),
+                new Coordinate(21,21),
+                new Coordinate(20,20)});
+
+        AvoidAreasEdgeFilter filter = new AvoidAreasEdgeFilter(new Polygon[] {poly1, poly2, poly3});
+        assertFalse(filter.accept(iter1));
+        assertTrue(filter.accept(iter2));
+    }
+
+    @Test
+    public void TestAvoidPolygonsWithEdgesTestedBeforehand() {
+        GraphHopperStorage graph = new GraphHopperStorage(new GHDirectory("", DAType.RAM_STORE), encoder, false, new GraphExtension.NoOpExtension());
+        graph.create(3);
+
+        NodeAccess nodes = graph.getNodeAccess();
+        nodes.setNode(0, 0, 0);
+        nodes.setNode(1, 0.1, 0);
+        nodes.setNode(2, 0, 0.1);
+        EdgeIteratorState iter1 = graph.edge(0, 1, 100, true);
+        EdgeIteratorState iter2 = graph.edge(0, 2, 100, true);
+
+        LocationIndexTree index = new LocationIndexTree(graph, new RAMDirectory());
+        index.prepareIndex();
+
+        GeometryFactory gf = new GeometryFactory();
+
+        Polygon poly = gf.createPolygon(new Coordinate[]{ new Coordinate(-0.01,0.05),
+                new Coordinate(0.01,0.05),
+                new Coordinate(0.01,0.06),
+                new Coordinate(-0.01,0.05)});
+
+        AvoidAreasEdgeFilter filter = new AvoidAreasEdgeFilter(new Polygon[] {poly}, graph, index);
+        assertFalse(filter.accept(iter1));
+        assertTrue(filter.accept(iter2));
+    }
+
+    @Test
+    public void TestSegmentIntersectsEnvelope() {
+        Envelope env = new Envelope(0, 1, 0, 1);
+
+        assertTrue(AvoidAreasEdgeFilter.segmentIntersectsEnvelope(0.5, 0.5, 2, 2, env));
+        assertTrue(AvoidAreasEdgeFilter.segmentIntersectsEnvelope(-1, 0.5, 2, 0.5, env));
+        assertTrue(AvoidAreasEdgeFilter.segmentIntersectsEnvelope(-1, 1, 1, -1, env));
+        assertFalse(AvoidAreasEdgeFilter.segmentIntersectsEnvelope(-1, 0.5, 0.5, -1, env));
+        assertFalse(AvoidAreasEdgeFilter.segmentIntersectsEnvelope(2, 0, 2, 1, env));
+    }
 }
@@ -0,0 +1,164 @@
+package heigit.ors.routing.graphhopper.extensions.graphbuilders;
+
+import com.carrotsearch.hppc.LongArrayList;
+import com.carrotsearch.hppc.LongIndexedContainer;
+import com.graphhopper.coll.GHLongIntBTree;
+import com.graphhopper.coll.LongIntMap;
+import com.graphhopper.reader.ReaderWay;
+import com.graphhopper.util.DistanceCalc;
+import com.graphhopper.util.EdgeIteratorState;
+import com.graphhopper.util.Helper;
+import com.vividsolutions.jts.geom.Coordinate;
+import com.vividsolutions.jts.geom.GeometryFactory;
+import com.vividsolutions.jts.geom.LineString;
+import com.vividsolutions.jts.geom.Polygon;
+import heigit.ors.routing.graphhopper.extensions.DataReaderContext;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class InFieldGraphBuilderTest {
+    private static final int VERTICES = 500;
+    private static final int TOWER_NODE_STEP = 5;
+
+    private final DistanceCalc distCalc = Helper.DIST_EARTH;
+
+    @Test
+    public void TestRoutesBetweenTowerNodesMatchVisibilityGraph() throws Exception {
+        PlazaContext context = new PlazaContext();
+        LongArrayList osmNodeIds = new LongArrayList();
+        for (int i = 0; i < VERTICES; i++)
+            osmNodeIds.add(i + 1);
+        osmNodeIds.add(1);
+
+        ReaderWay way = new ReaderWay(1);
+        way.setTag("area", "yes");
+
+        InFieldGraphBuilder builder = new InFieldGraphBuilder();
+        builder.init(null);
+
+        Assert.assertTrue(builder.createEdges(context, way, osmNodeIds, 0, new ArrayList<EdgeIteratorState>()));
+
+        double[][] created = new double[VERTICES][VERTICES];
+        for (double[] row : created)
+            Arrays.fill(row, Double.MAX_VALUE);
+        for (long[] edge : context.edges)
+            setDistance(created, context, (int) edge[0] - 1, (int) edge[1] - 1);
+
+        // The reference connects all pairs of nodes whose connecting line lies within the plaza
+        Polygon plaza = context.createPolygon();
+        GeometryFactory gf = new GeometryFactory();
+        double[][] reference = new double[VERTICES][VERTICES];
+        for (double[] row : reference)
+            Arrays.fill(row, Double.MAX_VALUE);
+        for (int i = 0; i < VERTICES; i++) {
+            setDistance(reference, context, i, (i + 1) % VERTICES);
+            for (int j = i + 2; j < VERTICES; j++) {
+                LineString ls = gf.createLineString(new Coordinate[] { context.coordinates[i], context.coordinates[j] });
+                if (ls.within(plaza))
+                    setDistance(reference, context, i, j);
+            }
+        }
+
+        calcShortestDistances(created);
+        calcShortestDistances(reference);
+
+        int routes = 0;
+        for (int i = 0; i < VERTICES; i += TOWER_NODE_STEP) {
+            for (int j = i + TOWER_NODE_STEP; j < VERTICES; j += TOWER_NODE_STEP) {
+                Assert.assertEquals(reference[i][j], created[i][j], 1e-6);
+                routes++;
+            }
+        }
+        Assert.assertTrue(routes > 0);
+    }
+
+    @Test
+    public void TestCrossesProperly() {
+        Assert.assertTrue(InFieldGraphBuilder.crossesProperly(0, 0, 2, 2, 0, 2, 2, 0));
+        // Touching in an end point or overlapping collinear segments do not cross properly
+        Assert.assertFalse(InFieldGraphBuilder.crossesProperly(0, 0, 2, 2, 2, 2, 3, 0));
+        Assert.assertFalse(InFieldGraphBuilder.crossesProperly(0, 0, 2, 0, 1, 0, 3, 0));
+        Assert.assertFalse(InFieldGraphBuilder.crossesProperly(0, 0, 1, 1, 2, 0, 3, 1));
+    }
+
+    private void setDistance(double[][] distances, PlazaContext context, int a, int b) {
+        Coordinate ca = context.coordinates[a], cb = context.coordinates[b];
+        double distance = distCalc.calcDist(ca.y, ca.x, cb.y, cb.x);
+        distances[a][b] = Math.min(distances[a][b], distance);
+        distances[b][a] = Math.min(distances[b][a], distance);
+    }
+
+    private static void calcShortestDistances(double[][] distances) {
+        int n = distances.length;
+        for (int i = 0; i < n; i++)
+            distances[i][i] = 0;
+
+        for (int k = 0; k < n; k++) {
+            for (int i = 0; i < n; i++) {
+                if (distances[i][k] == Double.MAX_VALUE)
+                    continue;
+                for (int j = 0; j < n; j++) {
+                    if (distances[k][j] != Double.MAX_VALUE && distances[i][k] + distances[k][j] < distances[i][j])
+                        distances[i][j] = distances[i][k] + distances[k][j];
+                }
+            }
+        }
+    }
+
+    /**
+     * A star shaped plaza whose nodes have the OSM ids 1 to VERTICES. Every fifth node is a tower node.
+     */
+    private static class PlazaContext implements DataReaderContext {
+        private final LongIntMap nodeMap = new GHLongIntBTree(200);
+        private final Map<Integer, Coordinate> nodes = new HashMap<>();
+        private final Coordinate[] coordinates = new Coordinate[VERTICES];
+        private final List<long[]> edges = new ArrayList<>();
+
+        PlazaContext() {
+            for (int i = 0; i < VERTICES; i++) {
+                double angle = 2 * Math.PI * i / VERTICES;
+                double radius = i % 2 == 0 ? 0.001 : 0.0006;
+                coordinates[i] = new Coordinate(8.68 + radius * Math.cos(angle), 49.41 + radius * Math.sin(angle));
+
+                int internalId = i % TOWER_NODE_STEP == 0 ? -3 - i : i + 1;
+                nodeMap.put(i + 1, internalId);
+                nodes.put(internalId, coordinates[i]);
+            }
+        }
+
+        Polygon createPolygon() {
+            Coordinate[] ring = Arrays.copyOf(coordinates, VERTICES + 1);
+            ring[VERTICES] = coordinates[0];
+            return new GeometryFactory().createPolygon(ring);
+        }
+
+        @Override
+        public LongIntMap getNodeMap() {
+            return nodeMap;
+        }
+
+        @Override
+        public double getNodeLongitude(int nodeId) {
+            return nodes.get(nodeId).x;
+        }
+
+        @Override
+        public double getNodeLatitude(int nodeId) {
+            return nodes.get(nodeId).y;
+        }
+
+        @Override
+        public Collection<EdgeIteratorState> addWay(LongIndexedContainer subgraphNodes, long wayFlags, long wayId) {
+            edges.add(new long[] { subgraphNodes.get(0), subgraphNodes.get(1) });
+            return Collections.emptyList();
+        }
+    }
+}
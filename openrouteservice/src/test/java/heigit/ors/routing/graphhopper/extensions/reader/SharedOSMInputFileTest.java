@@ -0,0 +1,103 @@
+package heigit.ors.routing.graphhopper.extensions.reader;
+
+import com.graphhopper.reader.ReaderElement;
+import com.graphhopper.reader.ReaderWay;
+import com.graphhopper.reader.osm.OSMInput;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class SharedOSMInputFileTest {
+    private File osmFile;
+
+    @Before
+    public void createFile() throws Exception {
+        osmFile = File.createTempFile("shared", ".osm");
+        try (FileWriter writer = new FileWriter(osmFile)) {
+            writer.write("<?xml version='1.0' encoding='UTF-8'?>\n<osm version='0.6'>\n");
+            for (int i = 1; i <= 10000; i++)
+                writer.write("<node id='" + i + "' lat='49." + i + "' lon='8." + i + "'/>\n");
+            for (int i = 1; i < 10000; i++)
+                writer.write("<way id='" + i + "'><nd ref='" + i + "'/><nd ref='" + (i + 1) + "'/><tag k='highway' v='residential'/></way>\n");
+            writer.write("</osm>\n");
+        }
+    }
+
+    @After
+    public void deleteFile() {
+        osmFile.delete();
+    }
+
+    @Test
+    public void TestParticipantsReadAllElementsOfEachPass() throws Exception {
+        SharedOSMInputFile sharedFile = new SharedOSMInputFile(osmFile.getPath());
+        List<SharedOSMInputFile.Participant> participants = new ArrayList<>();
+        for (int i = 0; i < 3; i++)
+            participants.add(sharedFile.register());
+
+        ExecutorService executor = Executors.newFixedThreadPool(participants.size());
+        List<Future<int[]>> results = new ArrayList<>();
+        for (SharedOSMInputFile.Participant participant : participants) {
+            results.add(executor.submit(() -> {
+                try {
+                    return new int[] { countWays(participant, true), countWays(participant, false) };
+                } finally {
+                    participant.leave();
+                }
+            }));
+        }
+
+        for (Future<int[]> result : results) {
+            int[] counts = result.get();
+            Assert.assertEquals(9999, counts[0]);
+            Assert.assertEquals(9999, counts[1]);
+        }
+        executor.shutdown();
+
+        Assert.assertEquals(2, sharedFile.getPassesCount());
+    }
+
+    @Test
+    public void TestParticipantWhichLeavesDoesNotBlockOthers() throws Exception {
+        SharedOSMInputFile sharedFile = new SharedOSMInputFile(osmFile.getPath());
+        SharedOSMInputFile.Participant reader = sharedFile.register();
+        SharedOSMInputFile.Participant loader = sharedFile.register();
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        Future<Integer> result = executor.submit(() -> countWays(reader, false));
+
+        // A profile whose graph is loaded from disk never opens the file
+        loader.leave();
+
+        Assert.assertEquals(9999, (int) result.get());
+        reader.leave();
+        executor.shutdown();
+    }
+
+    private static int countWays(SharedOSMInputFile.Participant participant, boolean changeWays) throws Exception {
+        int ways = 0;
+        try (OSMInput in = participant.open()) {
+            ReaderElement element;
+            while ((element = in.getNext()) != null) {
+                if (element.isType(ReaderElement.WAY)) {
+                    ReaderWay way = (ReaderWay) element;
+                    // Changes made by one reader must not be visible to the others
+                    Assert.assertFalse(way.hasTag("estimated_distance"));
+                    if (changeWays)
+                        way.setTag("estimated_distance", 1.0);
+                    ways++;
+                }
+            }
+        }
+        return ways;
+    }
+}
@@ -26,6 +26,12 @@ import com.vividsolutions.jts.geom.LineString;
 import com.vividsolutions.jts.geom.MultiPolygon;
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
@@ -119,4 +125,38 @@ public class CountryBordersPolygonTest {
         assertTrue(cbp.inArea(new Coordinate(0.5, 0.5)));
         assertFalse(cbp.inArea(new Coordinate(-0.5, -0.5)));
     }
+
+    /**
+     * Test that concurrent lookups, as made by the storage builder threads during the import, give the same results
+     * as lookups on a single thread
+     */
+    @Test
+    public void TestConcurrentLookups() throws Exception {
+        LineString crossing = gf.createLineString(new Coordinate[] {
+                new Coordinate(0.5, 0.5),
+                new Coordinate(-10.5, -10.5)
+        });
+        LineString inside = gf.createLineString(new Coordinate[] {
+                new Coordinate(0.5, 0.5),
+                new Coordinate(0.25, 0.25)
+        });
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        List<Future<Boolean>> results = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            results.add(executor.submit(() -> {
+                for (int i = 0; i < 10000; i++) {
+                    if (!cbp.crossesBoundary(crossing) || cbp.crossesBoundary(inside))
+                        return false;
+                    if (!cbp.inArea(new Coordinate(0.5, 0.5)) || cbp.inArea(new Coordinate(-0.5, -0.5)))
+                        return false;
+                }
+                return true;
+            }));
+        }
+
+        for (Future<Boolean> result : results)
+            assertTrue(result.get());
+        executor.shutdown();
+    }
 }
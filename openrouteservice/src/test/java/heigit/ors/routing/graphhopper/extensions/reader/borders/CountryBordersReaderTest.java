@@ -27,6 +27,7 @@ import org.junit.Test;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 public class CountryBordersReaderTest {
@@ -114,6 +115,32 @@ public class CountryBordersReaderTest {
         assertEquals("country3", polys[0].getName());
     }
 
+    /**
+     * Test that a point in a grid cell which lies within a single country is resolved by the grid, and that the
+     * results of the exact lookup do not change when the grid is used
+     */
+    @Test
+    public void TestGetCountryWithGrid() {
+        _reader.setGridCellSize(0.25);
+
+        CountryBordersPolygon interior = _reader.getInteriorCountry(new Coordinate(0.5, 0.5));
+        assertEquals("country1", interior.getName());
+
+        CountryBordersPolygon[] polys = _reader.getCountry(new Coordinate(0.5, 0.5));
+        assertEquals(1, polys.length);
+        assertEquals("country1", polys[0].getName());
+
+        // The cell touches the borders of country1 and country2, so the point has to be tested exactly
+        assertNull(_reader.getInteriorCountry(new Coordinate(0.9, 0.9)));
+        polys = _reader.getCountry(new Coordinate(0.9, 0.9));
+        assertEquals(1, polys.length);
+        assertEquals("country1", polys[0].getName());
+
+        // Points outside of all countries are never resolved by the grid
+        assertNull(_reader.getInteriorCountry(new Coordinate(1.5, 0.5)));
+        assertEquals(0, _reader.getCountry(new Coordinate(1.5, 0.5)).length);
+    }
+
     /**
      * Test that the correct id is returned for a country of the given local name
      */
@@ -0,0 +1,115 @@
+package heigit.ors.routing.graphhopper.extensions.storages;
+
+import com.graphhopper.storage.DAType;
+import com.graphhopper.storage.ExtendedStorageSequence;
+import com.graphhopper.storage.GHDirectory;
+import com.graphhopper.storage.GraphExtension;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+
+import static org.junit.Assert.*;
+
+public class EdgeAttributeReaderTest {
+    private final WayCategoryGraphStorage _wayCategory;
+    private final GreenIndexGraphStorage _greenIndex;
+    private final HillIndexGraphStorage _hillIndex;
+    private final OsmIdGraphStorage _osmId;
+    private final ExtendedStorageRegistry _storages;
+
+    public EdgeAttributeReaderTest() {
+        _wayCategory = new WayCategoryGraphStorage();
+        _wayCategory.init(null, new GHDirectory("", DAType.RAM_STORE));
+        _wayCategory.create(2);
+
+        _greenIndex = new GreenIndexGraphStorage();
+        _greenIndex.init(null, new GHDirectory("", DAType.RAM_STORE));
+        _greenIndex.create(2);
+
+        _hillIndex = new HillIndexGraphStorage(new HashMap<>());
+        _hillIndex.init(null, new GHDirectory("", DAType.RAM_STORE));
+        _hillIndex.create(2);
+
+        _osmId = new OsmIdGraphStorage();
+        _osmId.init();
+        _osmId.create(2);
+
+        ArrayList<GraphExtension> extensions = new ArrayList<>();
+        extensions.add(_wayCategory);
+        extensions.add(_greenIndex);
+        extensions.add(_hillIndex);
+        extensions.add(_osmId);
+        _storages = new ExtendedStorageRegistry(new ExtendedStorageSequence(extensions));
+
+        _wayCategory.setEdgeValue(0, 4);
+        _wayCategory.setEdgeValue(1, 16);
+        _greenIndex.setEdgeValue(0, (byte) 10);
+        _greenIndex.setEdgeValue(1, (byte) 42);
+        _hillIndex.setEdgeValue(0, 3, 5);
+        _hillIndex.setEdgeValue(1, 7, 1);
+        _osmId.setEdgeValue(0, 1234L);
+        _osmId.setEdgeValue(1, 3000000000L);
+    }
+
+    @Test
+    public void TestRegistryFindsStoragesByType() {
+        assertSame(_wayCategory, _storages.get(WayCategoryGraphStorage.class));
+        assertSame(_hillIndex, _storages.get(HillIndexGraphStorage.class));
+        assertSame(_osmId, _storages.get(OsmIdGraphStorage.class));
+        assertNull(_storages.get(NoiseIndexGraphStorage.class));
+        assertEquals(4, _storages.getExtensions().length);
+    }
+
+    @Test
+    public void TestRegistryOfGraphWithoutExtensions() {
+        ExtendedStorageRegistry storages = new ExtendedStorageRegistry(new GraphExtension.NoOpExtension());
+
+        assertNull(storages.get(WayCategoryGraphStorage.class));
+        assertEquals(0, storages.getExtensions().length);
+    }
+
+    @Test
+    public void TestReadsAllRequestedAttributes() {
+        EdgeAttributeReader reader = new EdgeAttributeReader(_storages, EdgeAttributeReader.WAY_CATEGORY | EdgeAttributeReader.GREEN_INDEX
+                | EdgeAttributeReader.HILL_INDEX | EdgeAttributeReader.OSM_ID);
+        byte[] buffer = new byte[4];
+
+        for (int edgeId = 0; edgeId < 2; edgeId++) {
+            reader.read(edgeId);
+
+            assertEquals(_wayCategory.getEdgeValue(edgeId, buffer), reader.getWayCategory());
+            assertEquals(_greenIndex.getEdgeValue(edgeId, buffer), reader.getGreenIndex());
+            assertEquals(_hillIndex.getEdgeValue(edgeId, false, buffer), reader.getHillIndex(false));
+            assertEquals(_hillIndex.getEdgeValue(edgeId, true, buffer), reader.getHillIndex(true));
+            assertEquals(_osmId.getEdgeValue(edgeId), reader.getOsmId());
+        }
+
+        assertEquals(16, reader.getWayCategory());
+        assertEquals(42, reader.getGreenIndex());
+        assertEquals(3000000000L, reader.getOsmId());
+    }
+
+    @Test
+    public void TestSkipsMissingAndUnrequestedAttributes() {
+        EdgeAttributeReader reader = new EdgeAttributeReader(_storages, EdgeAttributeReader.WAY_CATEGORY | EdgeAttributeReader.NOISE_INDEX);
+
+        assertTrue(reader.hasAttribute(EdgeAttributeReader.WAY_CATEGORY));
+        assertFalse(reader.hasAttribute(EdgeAttributeReader.NOISE_INDEX));
+        assertFalse(reader.hasAttribute(EdgeAttributeReader.GREEN_INDEX));
+        assertFalse(reader.hasAttribute(EdgeAttributeReader.WAY_CATEGORY | EdgeAttributeReader.NOISE_INDEX));
+
+        reader.read(1);
+        assertEquals(16, reader.getWayCategory());
+        assertEquals(0, reader.getGreenIndex());
+    }
+
+    @Test
+    public void TestReaderWithoutStorages() {
+        EdgeAttributeReader reader = new EdgeAttributeReader(null, EdgeAttributeReader.WAY_CATEGORY);
+
+        assertFalse(reader.hasAttribute(EdgeAttributeReader.WAY_CATEGORY));
+        reader.read(0);
+        assertEquals(0, reader.getWayCategory());
+    }
+}
@@ -133,6 +133,31 @@ public class WheelchairGraphStorageBuilderTest {
         Assert.assertEquals(-1f, builder.getKerbHeightForWay(way, edge));
     }
 
+    @Test
+    public void TestAnalyzeWayMatchesProcessWay() {
+        ReaderWay way = constructSidedWay("left");
+        way.setTag("ors-sidewalk-side", "left");
+
+        HashMap<Integer, HashMap<String,String>> nodeTags = new HashMap<>();
+        HashMap<String, String> tags = new HashMap<>();
+        tags.put("kerb:height", "0.06");
+        nodeTags.put(2, tags);
+        Coordinate[] coords = new Coordinate[] { new Coordinate(8.1, 49.1), new Coordinate(8.2, 49.2) };
+
+        Object wayResult = builder.analyzeWay(way, coords, nodeTags);
+        WheelchairGraphStorageBuilder wayBuilder = (WheelchairGraphStorageBuilder) wayResult;
+        WheelchairAttributes analysed = wayBuilder.getEdgeAttributes(way, 1, 2, coords);
+
+        // The analysis must not touch the builder that writes to the storage
+        Assert.assertEquals(wheelchairAttributesAsString(new WheelchairAttributes()), wheelchairAttributesAsString(builder.getStoredAttributes(null)));
+
+        builder.processWay(way, coords, nodeTags);
+        WheelchairAttributes processed = builder.getEdgeAttributes(way, 1, 2, coords);
+
+        Assert.assertEquals(wheelchairAttributesAsString(processed), wheelchairAttributesAsString(analysed));
+        Assert.assertEquals(processed.getSide(), analysed.getSide());
+    }
+
     private ReaderWay constructSidedWay(String side) {
         ReaderWay way = new ReaderWay(1);
         way.setTag("sidewalk", side);
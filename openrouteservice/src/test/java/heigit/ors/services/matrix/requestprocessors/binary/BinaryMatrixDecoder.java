@@ -0,0 +1,86 @@
+package heigit.ors.services.matrix.requestprocessors.binary;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Reference decoder for the binary matrix format written by {@link BinaryMatrixResponseWriter}. Clients can port
+ * it directly: read the 16 byte header, then one float32 table per metric flag in the order duration, distance,
+ * weight, then the source and destination locations.
+ */
+public class BinaryMatrixDecoder {
+    public int metrics;
+    public int units;
+    public int rows;
+    public int columns;
+    /** Tables indexed like {@link BinaryMatrixResponseWriter#METRICS_ORDER}, null if the metric is absent. */
+    public float[][] tables = new float[3][];
+    /** Interleaved longitude, latitude values. */
+    public double[] sources;
+    public double[] destinations;
+    public float[] sourceSnappedDistances;
+    public float[] destinationSnappedDistances;
+    public String[] sourceNames;
+    public String[] destinationNames;
+
+    public static BinaryMatrixDecoder decode(byte[] data) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(data).order(ByteOrder.LITTLE_ENDIAN);
+        BinaryMatrixDecoder res = new BinaryMatrixDecoder();
+
+        for (byte b : BinaryMatrixResponseWriter.MAGIC) {
+            if (buffer.get() != b)
+                throw new IOException("Not a binary matrix response.");
+        }
+        if (buffer.get() != BinaryMatrixResponseWriter.VERSION)
+            throw new IOException("Unsupported format version.");
+
+        res.metrics = buffer.get();
+        res.units = buffer.get();
+        boolean hasNames = (buffer.get() & BinaryMatrixResponseWriter.FLAG_LOCATION_NAMES) != 0;
+        res.rows = buffer.getInt();
+        res.columns = buffer.getInt();
+
+        for (int i = 0; i < BinaryMatrixResponseWriter.METRICS_ORDER.length; i++) {
+            if ((res.metrics & BinaryMatrixResponseWriter.METRICS_ORDER[i]) != 0) {
+                float[] table = new float[res.rows * res.columns];
+                buffer.asFloatBuffer().get(table);
+                buffer.position(buffer.position() + table.length * 4);
+                res.tables[i] = table;
+            }
+        }
+
+        res.sources = new double[2 * res.rows];
+        res.sourceSnappedDistances = new float[res.rows];
+        res.sourceNames = hasNames ? new String[res.rows] : null;
+        readLocations(buffer, res.sources, res.sourceSnappedDistances, res.sourceNames);
+
+        res.destinations = new double[2 * res.columns];
+        res.destinationSnappedDistances = new float[res.columns];
+        res.destinationNames = hasNames ? new String[res.columns] : null;
+        readLocations(buffer, res.destinations, res.destinationSnappedDistances, res.destinationNames);
+
+        if (buffer.hasRemaining())
+            throw new IOException("Unexpected data after the last location.");
+
+        return res;
+    }
+
+    private static void readLocations(ByteBuffer buffer, double[] coordinates, float[] snappedDistances, String[] names) {
+        for (int i = 0; i < snappedDistances.length; i++) {
+            coordinates[2 * i] = buffer.getDouble();
+            coordinates[2 * i + 1] = buffer.getDouble();
+            snappedDistances[i] = buffer.getFloat();
+
+            if (names != null) {
+                int length = buffer.getInt();
+                if (length >= 0) {
+                    byte[] name = new byte[length];
+                    buffer.get(name);
+                    names[i] = new String(name, StandardCharsets.UTF_8);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package heigit.ors.services.matrix.requestprocessors.binary;
+
+import com.vividsolutions.jts.geom.Coordinate;
+import heigit.ors.common.DistanceUnit;
+import heigit.ors.matrix.MatrixMetricsType;
+import heigit.ors.matrix.MatrixResult;
+import heigit.ors.matrix.ResolvedLocation;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class BinaryMatrixResponseWriterTest {
+    private static float[] createTable(int size, Random random) {
+        float[] values = new float[size];
+        for (int i = 0; i < size; i++)
+            values[i] = random.nextInt(10) == 0 ? -1 : random.nextFloat() * 100000;
+        return values;
+    }
+
+    @Test
+    public void roundTripsTablesAndLocations() throws Exception {
+        Random random = new Random(42);
+        ResolvedLocation[] sources = new ResolvedLocation[] {
+                new ResolvedLocation(new Coordinate(8.681495, 49.41461), "Hauptstrasse", 12.5),
+                null,
+                new ResolvedLocation(new Coordinate(8.687872, 49.420318), null, 3)
+        };
+        ResolvedLocation[] destinations = new ResolvedLocation[] {
+                new ResolvedLocation(new Coordinate(8.686507, 49.41943), "Bismarckplatz", 0)
+        };
+
+        MatrixResult result = new MatrixResult(sources, destinations);
+        float[] durations = createTable(3, random);
+        float[] distances = createTable(3, random);
+        result.setTable(MatrixMetricsType.Duration, durations);
+        result.setTable(MatrixMetricsType.Distance, distances);
+
+        int metrics = MatrixMetricsType.Duration | MatrixMetricsType.Distance;
+        BinaryMatrixResponseWriter writer = new BinaryMatrixResponseWriter(result, metrics, DistanceUnit.Kilometers, true);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writer.write(out);
+
+        assertEquals(writer.getContentLength(), out.size());
+
+        BinaryMatrixDecoder decoded = BinaryMatrixDecoder.decode(out.toByteArray());
+        assertEquals(metrics, decoded.metrics);
+        assertEquals(DistanceUnit.Kilometers.ordinal(), decoded.units);
+        assertEquals(3, decoded.rows);
+        assertEquals(1, decoded.columns);
+        assertArrayEquals(durations, decoded.tables[0], 0);
+        assertArrayEquals(distances, decoded.tables[1], 0);
+        assertNull(decoded.tables[2]);
+
+        assertEquals(8.681495, decoded.sources[0], 0);
+        assertTrue(Double.isNaN(decoded.sources[2]));
+        assertEquals(12.5f, decoded.sourceSnappedDistances[0], 0);
+        assertEquals("Hauptstrasse", decoded.sourceNames[0]);
+        assertNull(decoded.sourceNames[2]);
+        assertEquals("Bismarckplatz", decoded.destinationNames[0]);
+    }
+
+    @Test
+    public void writesLargeTablesAcrossBuffers() throws Exception {
+        Random random = new Random(7);
+        int size = 150;
+        ResolvedLocation[] locations = new ResolvedLocation[size];
+        for (int i = 0; i < size; i++)
+            locations[i] = new ResolvedLocation(new Coordinate(8 + random.nextDouble(), 49 + random.nextDouble()), null, random.nextDouble());
+
+        MatrixResult result = new MatrixResult(locations, locations);
+        float[] durations = createTable(size * size, random);
+        result.setTable(MatrixMetricsType.Duration, durations);
+
+        BinaryMatrixResponseWriter writer = new BinaryMatrixResponseWriter(result, MatrixMetricsType.Duration, DistanceUnit.Meters, false);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writer.write(out);
+
+        assertEquals(16 + 4 * size * size + 2 * 20 * size, out.size());
+        assertEquals(writer.getContentLength(), out.size());
+
+        BinaryMatrixDecoder decoded = BinaryMatrixDecoder.decode(out.toByteArray());
+        assertArrayEquals(durations, decoded.tables[0], 0);
+        assertNull(decoded.sourceNames);
+        assertEquals(locations[size - 1].getCoordinate().y, decoded.destinations[2 * size - 1], 0);
+    }
+}
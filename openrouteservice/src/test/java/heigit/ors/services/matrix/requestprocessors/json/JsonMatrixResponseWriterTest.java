@@ -0,0 +1,70 @@
+package heigit.ors.services.matrix.requestprocessors.json;
+
+import com.vividsolutions.jts.geom.Coordinate;
+import heigit.ors.matrix.ResolvedLocation;
+import heigit.ors.util.FormatUtility;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.Test;
+
+import java.io.StringWriter;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+public class JsonMatrixResponseWriterTest {
+    @Test
+    public void writesTablesLikeJsonTree() throws Exception {
+        int rows = 30;
+        int columns = 40;
+        float[] values = new float[rows * columns];
+        Random random = new Random(42);
+        for (int i = 0; i < values.length; i++) {
+            int kind = random.nextInt(5);
+            if (kind == 0)
+                values[i] = -1;
+            else if (kind == 1)
+                values[i] = random.nextInt(1000);
+            else
+                values[i] = random.nextFloat() * (kind == 2 ? 1 : 1000000);
+        }
+
+        JSONArray jTable = new JSONArray();
+        for (int i = 0; i < rows; i++) {
+            JSONArray jRow = new JSONArray();
+            for (int j = 0; j < columns; j++) {
+                float value = values[i * columns + j];
+                jRow.put(value == -1 ? JSONObject.NULL : FormatUtility.roundToDecimals(value, 2));
+            }
+            jTable.put(jRow);
+        }
+        JSONObject expected = new JSONObject(true);
+        expected.put("durations", jTable);
+
+        StringWriter out = new StringWriter();
+        JsonMatrixResponseWriter writer = new JsonMatrixResponseWriter(out);
+        writer.startResponse();
+        writer.writeTable("durations", values, rows, columns);
+        writer.endResponse();
+
+        assertEquals(expected.toString(), out.toString());
+    }
+
+    @Test
+    public void writesLocations() throws Exception {
+        ResolvedLocation[] locations = new ResolvedLocation[] {
+                new ResolvedLocation(new Coordinate(8.6812345678, -49.4141), "Hauptstrasse \"1\"", 12.345),
+                null,
+                new ResolvedLocation(new Coordinate(-0.0000004, 0.5), null, 0)
+        };
+
+        StringWriter out = new StringWriter();
+        JsonMatrixResponseWriter writer = new JsonMatrixResponseWriter(out);
+        writer.startResponse();
+        writer.writeLocations("sources", locations, true);
+        writer.endResponse();
+
+        assertEquals("{\"sources\":[{\"location\":[8.681235,-49.4141],\"name\":\"Hauptstrasse \\\"1\\\"\",\"snapped_distance\":12.35},"
+                + "{\"location\":null},{\"location\":[0,0.5],\"snapped_distance\":0}]}", out.toString());
+    }
+}
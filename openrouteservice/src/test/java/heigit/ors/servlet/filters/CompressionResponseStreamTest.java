@@ -0,0 +1,179 @@
+package heigit.ors.servlet.filters;
+
+import org.junit.Test;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class CompressionResponseStreamTest {
+    private static final int MINIMUM_SIZE = 1024;
+
+    /**
+     * Records what is sent to the client through a servlet response.
+     */
+    private static class Client {
+        private final ByteArrayOutputStream body = new ByteArrayOutputStream();
+        private final Map<String, String> headers = new HashMap<>();
+        private int contentLength = -1;
+
+        private final ServletOutputStream outputStream = new ServletOutputStream() {
+            @Override
+            public void write(int b) {
+                body.write(b);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+                body.write(b, off, len);
+            }
+
+            @Override
+            public boolean isReady() {
+                return true;
+            }
+
+            @Override
+            public void setWriteListener(WriteListener writeListener) {
+            }
+        };
+
+        HttpServletResponse createResponse() {
+            return (HttpServletResponse) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { HttpServletResponse.class }, (proxy, method, args) -> {
+                switch (method.getName()) {
+                    case "getOutputStream":
+                        return outputStream;
+                    case "addHeader":
+                    case "setHeader":
+                        headers.put((String) args[0], (String) args[1]);
+                        return null;
+                    case "setContentLength":
+                        contentLength = (Integer) args[0];
+                        return null;
+                    default:
+                        return getDefaultValue(method);
+                }
+            });
+        }
+    }
+
+    private static HttpServletRequest createRequest(String acceptEncoding) {
+        return (HttpServletRequest) Proxy.newProxyInstance(CompressionResponseStreamTest.class.getClassLoader(), new Class<?>[] { HttpServletRequest.class }, (proxy, method, args) -> {
+            if ("getHeader".equals(method.getName()) && "accept-encoding".equalsIgnoreCase((String) args[0]))
+                return acceptEncoding;
+            return getDefaultValue(method);
+        });
+    }
+
+    private static Object getDefaultValue(Method method) {
+        Class<?> type = method.getReturnType();
+        if (type == boolean.class)
+            return false;
+        if (type == int.class)
+            return 0;
+        if (type == long.class)
+            return 0L;
+        return null;
+    }
+
+    private static byte[] createBody(int size) {
+        StringBuilder sb = new StringBuilder(size + 32);
+        for (int i = 0; sb.length() < size; i++)
+            sb.append("{\"segment\":").append(i).append(",\"distance\":").append(i * 7 % 1000).append('}');
+        return Arrays.copyOf(sb.toString().getBytes(StandardCharsets.UTF_8), size);
+    }
+
+    private static byte[] readFully(InputStream in, int length) throws IOException {
+        byte[] result = new byte[length];
+        new DataInputStream(in).readFully(result);
+        return result;
+    }
+
+    private static byte[] readAll(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[4096];
+        int count;
+        while ((count = in.read(buffer)) != -1)
+            out.write(buffer, 0, count);
+        return out.toByteArray();
+    }
+
+    @Test
+    public void smallResponsesAreSentUncompressed() throws Exception {
+        Client client = new Client();
+        byte[] body = createBody(MINIMUM_SIZE);
+
+        CompressionResponseWrapper response = new CompressionResponseWrapper(client.createResponse(), ContentEncodingType.GZIP, MINIMUM_SIZE);
+        response.getOutputStream().write(body);
+        response.finishResponse();
+
+        assertNull(client.headers.get("Content-Encoding"));
+        assertEquals(body.length, client.contentLength);
+        assertArrayEquals(body, client.body.toByteArray());
+    }
+
+    @Test
+    public void largeResponsesAreCompressedWithGzip() throws Exception {
+        Client client = new Client();
+        byte[] body = createBody(10 * MINIMUM_SIZE);
+
+        new CompressionFilter().doFilter(createRequest("gzip, deflate"), client.createResponse(), (req, res) -> {
+            // written in pieces, so that the minimum size is exceeded in the middle of a write
+            res.getOutputStream().write(body, 0, 1000);
+            res.getOutputStream().write(body, 1000, body.length - 1000);
+        });
+
+        assertEquals(ContentEncodingType.GZIP, client.headers.get("Content-Encoding"));
+        assertEquals(-1, client.contentLength);
+        assertArrayEquals(body, readAll(new GZIPInputStream(new ByteArrayInputStream(client.body.toByteArray()))));
+    }
+
+    @Test
+    public void deflateIsUsedIfGzipIsNotAccepted() throws Exception {
+        Client client = new Client();
+        String text = new String(createBody(10 * MINIMUM_SIZE), StandardCharsets.UTF_8);
+
+        new CompressionFilter().doFilter(createRequest("deflate"), client.createResponse(), (req, res) -> res.getWriter().write(text));
+
+        assertEquals(ContentEncodingType.DEFLATE, client.headers.get("Content-Encoding"));
+        byte[] decompressed = readAll(new InflaterInputStream(new ByteArrayInputStream(client.body.toByteArray())));
+        assertEquals(text, new String(decompressed, StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void flushSendsTheDataWrittenSoFar() throws Exception {
+        Client client = new Client();
+        byte[] body = createBody(8 * MINIMUM_SIZE);
+        int flushed = 5 * MINIMUM_SIZE;
+
+        CompressionResponseWrapper response = new CompressionResponseWrapper(client.createResponse(), ContentEncodingType.GZIP, MINIMUM_SIZE);
+        response.getOutputStream().write(body, 0, flushed);
+        response.flushBuffer();
+
+        byte[] sent = client.body.toByteArray();
+        assertArrayEquals(Arrays.copyOf(body, flushed), readFully(new GZIPInputStream(new ByteArrayInputStream(sent)), flushed));
+
+        response.getOutputStream().write(body, flushed, body.length - flushed);
+        response.finishResponse();
+
+        assertArrayEquals(body, readAll(new GZIPInputStream(new ByteArrayInputStream(client.body.toByteArray()))));
+    }
+}